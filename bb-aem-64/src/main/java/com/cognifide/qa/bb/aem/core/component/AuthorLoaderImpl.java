@@ -19,12 +19,9 @@
  */
 package com.cognifide.qa.bb.aem.core.component;
 
-import static org.openqa.selenium.support.ui.ExpectedConditions.invisibilityOfElementLocated;
-
-import org.openqa.selenium.By;
-
 import com.cognifide.qa.bb.qualifier.PageObject;
 import com.cognifide.qa.bb.wait.BobcatWait;
+import com.cognifide.qa.bb.wait.BrowserSideCondition;
 import com.google.inject.Inject;
 
 /**
@@ -33,14 +30,14 @@ import com.google.inject.Inject;
 @PageObject
 public class AuthorLoaderImpl implements AuthorLoader {
 
-  private static final By LOADER_LOCATOR = By.cssSelector( //
-      ".coral-Modal-backdrop .coral-Wait.coral-Wait--center.coral-Wait--large");
+  private static final String LOADER_SELECTOR =
+      ".coral-Modal-backdrop .coral-Wait.coral-Wait--center.coral-Wait--large";
 
   @Inject
   private BobcatWait bobcatWait;
 
   @Override
   public void verifyIsHidden() {
-    bobcatWait.until(invisibilityOfElementLocated(LOADER_LOCATOR));
+    bobcatWait.until(BrowserSideCondition.hidden(LOADER_SELECTOR));
   }
 }
@@ -40,6 +40,7 @@ import com.cognifide.qa.bb.qualifier.PageObject;
 import com.cognifide.qa.bb.scope.frame.FramePath;
 import com.cognifide.qa.bb.utils.PageObjectInjector;
 import com.cognifide.qa.bb.wait.BobcatWait;
+import com.cognifide.qa.bb.wait.BrowserSideCondition;
 import com.cognifide.qa.bb.wait.Timings;
 import com.google.inject.Inject;
 
@@ -113,7 +114,7 @@ public class SidePanelImpl implements SidePanel {
     bobcatWait.tweak(Timings.MEDIUM_EXPLICIT).until(invisibilityOf(resultsLoader));
 
     bobcatWait.tweak(Timings.MEDIUM_EXPLICIT).ignoring(StaleElementReferenceException.class)
-        .until(visibilityOfAllElements(searchResults));
+        .until(BrowserSideCondition.visible(searchResults));
   }
 
   private WebElement getResult(String asset) {
@@ -33,6 +33,56 @@ public final class ConfigKeys {
    */
   public static final String PROXY_PORT = "proxy.port";
 
+  /**
+   * Keeps released proxy servers started, to be reused by other threads.
+   */
+  public static final String PROXY_POOL_ENABLED = "proxy.pool.enabled";
+
+  /**
+   * Maximum number of proxy servers started at once, 0 for no limit.
+   */
+  public static final String PROXY_POOL_MAX_SIZE = "proxy.pool.maxSize";
+
+  /**
+   * Time in seconds to wait for a proxy server when the maximum number of them is in use.
+   */
+  public static final String PROXY_POOL_ACQUIRE_TIMEOUT = "proxy.pool.acquireTimeout";
+
+  /**
+   * Captures request and response bodies in HARs, not only the headers.
+   */
+  public static final String PROXY_CAPTURE_CONTENT = "proxy.captureContent";
+
+  /**
+   * Time in seconds to wait for the requests in flight when an analysis is stopped, 0 to not wait.
+   */
+  public static final String PROXY_ANALYSIS_COMPLETION_TIMEOUT = "proxy.analysis.completionTimeout";
+
+  /**
+   * YAML file (on disk or on the classpath) with the rules of stubbed requests, empty for none.
+   */
+  public static final String PROXY_STUBS = "proxy.stubs";
+
+  /**
+   * Enables the response cache shared by all the proxy servers.
+   */
+  public static final String PROXY_CACHE_ENABLED = "proxy.cache.enabled";
+
+  /**
+   * Size (in megabytes) of the responses kept in memory by the response cache.
+   */
+  public static final String PROXY_CACHE_MAX_SIZE = "proxy.cache.maxSize";
+
+  /**
+   * Directory of the responses evicted from memory by the response cache, empty to drop them.
+   */
+  public static final String PROXY_CACHE_DIRECTORY = "proxy.cache.directory";
+
+  /**
+   * Size (in megabytes) of the responses kept in {@value #PROXY_CACHE_DIRECTORY}.
+   */
+  public static final String PROXY_CACHE_DISK_MAX_SIZE = "proxy.cache.diskMaxSize";
+
   public static final String LOGIN_TOKEN = "login.token.name";
 
   public static final String WEBDRIVER_CAP_PLATFORM_NAME = "webdriver.cap.platformName";
@@ -47,6 +97,28 @@ public final class ConfigKeys {
 
   public static final String WEBDRIVER_URL = "webdriver.url";
 
+  public static final String WEBDRIVER_POOL_ENABLED = "webdriver.pool.enabled";
+
+  /**
+   * Maximum number of idle browsers kept in the WebDriver pool.
+   */
+  public static final String WEBDRIVER_POOL_MAX_SIZE = "webdriver.pool.maxSize";
+
+  /**
+   * Number of idle browsers the WebDriver pool keeps pre-warmed in the background.
+   */
+  public static final String WEBDRIVER_POOL_WATERMARK = "webdriver.pool.watermark";
+
+  /**
+   * Interval (in seconds) between liveness probes of registered WebDriver instances.
+   */
+  public static final String WEBDRIVER_REGISTRY_PROBE_INTERVAL = "webdriver.registry.probeInterval";
+
+  /**
+   * Time (in seconds) after which an idle WebDriver instance is terminated by the registry.
+   */
+  public static final String WEBDRIVER_REGISTRY_IDLE_TIMEOUT = "webdriver.registry.idleTimeout";
+
   public static final String CONFIG_STRATEGY = "bobcat.config";
   public static final String WEBDRIVER_PROP_PREFIX = "webdriver.";
 
@@ -59,6 +131,52 @@ public final class ConfigKeys {
   public static final String TIMINGS_EXPLICIT_TIMEOUT = TIMINGS_PREFIX + "explicitTimeout";
   public static final String TIMINGS_IMPLICIT_TIMEOUT = TIMINGS_PREFIX + "implicitTimeout";
   public static final String TIMINGS_POLLING_INTERVAL = TIMINGS_PREFIX + "pollingInterval";
+  public static final String TIMINGS_INITIAL_POLLING_INTERVAL =
+      TIMINGS_PREFIX + "initialPollingInterval";
+  public static final String TIMINGS_WAIT_FOR_DOM_MUTATIONS =
+      TIMINGS_PREFIX + "waitForDomMutations";
+
+  /**
+   * Defers frame switches requested by page objects until the next WebDriver command.
+   */
+  public static final String FRAMES_LAZY_SWITCHING = "frames.lazySwitching";
+
+  /**
+   * Injects page object fields and calls their PostConstruct methods through reflection only,
+   * instead of generated accessors.
+   */
+  public static final String PAGEOBJECTS_REFLECTIVE_INJECTION = "pageobjects.reflectiveInjection";
+
+  /**
+   * Resolves the elements of page objects in {@code @Cached} lists of page objects with a single
+   * script call.
+   */
+  public static final String PAGEOBJECTS_BULK_LISTS = "pageobjects.bulkLists";
+
+  /**
+   * Finds the elements of nested page objects with a single script call for the whole chain of
+   * scopes.
+   */
+  public static final String PAGEOBJECTS_CHAINED_LOOKUPS = "pageobjects.chainedLookups";
+
+  /**
+   * Caches the elements of all WebElement fields of page objects, not only the ones annotated with
+   * Cached.
+   */
+  public static final String ELEMENTS_CACHE_LOOKUPS = "elements.cacheLookups";
+
+  /**
+   * Appends text typed into text inputs and textareas with a single script call instead of sending
+   * the keys and verifying the value.
+   */
+  public static final String ELEMENTS_FAST_INPUT = "elements.fastInput";
+
+  public static final String METRICS_ENABLED = "metrics.enabled";
+
+  /**
+   * Directory the per-test and suite metrics are written to.
+   */
+  public static final String METRICS_DIRECTORY = "metrics.directory";
 
   //Chrome options
   public static final String CHROME_HEADLESS = "webdriver.chrome.headless";
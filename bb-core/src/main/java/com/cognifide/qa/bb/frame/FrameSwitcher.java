@@ -25,15 +25,20 @@ import java.util.List;
 
 import org.openqa.selenium.WebDriver;
 
+import com.cognifide.qa.bb.constants.ConfigKeys;
 import com.cognifide.qa.bb.guice.ThreadScoped;
+import com.cognifide.qa.bb.metrics.Metrics;
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.WebDriverClosedListener;
+import com.cognifide.qa.bb.scope.cache.ElementCache;
 import com.cognifide.qa.bb.scope.frame.FrameDescriptor;
 import com.cognifide.qa.bb.scope.frame.FramePath;
 import com.cognifide.qa.bb.scope.frame.type.IndexedFrame;
 import com.cognifide.qa.bb.scope.frame.type.NamedFrame;
+import com.cognifide.qa.bb.scope.frame.type.ParentFrame;
 import com.cognifide.qa.bb.wait.BobcatWait;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.google.inject.name.Named;
 
 /**
  * <p>
@@ -46,6 +51,18 @@ import com.google.inject.Provider;
  * <p>
  * FrameSwitcher is a WebDriverClosedListener. It resets the frame stack automatically when the webdriver is closed.
  * </p>
+ * <p>
+ * FrameSwitcher keeps track of the frame the browser is actually in, so it only talks to the browser when the
+ * destination frame is a different one - e.g. switching to the frame of a nested page object and back again is
+ * free when both page objects are in the same frame. Climbing up the frame hierarchy is done with
+ * {@link ParentFrame} when that is cheaper than starting over from the top frame.
+ * </p>
+ * <p>
+ * With {@code frames.lazySwitching} enabled, {@link #switchTo(FramePath)} and {@link #switchBack()} only maintain the
+ * frame stack. The browser is switched to the frame on top of the stack just before the next WebDriver command that
+ * depends on it (see {@link LazyFrameSwitchingListener}), so page object methods that only delegate to other page
+ * objects don't cause any switching at all.
+ * </p>
  */
 @ThreadScoped
 public class FrameSwitcher implements WebDriverClosedListener {
@@ -58,14 +75,34 @@ public class FrameSwitcher implements WebDriverClosedListener {
   @Inject
   private BobcatWait bobcatWait;
 
+  @Inject
+  private Metrics metrics;
+
+  @Inject
+  private ElementCache elementCache;
+
+  @Inject
+  @Named(ConfigKeys.FRAMES_LAZY_SWITCHING)
+  private boolean lazySwitching;
+
   private boolean switchRequestComingFromFrameSwitcher;
 
+  // the frame the browser is in, null when unknown
+  private FramePath currentFrame = FramePath.root();
+
+  private long performedSwitches;
+
+  private long avoidedSwitches;
+
+  // switches that would have been performed relative to the top of the frame stack since the last actual switch
+  private long requestedSwitches;
+
   /**
    * Default constructor. It should not be used directly by the user. FrameSwitcher instances will be created by
    * Guice.
    */
   public FrameSwitcher() {
-    localDeque.push(new FramePath());
+    localDeque.push(FramePath.root());
   }
 
   /**
@@ -84,7 +121,7 @@ public class FrameSwitcher implements WebDriverClosedListener {
    * @param framePath FrameSwitcher will switch to the frame defined by this FramePath.
    */
   public void switchTo(FramePath framePath) {
-    doSwitch(localDeque.peek(), framePath);
+    requestSwitch(localDeque.peek(), framePath);
     localDeque.push(framePath);
   }
 
@@ -99,7 +136,18 @@ public class FrameSwitcher implements WebDriverClosedListener {
    */
   public void switchBack() {
     if (localDeque.size() > 1) {
-      doSwitch(localDeque.poll(), localDeque.peek());
+      requestSwitch(localDeque.poll(), localDeque.peek());
+    }
+  }
+
+  /**
+   * With lazy switching enabled, switches the browser to the frame on top of the frame stack, unless it is already
+   * there. It is called automatically before WebDriver commands; call it manually only before talking to the browser
+   * in a way Bobcat cannot notice (e.g. through a WebElement obtained in another frame).
+   */
+  public void switchToPendingFrame() {
+    if (lazySwitching && !switchRequestComingFromFrameSwitcher) {
+      performSwitch(localDeque.peek());
     }
   }
 
@@ -142,6 +190,7 @@ public class FrameSwitcher implements WebDriverClosedListener {
   public void putFramePathOnStack(int index) {
     if (!switchRequestComingFromFrameSwitcher) {
       expandFramePathStack(new IndexedFrame(index));
+      enterCurrentFrame(new IndexedFrame(index));
     }
   }
 
@@ -154,6 +203,7 @@ public class FrameSwitcher implements WebDriverClosedListener {
   public void putFramePathOnStack(String nameOrId) {
     if (!switchRequestComingFromFrameSwitcher) {
       expandFramePathStack(new NamedFrame(nameOrId));
+      enterCurrentFrame(new NamedFrame(nameOrId));
     }
   }
 
@@ -163,16 +213,41 @@ public class FrameSwitcher implements WebDriverClosedListener {
    */
   public void putDefaultFramePathOnStack() {
     if (!switchRequestComingFromFrameSwitcher) {
-      localDeque.push(new FramePath());
+      localDeque.push(FramePath.root());
+      currentFrame = FramePath.root();
+    }
+  }
+
+  /**
+   * Notes that the browser has switched to the parent frame, without changing the frame stack. TargetLocator uses this
+   * method when Bobcat user does switching using webDriver directly. Don't call this method manually.
+   */
+  public void parentFrameSelected() {
+    if (!switchRequestComingFromFrameSwitcher && currentFrame != null) {
+      currentFrame = currentFrame.getParent();
+    }
+  }
+
+  /**
+   * Notes that the browser has switched to a frame FrameSwitcher cannot describe (e.g. located by a WebElement), so the
+   * next switch will start over from the top frame. TargetLocator uses this method when Bobcat user does switching
+   * using webDriver directly. Don't call this method manually.
+   */
+  public void unknownFrameSelected() {
+    if (!switchRequestComingFromFrameSwitcher) {
+      currentFrame = null;
     }
   }
 
   /**
-   * Resetting the stack frame means clearing it and putting there the default frame
+   * Resetting the stack frame means clearing it and putting there the default frame. Cached elements are invalidated.
    */
   public void reset() {
     localDeque.clear();
-    localDeque.push(new FramePath());
+    localDeque.push(FramePath.root());
+    currentFrame = FramePath.root();
+    requestedSwitches = 0;
+    elementCache.invalidate();
   }
 
   /**
@@ -186,16 +261,60 @@ public class FrameSwitcher implements WebDriverClosedListener {
     return localDeque;
   }
 
-  private void doSwitch(FramePath current, FramePath destination) {
-    final List<FrameDescriptor> diff = current.diff(destination);
-    final WebDriver driver = provider.get();
+  /**
+   * @return number of frame switching commands sent to the browser
+   */
+  public long getPerformedSwitches() {
+    return performedSwitches;
+  }
+
+  /**
+   * @return number of frame switching commands saved by tracking the frame the browser is in (and by deferring the
+   * switches in lazy mode), compared to switching relative to the top of the frame stack
+   */
+  public long getAvoidedSwitches() {
+    return avoidedSwitches;
+  }
+
+  private void requestSwitch(FramePath current, FramePath destination) {
+    requestedSwitches += current.diff(destination).size();
+    if (!lazySwitching) {
+      performSwitch(destination);
+    }
+  }
+
+  private void performSwitch(FramePath destination) {
+    final List<FrameDescriptor> route = currentFrame == null
+        ? destination.getFramesFromTop()
+        : currentFrame.route(destination);
+    avoidedSwitches += Math.max(0, requestedSwitches - route.size());
+    requestedSwitches = 0;
+    if (route.isEmpty()) {
+      return;
+    }
+    performedSwitches += route.size();
 
+    final long started = metrics.start();
+    final WebDriver driver = provider.get();
+    // in case any of the switches fails
+    currentFrame = null;
     switchRequestComingFromFrameSwitcher = true;
-    diff.forEach(frameDescriptor -> frameDescriptor.switchTo(driver, bobcatWait));
-    switchRequestComingFromFrameSwitcher = false;
+    try {
+      route.forEach(frameDescriptor -> frameDescriptor.switchTo(driver, bobcatWait));
+    } finally {
+      switchRequestComingFromFrameSwitcher = false;
+    }
+    currentFrame = destination;
+    metrics.record(Metrics.FRAME, destination::toString, started);
+  }
+
+  private void enterCurrentFrame(FrameDescriptor frame) {
+    if (currentFrame != null) {
+      currentFrame = currentFrame.append(frame);
+    }
   }
 
   private void expandFramePathStack(FrameDescriptor additionalFrame) {
-    localDeque.push(new FramePath(localDeque.peek(), additionalFrame));
+    localDeque.push(localDeque.peek().append(additionalFrame));
   }
 }
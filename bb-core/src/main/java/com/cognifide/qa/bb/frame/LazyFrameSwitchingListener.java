@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.frame;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+
+import com.google.inject.Inject;
+
+/**
+ * Performs the frame switch deferred by {@link FrameSwitcher} (when {@code frames.lazySwitching} is enabled) just
+ * before a WebDriver command that depends on the current frame.
+ */
+public class LazyFrameSwitchingListener extends AbstractWebDriverEventListener {
+
+  private final FrameSwitcher frameSwitcher;
+
+  @Inject
+  public LazyFrameSwitchingListener(FrameSwitcher frameSwitcher) {
+    this.frameSwitcher = frameSwitcher;
+  }
+
+  @Override
+  public void beforeFindBy(By by, WebElement element, WebDriver driver) {
+    frameSwitcher.switchToPendingFrame();
+  }
+
+  @Override
+  public void beforeClickOn(WebElement element, WebDriver driver) {
+    frameSwitcher.switchToPendingFrame();
+  }
+
+  @Override
+  public void beforeChangeValueOf(WebElement element, WebDriver driver,
+      CharSequence[] keysToSend) {
+    frameSwitcher.switchToPendingFrame();
+  }
+
+  @Override
+  public void beforeScript(String script, WebDriver driver) {
+    frameSwitcher.switchToPendingFrame();
+  }
+
+  @Override
+  public void beforeGetText(WebElement element, WebDriver driver) {
+    frameSwitcher.switchToPendingFrame();
+  }
+}
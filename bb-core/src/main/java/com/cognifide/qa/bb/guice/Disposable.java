@@ -0,0 +1,35 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.guice;
+
+/**
+ * Thread-scoped objects implementing this interface are notified when the {@link ScopeContext} they
+ * belong to is closed, e.g. at the end of a test. Use it to release resources held by the object,
+ * like browsers or registered proxy filters. Suite-scoped objects are notified when the
+ * {@link SuiteScope} is closed at the end of the run.
+ */
+public interface Disposable {
+
+  /**
+   * Releases resources held by the object. Called once, when the owning {@link ScopeContext} (or
+   * the {@link SuiteScope}) is closed.
+   */
+  void dispose();
+}
@@ -0,0 +1,243 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.guice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Provider;
+
+/**
+ * <p>
+ * Holds the instances of {@link ThreadScoped} objects between explicit boundaries, e.g. for the
+ * duration of a single test. A context is entered with {@link ThreadLocalScope#enter()} and stays
+ * current for the entering thread until it is closed. It can also be attached to other threads
+ * with {@link ThreadLocalScope#attach(ScopeContext)}, so work done on behalf of a test (or a test
+ * running on a thread other than the one it was started on) sees the same instances.
+ * </p>
+ * <p>
+ * Closing the context disposes all its instances implementing {@link Disposable} (in reverse order
+ * of creation), runs the registered disposal hooks and releases all references.
+ * </p>
+ */
+public final class ScopeContext implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScopeContext.class);
+
+  private static final Object NULL = new Object();
+
+  private static final int INITIAL_CAPACITY = 32;
+
+  private final ThreadLocalScope scope;
+
+  private final ScopeContext previous;
+
+  private final List<Object> creationOrder = new ArrayList<>();
+
+  private final List<Runnable> disposalHooks = new ArrayList<>();
+
+  private Object[] instances = new Object[INITIAL_CAPACITY];
+
+  private volatile boolean closed;
+
+  ScopeContext(ThreadLocalScope scope, ScopeContext previous) {
+    this.scope = scope;
+    this.previous = previous;
+  }
+
+  /**
+   * Registers a hook that will be run when this context is closed.
+   *
+   * @param hook code to run on disposal
+   */
+  public synchronized void onDispose(Runnable hook) {
+    checkOpen();
+    disposalHooks.add(hook);
+  }
+
+  /**
+   * @return true if the context has already been closed
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Disposes all instances held by this context and detaches it from the calling thread if it is
+   * the current context there. Closing an already closed context has no effect.
+   */
+  @Override
+  public void close() {
+    List<Object> toDispose;
+    List<Runnable> hooks;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      toDispose = new ArrayList<>(creationOrder);
+      hooks = new ArrayList<>(disposalHooks);
+      creationOrder.clear();
+      disposalHooks.clear();
+      Arrays.fill(instances, null);
+    }
+    for (int i = toDispose.size() - 1; i >= 0; i--) {
+      Object instance = toDispose.get(i);
+      if (instance instanceof Disposable) {
+        dispose(((Disposable) instance)::dispose);
+      }
+    }
+    hooks.forEach(this::dispose);
+    scope.detach(this);
+  }
+
+  ScopeContext getPrevious() {
+    return previous;
+  }
+
+  /**
+   * Returns the instance held in the given slot, creating it with the unscoped provider if needed.
+   * The instance is created outside of the lock of the context, so threads the context is attached
+   * to don't block each other while it is being provisioned; threads asking for the same slot in
+   * the meantime wait for the instance being created.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T get(int slot, Provider<T> unscoped) {
+    while (true) {
+      Creation creation;
+      boolean creating;
+      synchronized (this) {
+        checkOpen();
+        if (slot >= instances.length) {
+          instances = Arrays.copyOf(instances, Math.max(slot + 1, instances.length * 2));
+        }
+        Object instance = instances[slot];
+        if (instance == null) {
+          creation = new Creation();
+          instances[slot] = creation;
+          creating = true;
+        } else if (instance instanceof Creation) {
+          creation = (Creation) instance;
+          // creation of the instance may have recursively asked for it
+          creating = creation.creator == Thread.currentThread();
+        } else {
+          return instance == NULL ? null : (T) instance;
+        }
+      }
+      if (creating) {
+        return (T) create(slot, creation, unscoped);
+      }
+      Object created = creation.await();
+      if (created != null) {
+        return created == NULL ? null : (T) created;
+      }
+      // the creation has failed, so this thread tries on its own
+    }
+  }
+
+  private Object create(int slot, Creation creation, Provider<?> unscoped) {
+    Object instance;
+    try {
+      Object created = unscoped.get();
+      instance = created == null ? NULL : created;
+    } catch (RuntimeException | Error e) {
+      synchronized (this) {
+        if (instances[slot] == creation) {
+          instances[slot] = null;
+        }
+      }
+      creation.complete(null);
+      throw e;
+    }
+    boolean stored;
+    synchronized (this) {
+      stored = !closed && instances[slot] == creation;
+      if (stored) {
+        instances[slot] = instance;
+        creationOrder.add(instance);
+      } else if (!closed) {
+        // a recursive creation has already provided the same instance
+        instance = instances[slot];
+      }
+    }
+    creation.complete(instance);
+    if (closed && !stored) {
+      if (instance instanceof Disposable) {
+        dispose(((Disposable) instance)::dispose);
+      }
+      checkOpen();
+    }
+    return instance == NULL ? null : instance;
+  }
+
+  /**
+   * Instance of a slot that is being created by the given thread.
+   */
+  private static final class Creation {
+
+    private final Thread creator = Thread.currentThread();
+
+    private Object instance;
+
+    private boolean completed;
+
+    private synchronized void complete(Object created) {
+      instance = created;
+      completed = true;
+      notifyAll();
+    }
+
+    /**
+     * @return created instance or null if the creation has failed
+     */
+    private synchronized Object await() {
+      boolean interrupted = false;
+      while (!completed) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      return instance;
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("ScopeContext has already been closed");
+    }
+  }
+
+  private void dispose(Runnable disposal) {
+    try {
+      disposal.run();
+    } catch (RuntimeException e) {
+      LOG.error("Error while disposing thread-scoped object", e);
+    }
+  }
+}
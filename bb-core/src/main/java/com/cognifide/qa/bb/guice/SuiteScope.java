@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.guice;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+
+/**
+ * <p>
+ * This class represents a scope that spans the whole test run. Test runners create an injector per
+ * test class, so plain singletons holding expensive resources (browser pools, proxies, executors)
+ * would be duplicated and leaked for each class - suite-scoped instances are created once per JVM
+ * and shared by all injectors. Bobcat's core module creates a scope binding using this class.
+ * </p>
+ * <p>
+ * An instance is created by the first injector that asks for it, so it is configured with the
+ * properties of that injector. Instances implementing {@link Disposable} are disposed, in reverse
+ * order of creation, when the scope is closed - by the test runner at the end of the run or by a
+ * shutdown hook, whichever comes first.
+ * </p>
+ */
+public class SuiteScope implements Scope {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SuiteScope.class);
+
+  private static final SuiteScope INSTANCE = new SuiteScope();
+
+  private final Map<Key<?>, Object> instances = new HashMap<>();
+
+  private final Deque<Disposable> disposables = new ArrayDeque<>();
+
+  private final AtomicBoolean hookRegistered = new AtomicBoolean();
+
+  SuiteScope() {
+    // use getInstance(), tests may create their own scopes
+  }
+
+  /**
+   * @return the scope shared by all injectors in this JVM
+   */
+  public static SuiteScope getInstance() {
+    return INSTANCE;
+  }
+
+  @Override
+  public <T> Provider<T> scope(final Key<T> key, final Provider<T> unscoped) {
+    return () -> get(key, unscoped);
+  }
+
+  // the monitor is reentrant, so suite-scoped dependencies can be created from within the provider
+  @SuppressWarnings("unchecked")
+  private synchronized <T> T get(Key<T> key, Provider<T> unscoped) {
+    if (instances.containsKey(key)) {
+      return (T) instances.get(key);
+    }
+    T instance = unscoped.get();
+    instances.put(key, instance);
+    if (instance instanceof Disposable) {
+      disposables.push((Disposable) instance);
+      if (hookRegistered.compareAndSet(false, true)) {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "bobcat-suite-scope"));
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Disposes all instances created so far and forgets them, so subsequent lookups create new
+   * ones. Safe to call more than once.
+   */
+  public void close() {
+    List<Disposable> toDispose;
+    synchronized (this) {
+      toDispose = new ArrayList<>(disposables);
+      disposables.clear();
+      instances.clear();
+    }
+    for (Disposable disposable : toDispose) {
+      try {
+        disposable.dispose();
+      } catch (RuntimeException e) {
+        LOG.warn("Could not dispose {}", disposable, e);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SuiteScope";
+  }
+}
@@ -19,42 +19,134 @@
  */
 package com.cognifide.qa.bb.guice;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
 
 /**
+ * <p>
  * This class represents thread-local scope. It stores all instances that are local to a thread. Bobcat's core
  * module creates a scope binding using this class. It should not be used directly by Bobcat's users.
+ * </p>
+ * <p>
+ * Instances are held by a {@link ScopeContext}. Test runners can open a context with {@link #enter()} (e.g. one per
+ * test), which bounds the lifetime of thread-scoped objects and disposes them when it is closed. When no context has
+ * been entered, each thread uses its own implicit context that lives as long as the thread.
+ * </p>
+ * <p>
+ * Each scoped key gets its own slot number when it is bound, so instance lookups are simple array accesses.
+ * </p>
  */
 public class ThreadLocalScope implements Scope {
 
-  private final ThreadLocal<Map<Key<?>, Object>> threadLocal = new ThreadLocal<>();
+  private final Map<Key<?>, Integer> slots = new ConcurrentHashMap<>();
+
+  private final AtomicInteger nextSlot = new AtomicInteger();
+
+  private final ThreadLocal<ScopeContext> enteredContext = new ThreadLocal<>();
+
+  private final ThreadLocal<ScopeContext> implicitContext =
+      ThreadLocal.withInitial(() -> new ScopeContext(this, null));
 
   @Override
   public <T> Provider<T> scope(final Key<T> key, final Provider<T> unscoped) {
-    return () -> {
-      Map<Key<?>, Object> threadScopedObjects = getThreadScoped();
+    final int slot = slots.computeIfAbsent(key, k -> nextSlot.getAndIncrement());
+    return () -> current().get(slot, unscoped);
+  }
+
+  /**
+   * Opens a new context and makes it current for the calling thread until it is closed. Contexts can be nested -
+   * closing the inner one makes the outer one current again.
+   *
+   * @return the new context
+   */
+  public ScopeContext enter() {
+    ScopeContext context = new ScopeContext(this, enteredContext.get());
+    enteredContext.set(context);
+    return context;
+  }
+
+  /**
+   * Makes an existing context current for the calling thread, e.g. to run work on behalf of a test on another
+   * thread. When the work is done, pass the returned value to {@link #restore(ScopeContext)}.
+   *
+   * @param context context to attach
+   * @return context that was current for the calling thread before, null if there was none
+   */
+  public ScopeContext attach(ScopeContext context) {
+    ScopeContext previous = enteredContext.get();
+    enteredContext.set(context);
+    return previous;
+  }
 
-      if (!threadScopedObjects.containsKey(key)) {
-        T newInstance = unscoped.get();
-        threadScopedObjects.put(key, newInstance);
+  /**
+   * Restores the context that was current for the calling thread before {@link #attach(ScopeContext)}.
+   *
+   * @param previous value returned by {@link #attach(ScopeContext)}
+   */
+  public void restore(ScopeContext previous) {
+    if (previous == null) {
+      enteredContext.remove();
+    } else {
+      enteredContext.set(previous);
+    }
+  }
+
+  /**
+   * Detaches the context from the calling thread, if it is the current context there, making the closest open
+   * outer context current again.
+   *
+   * @param context context to detach
+   */
+  void detach(ScopeContext context) {
+    if (enteredContext.get() == context) {
+      ScopeContext previous = context.getPrevious();
+      while (previous != null && previous.isClosed()) {
+        previous = previous.getPrevious();
       }
+      restore(previous);
+    }
+  }
 
-      return (T) threadScopedObjects.get(key);
-    };
+  /**
+   * @return true if a context has been entered or attached in the calling thread
+   */
+  public boolean isEntered() {
+    ScopeContext context = enteredContext.get();
+    return context != null && !context.isClosed();
   }
 
-  private Map<Key<?>, Object> getThreadScoped() {
-    Map<Key<?>, Object> threadScoped = threadLocal.get();
-    if (threadScoped == null) {
-      threadScoped = new HashMap<>();
-      threadLocal.set(threadScoped);
+  /**
+   * Closes the context entered in the calling thread, if there is one.
+   */
+  public void exit() {
+    ScopeContext context = enteredContext.get();
+    if (context != null) {
+      context.close();
     }
-    return threadScoped;
   }
 
+  /**
+   * @return the context current for the calling thread: the entered one or the implicit thread context
+   */
+  public ScopeContext current() {
+    ScopeContext context = enteredContext.get();
+    if (context != null && !context.isClosed()) {
+      return context;
+    }
+    if (context != null) {
+      detach(context);
+      return current();
+    }
+    return implicitContext.get();
+  }
+
+  @Override
+  public String toString() {
+    return "ThreadScoped";
+  }
 }
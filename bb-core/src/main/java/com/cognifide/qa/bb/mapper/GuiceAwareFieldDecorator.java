@@ -20,12 +20,20 @@
 package com.cognifide.qa.bb.mapper;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
 
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
 import org.openqa.selenium.interactions.Locatable;
 import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
 
+import com.cognifide.qa.bb.frame.FrameSwitcher;
+import com.cognifide.qa.bb.scope.cache.CachingElementLocator;
+import com.cognifide.qa.bb.scope.cache.CachingElementLocatorFactory;
+import com.cognifide.qa.bb.scope.cache.ElementCache;
+import com.cognifide.qa.bb.scope.cache.StaleElementRetryingHandler;
 import com.cognifide.qa.bb.webelement.BobcatWebElementContext;
 import com.cognifide.qa.bb.webelement.BobcatWebElementFactory;
 import com.google.inject.Inject;
@@ -38,6 +46,8 @@ public class GuiceAwareFieldDecorator extends DefaultFieldDecorator {
 
   private final BobcatWebElementFactory bobcatWebElementFactory;
 
+  private final FrameSwitcher frameSwitcher;
+
   /**
    * Constructor. Initializes decorator with the element locator factory that will be used for
    * producing
@@ -48,8 +58,30 @@ public class GuiceAwareFieldDecorator extends DefaultFieldDecorator {
    */
   public GuiceAwareFieldDecorator(ElementLocatorFactory factory,
       BobcatWebElementFactory bobcatWebElementFactory) {
+    this(factory, bobcatWebElementFactory, null);
+  }
+
+  private GuiceAwareFieldDecorator(ElementLocatorFactory factory,
+      BobcatWebElementFactory bobcatWebElementFactory, FrameSwitcher frameSwitcher) {
     super(factory);
     this.bobcatWebElementFactory = bobcatWebElementFactory;
+    this.frameSwitcher = frameSwitcher;
+  }
+
+  /**
+   * Constructor. Initializes decorator with the element locator factory that will be used for
+   * producing values for decorated fields, caching the elements according to the element cache.
+   *
+   * @param factory                 represents ElementLocatorFactory
+   * @param bobcatWebElementFactory instance of BobcatWebElementFactory
+   * @param elementCache            decides which elements are cached
+   * @param frameSwitcher           switches the browser to the frame of cached elements
+   */
+  public GuiceAwareFieldDecorator(ElementLocatorFactory factory,
+      BobcatWebElementFactory bobcatWebElementFactory, ElementCache elementCache,
+      FrameSwitcher frameSwitcher) {
+    this(new CachingElementLocatorFactory(factory, elementCache), bobcatWebElementFactory,
+        frameSwitcher);
   }
 
   /**
@@ -80,4 +112,17 @@ public class GuiceAwareFieldDecorator extends DefaultFieldDecorator {
     }
   }
 
+  /**
+   * Cached elements are re-located when they turn out to be stale.
+   */
+  @Override
+  protected WebElement proxyForLocator(ClassLoader loader, ElementLocator locator) {
+    if (locator instanceof CachingElementLocator && frameSwitcher != null) {
+      return (WebElement) Proxy.newProxyInstance(loader,
+          new Class[] {WebElement.class, WrapsElement.class, Locatable.class},
+          new StaleElementRetryingHandler((CachingElementLocator) locator, frameSwitcher));
+    }
+    return super.proxyForLocator(loader, locator);
+  }
+
 }
@@ -19,35 +19,39 @@
  */
 package com.cognifide.qa.bb.mapper;
 
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.frame.FrameSwitcher;
+import com.cognifide.qa.bb.mapper.PageObjectMetadata.InjectableField;
+import com.cognifide.qa.bb.mapper.field.FieldProvider;
 import com.cognifide.qa.bb.qualifier.Frame;
 import com.cognifide.qa.bb.scope.ContextStack;
 import com.cognifide.qa.bb.scope.PageObjectContext;
+import com.cognifide.qa.bb.scope.cache.ElementCache;
 import com.cognifide.qa.bb.scope.frame.FrameMap;
 import com.cognifide.qa.bb.scope.frame.FramePath;
-import com.cognifide.qa.bb.utils.AopUtil;
 import com.cognifide.qa.bb.webelement.BobcatWebElementFactory;
-import com.google.inject.Inject;
+import com.google.inject.Key;
 import com.google.inject.Provider;
+import com.google.inject.name.Names;
 import com.google.inject.spi.InjectionListener;
 import com.google.inject.spi.TypeEncounter;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.support.PageFactory;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.openqa.selenium.support.pagefactory.FieldDecorator;
 
 /**
  * This class manages injection of page objects. It is registered as an injection handler in
  * CoreModule. Users should not use this class directly.
+ * <p>
+ * Reflective lookups are done once per page object class (see {@link PageObjectMetadata}) and the
+ * field providers are matched with the fields on the first injection, so the following injections
+ * only set the values.
  */
 public class PageObjectInjectorListener implements InjectionListener<Object> {
 
-  private static final Logger LOG = LoggerFactory.getLogger(PageObjectInjectorListener.class);
-
   private final Provider<BobcatWebElementFactory> bobcatWebElementFactoryProvider;
 
   private final Provider<WebDriver> webDriverProvider;
@@ -58,6 +62,14 @@ public class PageObjectInjectorListener implements InjectionListener<Object> {
 
   private final Provider<FrameMap> frameMap;
 
+  private final Provider<String> reflectiveInjection;
+
+  private final Provider<ElementCache> elementCache;
+
+  private final Provider<FrameSwitcher> frameSwitcher;
+
+  private volatile List<ProvidedField> providedFields;
+
   /**
    * Constructor of the listener. Initializes all the fields.
    *
@@ -69,6 +81,10 @@ public class PageObjectInjectorListener implements InjectionListener<Object> {
     this.registry = typeEncounter.getProvider(FieldProviderRegistry.class);
     this.frameMap = typeEncounter.getProvider(FrameMap.class);
     this.bobcatWebElementFactoryProvider = typeEncounter.getProvider(BobcatWebElementFactory.class);
+    this.elementCache = typeEncounter.getProvider(ElementCache.class);
+    this.frameSwitcher = typeEncounter.getProvider(FrameSwitcher.class);
+    this.reflectiveInjection = typeEncounter.getProvider(
+        Key.get(String.class, Names.named(ConfigKeys.PAGEOBJECTS_REFLECTIVE_INJECTION)));
   }
 
   /**
@@ -77,19 +93,21 @@ public class PageObjectInjectorListener implements InjectionListener<Object> {
    */
   @Override
   public void afterInjection(Object injectee) {
-    setFramePath(injectee);
-    initFindByFields(injectee);
-    initPageObjectFields(injectee);
-    invokePostConstruct(injectee);
+    PageObjectMetadata metadata = PageObjectMetadata
+        .of(injectee.getClass(), Boolean.parseBoolean(reflectiveInjection.get()));
+    setFramePath(injectee, metadata);
+    initFindByFields(injectee, metadata);
+    initPageObjectFields(injectee, metadata);
+    metadata.invokePostConstruct(injectee);
   }
 
-  private void setFramePath(Object injectee) {
-    final FramePath framePath = getFramePath(injectee);
+  private void setFramePath(Object injectee, PageObjectMetadata metadata) {
+    final FramePath framePath = getFramePath(metadata);
     frameMap.get().put(injectee, framePath);
   }
 
-  private FramePath getFramePath(Object injectee) {
-    Frame frame = injectee.getClass().getAnnotation(Frame.class);
+  private FramePath getFramePath(PageObjectMetadata metadata) {
+    Frame frame = metadata.getFrame();
     if (frame == null) {
       return getCurrentContext().getFramePath();
     } else {
@@ -97,53 +115,83 @@ public class PageObjectInjectorListener implements InjectionListener<Object> {
     }
   }
 
-  private void initFindByFields(Object object) {
-    PageFactory.initElements(
+  /**
+   * Does what {@link org.openqa.selenium.support.PageFactory#initElements} does, limited to the
+   * fields that the decorator is able to handle.
+   */
+  private void initFindByFields(Object object, PageObjectMetadata metadata) {
+    if (metadata.getDecoratedFields().isEmpty()) {
+      return;
+    }
+    FieldDecorator decorator =
         new GuiceAwareFieldDecorator(getCurrentContext().getElementLocatorFactory(),
-            bobcatWebElementFactoryProvider.get()), object);
+            bobcatWebElementFactoryProvider.get(), elementCache.get(), frameSwitcher.get());
+    ClassLoader classLoader = object.getClass().getClassLoader();
+    for (InjectableField field : metadata.getDecoratedFields()) {
+      Object value = decorator.decorate(classLoader, field.getField());
+      if (value != null) {
+        field.set(object, value);
+      }
+    }
   }
 
-  private void initPageObjectFields(Object object) {
+  private void initPageObjectFields(Object object, PageObjectMetadata metadata) {
+    List<ProvidedField> fields = getProvidedFields(metadata);
+    if (fields.isEmpty()) {
+      return;
+    }
     PageObjectContext context = getCurrentContext();
-    Arrays.stream(AopUtil.getBaseClassForAopObject(object).getDeclaredFields())
-        .filter(field -> !field.isAnnotationPresent(Inject.class)).forEach(
-        field -> provideValue(object, context, field)
-    );
-
+    Set<FieldProvider> providers = registry.get().getProviders();
+    for (ProvidedField field : fields) {
+      provideValue(object, context, field, providers);
+    }
   }
 
-  private void provideValue(Object object, PageObjectContext context, Field field) {
-    registry.get().getProviders().stream().filter(provider -> provider.accepts(field)).findFirst()
+  private void provideValue(Object object, PageObjectContext context, ProvidedField field,
+      Set<FieldProvider> providers) {
+    // provider instances hold thread scoped objects, so only their types are remembered
+    providers.stream().filter(provider -> provider.getClass() == field.providerType).findFirst()
         .ifPresent(
-            provider -> provider.provideValue(object, field, context)
-                .ifPresent(value -> setFieldValue(field, object, value))
+            provider -> provider.provideValue(object, field.field.getField(), context)
+                .ifPresent(value -> field.field.set(object, value))
         );
   }
 
-  private void setFieldValue(Field f, Object object, Object value) {
-    try {
-      f.setAccessible(true);
-      f.set(object, value);
-    } catch (IllegalArgumentException | IllegalAccessException e) {
-      LOG.error("Can't set field", e);
+  private List<ProvidedField> getProvidedFields(PageObjectMetadata metadata) {
+    List<ProvidedField> fields = providedFields;
+    if (fields == null) {
+      fields = resolveProviders(metadata);
+      providedFields = fields;
     }
+    return fields;
   }
 
-  private void invokePostConstruct(Object object) {
-    Arrays.stream(object.getClass().getMethods())
-        .filter(method -> method.isAnnotationPresent(PostConstruct.class))
-        .forEach(method -> safeMethodInvoke(method, object));
-  }
-
-  private void safeMethodInvoke(Method method, Object object) {
-    try {
-      method.invoke(object);
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-      LOG.error("Can't invoke PostConstruct method: {}", method.getName(), e);
+  private List<ProvidedField> resolveProviders(PageObjectMetadata metadata) {
+    if (metadata.getOwnFields().isEmpty()) {
+      return Collections.emptyList();
     }
+    Set<FieldProvider> providers = registry.get().getProviders();
+    List<ProvidedField> fields = new ArrayList<>();
+    for (InjectableField field : metadata.getOwnFields()) {
+      providers.stream().filter(provider -> provider.accepts(field.getField())).findFirst()
+          .ifPresent(provider -> fields.add(new ProvidedField(field, provider.getClass())));
+    }
+    return Collections.unmodifiableList(fields);
   }
 
   private PageObjectContext getCurrentContext() {
     return locatorStackProvider.get().getCurrentContext(webDriverProvider.get());
   }
+
+  private static final class ProvidedField {
+
+    private final InjectableField field;
+
+    private final Class<?> providerType;
+
+    private ProvidedField(InjectableField field, Class<?> providerType) {
+      this.field = field;
+      this.providerType = providerType;
+    }
+  }
 }
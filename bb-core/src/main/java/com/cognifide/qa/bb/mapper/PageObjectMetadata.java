@@ -0,0 +1,336 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.mapper;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.qualifier.Frame;
+import com.cognifide.qa.bb.utils.AopUtil;
+import com.google.inject.Inject;
+
+/**
+ * Reflective description of a page object class, computed once per class and reused by
+ * {@link PageObjectInjectorListener} for all its instances: the class-level {@link Frame}, the fields
+ * that may be decorated by the PageFactory or provided by a
+ * {@link com.cognifide.qa.bb.mapper.field.FieldProvider} (with their setters already resolved) and
+ * the {@link PostConstruct} methods.
+ * <p>
+ * By default fields are set through method handles and public {@link PostConstruct} methods of
+ * public classes are called through functions generated with {@link LambdaMetafactory}, so the
+ * calls can be inlined by the JIT. Reflective metadata ({@link Field#set}, {@link Method#invoke})
+ * is used for the members that are not accessible this way, or for all of them when
+ * {@code pageobjects.reflectiveInjection} is enabled.
+ */
+final class PageObjectMetadata {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PageObjectMetadata.class);
+
+  private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  private static final MethodType POST_CONSTRUCT_TYPE =
+      MethodType.methodType(void.class, Object.class);
+
+  private static final ClassValue<PageObjectMetadata> GENERATED = cache(false);
+
+  private static final ClassValue<PageObjectMetadata> REFLECTIVE = cache(true);
+
+  private final Frame frame;
+
+  private final List<InjectableField> decoratedFields;
+
+  private final List<InjectableField> ownFields;
+
+  private final List<PostConstructMethod> postConstructMethods;
+
+  private PageObjectMetadata(Class<?> type, boolean reflective) {
+    frame = type.getAnnotation(Frame.class);
+    decoratedFields = collectDecoratedFields(type, reflective);
+    ownFields = collectOwnFields(type, reflective);
+    postConstructMethods = collectPostConstructMethods(type, reflective);
+  }
+
+  /**
+   * @param type class of the page object (possibly enhanced by Guice)
+   * @return the metadata of the given class, using generated accessors where possible
+   */
+  static PageObjectMetadata of(Class<?> type) {
+    return of(type, false);
+  }
+
+  /**
+   * @param type       class of the page object (possibly enhanced by Guice)
+   * @param reflective whether the fields and methods should be accessed through reflection only
+   * @return the metadata of the given class
+   */
+  static PageObjectMetadata of(Class<?> type, boolean reflective) {
+    return reflective ? REFLECTIVE.get(type) : GENERATED.get(type);
+  }
+
+  private static ClassValue<PageObjectMetadata> cache(boolean reflective) {
+    return new ClassValue<PageObjectMetadata>() {
+      @Override
+      protected PageObjectMetadata computeValue(Class<?> type) {
+        return new PageObjectMetadata(type, reflective);
+      }
+    };
+  }
+
+  /**
+   * @return the {@link Frame} annotation of the class or null if it is not present
+   */
+  Frame getFrame() {
+    return frame;
+  }
+
+  /**
+   * @return fields of the class hierarchy that the PageFactory is able to decorate, i.e. the ones
+   * that are neither annotated with {@link Inject} nor of a type other than WebElement or List
+   */
+  List<InjectableField> getDecoratedFields() {
+    return decoratedFields;
+  }
+
+  /**
+   * @return fields declared in the page object class (not its superclasses) that are not annotated
+   * with {@link Inject}, i.e. candidates for the field providers
+   */
+  List<InjectableField> getOwnFields() {
+    return ownFields;
+  }
+
+  /**
+   * Invokes all the public {@link PostConstruct} methods on the given page object.
+   *
+   * @param object page object
+   */
+  void invokePostConstruct(Object object) {
+    for (PostConstructMethod method : postConstructMethods) {
+      method.invoke(object);
+    }
+  }
+
+  private static List<InjectableField> collectDecoratedFields(Class<?> type, boolean reflective) {
+    List<InjectableField> fields = new ArrayList<>();
+    for (Class<?> current = type; current != Object.class && current != null;
+        current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (isCandidate(field) && isDecoratable(field)) {
+          fields.add(new InjectableField(field, reflective));
+        }
+      }
+    }
+    return Collections.unmodifiableList(fields);
+  }
+
+  private static boolean isCandidate(Field field) {
+    // synthetic fields (e.g. added by coverage tools) are never injected
+    return !field.isSynthetic() && !field.isAnnotationPresent(Inject.class);
+  }
+
+  private static boolean isDecoratable(Field field) {
+    return WebElement.class.isAssignableFrom(field.getType())
+        || List.class.isAssignableFrom(field.getType());
+  }
+
+  private static List<InjectableField> collectOwnFields(Class<?> type, boolean reflective) {
+    List<InjectableField> fields = new ArrayList<>();
+    for (Field field : AopUtil.getBaseClassForAopObject(type).getDeclaredFields()) {
+      if (isCandidate(field)) {
+        fields.add(new InjectableField(field, reflective));
+      }
+    }
+    return Collections.unmodifiableList(fields);
+  }
+
+  private static List<PostConstructMethod> collectPostConstructMethods(Class<?> type,
+      boolean reflective) {
+    List<PostConstructMethod> methods = new ArrayList<>();
+    for (Method method : type.getMethods()) {
+      if (method.isAnnotationPresent(PostConstruct.class)) {
+        methods.add(new PostConstructMethod(method, reflective));
+      }
+    }
+    return Collections.unmodifiableList(methods);
+  }
+
+  /**
+   * Field of a page object together with a setter that bypasses access checks.
+   */
+  static final class InjectableField {
+
+    private final Field field;
+
+    private final FieldSetter setter;
+
+    private InjectableField(Field field, boolean reflective) {
+      this.field = field;
+      field.setAccessible(true);
+      this.setter = reflective ? field::set : createSetter(field);
+    }
+
+    /**
+     * @return the reflected field
+     */
+    Field getField() {
+      return field;
+    }
+
+    /**
+     * Sets the field of the given page object.
+     *
+     * @param object page object
+     * @param value  value to set
+     */
+    void set(Object object, Object value) {
+      try {
+        setter.set(object, value);
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        LOG.error("Can't set field", e);
+      }
+    }
+
+    private static FieldSetter createSetter(Field field) {
+      try {
+        MethodHandle handle = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+        // statement lambda, so that the call site has the exact (Object,Object)void type
+        return (object, value) -> {
+          handle.invokeExact(object, value);
+        };
+      } catch (IllegalAccessException e) {
+        // e.g. static final fields, Field#set will report the problem when the value is set
+        LOG.debug("Falling back to reflection for field {}", field, e);
+        return field::set;
+      }
+    }
+  }
+
+  /**
+   * Public {@link PostConstruct} method of a page object.
+   */
+  private static final class PostConstructMethod {
+
+    private final Method method;
+
+    private final MethodInvoker invoker;
+
+    private PostConstructMethod(Method method, boolean reflective) {
+      this.method = method;
+      this.invoker = reflective ? method::invoke : createInvoker(method);
+    }
+
+    private void invoke(Object object) {
+      try {
+        invoker.invoke(object);
+      } catch (Throwable e) {
+        LOG.error("Can't invoke PostConstruct method: {}", method.getName(), e);
+      }
+    }
+
+    private static MethodInvoker createInvoker(Method method) {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (isLinkable(method)) {
+          return generateInvoker(lookup, method);
+        }
+        method.setAccessible(true);
+        MethodHandle handle = lookup.unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+          handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        MethodHandle invoker = handle.asType(POST_CONSTRUCT_TYPE);
+        return object -> {
+          invoker.invokeExact(object);
+        };
+      } catch (Throwable e) {
+        // e.g. methods with parameters, Method#invoke will report the problem when called
+        LOG.debug("Falling back to reflection for method {}", method, e);
+        return method::invoke;
+      }
+    }
+
+    /**
+     * Generates an implementation of {@link MethodInvoker} calling the method directly.
+     */
+    private static MethodInvoker generateInvoker(MethodHandles.Lookup lookup, Method method)
+        throws Throwable {
+      CallSite site = LambdaMetafactory.metafactory(lookup, "invoke",
+          MethodType.methodType(MethodInvoker.class),
+          POST_CONSTRUCT_TYPE,
+          lookup.unreflect(method),
+          MethodType.methodType(void.class, method.getDeclaringClass()));
+      return (MethodInvoker) site.getTarget().invokeExact();
+    }
+
+    /**
+     * Generated classes can call only public instance methods without parameters, declared in
+     * public classes that are visible from Bobcat's class loader.
+     */
+    private static boolean isLinkable(Method method) {
+      int modifiers = method.getModifiers();
+      return Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers)
+          && method.getParameterCount() == 0 && isAccessible(method.getDeclaringClass());
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+      for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+        if (!Modifier.isPublic(current.getModifiers())) {
+          return false;
+        }
+      }
+      try {
+        return Class.forName(type.getName(), false, PageObjectMetadata.class.getClassLoader())
+            == type;
+      } catch (ClassNotFoundException e) {
+        return false;
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface FieldSetter {
+
+    void set(Object object, Object value) throws Throwable;
+  }
+
+  @FunctionalInterface
+  private interface MethodInvoker {
+
+    void invoke(Object object) throws Throwable;
+  }
+}
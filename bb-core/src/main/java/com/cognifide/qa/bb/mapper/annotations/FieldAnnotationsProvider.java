@@ -42,14 +42,14 @@ public final class FieldAnnotationsProvider {
    * @param field    which annotations are checked
    * @param injector to provide Bobcat-augmented annotations
    * @return <ul>
-   * <li>{@link Annotations} for fields decorated with {@link org.openqa.selenium.support.FindBy}, {@link org.openqa.selenium.support.FindAll} or {@link org.openqa.selenium.support.FindBys}</li>
+   * <li>{@link Annotations} for fields decorated with {@link org.openqa.selenium.support.FindBy}, {@link org.openqa.selenium.support.FindAll} or {@link org.openqa.selenium.support.FindBys} (or the locator from {@link LocatorIndex}, if the field is indexed)</li>
    * <li>{@link BobcatAnnotations} for fields decorated with {@link com.cognifide.qa.bb.qualifier.FindPageObject}</li>
    * </ul>
    * @throws IllegalArgumentException when the field is not decorated with any of the above annotations
    */
   public static AbstractAnnotations create(Field field, Injector injector) {
     if (AnnotationsHelper.isFindByAnnotationPresent(field)) {
-      return new Annotations(field);
+      return LocatorIndex.getAnnotations(field).orElseGet(() -> new Annotations(field));
     }
     if (AnnotationsHelper.isFindPageObjectAnnotationPresent(field)) {
       return new BobcatAnnotations(field, injector);
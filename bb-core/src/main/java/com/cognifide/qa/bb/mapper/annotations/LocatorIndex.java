@@ -0,0 +1,182 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.mapper.annotations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.WeakHashMap;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.How;
+import org.openqa.selenium.support.pagefactory.AbstractAnnotations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gives access to the locators indexed at build time by the {@code bb-processor} annotation
+ * processor. Classes and fields that are not present in the index (e.g. when the processor is not
+ * used) are handled by parsing their annotations, as usual.
+ */
+public final class LocatorIndex {
+
+  /**
+   * Location of the index files, kept in sync with {@code LocatorIndexProcessor}.
+   */
+  public static final String INDEX_LOCATION = "META-INF/bobcat/locators.properties";
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocatorIndex.class);
+
+  private static final String CACHED_SUFFIX = ".cached";
+
+  private static final String CLASS_KEY = "";
+
+  /**
+   * Indexed entries grouped by the class name, entries of a class are keyed by the field name
+   * (an empty string for the selector of the class itself)
+   */
+  private static final Map<ClassLoader, Map<String, Map<String, String>>> INDEXES =
+      new WeakHashMap<>();
+
+  private static final ClassValue<IndexedClass> CLASSES = new ClassValue<IndexedClass>() {
+    @Override
+    protected IndexedClass computeValue(Class<?> type) {
+      return new IndexedClass(
+          getIndex(type.getClassLoader()).getOrDefault(type.getName(), Collections.emptyMap()));
+    }
+  };
+
+  private LocatorIndex() {
+    //util
+  }
+
+  /**
+   * @param type page object class
+   * @return true if the PageObject annotation of the class has been indexed
+   */
+  public static boolean isIndexed(Class<?> type) {
+    return CLASSES.get(type).indexed;
+  }
+
+  /**
+   * @param type page object class, see {@link #isIndexed(Class)}
+   * @return the selector specified in the PageObject annotation of the class, if any
+   */
+  public static Optional<By> getSelector(Class<?> type) {
+    return Optional.ofNullable(CLASSES.get(type).selector);
+  }
+
+  /**
+   * @param field field annotated with {@link org.openqa.selenium.support.FindBy}
+   * @return annotations built from the index or an empty Optional if the field is not indexed
+   */
+  public static Optional<AbstractAnnotations> getAnnotations(Field field) {
+    return Optional.ofNullable(CLASSES.get(field.getDeclaringClass()).fields.get(field.getName()));
+  }
+
+  private static Map<String, Map<String, String>> getIndex(ClassLoader classLoader) {
+    ClassLoader loader = classLoader == null ? ClassLoader.getSystemClassLoader() : classLoader;
+    synchronized (INDEXES) {
+      return INDEXES.computeIfAbsent(loader, LocatorIndex::load);
+    }
+  }
+
+  private static Map<String, Map<String, String>> load(ClassLoader classLoader) {
+    Properties index = new Properties();
+    try {
+      Enumeration<URL> resources = classLoader.getResources(INDEX_LOCATION);
+      for (URL url : Collections.list(resources)) {
+        try (InputStream stream = url.openStream()) {
+          index.load(stream);
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Could not read the locator index, annotations will be parsed at runtime", e);
+      return Collections.emptyMap();
+    }
+    Map<String, Map<String, String>> classes = new HashMap<>();
+    for (String key : index.stringPropertyNames()) {
+      int separator = key.indexOf('#');
+      String className = separator < 0 ? key : key.substring(0, separator);
+      String entry = separator < 0 ? CLASS_KEY : key.substring(separator + 1);
+      classes.computeIfAbsent(className, name -> new HashMap<>())
+          .put(entry, index.getProperty(key));
+    }
+    return classes;
+  }
+
+  private static By buildBy(String locator) {
+    int separator = locator.indexOf(':');
+    return How.valueOf(locator.substring(0, separator)).buildBy(locator.substring(separator + 1));
+  }
+
+  private static final class IndexedClass {
+
+    private final boolean indexed;
+
+    private final By selector;
+
+    private final Map<String, AbstractAnnotations> fields = new HashMap<>();
+
+    private IndexedClass(Map<String, String> entries) {
+      String locator = entries.get(CLASS_KEY);
+      indexed = locator != null;
+      selector = locator == null || locator.isEmpty() ? null : buildBy(locator);
+      entries.forEach((key, value) -> {
+        if (!CLASS_KEY.equals(key) && !key.endsWith(CACHED_SUFFIX)) {
+          boolean cached = Boolean.parseBoolean(entries.get(key + CACHED_SUFFIX));
+          fields.put(key, new IndexedAnnotations(buildBy(value), cached));
+        }
+      });
+    }
+  }
+
+  /**
+   * {@link AbstractAnnotations} returning the indexed locator.
+   */
+  private static final class IndexedAnnotations extends AbstractAnnotations {
+
+    private final By by;
+
+    private final boolean lookupCached;
+
+    private IndexedAnnotations(By by, boolean lookupCached) {
+      this.by = by;
+      this.lookupCached = lookupCached;
+    }
+
+    @Override
+    public By buildBy() {
+      return by;
+    }
+
+    @Override
+    public boolean isLookupCached() {
+      return lookupCached;
+    }
+  }
+}
@@ -58,7 +58,7 @@ public class CurrentFrameProvider implements FieldProvider {
     FramePath path = frameMap.get(pageObject);
 
     if (path == null) {
-      path = new FramePath();
+      path = FramePath.root();
     }
 
     Object currentFrame = null;
@@ -19,12 +19,14 @@
  */
 package com.cognifide.qa.bb.mapper.field;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.pagefactory.ElementLocator;
@@ -49,6 +51,8 @@ public class PageObjectListInvocationHandler implements InvocationHandler {
 
   private final FramePath framePath;
 
+  private final PageObjectListPrefetcher prefetcher;
+
   private List<Object> list;
 
   /**
@@ -65,11 +69,33 @@ public class PageObjectListInvocationHandler implements InvocationHandler {
    */
   public PageObjectListInvocationHandler(Class<?> genericType, ElementLocator elementLocator,
       PageObjectInjector injector, boolean cacheResults, FramePath framePath) {
+    this(genericType, elementLocator, injector, cacheResults, framePath, null);
+  }
+
+  /**
+   * Constructs the PageObjectListInvocationHandler which resolves the elements of all items at
+   * once.
+   *
+   * @param genericType    Type of the element stored in the list.
+   * @param elementLocator Locator that is used to fetch elements from the page.
+   * @param injector       Injector that will create items from webelements identified by
+   *                       elementLocator.
+   * @param cacheResults   If this flag is set, PageObjectListInvocationHandler will generate the
+   *                       list once.
+   *                       If it's false, list will be generated each time this handler is invoked.
+   * @param framePath      Injector performs injection in the frame indicated by framePath.
+   * @param prefetcher     Resolves the elements of the items before they are injected, null
+   *                       disables prefetching.
+   */
+  public PageObjectListInvocationHandler(Class<?> genericType, ElementLocator elementLocator,
+      PageObjectInjector injector, boolean cacheResults, FramePath framePath,
+      PageObjectListPrefetcher prefetcher) {
     this.type = genericType;
     this.injector = injector;
     this.locator = elementLocator;
     this.cacheResults = cacheResults;
     this.framePath = framePath;
+    this.prefetcher = prefetcher;
   }
 
   /**
@@ -87,9 +113,14 @@ public class PageObjectListInvocationHandler implements InvocationHandler {
       IllegalAccessException {
     if (list == null || !cacheResults) {
       List<WebElement> webElements = locator.findElements();
+      List<Map<Field, Object>> prefetched = prefetcher == null
+          ? Collections.emptyList() : prefetcher.prefetch(type, webElements);
       list = new ArrayList<>(webElements.size());
-      for (WebElement item : webElements) {
-        Object myItem = injector.inject(type, item, framePath);
+      for (int i = 0; i < webElements.size(); i++) {
+        WebElement item = webElements.get(i);
+        Object myItem = prefetched.isEmpty()
+            ? injector.inject(type, item, framePath)
+            : injector.inject(type, item, framePath, prefetched.get(i));
         list.add(myItem);
       }
       list = Collections.unmodifiableList(list);
@@ -0,0 +1,230 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.mapper.field;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.How;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.utils.AnnotationsHelper;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+
+/**
+ * Resolves the elements of page objects created for the items of a list in a single round trip.
+ * <p>
+ * For each item, the script finds the elements of the item class' fields annotated with a CSS or
+ * XPath {@link FindBy} (searched within the item, as the PageFactory would do). The results are
+ * used by the first lookup of the corresponding fields, see
+ * {@link com.cognifide.qa.bb.scope.webelement.PrefetchedLocatorFactory}. Fields that can't be
+ * resolved this way (e.g. {@link com.cognifide.qa.bb.qualifier.Global}, {@link FindBys} or other
+ * strategies) and elements that were not found are located as usual.
+ */
+public class PageObjectListPrefetcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PageObjectListPrefetcher.class);
+
+  private static final String CSS = "css";
+
+  private static final String XPATH = "xpath";
+
+  private static final String RESOLVE_SCRIPT =
+      "var items = arguments[0], selectors = arguments[1];"
+          + "function find(item, selector) {"
+          + "  var all = selector[2];"
+          + "  if (selector[0] === 'css') {"
+          + "    return all ? Array.prototype.slice.call(item.querySelectorAll(selector[1]))"
+          + "      : item.querySelector(selector[1]);"
+          + "  }"
+          + "  var result = (item.ownerDocument || document).evaluate(selector[1], item, null,"
+          + "    all ? XPathResult.ORDERED_NODE_SNAPSHOT_TYPE : XPathResult.FIRST_ORDERED_NODE_TYPE,"
+          + "    null);"
+          + "  if (!all) { return result.singleNodeValue; }"
+          + "  var nodes = [];"
+          + "  for (var i = 0; i < result.snapshotLength; i++) { nodes.push(result.snapshotItem(i)); }"
+          + "  return nodes;"
+          + "}"
+          + "return items.map(function(item) {"
+          + "  return selectors.map(function(selector) { return find(item, selector); });"
+          + "});";
+
+  private static final ClassValue<List<PrefetchedField>> FIELDS =
+      new ClassValue<List<PrefetchedField>>() {
+        @Override
+        protected List<PrefetchedField> computeValue(Class<?> type) {
+          return collectFields(type);
+        }
+      };
+
+  @Inject
+  private WebDriver webDriver;
+
+  @Inject
+  private Injector injector;
+
+  /**
+   * Finds the elements of the page objects that will be created for the given items.
+   *
+   * @param type  type of the list items ({@link com.cognifide.qa.bb.qualifier.PageObject} or
+   *              {@link com.cognifide.qa.bb.qualifier.PageObjectInterface})
+   * @param items elements the page objects will be scoped to
+   * @return for each item, the elements found for the fields of its page object (a WebElement or a
+   * list of them); an empty list if nothing has been resolved
+   */
+  public List<Map<Field, Object>> prefetch(Class<?> type, List<WebElement> items) {
+    List<PrefetchedField> fields =
+        FIELDS.get(PageObjectProviderHelper.getPageObjectClass(type, injector));
+    if (items.isEmpty() || fields.isEmpty() || !(webDriver instanceof JavascriptExecutor)) {
+      return Collections.emptyList();
+    }
+    Object result;
+    try {
+      result = ((JavascriptExecutor) webDriver).executeScript(RESOLVE_SCRIPT, items,
+          getSelectors(fields));
+    } catch (WebDriverException e) {
+      LOG.debug("Could not resolve the elements of {} in bulk", type.getName(), e);
+      return Collections.emptyList();
+    }
+    if (!(result instanceof List) || ((List<?>) result).size() != items.size()) {
+      return Collections.emptyList();
+    }
+    List<Map<Field, Object>> prefetched = new ArrayList<>(items.size());
+    for (Object row : (List<?>) result) {
+      prefetched.add(toMap(fields, (List<?>) row));
+    }
+    return prefetched;
+  }
+
+  private static Map<Field, Object> toMap(List<PrefetchedField> fields, List<?> elements) {
+    Map<Field, Object> map = new HashMap<>();
+    for (int i = 0; i < fields.size(); i++) {
+      Object element = elements.get(i);
+      if (element != null) {
+        map.put(fields.get(i).field, element);
+      }
+    }
+    return map;
+  }
+
+  private static List<List<Object>> getSelectors(List<PrefetchedField> fields) {
+    List<List<Object>> selectors = new ArrayList<>(fields.size());
+    for (PrefetchedField field : fields) {
+      selectors.add(field.selector);
+    }
+    return selectors;
+  }
+
+  private static List<PrefetchedField> collectFields(Class<?> type) {
+    List<PrefetchedField> fields = new ArrayList<>();
+    for (Class<?> current = type; current != null && current != Object.class;
+        current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        PrefetchedField prefetchedField = PrefetchedField.of(field);
+        if (prefetchedField != null) {
+          fields.add(prefetchedField);
+        }
+      }
+    }
+    return Collections.unmodifiableList(fields);
+  }
+
+  private static final class PrefetchedField {
+
+    private final Field field;
+
+    private final List<Object> selector;
+
+    private PrefetchedField(Field field, String strategy, String value, boolean multiple) {
+      this.field = field;
+      this.selector = Collections.unmodifiableList(
+          Arrays.asList(strategy, value, multiple));
+    }
+
+    /**
+     * @return the field description or null if the field can't be resolved by the script
+     */
+    private static PrefetchedField of(Field field) {
+      FindBy findBy = field.getAnnotation(FindBy.class);
+      if (findBy == null || Modifier.isStatic(field.getModifiers())
+          || field.isAnnotationPresent(Inject.class) || AnnotationsHelper.isGlobal(field)
+          || field.isAnnotationPresent(FindBys.class) || field.isAnnotationPresent(FindAll.class)) {
+        return null;
+      }
+      boolean multiple = isListOfElements(field);
+      if (!multiple && !WebElement.class.isAssignableFrom(field.getType())
+          || !hasSingleStrategy(findBy)) {
+        return null;
+      }
+      if (StringUtils.isNotEmpty(findBy.css())) {
+        return new PrefetchedField(field, CSS, findBy.css(), multiple);
+      }
+      if (StringUtils.isNotEmpty(findBy.xpath())) {
+        return new PrefetchedField(field, XPATH, findBy.xpath(), multiple);
+      }
+      if (StringUtils.isNotEmpty(findBy.using())) {
+        if (findBy.how() == How.CSS) {
+          return new PrefetchedField(field, CSS, findBy.using(), multiple);
+        }
+        if (findBy.how() == How.XPATH) {
+          return new PrefetchedField(field, XPATH, findBy.using(), multiple);
+        }
+      }
+      return null;
+    }
+
+    private static boolean isListOfElements(Field field) {
+      return List.class.equals(field.getType())
+          && field.getGenericType() instanceof ParameterizedType
+          && WebElement.class.equals(
+          ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0]);
+    }
+
+    private static boolean hasSingleStrategy(FindBy findBy) {
+      String[] values = {findBy.id(), findBy.name(), findBy.className(), findBy.css(),
+          findBy.tagName(), findBy.linkText(), findBy.partialLinkText(), findBy.xpath(),
+          findBy.using()};
+      int count = 0;
+      for (String value : values) {
+        if (StringUtils.isNotEmpty(value)) {
+          count++;
+        }
+      }
+      return count == 1;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.lang.reflect.Proxy;
 import java.util.List;
 import java.util.Optional;
 
+import com.cognifide.qa.bb.constants.ConfigKeys;
 import com.cognifide.qa.bb.qualifier.Cached;
 import com.cognifide.qa.bb.scope.PageObjectContext;
 import com.cognifide.qa.bb.scope.frame.FrameMap;
@@ -31,6 +32,7 @@ import com.cognifide.qa.bb.scope.frame.FramePath;
 import com.cognifide.qa.bb.utils.AnnotationsHelper;
 import com.cognifide.qa.bb.utils.PageObjectInjector;
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 
 /**
  * This class is a provider of Java proxies that will intercept access to PageObject fields that are
@@ -44,6 +46,13 @@ public class PageObjectListProxyProvider implements FieldProvider {
   @Inject
   private FrameMap frameMap;
 
+  @Inject
+  private PageObjectListPrefetcher prefetcher;
+
+  @Inject
+  @Named(ConfigKeys.PAGEOBJECTS_BULK_LISTS)
+  private boolean bulkLists;
+
   /**
    * PageObjectInjectorListener calls this method to check if the provider is able to handle
    * currently injected field.
@@ -72,11 +81,14 @@ public class PageObjectListProxyProvider implements FieldProvider {
         () -> new IllegalStateException(
             "The provided field was not a ParameterizedType: " + field));
 
+    boolean cacheResults = shouldCacheResults(field);
+    // lists that are not cached are found anew on each call, e.g. of size(), so prefetching
+    // their items would add a round trip to every call
     PageObjectListInvocationHandler handler =
         new PageObjectListInvocationHandler(genericType,
             context.getElementLocatorFactory().createLocator(field), injector,
-            shouldCacheResults(field),
-            framePath);
+            cacheResults,
+            framePath, bulkLists && cacheResults ? prefetcher : null);
 
     ClassLoader classLoader = genericType.getClassLoader();
     Object proxyInstance = Proxy.newProxyInstance(classLoader, new Class[] {List.class}, handler);
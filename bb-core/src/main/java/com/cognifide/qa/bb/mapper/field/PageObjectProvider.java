@@ -28,6 +28,7 @@ import java.util.Optional;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
 
+import com.cognifide.qa.bb.constants.ConfigKeys;
 import com.cognifide.qa.bb.exceptions.BobcatRuntimeException;
 import com.cognifide.qa.bb.scope.ContextStack;
 import com.cognifide.qa.bb.scope.PageObjectContext;
@@ -37,6 +38,7 @@ import com.cognifide.qa.bb.scope.nested.ScopedElementLocatorFactory;
 import com.google.inject.ConfigurationException;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.google.inject.name.Named;
 
 /**
  * This provider produces values for PageObject's fields. It tracks the context in which the objects
@@ -56,6 +58,10 @@ public class PageObjectProvider implements FieldProvider {
   @Inject
   private FrameMap frameMap;
 
+  @Inject
+  @Named(ConfigKeys.PAGEOBJECTS_CHAINED_LOOKUPS)
+  private boolean chainedLookups;
+
   /**
    * PageObjectInjectorListener calls this method to check if the provider is able to handle
    * currently injected field.
@@ -80,7 +86,7 @@ public class PageObjectProvider implements FieldProvider {
   @Override
   public Optional<Object> provideValue(Object pageObject, Field field, PageObjectContext context) {
     final ElementLocatorFactory elementLocatorFactory = new ScopedElementLocatorFactory(webDriver,
-        context.getElementLocatorFactory(), field, injector);
+        context.getElementLocatorFactory(), field, injector, chainedLookups);
     final FramePath framePath = frameMap.get(pageObject);
     contextStack.push(new PageObjectContext(elementLocatorFactory, framePath));
     Object scopedPageObject;
@@ -23,14 +23,18 @@ import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.WildcardType;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.By;
 
+import com.cognifide.qa.bb.mapper.annotations.LocatorIndex;
 import com.cognifide.qa.bb.qualifier.PageObject;
 import com.cognifide.qa.bb.qualifier.PageObjectInterface;
+import com.google.common.collect.MapMaker;
 import com.google.inject.Binding;
 import com.google.inject.Injector;
 import com.google.inject.internal.LinkedBindingImpl;
@@ -40,6 +44,10 @@ import com.google.inject.internal.LinkedBindingImpl;
  */
 public final class PageObjectProviderHelper {
 
+  // bindings of an injector don't change, while its page objects are injected over and over
+  private static final Map<Injector, Map<Class<?>, Class<?>>> PAGE_OBJECT_INTERFACE_BINDINGS =
+      new MapMaker().weakKeys().makeMap();
+
   private PageObjectProviderHelper() {
     // Empty for helper class
   }
@@ -61,10 +69,21 @@ public final class PageObjectProviderHelper {
   }
 
   public static Optional<By> getSelectorFromClass(Class<?> type, Injector injector) {
+    return getSelectorFromPageObjectClass(getPageObjectClass(type, injector));
+  }
+
+  /**
+   * Resolves the class of page objects injected for the given type.
+   *
+   * @param type     {@link PageObject} class or {@link PageObjectInterface}
+   * @param injector necessary for retrieving the binding in case of a {@link PageObjectInterface}
+   * @return the type itself or the class bound to the {@link PageObjectInterface}
+   */
+  public static Class<?> getPageObjectClass(Class<?> type, Injector injector) {
     if (type.isAnnotationPresent(PageObjectInterface.class)) {
-      type = retrieveBindingOfPageObjectInterface(type, injector);
+      return retrieveBindingOfPageObjectInterface(type, injector);
     }
-    return getSelectorFromPageObjectClass(type);
+    return type;
   }
 
   /**
@@ -90,6 +109,12 @@ public final class PageObjectProviderHelper {
   }
 
   private static Class<?> retrieveBindingOfPageObjectInterface(Class<?> type, Injector injector) {
+    return PAGE_OBJECT_INTERFACE_BINDINGS
+        .computeIfAbsent(injector, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(type, key -> lookUpBindingOfPageObjectInterface(key, injector));
+  }
+
+  private static Class<?> lookUpBindingOfPageObjectInterface(Class<?> type, Injector injector) {
     Binding<?> binding = injector.getBinding(type);
     if (binding instanceof LinkedBindingImpl) {
       type = ((LinkedBindingImpl) binding).getLinkedKey().getTypeLiteral().getRawType();
@@ -99,6 +124,9 @@ public final class PageObjectProviderHelper {
 
   //private to enforce users to handle the case of PageObjectInterface
   private static Optional<By> getSelectorFromPageObjectClass(Class<?> clazz) {
+    if (LocatorIndex.isIndexed(clazz)) {
+      return LocatorIndex.getSelector(clazz);
+    }
     PageObject pageObject = Objects.requireNonNull(clazz.getAnnotation(PageObject.class));
     return retrieveSelectorFromAnnotation(pageObject);
   }
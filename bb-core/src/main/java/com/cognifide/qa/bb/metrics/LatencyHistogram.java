@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe latency histogram with logarithmic buckets - the n-th bucket counts samples shorter
+ * than 2^n microseconds. Percentiles are therefore approximated by the upper bound of the bucket
+ * they fall into, limited by the longest sample recorded.
+ */
+public class LatencyHistogram {
+
+  private static final int BUCKETS = 40;
+
+  private final long[] buckets = new long[BUCKETS];
+
+  private long count;
+
+  private long total;
+
+  private long min = Long.MAX_VALUE;
+
+  private long max;
+
+  /**
+   * Records a single sample.
+   *
+   * @param nanos duration of the sample in nanoseconds
+   */
+  public synchronized void record(long nanos) {
+    long sample = Math.max(0, nanos);
+    buckets[bucketOf(sample)]++;
+    count++;
+    total += sample;
+    min = Math.min(min, sample);
+    max = Math.max(max, sample);
+  }
+
+  /**
+   * @return number of samples recorded so far
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * @return sum of all samples in nanoseconds
+   */
+  public synchronized long getTotal() {
+    return total;
+  }
+
+  /**
+   * @param quantile value between 0 and 1, e.g. 0.9 for the 90th percentile
+   * @return approximated duration (in nanoseconds) below which the given fraction of samples falls
+   */
+  public synchronized long getPercentile(double quantile) {
+    if (count == 0) {
+      return 0;
+    }
+    long threshold = (long) Math.ceil(quantile * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets[i];
+      if (seen >= threshold) {
+        return Math.max(min, Math.min(max, TimeUnit.MICROSECONDS.toNanos(1L << i)));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * @return summary of the histogram with durations in milliseconds, ready to be serialized
+   */
+  public synchronized Map<String, Object> toMap() {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", count);
+    summary.put("totalMs", toMillis(total));
+    summary.put("minMs", toMillis(count == 0 ? 0 : min));
+    summary.put("meanMs", toMillis(count == 0 ? 0 : total / count));
+    summary.put("p50Ms", toMillis(getPercentile(0.5)));
+    summary.put("p90Ms", toMillis(getPercentile(0.9)));
+    summary.put("p99Ms", toMillis(getPercentile(0.99)));
+    summary.put("maxMs", toMillis(max));
+    return summary;
+  }
+
+  private static int bucketOf(long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    return Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+  }
+
+  private static double toMillis(long nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+}
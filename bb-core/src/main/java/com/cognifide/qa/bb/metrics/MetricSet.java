@@ -0,0 +1,115 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.metrics;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Set of {@link LatencyHistogram}s grouped by category (e.g. {@value Metrics#WAIT}) and name (e.g.
+ * the page object method that waited), along with the peak levels of quantities like the number of
+ * operations in flight.
+ */
+public class MetricSet {
+
+  private final Map<String, Map<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+  private final Map<String, Map<String, AtomicLong>> peaks = new ConcurrentHashMap<>();
+
+  /**
+   * Records a sample in the histogram of the given category and name.
+   *
+   * @param category category of the measured operation
+   * @param name     name of the measured operation
+   * @param nanos    duration in nanoseconds
+   */
+  public void record(String category, String name, long nanos) {
+    histograms.computeIfAbsent(category, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(name, key -> new LatencyHistogram())
+        .record(nanos);
+  }
+
+  /**
+   * Records the current level of a quantity, keeping the highest one.
+   *
+   * @param category category of the measured quantity
+   * @param name     name of the measured quantity
+   * @param level    current level
+   */
+  public void recordLevel(String category, String name, long level) {
+    peaks.computeIfAbsent(category, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(name, key -> new AtomicLong())
+        .accumulateAndGet(level, Math::max);
+  }
+
+  /**
+   * @return true if nothing has been recorded since the last reset
+   */
+  public boolean isEmpty() {
+    return histograms.isEmpty() && peaks.isEmpty();
+  }
+
+  /**
+   * Removes all histograms and peak levels.
+   */
+  public void reset() {
+    histograms.clear();
+    peaks.clear();
+  }
+
+  /**
+   * @param limit maximum number of entries
+   * @return the entries (keyed with {@code category/name}) that took the most time in total
+   */
+  public Stream<Map.Entry<String, LatencyHistogram>> top(int limit) {
+    return histograms.entrySet().stream()
+        .flatMap(category -> category.getValue().entrySet().stream()
+            .<Map.Entry<String, LatencyHistogram>>map(entry -> new SimpleImmutableEntry<>(
+                category.getKey() + "/" + entry.getKey(), entry.getValue())))
+        .sorted(Comparator.comparingLong(
+            (Map.Entry<String, LatencyHistogram> entry) -> entry.getValue().getTotal()).reversed())
+        .limit(limit);
+  }
+
+  /**
+   * @return sorted summaries of all histograms and peak levels, ready to be serialized
+   */
+  public Map<String, Map<String, Map<String, Object>>> toMap() {
+    Map<String, Map<String, Map<String, Object>>> result = new TreeMap<>();
+    histograms.forEach((category, named) -> {
+      Map<String, Map<String, Object>> summaries =
+          result.computeIfAbsent(category, key -> new TreeMap<>());
+      named.forEach((name, histogram) -> summaries.put(name, histogram.toMap()));
+    });
+    peaks.forEach((category, named) -> {
+      Map<String, Map<String, Object>> summaries =
+          result.computeIfAbsent(category, key -> new TreeMap<>());
+      named.forEach(
+          (name, peak) -> summaries.put(name, Collections.singletonMap("peak", peak.get())));
+    });
+    return result;
+  }
+}
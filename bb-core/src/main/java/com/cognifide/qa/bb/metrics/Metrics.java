@@ -0,0 +1,226 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * <p>
+ * Entry point of Bobcat's performance metrics, enabled with {@code metrics.enabled}. Bobcat records
+ * the latency of:
+ * <ul>
+ * <li>WebDriver commands ({@value #WEBDRIVER}, see {@link MetricsListener}),
+ * <li>{@link com.cognifide.qa.bb.wait.BobcatWait} conditions ({@value #WAIT}, named after the page
+ * object method that waited),
+ * <li>frame switches ({@value #FRAME}, named after the destination frame path),
+ * <li>browser start-ups ({@value #BROWSER}),
+ * <li>traffic analyses ({@value #TRAFFIC}, named after their outcome).
+ * </ul>
+ * Peak levels of some quantities are recorded too, e.g. the number of traffic analyses in flight.
+ * </p>
+ * <p>
+ * Metrics of each test are written to a separate JSON file in {@code metrics.directory} by
+ * {@link #finishTest(String)}. Metrics of the whole suite are collected across all injectors
+ * created in the JVM (e.g. JUnit 5 creates one per test class) and written to
+ * {@value #SUMMARY_FILE} when the JVM shuts down.
+ * </p>
+ * <p>
+ * When metrics are disabled, {@link #start()} and {@link #record(String, String, long)} do not even
+ * read the clock.
+ * </p>
+ */
+@Singleton
+public class Metrics {
+
+  public static final String WEBDRIVER = "webdriver";
+
+  public static final String WAIT = "wait";
+
+  public static final String FRAME = "frame";
+
+  public static final String BROWSER = "browser";
+
+  public static final String TRAFFIC = "traffic";
+
+  static final String SUMMARY_FILE = "summary.json";
+
+  private static final Logger LOG = LoggerFactory.getLogger(Metrics.class);
+
+  private static final int TOP_ENTRIES = 10;
+
+  private static final MetricSet SUITE = new MetricSet();
+
+  private static final AtomicBoolean SUMMARY_SCHEDULED = new AtomicBoolean();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final boolean enabled;
+
+  private final Path directory;
+
+  private final Provider<TestMetrics> testMetrics;
+
+  /**
+   * Constructs the metrics and schedules writing of the suite summary when enabled.
+   *
+   * @param enabled     whether metrics are recorded
+   * @param directory   directory the JSON files are written to
+   * @param testMetrics provider of the metrics of the current test
+   */
+  @Inject
+  public Metrics(@Named(ConfigKeys.METRICS_ENABLED) boolean enabled,
+      @Named(ConfigKeys.METRICS_DIRECTORY) String directory,
+      Provider<TestMetrics> testMetrics) {
+    this.enabled = enabled;
+    this.directory = Paths.get(directory);
+    this.testMetrics = testMetrics;
+    if (enabled && SUMMARY_SCHEDULED.compareAndSet(false, true)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(this::writeSummary, "bobcat-metrics"));
+    }
+  }
+
+  /**
+   * @return true if metrics are recorded
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return the start time of a measured operation, to be passed to one of the record methods
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records an operation that started at the given time and has just finished.
+   *
+   * @param category category of the operation
+   * @param name     name of the operation
+   * @param started  value returned by {@link #start()}
+   */
+  public void record(String category, String name, long started) {
+    if (enabled) {
+      long elapsed = System.nanoTime() - started;
+      SUITE.record(category, name, elapsed);
+      testMetrics.get().record(category, name, elapsed);
+    }
+  }
+
+  /**
+   * Same as {@link #record(String, String, long)}, but the name is computed only when metrics are
+   * enabled.
+   *
+   * @param category category of the operation
+   * @param name     supplier of the name of the operation
+   * @param started  value returned by {@link #start()}
+   */
+  public void record(String category, Supplier<String> name, long started) {
+    if (enabled) {
+      record(category, name.get(), started);
+    }
+  }
+
+  /**
+   * Records the current level of a quantity, e.g. the number of operations in flight. The highest
+   * level is reported.
+   *
+   * @param category category of the quantity
+   * @param name     name of the quantity
+   * @param level    current level
+   */
+  public void recordLevel(String category, String name, long level) {
+    if (enabled) {
+      SUITE.recordLevel(category, name, level);
+      testMetrics.get().recordLevel(category, name, level);
+    }
+  }
+
+  /**
+   * Writes the metrics of the current test to {@code <metrics.directory>/<testName>.json} and
+   * resets them.
+   *
+   * @param testName name of the finished test
+   * @return metrics of the test as JSON, empty if metrics are disabled
+   */
+  public Optional<String> finishTest(String testName) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    TestMetrics metrics = testMetrics.get();
+    Optional<String> json = toJson(metrics);
+    metrics.reset();
+    json.ifPresent(content -> write(testName.replaceAll("[^\\w.\\-]+", "_") + ".json", content));
+    return json;
+  }
+
+  private void writeSummary() {
+    if (SUITE.isEmpty()) {
+      return;
+    }
+    toJson(SUITE).ifPresent(json -> write(SUMMARY_FILE, json));
+    StringBuilder summary = new StringBuilder("Operations that took the most time in total:");
+    SUITE.top(TOP_ENTRIES).forEach(entry -> summary
+        .append(String.format("%n  %s: %d calls, %d ms total, %d ms at p90", entry.getKey(),
+            entry.getValue().getCount(),
+            TimeUnit.NANOSECONDS.toMillis(entry.getValue().getTotal()),
+            TimeUnit.NANOSECONDS.toMillis(entry.getValue().getPercentile(0.9)))));
+    LOG.info(summary.toString());
+  }
+
+  private static Optional<String> toJson(MetricSet metrics) {
+    try {
+      return Optional
+          .of(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(metrics.toMap()));
+    } catch (JsonProcessingException e) {
+      LOG.warn("Could not serialize metrics", e);
+      return Optional.empty();
+    }
+  }
+
+  private void write(String fileName, String json) {
+    try {
+      Files.createDirectories(directory);
+      Files.write(directory.resolve(fileName), json.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      LOG.warn("Could not write metrics to {}", directory.resolve(fileName), e);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverEventListener;
+
+import com.google.inject.Inject;
+
+/**
+ * Records the latency of WebDriver commands in the {@value Metrics#WEBDRIVER} category of
+ * {@link Metrics}. Commands may be nested (e.g. a script executed while looking for an element), so
+ * their start times are kept on a stack.
+ * <p>
+ * Each WebDriverProvider registers its own instance, so the listener is used by a single thread at
+ * a time.
+ */
+public class MetricsListener implements WebDriverEventListener {
+
+  private final Deque<Long> started = new ArrayDeque<>();
+
+  private final Metrics metrics;
+
+  @Inject
+  public MetricsListener(Metrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void beforeAlertAccept(WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterAlertAccept(WebDriver driver) {
+    stop("acceptAlert");
+  }
+
+  @Override
+  public void beforeAlertDismiss(WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterAlertDismiss(WebDriver driver) {
+    stop("dismissAlert");
+  }
+
+  @Override
+  public void beforeNavigateTo(String url, WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterNavigateTo(String url, WebDriver driver) {
+    stop("navigateTo");
+  }
+
+  @Override
+  public void beforeNavigateBack(WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterNavigateBack(WebDriver driver) {
+    stop("navigateBack");
+  }
+
+  @Override
+  public void beforeNavigateForward(WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterNavigateForward(WebDriver driver) {
+    stop("navigateForward");
+  }
+
+  @Override
+  public void beforeNavigateRefresh(WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterNavigateRefresh(WebDriver driver) {
+    stop("navigateRefresh");
+  }
+
+  @Override
+  public void beforeFindBy(By by, WebElement element, WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterFindBy(By by, WebElement element, WebDriver driver) {
+    stop("findElement");
+  }
+
+  @Override
+  public void beforeClickOn(WebElement element, WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterClickOn(WebElement element, WebDriver driver) {
+    stop("click");
+  }
+
+  @Override
+  public void beforeChangeValueOf(WebElement element, WebDriver driver,
+      CharSequence[] keysToSend) {
+    start();
+  }
+
+  @Override
+  public void afterChangeValueOf(WebElement element, WebDriver driver,
+      CharSequence[] keysToSend) {
+    stop("changeValue");
+  }
+
+  @Override
+  public void beforeScript(String script, WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterScript(String script, WebDriver driver) {
+    stop("executeScript");
+  }
+
+  @Override
+  public void beforeSwitchToWindow(String windowName, WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterSwitchToWindow(String windowName, WebDriver driver) {
+    stop("switchToWindow");
+  }
+
+  @Override
+  public void onException(Throwable throwable, WebDriver driver) {
+    // the failed command will not be followed by its "after" event
+    started.poll();
+  }
+
+  @Override
+  public <X> void beforeGetScreenshotAs(OutputType<X> target) {
+    start();
+  }
+
+  @Override
+  public <X> void afterGetScreenshotAs(OutputType<X> target, X screenshot) {
+    stop("getScreenshot");
+  }
+
+  @Override
+  public void beforeGetText(WebElement element, WebDriver driver) {
+    start();
+  }
+
+  @Override
+  public void afterGetText(WebElement element, WebDriver driver, String text) {
+    stop("getText");
+  }
+
+  private void start() {
+    if (metrics.isEnabled()) {
+      started.push(metrics.start());
+    }
+  }
+
+  private void stop(String command) {
+    Long start = started.poll();
+    if (start != null) {
+      metrics.record(Metrics.WEBDRIVER, command, start);
+    }
+  }
+}
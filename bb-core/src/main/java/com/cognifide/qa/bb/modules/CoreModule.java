@@ -20,6 +20,8 @@
 package com.cognifide.qa.bb.modules;
 
 import com.cognifide.qa.bb.cookies.CookiesModule;
+import com.cognifide.qa.bb.guice.SuiteScope;
+import com.cognifide.qa.bb.guice.SuiteScoped;
 import com.cognifide.qa.bb.guice.ThreadLocalScope;
 import com.cognifide.qa.bb.guice.ThreadScoped;
 import com.google.inject.AbstractModule;
@@ -34,7 +36,7 @@ import com.google.inject.AbstractModule;
  * <li>browser capabilities provider,
  * <li>current scope,
  * <li>frame switcher,
- * <li>ThreadScoped annotation,
+ * <li>ThreadScoped and SuiteScoped annotations,
  * <li>WebDriverEventListener,
  * <li>jcr session provider.
  * </ul>
@@ -44,7 +46,10 @@ public class CoreModule extends AbstractModule {
   @Override
   protected void configure() {
 
-    bindScope(ThreadScoped.class, new ThreadLocalScope());
+    ThreadLocalScope threadLocalScope = new ThreadLocalScope();
+    bindScope(ThreadScoped.class, threadLocalScope);
+    bind(ThreadLocalScope.class).toInstance(threadLocalScope);
+    bindScope(SuiteScoped.class, SuiteScope.getInstance());
 
     install(new PropertyModule());
 
@@ -22,7 +22,10 @@ package com.cognifide.qa.bb.modules;
 import com.cognifide.qa.bb.proxy.ProxyController;
 import com.cognifide.qa.bb.proxy.ProxyControllerProvider;
 import com.cognifide.qa.bb.proxy.ProxyEventListener;
+import com.cognifide.qa.bb.proxy.RequestFilterRegistry;
+import com.cognifide.qa.bb.proxy.stub.RequestStubs;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.multibindings.Multibinder;
 
 public class ProxyModule extends AbstractModule {
@@ -32,4 +35,14 @@ public class ProxyModule extends AbstractModule {
     bind(ProxyController.class).toProvider(ProxyControllerProvider.class);
     Multibinder.newSetBinder(binder(), ProxyEventListener.class);
   }
+
+  @Provides
+  public RequestFilterRegistry provideRequestFilterRegistry(ProxyController proxyController) {
+    return proxyController.getRequestFilterRegistry();
+  }
+
+  @Provides
+  public RequestStubs provideRequestStubs(ProxyController proxyController) {
+    return proxyController.getRequestStubs();
+  }
 }
@@ -27,7 +27,9 @@ import org.openqa.selenium.support.events.WebDriverEventListener;
 
 import com.cognifide.qa.bb.actions.ActionsProvider;
 import com.cognifide.qa.bb.frame.FrameSwitcher;
+import com.cognifide.qa.bb.frame.LazyFrameSwitchingListener;
 import com.cognifide.qa.bb.javascriptexecutor.JavascriptExecutorProvider;
+import com.cognifide.qa.bb.metrics.MetricsListener;
 import com.cognifide.qa.bb.provider.selenium.webdriver.CapabilitiesProvider;
 import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverProvider;
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriver;
@@ -35,6 +37,7 @@ import com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriv
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriverWrapper;
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.WebDriverClosedListener;
 import com.cognifide.qa.bb.proxy.ProxyCloser;
+import com.cognifide.qa.bb.scope.cache.ElementCacheListener;
 import com.google.inject.AbstractModule;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.multibindings.Multibinder;
@@ -46,7 +49,11 @@ public class WebdriverModule extends AbstractModule {
 
   @Override
   protected void configure() {
-    Multibinder.newSetBinder(binder(), WebDriverEventListener.class);
+    Multibinder<WebDriverEventListener> listeners = Multibinder
+        .newSetBinder(binder(), WebDriverEventListener.class);
+    listeners.addBinding().to(LazyFrameSwitchingListener.class);
+    listeners.addBinding().to(MetricsListener.class);
+    listeners.addBinding().to(ElementCacheListener.class);
 
     Multibinder<WebDriverClosedListener> closedListeners = Multibinder
         .newSetBinder(binder(), WebDriverClosedListener.class);
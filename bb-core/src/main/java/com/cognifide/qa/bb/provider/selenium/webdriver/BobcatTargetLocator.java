@@ -27,7 +27,8 @@ import org.openqa.selenium.WebElement;
 import com.cognifide.qa.bb.frame.FrameSwitcher;
 
 /**
- * Target locator that uses {@link FrameSwitcher}.
+ * Target locator that uses {@link FrameSwitcher}. Switches relative to the current frame are preceded by the pending
+ * frame switch, if lazy frame switching is enabled.
  */
 public class BobcatTargetLocator implements TargetLocator {
 
@@ -54,6 +55,7 @@ public class BobcatTargetLocator implements TargetLocator {
    */
   @Override
   public WebDriver frame(int index) {
+    frameSwitcher.switchToPendingFrame();
     frameSwitcher.putFramePathOnStack(index);
     return targetLocator.frame(index);
   }
@@ -65,23 +67,31 @@ public class BobcatTargetLocator implements TargetLocator {
    */
   @Override
   public WebDriver frame(String nameOrId) {
+    frameSwitcher.switchToPendingFrame();
     frameSwitcher.putFramePathOnStack(nameOrId);
     return targetLocator.frame(nameOrId);
   }
 
   /**
-   * See parent.
+   * Switches to frame indicated by the element and lets FrameSwitcher know it can no longer tell which frame is the
+   * current one.
+   *
+   * @param frameElement frame element.
    */
   @Override
   public WebDriver frame(WebElement frameElement) {
+    frameSwitcher.switchToPendingFrame();
+    frameSwitcher.unknownFrameSelected();
     return targetLocator.frame(frameElement);
   }
 
   /**
-   * See parent.
+   * Switches to the parent frame and lets FrameSwitcher know about it.
    */
   @Override
   public WebDriver parentFrame() {
+    frameSwitcher.switchToPendingFrame();
+    frameSwitcher.parentFrameSelected();
     return targetLocator.parentFrame();
   }
 
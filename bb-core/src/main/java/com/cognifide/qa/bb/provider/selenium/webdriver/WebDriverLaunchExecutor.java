@@ -0,0 +1,131 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.provider.selenium.webdriver;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.SuiteScoped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Executor of the background launches of {@link WebDriverLauncher}, shared by all test classes.
+ * <br>
+ * Up to twice the number of processors browsers are started at once, the remaining ones wait for
+ * their turn. A browser whose future has been cancelled before it was started is quit. The
+ * executor is shut down at the end of the run, which cancels the pending launches and waits for the
+ * running ones, so no browser is left behind.
+ */
+@SuiteScoped
+public class WebDriverLaunchExecutor implements Disposable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebDriverLaunchExecutor.class);
+
+  private static final int MAX_PARALLEL_LAUNCHES =
+      Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+  private final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PARALLEL_LAUNCHES,
+      MAX_PARALLEL_LAUNCHES, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+      new ThreadFactoryBuilder()
+          .setNameFormat("bobcat-webdriver-launcher-%d")
+          .setDaemon(true)
+          .build());
+
+  private final Set<CompletableFuture<WebDriver>> pending = ConcurrentHashMap.newKeySet();
+
+  public WebDriverLaunchExecutor() {
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Starts a browser in the background.
+   *
+   * @param launch creates the browser, called on one of the executor's threads
+   * @return future completed with the created browser
+   */
+  public CompletableFuture<WebDriver> submit(Supplier<WebDriver> launch) {
+    final CompletableFuture<WebDriver> result = new CompletableFuture<>();
+    pending.add(result);
+    result.whenComplete((driver, e) -> pending.remove(result));
+    try {
+      executor.execute(() -> {
+        if (result.isDone()) {
+          return;
+        }
+        try {
+          WebDriver driver = launch.get();
+          if (!result.complete(driver)) {
+            quit(driver);
+          }
+        } catch (RuntimeException e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * Cancels the pending launches and waits for the browsers being started to be quit.
+   */
+  public void shutdown() {
+    pending.forEach(future -> future.cancel(false));
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOG.warn("Browsers still being launched after {} seconds will be left behind",
+            SHUTDOWN_TIMEOUT_SECONDS);
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    shutdown();
+  }
+
+  private static void quit(WebDriver driver) {
+    try {
+      driver.quit();
+    } catch (WebDriverException e) {
+      LOG.warn("Could not quit the browser of a cancelled launch", e);
+    }
+  }
+}
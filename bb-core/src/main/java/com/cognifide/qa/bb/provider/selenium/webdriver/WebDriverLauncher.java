@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.provider.selenium.webdriver;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.provider.selenium.webdriver.creators.WebDriverCreator;
+import com.cognifide.qa.bb.provider.selenium.webdriver.modifiers.WebDriverModifiers;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Launches new browser instances. It selects the {@link WebDriverCreator} matching the configured
+ * {@code webdriver.type} and applies all registered WebDriver modifiers to the created instance.
+ * <br>
+ * The returned WebDriver is not wrapped yet - wrapping it in a
+ * {@link com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriver} is the
+ * responsibility of the caller.
+ * <br>
+ * Browsers can also be launched in the background with {@link #launchAsync()}, which allows starting
+ * several browsers in parallel on the {@link WebDriverLaunchExecutor} shared by all test classes.
+ * The launcher itself belongs to the injector of the test class, so each class launches browsers
+ * with its own configuration.
+ */
+@Singleton
+public class WebDriverLauncher {
+
+  @Inject
+  @Named(ConfigKeys.WEBDRIVER_TYPE)
+  private String type;
+
+  @Inject
+  private Provider<Capabilities> capabilitiesProvider;
+
+  @Inject
+  private Provider<WebDriverModifiers> webDriverModifiersProvider;
+
+  @Inject
+  private Set<WebDriverCreator> webDriverCreators;
+
+  private final WebDriverLaunchExecutor executor;
+
+  @Inject
+  public WebDriverLauncher(WebDriverLaunchExecutor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Creates and modifies a new WebDriver instance.
+   *
+   * @return raw, modified WebDriver instance
+   */
+  public WebDriver launch() {
+    final WebDriverCreator webDriverCreator = getCreator();
+    final WebDriver raw = webDriverCreator.create(capabilitiesProvider.get());
+    return webDriverModifiersProvider.get().modifyWebDriver(raw);
+  }
+
+  /**
+   * Creates and modifies a new WebDriver instance on a dedicated executor. Capabilities and
+   * modifiers are resolved on the calling thread, so the browser is set up exactly as if it was
+   * launched by {@link #launch()} from that thread.
+   * <br>
+   * Cancelling the future before the browser has started makes the launcher quit it.
+   *
+   * @return future completed with a raw, modified WebDriver instance
+   */
+  public CompletableFuture<WebDriver> launchAsync() {
+    final WebDriverCreator webDriverCreator = getCreator();
+    final Capabilities capabilities = capabilitiesProvider.get();
+    final WebDriverModifiers webDriverModifiers = webDriverModifiersProvider.get();
+    return executor.submit(
+        () -> webDriverModifiers.modifyWebDriver(webDriverCreator.create(capabilities)));
+  }
+
+  /**
+   * Cancels the pending background launches and waits for the browsers being started to be quit.
+   * As the executor is shared, this should only be done at the end of the run.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private WebDriverCreator getCreator() {
+    return webDriverCreators.stream()
+        .filter(creator -> StringUtils.equalsIgnoreCase(type, creator.getId()))
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException(
+            "No WebDriverCreator registered for the provided type: " + type));
+  }
+}
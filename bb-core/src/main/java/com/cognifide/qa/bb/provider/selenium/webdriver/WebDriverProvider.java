@@ -19,50 +19,73 @@
  */
 package com.cognifide.qa.bb.provider.selenium.webdriver;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import org.apache.commons.lang3.StringUtils;
-import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.support.events.EventFiringWebDriver;
 import org.openqa.selenium.support.events.WebDriverEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.ThreadLocalScope;
 import com.cognifide.qa.bb.guice.ThreadScoped;
+import com.cognifide.qa.bb.metrics.Metrics;
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriver;
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriverFactory;
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.WebDriverClosedListener;
-import com.cognifide.qa.bb.provider.selenium.webdriver.creators.WebDriverCreator;
-import com.cognifide.qa.bb.provider.selenium.webdriver.modifiers.WebDriverModifiers;
+import com.cognifide.qa.bb.provider.selenium.webdriver.pool.WebDriverPool;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
-import com.google.inject.name.Named;
 
 /**
  * This is a provider that will produce WebDriver instances for all your PageObjects. It is
  * ThreadScoped, so each thread will receive its own instance of WebDriver. WebDriverProvider caches the
  * WebDriver, so all PageObjects in one thread will be using one instance of WebDriver.
+ * <br>
+ * When {@code webdriver.pool.enabled} is set, browsers are checked out from the {@link WebDriverPool}
+ * instead of being launched on demand.
+ * <br>
+ * Tests that go through several browsers (e.g. author and publish actors) can start them upfront
+ * with {@link #prefetch(int)}, so they are launched in parallel while the test is doing its set-up.
+ * <br>
+ * When the scope this provider belongs to is closed, unused prefetched browsers and the browser that
+ * is still open are released.
  */
 @ThreadScoped
-public class WebDriverProvider implements Provider<WebDriver> {
+public class WebDriverProvider implements Provider<WebDriver>, Disposable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebDriverProvider.class);
+
+  private static final long DISPOSE_TIMEOUT_SECONDS = 60;
+
+  private final Deque<CompletableFuture<WebDriver>> prefetched = new ArrayDeque<>();
 
   private ClosingAwareWebDriver cachedWebDriver;
 
   @Inject
-  @Named(ConfigKeys.WEBDRIVER_TYPE)
-  private String type;
+  private ClosingAwareWebDriverFactory closingAwareWebDriverFactory;
 
   @Inject
-  private ClosingAwareWebDriverFactory closingAwareWebDriverFactory;
+  private WebDriverLauncher launcher;
 
   @Inject
-  private Capabilities capabilities;
+  private WebDriverPool pool;
 
   @Inject
   private WebDriverRegistry registry;
 
   @Inject
-  private WebDriverModifiers webDriverModifiers;
+  private ThreadLocalScope scope;
 
   @Inject
   private Set<WebDriverClosedListener> closedListeners;
@@ -71,7 +94,7 @@ public class WebDriverProvider implements Provider<WebDriver> {
   private Set<WebDriverEventListener> listeners;
 
   @Inject
-  private Set<WebDriverCreator> webDriverCreators;
+  private Metrics metrics;
 
   /**
    * This is the provider method that produces WebDriver instance. It returns either a cached
@@ -79,28 +102,113 @@ public class WebDriverProvider implements Provider<WebDriver> {
    */
   @Override
   public WebDriver get() {
-    if (cachedWebDriver == null || !cachedWebDriver.isAlive()) {
+    if (cachedWebDriver == null || !cachedWebDriver.isAlive()
+        || !registry.markInUse(cachedWebDriver)) {
       cachedWebDriver = create();
     }
     return cachedWebDriver;
   }
 
-  private ClosingAwareWebDriver create() {
-    WebDriverCreator webDriverCreator = webDriverCreators.stream()
-        .filter(creator -> StringUtils.equalsIgnoreCase(type, creator.getId()))
-        .findFirst()
-        .orElseThrow(() -> new IllegalStateException(
-            "No WebDriverCreator registered for the provided type: " + type));
+  /**
+   * Starts launching the given number of browsers in parallel, in the background. The next WebDriver
+   * instances created by this provider (i.e. each time the cached one has been closed) are taken
+   * from the prefetched ones, waiting for their start-up to finish only at that moment.
+   * <br>
+   * When the WebDriver pool is enabled, this method does nothing as the pool already keeps browsers
+   * ready.
+   *
+   * @param count number of browsers to launch
+   */
+  public void prefetch(int count) {
+    if (pool.isEnabled()) {
+      LOG.debug("WebDriver pool is enabled, skipping prefetching of {} browsers", count);
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      prefetched.add(launcher.launchAsync());
+    }
+  }
 
-    final WebDriver raw = webDriverCreator.create(capabilities);
-    final WebDriver modified = webDriverModifiers.modifyWebDriver(raw);
+  /**
+   * Terminates the prefetched browsers that have not been used. Browsers that have already started
+   * are quit right away; launches still in progress are cancelled and the launcher quits their
+   * browsers once they start.
+   */
+  public void discardPrefetched() {
+    discard(0);
+  }
+
+  /**
+   * Discards prefetched browsers, waiting a while for the ones still being launched, and closes the
+   * cached WebDriver if it is still alive.
+   */
+  @Override
+  public void dispose() {
+    discard(TimeUnit.SECONDS.toMillis(DISPOSE_TIMEOUT_SECONDS));
+    if (cachedWebDriver != null && cachedWebDriver.isAlive()) {
+      cachedWebDriver.quit();
+    }
+  }
+
+  private void discard(long timeoutMillis) {
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    CompletableFuture<WebDriver> future;
+    while ((future = prefetched.poll()) != null) {
+      try {
+        long remaining = deadline - System.currentTimeMillis();
+        WebDriver driver = remaining > 0
+            ? future.get(remaining, TimeUnit.MILLISECONDS)
+            : future.getNow(null);
+        if (driver == null) {
+          future.cancel(false);
+        } else {
+          driver.quit();
+        }
+      } catch (TimeoutException e) {
+        future.cancel(false);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.cancel(false);
+      } catch (ExecutionException | CompletionException e) {
+        LOG.warn("Prefetched browser failed to start", e.getCause());
+      } catch (CancellationException e) {
+        LOG.debug("Prefetched browser has already been cancelled", e);
+      } catch (WebDriverException e) {
+        LOG.warn("Could not quit prefetched browser", e);
+      }
+    }
+  }
+
+  private ClosingAwareWebDriver create() {
+    final long started = metrics.start();
+    final WebDriver modified = obtainDriver();
 
     final ClosingAwareWebDriver closingAwareWebDriver =
         closingAwareWebDriverFactory.create(modified);
     closedListeners.forEach(closingAwareWebDriver::addListener);
     listeners.forEach(((EventFiringWebDriver) closingAwareWebDriver)::register);
 
-    registry.add(closingAwareWebDriver);
+    // the driver belongs to the test (class) rather than to the thread it happens to run on
+    registry.add(closingAwareWebDriver, scope.isEntered() ? scope.current() : null);
+    metrics.record(Metrics.BROWSER, "start", started);
     return closingAwareWebDriver;
   }
+
+  private WebDriver obtainDriver() {
+    if (!prefetched.isEmpty()) {
+      return takePrefetched();
+    }
+    return pool.isEnabled() ? pool.checkout() : launcher.launch();
+  }
+
+  private WebDriver takePrefetched() {
+    try {
+      return prefetched.poll().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
 }
@@ -19,36 +19,271 @@
  */
 package com.cognifide.qa.bb.provider.selenium.webdriver;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WrapsDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.ScopeContext;
+import com.cognifide.qa.bb.guice.SuiteScoped;
 import com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriver;
-import com.google.inject.Singleton;
+import com.cognifide.qa.bb.provider.selenium.webdriver.pool.WebDriverPool;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
 
 /**
- * Class responsible for terminating browser processes after suite execution when webdriver is using reusable
- * mode.
+ * <p>
+ * Class responsible for terminating browser processes after suite execution when webdriver is using
+ * reusable mode.
+ * </p>
+ * <p>
+ * The registry is shared by all test threads. It tracks the state of each registered driver
+ * (owner, whether it is in use or idle since a given moment) and forgets drivers as soon as
+ * they are terminated. When {@code webdriver.registry.probeInterval} is set, it periodically
+ * reaps drivers that:
+ * <ul>
+ * <li>belong to a scope context that has been closed or, when registered outside of a context, to
+ * a thread that is no longer alive,
+ * <li>have been idle longer than {@code webdriver.registry.idleTimeout},
+ * <li>do not respond to a liveness probe while idle.
+ * </ul>
+ * The owner is the context rather than the creating thread, since the context of a test (class)
+ * may be attached to several worker threads. Drivers that are in use by their owner are never
+ * probed. The reaper claims an idle driver
+ * before probing it, so a driver taken back by its owner in the meantime is not terminated. The
+ * probe is sent to the underlying driver, so the listeners of the owning thread are not notified.
+ * </p>
+ * <p>
+ * The registry is shared by all test classes and shut down at the end of the run.
+ * </p>
  */
-@Singleton
-public class WebDriverRegistry {
+@SuiteScoped
+public class WebDriverRegistry implements Disposable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebDriverRegistry.class);
+
+  private final Map<ClosingAwareWebDriver, DriverState> drivers = new ConcurrentHashMap<>();
+
+  private final WebDriverPool pool;
 
-  private final List<ClosingAwareWebDriver> drivers = new ArrayList<>();
+  private final WebDriverLauncher launcher;
+
+  private final long idleTimeoutMillis;
+
+  private final ScheduledExecutorService reaper;
 
   /**
-   * Register WebDriver instance that should be terminated at the end of the suite
+   * Constructs the registry and schedules the periodic probe when enabled.
+   *
+   * @param pool          WebDriverPool drained on shutdown
+   * @param launcher      WebDriverLauncher whose launches are cancelled on shutdown
+   * @param probeInterval interval between liveness probes in seconds, 0 disables probing
+   * @param idleTimeout   time in seconds after which an idle driver is terminated, 0 disables
+   *                      idle reaping
+   */
+  @Inject
+  public WebDriverRegistry(WebDriverPool pool, WebDriverLauncher launcher,
+      @Named(ConfigKeys.WEBDRIVER_REGISTRY_PROBE_INTERVAL) int probeInterval,
+      @Named(ConfigKeys.WEBDRIVER_REGISTRY_IDLE_TIMEOUT) int idleTimeout) {
+    this.pool = pool;
+    this.launcher = launcher;
+    this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(0, idleTimeout));
+    if (probeInterval > 0) {
+      reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setNameFormat("bobcat-webdriver-reaper")
+          .setDaemon(true)
+          .build());
+      reaper.scheduleWithFixedDelay(() -> probe(System.currentTimeMillis()), probeInterval,
+          probeInterval, TimeUnit.SECONDS);
+    } else {
+      reaper = null;
+    }
+  }
+
+  /**
+   * Register WebDriver instance that should be terminated at the end of the suite. The calling
+   * thread becomes the owner of the driver and the driver is considered in use.
    *
    * @param driver instance of ClosingAwareWebDriver.
    */
   public void add(ClosingAwareWebDriver driver) {
-    drivers.add(driver);
+    add(driver, null);
+  }
+
+  /**
+   * Register WebDriver instance that should be terminated at the end of the suite. The driver is
+   * owned by the given scope context until it is closed and is considered in use.
+   *
+   * @param driver  instance of ClosingAwareWebDriver.
+   * @param context context the driver belongs to; when null, the calling thread becomes the owner
+   */
+  public void add(ClosingAwareWebDriver driver, ScopeContext context) {
+    drivers.put(driver, new DriverState(Thread.currentThread(), context));
+    driver.addListener(terminated -> onClosed(driver));
+  }
+
+  /**
+   * Marks the driver as being in use by its owning thread, so it won't be probed nor reaped.
+   *
+   * @param driver registered instance of ClosingAwareWebDriver.
+   * @return false if the driver has already been reaped (or is not registered) and must not be
+   * used
+   */
+  public boolean markInUse(ClosingAwareWebDriver driver) {
+    DriverState state = drivers.get(driver);
+    return state != null && state.markInUse();
+  }
+
+  /**
+   * @return number of drivers currently tracked by the registry
+   */
+  public int size() {
+    return drivers.size();
   }
 
   /**
-   * Shutdown all registered drivers
+   * Shutdown all registered drivers, browsers still being launched and drain the WebDriver pool
    */
   public void shutdown() {
-    drivers.stream().filter(ClosingAwareWebDriver::isAlive)
+    if (reaper != null) {
+      reaper.shutdownNow();
+    }
+    launcher.shutdown();
+    drivers.keySet().stream().filter(ClosingAwareWebDriver::isAlive)
         .forEach(ClosingAwareWebDriver::forceShutdown);
+    drivers.clear();
+    pool.shutdown();
   }
 
+  @Override
+  public void dispose() {
+    shutdown();
+  }
+
+  /**
+   * Checks all idle drivers and reaps the orphaned, expired and crashed ones.
+   *
+   * @param now current time in milliseconds
+   */
+  void probe(long now) {
+    drivers.forEach((driver, state) -> {
+      if (!driver.isAlive()) {
+        drivers.remove(driver);
+      } else if (!state.isOwnerAlive()) {
+        state.idleSince.set(DriverState.REAPED);
+        reap(driver, "its owner has finished");
+      } else {
+        probeIdle(driver, state, now);
+      }
+    });
+  }
+
+  private void probeIdle(ClosingAwareWebDriver driver, DriverState state, long now) {
+    long idleSince = state.idleSince.get();
+    if (idleSince < 0) {
+      return;
+    }
+    if (idleTimeoutMillis > 0 && now - idleSince > idleTimeoutMillis) {
+      if (state.idleSince.compareAndSet(idleSince, DriverState.REAPED)) {
+        reap(driver, "it has been idle for too long");
+      }
+    } else if (state.idleSince.compareAndSet(idleSince, DriverState.PROBED)) {
+      boolean responsive = isResponsive(driver);
+      // the owner may have taken the driver back during the probe
+      if (responsive) {
+        state.idleSince.compareAndSet(DriverState.PROBED, idleSince);
+      } else if (state.idleSince.compareAndSet(DriverState.PROBED, DriverState.REAPED)) {
+        reap(driver, "it did not respond to the liveness probe");
+      }
+    }
+  }
+
+  private void onClosed(ClosingAwareWebDriver driver) {
+    if (driver.isAlive()) {
+      DriverState state = drivers.get(driver);
+      if (state != null) {
+        state.idleSince.set(System.currentTimeMillis());
+      }
+    } else {
+      drivers.remove(driver);
+    }
+  }
+
+  private void reap(ClosingAwareWebDriver driver, String reason) {
+    LOG.info("Terminating WebDriver instance because {}", reason);
+    drivers.remove(driver);
+    try {
+      driver.forceShutdown();
+    } catch (WebDriverException e) {
+      LOG.debug("Could not terminate reaped WebDriver instance", e);
+    }
+  }
+
+  private boolean isResponsive(ClosingAwareWebDriver driver) {
+    WebDriver probed = driver instanceof WrapsDriver
+        ? ((WrapsDriver) driver).getWrappedDriver()
+        : driver;
+    try {
+      probed.getWindowHandle();
+      return true;
+    } catch (WebDriverException e) {
+      LOG.debug("WebDriver liveness probe failed", e);
+      return false;
+    }
+  }
+
+  private static final class DriverState {
+
+    private static final long IN_USE = -1;
+
+    private static final long PROBED = -2;
+
+    private static final long REAPED = -3;
+
+    private final WeakReference<Thread> owner;
+
+    private final WeakReference<ScopeContext> context;
+
+    /**
+     * Time the driver has become idle at or one of the negative states.
+     */
+    private final AtomicLong idleSince = new AtomicLong(IN_USE);
+
+    private DriverState(Thread owner, ScopeContext context) {
+      this.owner = new WeakReference<>(owner);
+      this.context = context == null ? null : new WeakReference<>(context);
+    }
+
+    private boolean markInUse() {
+      long current;
+      do {
+        current = idleSince.get();
+        if (current == REAPED) {
+          return false;
+        }
+      } while (!idleSince.compareAndSet(current, IN_USE));
+      return true;
+    }
+
+    private boolean isOwnerAlive() {
+      if (context != null) {
+        ScopeContext scopeContext = context.get();
+        return scopeContext != null && !scopeContext.isClosed();
+      }
+      Thread thread = owner.get();
+      return thread != null && thread.isAlive();
+    }
+  }
 }
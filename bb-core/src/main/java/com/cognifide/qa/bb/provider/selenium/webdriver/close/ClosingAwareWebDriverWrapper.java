@@ -24,12 +24,14 @@ import java.util.Set;
 
 import org.openqa.selenium.NoAlertPresentException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.cognifide.qa.bb.constants.ConfigKeys;
 import com.cognifide.qa.bb.frame.FrameSwitcher;
 import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverWrapper;
+import com.cognifide.qa.bb.provider.selenium.webdriver.pool.WebDriverPool;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.name.Named;
@@ -46,19 +48,23 @@ public class ClosingAwareWebDriverWrapper extends WebDriverWrapper
 
   private final Set<WebDriverClosedListener> closedListeners;
 
+  private final WebDriverPool pool;
+
   private final boolean maximize;
 
   private final boolean reusable;
 
   private final boolean mobile;
 
-  private boolean alive = true;
+  private volatile boolean alive = true;
 
   /**
    * Constructs ClosingAwareWebDriver.
    *
    * @param driver        WebDriver to be wrapped by ClosingAwareWebDriver
    * @param frameSwitcher FrameSwitcher instance
+   * @param pool          WebDriverPool to which the browser is returned on close() and quit()
+   *                      when pooling is enabled
    * @param maximize      should the browser be maximized during reset (affects reusable mode)
    * @param reusable      overrides behavior of close() and quit() methods.
    *                      If the browser is reusable the cookies for current domain will be deleted
@@ -69,22 +75,26 @@ public class ClosingAwareWebDriverWrapper extends WebDriverWrapper
    */
   @Inject
   public ClosingAwareWebDriverWrapper(@Assisted WebDriver driver, FrameSwitcher frameSwitcher,
+      WebDriverPool pool,
       @Named(ConfigKeys.WEBDRIVER_MAXIMIZE) boolean maximize,
       @Named(ConfigKeys.WEBDRIVER_REUSABLE) boolean reusable,
       @Named(ConfigKeys.WEBDRIVER_MOBILE) boolean mobile) {
     super(driver, frameSwitcher);
     this.closedListeners = new HashSet<>();
+    this.pool = pool;
     this.maximize = maximize;
     this.reusable = reusable;
     this.mobile = mobile;
   }
 
   /**
-   * Closes the driver and informs the listeners about driver's death.
+   * Closes the driver (or returns it to the pool) and informs the listeners about driver's death.
    */
   @Override
   public void close() {
-    if (reusable) {
+    if (pool.isEnabled()) {
+      returnToPool();
+    } else if (reusable) {
       cleanDriver();
       sendEvent(false);
     } else {
@@ -95,11 +105,13 @@ public class ClosingAwareWebDriverWrapper extends WebDriverWrapper
   }
 
   /**
-   * Quits the driver and informs the listeners about driver's death.
+   * Quits the driver (or returns it to the pool) and informs the listeners about driver's death.
    */
   @Override
   public void quit() {
-    if (reusable) {
+    if (pool.isEnabled()) {
+      returnToPool();
+    } else if (reusable) {
       cleanDriver();
       sendEvent(false);
     } else {
@@ -130,6 +142,24 @@ public class ClosingAwareWebDriverWrapper extends WebDriverWrapper
     closedListeners.forEach(listener -> listener.onWebDriverClosed(terminated));
   }
 
+  private void returnToPool() {
+    if (!alive) {
+      // the browser has already been handed back and may be in use by another thread
+      return;
+    }
+    boolean terminated = false;
+    try {
+      cleanDriver();
+      pool.release(getWrappedDriver());
+    } catch (WebDriverException e) {
+      LOG.warn("Could not clean up the driver, it will be terminated instead of being pooled", e);
+      pool.discard(getWrappedDriver());
+      terminated = true;
+    }
+    alive = false;
+    sendEvent(terminated);
+  }
+
   private void cleanDriver() {
     manage().deleteAllCookies();
     get(BLANK_PAGE);
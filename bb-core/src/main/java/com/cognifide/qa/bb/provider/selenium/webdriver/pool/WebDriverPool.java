@@ -0,0 +1,240 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.provider.selenium.webdriver.pool;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.SuiteScoped;
+import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverLauncher;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * <p>
+ * Bounded pool of ready-to-use browser instances, shared by all threads.
+ * </p>
+ * <p>
+ * When enabled with {@code webdriver.pool.enabled}, the pool keeps up to
+ * {@code webdriver.pool.watermark} idle browsers pre-warmed in the background, so tests do not pay
+ * the browser start-up time in their critical path. Browsers are checked out by
+ * {@link com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverProvider} and returned by
+ * {@link com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriver} after the
+ * same clean-up as in {@code webdriver.reusable} mode. At most {@code webdriver.pool.maxSize} idle
+ * browsers are kept, surplus ones are terminated.
+ * </p>
+ * <p>
+ * The pool holds raw (modified, but not wrapped) WebDriver instances - wrapping is done on the
+ * thread that checks the browser out, so the thread-scoped collaborators of the wrapper belong to
+ * the test thread. Since the BrowserMob proxy is bound to the thread that creates the browser, the
+ * pool stays disabled when {@code proxy.enabled} is set.
+ * </p>
+ * <p>
+ * There is one pool per JVM, shared by all test classes and drained at the end of the run (see
+ * {@link com.cognifide.qa.bb.guice.SuiteScope}).
+ * </p>
+ */
+@SuiteScoped
+public class WebDriverPool implements Disposable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebDriverPool.class);
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+  private final BlockingDeque<WebDriver> idleDrivers = new LinkedBlockingDeque<>();
+
+  private final WebDriverLauncher launcher;
+
+  private final boolean enabled;
+
+  private final int maxSize;
+
+  private final int watermark;
+
+  private final ExecutorService filler;
+
+  private int pending;
+
+  private volatile boolean shutdown;
+
+  /**
+   * Constructs the pool and starts filling it in the background when enabled.
+   *
+   * @param launcher     launcher of new browser instances
+   * @param poolEnabled  value of {@code webdriver.pool.enabled}
+   * @param maxSize      maximum number of idle browsers kept in the pool
+   * @param watermark    number of idle browsers kept pre-warmed
+   * @param proxyEnabled value of {@code proxy.enabled}; pooling is not supported with the proxy
+   */
+  @Inject
+  public WebDriverPool(WebDriverLauncher launcher,
+      @Named(ConfigKeys.WEBDRIVER_POOL_ENABLED) boolean poolEnabled,
+      @Named(ConfigKeys.WEBDRIVER_POOL_MAX_SIZE) int maxSize,
+      @Named(ConfigKeys.WEBDRIVER_POOL_WATERMARK) int watermark,
+      @Named(ConfigKeys.PROXY_ENABLED) boolean proxyEnabled) {
+    this.launcher = launcher;
+    this.maxSize = Math.max(0, maxSize);
+    this.watermark = Math.min(Math.max(0, watermark), this.maxSize);
+    if (poolEnabled && proxyEnabled) {
+      LOG.warn("WebDriver pool cannot be used together with the proxy, pool will be disabled");
+    }
+    this.enabled = poolEnabled && !proxyEnabled;
+    this.filler = enabled && this.watermark > 0
+        ? Executors.newFixedThreadPool(this.watermark, new ThreadFactoryBuilder()
+        .setNameFormat("bobcat-webdriver-pool-%d")
+        .setDaemon(true)
+        .build())
+        : null;
+    refill();
+  }
+
+  /**
+   * @return true if browsers should be checked out from and returned to the pool
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Takes a responsive idle browser from the pool. If there is none, a new browser is launched on
+   * the calling thread. In both cases the pool is refilled in the background afterwards.
+   *
+   * @return raw, modified WebDriver instance owned by the caller until it is released
+   */
+  public WebDriver checkout() {
+    WebDriver driver;
+    while ((driver = idleDrivers.pollFirst()) != null) {
+      if (isResponsive(driver)) {
+        refill();
+        return driver;
+      }
+      discard(driver);
+    }
+    refill();
+    return launcher.launch();
+  }
+
+  /**
+   * Returns a cleaned-up browser to the pool. The browser is terminated instead if the pool is
+   * disabled, shut down or already holds {@code webdriver.pool.maxSize} idle browsers.
+   *
+   * @param driver raw WebDriver previously obtained by {@link #checkout()}
+   */
+  public void release(WebDriver driver) {
+    if (!enabled || shutdown || idleDrivers.size() >= maxSize) {
+      discard(driver);
+    } else {
+      idleDrivers.offerFirst(driver);
+    }
+  }
+
+  /**
+   * Terminates a browser that should not be reused.
+   *
+   * @param driver raw WebDriver to terminate
+   */
+  public void discard(WebDriver driver) {
+    try {
+      driver.quit();
+    } catch (WebDriverException e) {
+      LOG.debug("Could not quit pooled WebDriver", e);
+    }
+  }
+
+  /**
+   * Stops filling the pool and terminates all idle browsers. Browsers that are checked out at that
+   * moment are terminated when they are released.
+   */
+  public void shutdown() {
+    synchronized (this) {
+      shutdown = true;
+    }
+    if (filler != null) {
+      filler.shutdown();
+      try {
+        filler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    WebDriver driver;
+    while ((driver = idleDrivers.pollFirst()) != null) {
+      discard(driver);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    shutdown();
+  }
+
+  private synchronized void refill() {
+    if (filler == null || shutdown) {
+      return;
+    }
+    while (idleDrivers.size() + pending < watermark) {
+      pending++;
+      filler.execute(this::fillOne);
+    }
+  }
+
+  private void fillOne() {
+    WebDriver driver;
+    try {
+      driver = launcher.launch();
+    } catch (RuntimeException e) {
+      LOG.error("Could not pre-warm a WebDriver instance", e);
+      synchronized (this) {
+        pending--;
+      }
+      return;
+    }
+    boolean kept;
+    // the browser must not be counted both as pending and idle by a concurrent refill
+    synchronized (this) {
+      pending--;
+      kept = !shutdown && idleDrivers.size() < maxSize && idleDrivers.offerFirst(driver);
+    }
+    if (!kept) {
+      discard(driver);
+    }
+  }
+
+  private boolean isResponsive(WebDriver driver) {
+    try {
+      driver.getWindowHandle();
+      return true;
+    } catch (WebDriverException e) {
+      LOG.debug("Pooled WebDriver is not responsive, discarding it", e);
+      return false;
+    }
+  }
+}
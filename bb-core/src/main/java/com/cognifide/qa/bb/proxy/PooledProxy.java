@@ -0,0 +1,158 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import net.lightbody.bmp.BrowserMobProxy;
+import net.lightbody.bmp.filters.RequestFilter;
+import net.lightbody.bmp.proxy.CaptureType;
+import net.lightbody.bmp.proxy.dns.AdvancedHostResolver;
+import net.lightbody.bmp.util.HttpMessageContents;
+import net.lightbody.bmp.util.HttpMessageInfo;
+
+/**
+ * Started proxy server managed by the {@link ProxyPool}. Filters can't be removed from a started
+ * proxy, so the proxy has a single request filter that passes the requests to the filter of the
+ * controller the proxy is currently attached to.
+ * <br>
+ * Controllers hand out the {@link #getLease() lease} of the proxy instead of the proxy itself. It
+ * notes calls that change the proxy in a way {@link #reset()} can't undo, like adding filters or
+ * changing the trust settings; such a proxy is stopped on release instead of being reused.
+ */
+class PooledProxy implements RequestFilter {
+
+  private static final Set<String> IRREVERSIBLE_METHODS = new HashSet<>(Arrays.asList(
+      "start", "stop", "abort",
+      "addFirstHttpFilterFactory", "addLastHttpFilterFactory", "addRequestFilter",
+      "addResponseFilter",
+      "autoAuthorization", "chainedProxyAuthorization",
+      "setConnectTimeout", "setIdleConnectionTimeout", "setRequestTimeout",
+      "setHostNameResolver", "setMitmDisabled", "setMitmManager", "setTrustAllServers",
+      "setTrustSource"));
+
+  private final BrowserMobProxy proxy;
+
+  private final BrowserMobProxy lease;
+
+  private final AtomicBoolean modified = new AtomicBoolean();
+
+  private final InetAddress address;
+
+  private final int allocatedPort;
+
+  private final AtomicReference<RequestFilter> requestFilter = new AtomicReference<>();
+
+  PooledProxy(BrowserMobProxy proxy, InetAddress address, int allocatedPort) {
+    this.proxy = proxy;
+    this.address = address;
+    this.allocatedPort = allocatedPort;
+    this.lease = (BrowserMobProxy) Proxy.newProxyInstance(BrowserMobProxy.class.getClassLoader(),
+        new Class<?>[]{BrowserMobProxy.class}, this::invokeOnLease);
+    proxy.addRequestFilter(this);
+  }
+
+  BrowserMobProxy getProxy() {
+    return proxy;
+  }
+
+  /**
+   * @return view of the proxy handed out to the users of the controller
+   */
+  BrowserMobProxy getLease() {
+    return lease;
+  }
+
+  /**
+   * @return true if the proxy has been changed through its lease in a way that can't be reset
+   */
+  boolean isModified() {
+    return modified.get();
+  }
+
+  InetAddress getAddress() {
+    return address;
+  }
+
+  /**
+   * @return the port taken from the pool's free-list, or 0 if the port was chosen by the system
+   */
+  int getAllocatedPort() {
+    return allocatedPort;
+  }
+
+  void attach(RequestFilter filter) {
+    requestFilter.set(filter);
+  }
+
+  /**
+   * Detaches the filter and brings the proxy back to its initial state, so it can be used by
+   * another controller.
+   */
+  void reset() {
+    requestFilter.set(null);
+    if (proxy.getHar() != null) {
+      proxy.endHar();
+    }
+    proxy.setHarCaptureTypes(EnumSet.noneOf(CaptureType.class));
+    proxy.clearBlacklist();
+    proxy.disableWhitelist();
+    proxy.clearRewriteRules();
+    proxy.removeAllHeaders();
+    proxy.setLatency(0, TimeUnit.MILLISECONDS);
+    proxy.setReadBandwidthLimit(0);
+    proxy.setWriteBandwidthLimit(0);
+    proxy.setChainedProxy(null);
+    AdvancedHostResolver resolver = proxy.getHostNameResolver();
+    if (resolver != null) {
+      resolver.clearHostRemappings();
+    }
+  }
+
+  @Override
+  public HttpResponse filterRequest(HttpRequest request, HttpMessageContents contents,
+      HttpMessageInfo messageInfo) {
+    RequestFilter filter = requestFilter.get();
+    return filter == null ? null : filter.filterRequest(request, contents, messageInfo);
+  }
+
+  private Object invokeOnLease(Object lease, Method method, Object[] args) throws Throwable {
+    if (IRREVERSIBLE_METHODS.contains(method.getName())) {
+      modified.set(true);
+    }
+    try {
+      return method.invoke(proxy, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
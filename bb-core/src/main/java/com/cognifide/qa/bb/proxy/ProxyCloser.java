@@ -23,7 +23,8 @@ import com.cognifide.qa.bb.provider.selenium.webdriver.close.WebDriverClosedList
 import com.google.inject.Inject;
 
 /**
- * This class stops {@link net.lightbody.bmp.BrowserMobProxy} after closing webdriver
+ * This class stops {@link net.lightbody.bmp.BrowserMobProxy} after closing webdriver. When the
+ * webdriver is kept for reuse, only the request stubs added by the test are removed.
  */
 public class ProxyCloser implements WebDriverClosedListener {
 
@@ -34,6 +35,8 @@ public class ProxyCloser implements WebDriverClosedListener {
   public void onWebDriverClosed(boolean terminated) {
     if (terminated) {
       controller.stopProxyServer();
+    } else {
+      controller.getRequestStubs().reset();
     }
   }
 
@@ -20,18 +20,44 @@
 package com.cognifide.qa.bb.proxy;
 
 import java.net.InetAddress;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.proxy.stub.RequestStubs;
+import com.cognifide.qa.bb.proxy.stub.StubRule;
+import com.google.inject.Provider;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
 import net.lightbody.bmp.BrowserMobProxy;
 import net.lightbody.bmp.BrowserMobProxyServer;
+import net.lightbody.bmp.core.har.Har;
 import net.lightbody.bmp.proxy.CaptureType;
+import net.lightbody.bmp.util.HttpMessageContents;
+import net.lightbody.bmp.util.HttpMessageInfo;
 
 /**
  * This class can be used to start and stop traffic interception.
+ * <br>
+ * Proxy event listeners are resolved each time an event is sent, so they are the ones of the scope the calling
+ * thread is in.
+ * <br>
+ * Proxy servers are obtained from the {@link ProxyPool}, which allocates their ports and may reuse them.
+ * <br>
+ * Requests are passed to the filters of the {@link RequestFilterRegistry} first and then to the
+ * {@link RequestStubs}, which may answer them instead of the server.
+ * <br>
+ * Stopping the analysis ends the HAR and waits up to
+ * {@value ConfigKeys#PROXY_ANALYSIS_COMPLETION_TIMEOUT} seconds for the requests in flight, so
+ * the listeners get a HAR which is no longer recorded into. Analyses may overlap, e.g. when run by
+ * the traffic analyzer; they share a single HAR, recorded from the first start to the last stop.
  */
 public class ProxyController {
 
@@ -43,27 +69,63 @@ public class ProxyController {
       CaptureType.RESPONSE_HEADERS,
       CaptureType.RESPONSE_CONTENT);
 
+  private static final EnumSet<CaptureType> HEADER_CAPTURE_TYPES = EnumSet.of(
+      CaptureType.REQUEST_HEADERS,
+      CaptureType.RESPONSE_HEADERS);
+
   private BrowserMobProxy browserMobProxy;
 
-  private final Set<ProxyEventListener> eventListeners;
+  private final Provider<Set<ProxyEventListener>> eventListeners;
 
   private final RequestFilterRegistry filterRegistry;
 
-  private final int port;
+  private final RequestStubs requestStubs;
+
+  private final ProxyPool proxyPool;
+
+  private final EnumSet<CaptureType> captureTypes;
+
+  private final long completionTimeout;
+
+  private PooledProxy pooledProxy;
 
-  ProxyController(
-      Set<ProxyEventListener> eventListeners, RequestFilterRegistry filterRegistry, int port) {
+  private int activeAnalyses;
+
+  ProxyController(Provider<Set<ProxyEventListener>> eventListeners, ProxyPool proxyPool,
+      boolean captureContent) {
+    this(eventListeners, proxyPool, captureContent, Collections.emptyList(), 0);
+  }
+
+  ProxyController(Provider<Set<ProxyEventListener>> eventListeners, ProxyPool proxyPool,
+      boolean captureContent, List<StubRule> stubRules, long completionTimeout) {
     this.browserMobProxy = new BrowserMobProxyServer();
     this.eventListeners = eventListeners;
-    this.filterRegistry = filterRegistry;
-    this.port = port;
+    this.filterRegistry = new RequestFilterRegistry();
+    this.requestStubs = new RequestStubs(stubRules);
+    this.proxyPool = proxyPool;
+    this.captureTypes = captureContent ? CAPTURE_TYPES : HEADER_CAPTURE_TYPES;
+    this.completionTimeout = completionTimeout;
+  }
+
+  /**
+   * @return registry of request filters attached to the proxy
+   */
+  public RequestFilterRegistry getRequestFilterRegistry() {
+    return filterRegistry;
+  }
+
+  /**
+   * @return stubs of the requests passing through the proxy, applied after the registered filters
+   */
+  public RequestStubs getRequestStubs() {
+    return requestStubs;
   }
 
-  public BrowserMobProxy startProxyServer(InetAddress proxyAddress) {
-    if (!browserMobProxy.isStarted()) {
+  public synchronized BrowserMobProxy startProxyServer(InetAddress proxyAddress) {
+    if (pooledProxy == null) {
       try {
-        browserMobProxy.start(port, proxyAddress);
-        browserMobProxy.addRequestFilter(filterRegistry);
+        pooledProxy = proxyPool.acquire(proxyAddress, this::filterRequest);
+        browserMobProxy = pooledProxy.getLease();
       } catch (Exception e) {
         LOG.error("Can't start proxy", e);
       }
@@ -71,31 +133,76 @@ public class ProxyController {
     return browserMobProxy;
   }
 
-  public void stopProxyServer() {
-    if (browserMobProxy.isStarted()) {
-      try {
-        browserMobProxy.stop();
-        // proxy cannot be started again thus new instance should be created
-        // for more info see https://github.com/lightbody/browsermob-proxy/issues/264
-        browserMobProxy = new BrowserMobProxyServer();
-      } catch (Exception e) {
-        LOG.error("Can't stop proxy", e);
-      }
+  public synchronized void stopProxyServer() {
+    activeAnalyses = 0;
+    requestStubs.reset();
+    if (pooledProxy != null) {
+      proxyPool.release(pooledProxy);
+      pooledProxy = null;
+      // proxy cannot be started again thus new instance should be created
+      // for more info see https://github.com/lightbody/browsermob-proxy/issues/264
+      browserMobProxy = new BrowserMobProxyServer();
     }
   }
 
+  private HttpResponse filterRequest(HttpRequest request, HttpMessageContents contents,
+      HttpMessageInfo messageInfo) {
+    HttpResponse response = filterRegistry.filterRequest(request, contents, messageInfo);
+    return response != null ? response : requestStubs.filterRequest(request, contents, messageInfo);
+  }
+
+  /**
+   * Starts recording the traffic into a new HAR, unless it is already recorded for another
+   * analysis. Each call has to be followed by {@link #stopAnalysis()}.
+   */
   public void startAnalysis() {
-    browserMobProxy.setHarCaptureTypes(CAPTURE_TYPES);
-    browserMobProxy.newHar("page");
-    for (ProxyEventListener l : eventListeners) {
+    synchronized (this) {
+      if (activeAnalyses++ > 0) {
+        return;
+      }
+      browserMobProxy.setHarCaptureTypes(captureTypes);
+      browserMobProxy.newHar("page");
+    }
+    for (ProxyEventListener l : eventListeners.get()) {
       l.listeningStarted();
     }
   }
 
+  /**
+   * Stops the analysis. The recording is stopped and the HAR is handed to the listeners once the
+   * last of the analyses started is stopped.
+   */
   public void stopAnalysis() {
-    browserMobProxy.disableHarCaptureTypes(CAPTURE_TYPES);
-    for (ProxyEventListener l : eventListeners) {
-      l.listeningStopped(browserMobProxy.getHar());
+    Har har;
+    BrowserMobProxy proxy;
+    synchronized (this) {
+      if (activeAnalyses == 0) {
+        LOG.warn("Analysis stopped without being started");
+        return;
+      }
+      if (--activeAnalyses > 0) {
+        return;
+      }
+      // requests started from now on are not recorded, the ones in flight still complete their
+      // entries
+      proxy = browserMobProxy;
+      har = proxy.getHar() == null ? null : proxy.endHar();
+      proxy.disableHarCaptureTypes(captureTypes);
+    }
+    if (har != null) {
+      // waited for outside of the lock, so other analyses and the proxy server are not blocked
+      awaitRequestsInFlight(proxy);
+    }
+    for (ProxyEventListener l : eventListeners.get()) {
+      l.listeningStopped(har);
+    }
+  }
+
+  private void awaitRequestsInFlight(BrowserMobProxy proxy) {
+    if (completionTimeout > 0
+        && !proxy.waitForQuiescence(0, completionTimeout, TimeUnit.SECONDS)) {
+      LOG.debug("Requests still in flight after {} s, their HAR entries may be incomplete",
+          completionTimeout);
     }
   }
 }
@@ -20,9 +20,9 @@
 package com.cognifide.qa.bb.proxy;
 
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.proxy.stub.StubRules;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -31,9 +31,9 @@ import com.google.inject.name.Named;
 /**
  * Class provides ProxyController instance regarding to thread which is executed with.
  * <br>
- * Internally its using providers for both sets with ProxyEventListeners and RegistryFilters
- * regarding to scope which is thread and both instances cannot be injected by Guice in singleton
- * object once. Thus, both objects are dynamically provided with @ThreadScope annotation.
+ * Internally its using a provider for the set of ProxyEventListeners, as the listeners are thread-scoped
+ * and cannot be injected by Guice in singleton object once. Each ProxyController owns its own
+ * RequestFilterRegistry, while the proxy servers are shared through the {@link ProxyPool}.
  */
 @Singleton
 public class ProxyControllerProvider extends ThreadLocal<ProxyController>
@@ -43,20 +43,22 @@ public class ProxyControllerProvider extends ThreadLocal<ProxyController>
   private Provider<Set<ProxyEventListener>> proxyEventListenersProvider;
 
   @Inject
-  private Provider<RequestFilterRegistry> requestFilterRegistryProvider;
+  private ProxyPool proxyPool;
 
   @Inject
-  @Named(ConfigKeys.PROXY_PORT)
-  private int startPort;
+  @Named(ConfigKeys.PROXY_CAPTURE_CONTENT)
+  private boolean captureContent;
 
-  private AtomicInteger nextPort;
+  @Inject
+  private StubRules stubRules;
+
+  @Inject
+  @Named(ConfigKeys.PROXY_ANALYSIS_COMPLETION_TIMEOUT)
+  private long completionTimeout;
 
   @Override
-  public synchronized ProxyController initialValue() {
-    if (nextPort == null) {
-      nextPort = new AtomicInteger(startPort);
-    }
-    return new ProxyController(proxyEventListenersProvider.get(),
-        requestFilterRegistryProvider.get(), nextPort.getAndIncrement());
+  public ProxyController initialValue() {
+    return new ProxyController(proxyEventListenersProvider, proxyPool, captureContent,
+        stubRules.get(), completionTimeout);
   }
 }
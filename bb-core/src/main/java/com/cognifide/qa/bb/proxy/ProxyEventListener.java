@@ -26,9 +26,10 @@ import net.lightbody.bmp.core.har.Har;
 
 /**
  * Classes implementing this interface and registered in the Guice are informed about events related to
- * traffic analysis. Please notice that traffic analysis done by the TrafficAnalyzer class takes place in a
- * new thread. Therefore, all ThreadLocal variables (eg. current test in the reporter module) may not work
- * correctly. When the analysis is done, the dispatch() method is run in the thread starting the analysis.
+ * traffic analysis. Please notice that traffic analysis done by the TrafficAnalyzer class is started in the
+ * calling thread, but finished (requestFound(), timeout() and listeningStopped()) in another one. Therefore,
+ * all ThreadLocal variables (eg. current test in the reporter module) may not work correctly there. When the
+ * analysis is done, the dispatch() method is run in the thread starting the analysis.
  */
 public interface ProxyEventListener {
   /**
@@ -0,0 +1,297 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy;
+
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.SuiteScoped;
+import com.cognifide.qa.bb.proxy.cache.ResponseCache;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+import net.lightbody.bmp.BrowserMobProxy;
+import net.lightbody.bmp.BrowserMobProxyServer;
+import net.lightbody.bmp.filters.RequestFilter;
+
+/**
+ * Starts the proxy servers used by {@link ProxyController}s and allocates their ports.
+ * <br>
+ * Ports are taken from a free-list starting at {@value ConfigKeys#PROXY_PORT}; ports of stopped
+ * proxies are returned to it, so they are reused. With port 0, the system chooses a free port.
+ * <br>
+ * When {@value ConfigKeys#PROXY_POOL_ENABLED} is set, released proxies are not stopped but reset
+ * and kept for the next controller, which saves the start-up of a new proxy server. Proxies that
+ * got filters or settings which can't be reset are stopped instead. The number of proxies started
+ * at once can be capped with {@value ConfigKeys#PROXY_POOL_MAX_SIZE}; controllers wait up to
+ * {@value ConfigKeys#PROXY_POOL_ACQUIRE_TIMEOUT} seconds for a proxy to be released.
+ * <br>
+ * With {@value ConfigKeys#PROXY_CACHE_ENABLED} set, all the proxies share the
+ * {@link ResponseCache}.
+ * <br>
+ * There is one pool per JVM, so the ports, the cap and the idle proxies are shared by all test
+ * classes. Idle proxies are stopped at the end of the run (see
+ * {@link com.cognifide.qa.bb.guice.SuiteScope}).
+ */
+@SuiteScoped
+public class ProxyPool implements Disposable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProxyPool.class);
+
+  private static final int PORT_ATTEMPTS = 10;
+
+  private final boolean enabled;
+
+  private final int startPort;
+
+  private final int maxSize;
+
+  private final long acquireTimeoutMillis;
+
+  private final Supplier<BrowserMobProxy> proxyFactory;
+
+  private final Deque<PooledProxy> idleProxies = new ArrayDeque<>();
+
+  private final NavigableSet<Integer> freePorts = new TreeSet<>();
+
+  private int nextPort;
+
+  private int startedProxies;
+
+  private boolean shutdown;
+
+  private final ResponseCache responseCache;
+
+  @Inject
+  public ProxyPool(
+      @Named(ConfigKeys.PROXY_POOL_ENABLED) boolean enabled,
+      @Named(ConfigKeys.PROXY_PORT) int startPort,
+      @Named(ConfigKeys.PROXY_POOL_MAX_SIZE) int maxSize,
+      @Named(ConfigKeys.PROXY_POOL_ACQUIRE_TIMEOUT) long acquireTimeout,
+      ResponseCache responseCache) {
+    this(enabled, startPort, maxSize, acquireTimeout, responseCache, BrowserMobProxyServer::new);
+  }
+
+  ProxyPool(boolean enabled, int startPort, int maxSize, long acquireTimeout,
+      Supplier<BrowserMobProxy> proxyFactory) {
+    this(enabled, startPort, maxSize, acquireTimeout, null, proxyFactory);
+  }
+
+  ProxyPool(boolean enabled, int startPort, int maxSize, long acquireTimeout,
+      ResponseCache responseCache, Supplier<BrowserMobProxy> proxyFactory) {
+    this.enabled = enabled;
+    this.startPort = startPort;
+    this.nextPort = startPort;
+    this.maxSize = Math.max(0, maxSize);
+    this.acquireTimeoutMillis = TimeUnit.SECONDS.toMillis(acquireTimeout);
+    this.responseCache = responseCache;
+    this.proxyFactory = proxyFactory;
+  }
+
+  /**
+   * Takes an idle proxy bound to the given address or starts a new one.
+   *
+   * @param address address the proxy should be bound to
+   * @param filter  filter the requests passing through the proxy will be sent to
+   * @return started proxy, owned by the caller until it is released
+   * @throws IllegalStateException when the proxy can't be started or no proxy has been released
+   *                               within the timeout
+   */
+  PooledProxy acquire(InetAddress address, RequestFilter filter) {
+    PooledProxy idle = reserve(address);
+    if (idle != null) {
+      idle.attach(filter);
+      return idle;
+    }
+    PooledProxy started;
+    try {
+      started = start(address);
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        startedProxies--;
+        notifyAll();
+      }
+      throw e;
+    }
+    started.attach(filter);
+    return started;
+  }
+
+  /**
+   * Returns the proxy to the pool. The proxy is stopped instead if the pool is disabled or shut
+   * down, or if the proxy has been modified through its lease in a way that can't be reset.
+   *
+   * @param pooledProxy proxy previously obtained by {@link #acquire(InetAddress, RequestFilter)}
+   */
+  void release(PooledProxy pooledProxy) {
+    if (enabled && pooledProxy.isModified()) {
+      LOG.debug("Proxy has been modified beyond reset, it will be stopped");
+    } else if (enabled) {
+      try {
+        pooledProxy.reset();
+        synchronized (this) {
+          if (!shutdown) {
+            idleProxies.push(pooledProxy);
+            notifyAll();
+            return;
+          }
+        }
+      } catch (RuntimeException e) {
+        LOG.warn("Can't reset proxy, it will be stopped", e);
+      }
+    }
+    stop(pooledProxy);
+  }
+
+  /**
+   * Stops all idle proxies. Proxies in use are stopped when they are released.
+   */
+  public void shutdown() {
+    Deque<PooledProxy> toStop;
+    synchronized (this) {
+      shutdown = true;
+      toStop = new ArrayDeque<>(idleProxies);
+      idleProxies.clear();
+    }
+    toStop.forEach(this::stop);
+  }
+
+  @Override
+  public void dispose() {
+    shutdown();
+  }
+
+  /**
+   * @return number of proxies currently started, both idle and in use
+   */
+  public synchronized int getStartedProxies() {
+    return startedProxies;
+  }
+
+  private synchronized PooledProxy reserve(InetAddress address) {
+    long deadline = System.currentTimeMillis() + acquireTimeoutMillis;
+    while (true) {
+      PooledProxy idle = pollIdle(address);
+      if (idle != null) {
+        return idle;
+      }
+      if (maxSize == 0 || startedProxies < maxSize) {
+        startedProxies++;
+        return null;
+      }
+      if (!idleProxies.isEmpty()) {
+        // an idle proxy bound to another address makes room for a new one
+        stopLater(idleProxies.pollLast());
+        continue;
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        throw new IllegalStateException(
+            "No proxy has been released within the timeout, all " + maxSize + " are in use");
+      }
+      try {
+        wait(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for a proxy", e);
+      }
+    }
+  }
+
+  private PooledProxy pollIdle(InetAddress address) {
+    Iterator<PooledProxy> iterator = idleProxies.iterator();
+    while (iterator.hasNext()) {
+      PooledProxy idle = iterator.next();
+      if (idle.getAddress().equals(address)) {
+        iterator.remove();
+        return idle;
+      }
+    }
+    return null;
+  }
+
+  private PooledProxy pooled(BrowserMobProxy proxy, InetAddress address, int port) {
+    PooledProxy pooledProxy = new PooledProxy(proxy, address, port);
+    if (responseCache != null && responseCache.isEnabled()) {
+      // added after the request filter, so stubs take precedence over cached responses; requests
+      // answered from the cache don't reach the HAR capture filters, added later by newHar()
+      proxy.addLastHttpFilterFactory(responseCache.getFiltersSource());
+    }
+    return pooledProxy;
+  }
+
+  private void stopLater(PooledProxy pooledProxy) {
+    new Thread(() -> stop(pooledProxy), "bobcat-proxy-stop").start();
+  }
+
+  private PooledProxy start(InetAddress address) {
+    if (startPort == 0) {
+      BrowserMobProxy proxy = proxyFactory.get();
+      proxy.start(0, address);
+      return pooled(proxy, address, 0);
+    }
+    RuntimeException lastFailure = null;
+    for (int attempt = 0; attempt < PORT_ATTEMPTS; attempt++) {
+      int port = allocatePort();
+      BrowserMobProxy proxy = proxyFactory.get();
+      try {
+        proxy.start(port, address);
+        return pooled(proxy, address, port);
+      } catch (RuntimeException e) {
+        // the port is probably taken by another process, so it is not returned to the free-list
+        LOG.warn("Can't start proxy on port {}", port, e);
+        lastFailure = e;
+      }
+    }
+    throw new IllegalStateException("Can't start proxy after " + PORT_ATTEMPTS + " attempts",
+        lastFailure);
+  }
+
+  private void stop(PooledProxy pooledProxy) {
+    try {
+      pooledProxy.getProxy().stop();
+    } catch (RuntimeException e) {
+      LOG.error("Can't stop proxy", e);
+    }
+    synchronized (this) {
+      if (pooledProxy.getAllocatedPort() != 0) {
+        freePorts.add(pooledProxy.getAllocatedPort());
+      }
+      startedProxies--;
+      notifyAll();
+    }
+  }
+
+  private synchronized int allocatePort() {
+    Integer port = freePorts.pollFirst();
+    return port != null ? port : nextPort++;
+  }
+}
@@ -19,10 +19,8 @@
  */
 package com.cognifide.qa.bb.proxy;
 
-import java.util.LinkedHashSet;
 import java.util.Set;
-
-import com.cognifide.qa.bb.guice.ThreadScoped;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
@@ -32,11 +30,13 @@ import net.lightbody.bmp.util.HttpMessageInfo;
 
 /**
  * This class allows to dynamically register and unregister RequestFilter objects in the current proxy.
+ * <br>
+ * Each {@link ProxyController} owns a single registry, which is called by the proxy's threads while tests
+ * register and unregister filters, so the registry is thread-safe.
  */
-@ThreadScoped
 public class RequestFilterRegistry implements RequestFilter {
 
-  private final Set<RequestFilter> filters = new LinkedHashSet<>();
+  private final Set<RequestFilter> filters = new CopyOnWriteArraySet<>();
 
   /**
    * Register new filter
@@ -0,0 +1,190 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.cache;
+
+import java.text.ParseException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * Decides which responses can be shared by the {@link ResponseCache}, following the rules of a
+ * shared cache from RFC 7234, limited to explicit freshness information.
+ */
+final class CachePolicy {
+
+  static final long NOT_CACHEABLE = -1;
+
+  private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList(
+      "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+      "transfer-encoding", "upgrade", "content-length"));
+
+  private CachePolicy() {
+    // util
+  }
+
+  /**
+   * @param request request sent by the browser
+   * @return true if the request may be answered with a cached response; responses to requests
+   * which bypass the cache (e.g. page reloads) can still be stored
+   */
+  static boolean isCacheable(HttpRequest request) {
+    if (!HttpMethod.GET.equals(request.getMethod())) {
+      return false;
+    }
+    Map<String, String> directives = cacheControl(request);
+    return !directives.containsKey("no-cache") && !directives.containsKey("no-store")
+        && !request.headers().getAll(HttpHeaders.Names.PRAGMA).contains("no-cache");
+  }
+
+  /**
+   * @param request  request sent by the browser
+   * @param response response of the server
+   * @param now      current time in milliseconds
+   * @return time (in milliseconds) the response stays fresh until or {@value #NOT_CACHEABLE} if it
+   * must not be stored
+   */
+  static long expiresAt(HttpRequest request, HttpResponse response, long now) {
+    HttpHeaders headers = response.headers();
+    if (!HttpMethod.GET.equals(request.getMethod()) || cacheControl(request).containsKey("no-store")
+        || !HttpResponseStatus.OK.equals(response.getStatus())
+        || headers.contains(HttpHeaders.Names.SET_COOKIE) || varyNames(response).contains("*")) {
+      return NOT_CACHEABLE;
+    }
+    Map<String, String> directives = cacheControl(response);
+    if (directives.containsKey("no-store") || directives.containsKey("no-cache")
+        || directives.containsKey("private")) {
+      return NOT_CACHEABLE;
+    }
+    if (request.headers().contains(HttpHeaders.Names.AUTHORIZATION)
+        && !directives.containsKey("public") && !directives.containsKey("s-maxage")) {
+      return NOT_CACHEABLE;
+    }
+    long freshness = freshnessMillis(response, directives, now) - ageMillis(response);
+    return freshness > 0 ? now + freshness : NOT_CACHEABLE;
+  }
+
+  /**
+   * @param response response of the server
+   * @return sorted, lower-case names of the request headers the response depends on
+   */
+  static List<String> varyNames(HttpResponse response) {
+    Set<String> names = new TreeSet<>();
+    for (String vary : response.headers().getAll(HttpHeaders.Names.VARY)) {
+      for (String name : vary.split(",")) {
+        if (!name.trim().isEmpty()) {
+          names.add(name.trim().toLowerCase(Locale.ENGLISH));
+        }
+      }
+    }
+    // the encoded body can only be served to browsers accepting the same encodings
+    if (response.headers().contains(HttpHeaders.Names.CONTENT_ENCODING)) {
+      names.add(HttpHeaders.Names.ACCEPT_ENCODING.toLowerCase(Locale.ENGLISH));
+    }
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * @param response response of the server
+   * @return headers of the response that are not specific to the connection it was received on
+   */
+  static List<Map.Entry<String, String>> endToEndHeaders(HttpResponse response) {
+    Set<String> excluded = new HashSet<>(HOP_BY_HOP_HEADERS);
+    for (String connection : response.headers().getAll(HttpHeaders.Names.CONNECTION)) {
+      for (String name : connection.split(",")) {
+        excluded.add(name.trim().toLowerCase(Locale.ENGLISH));
+      }
+    }
+    List<Map.Entry<String, String>> headers = new ArrayList<>();
+    for (Map.Entry<String, String> header : response.headers()) {
+      if (!excluded.contains(header.getKey().toLowerCase(Locale.ENGLISH))) {
+        headers.add(new SimpleImmutableEntry<>(header.getKey(), header.getValue()));
+      }
+    }
+    return headers;
+  }
+
+  private static long freshnessMillis(HttpResponse response, Map<String, String> directives,
+      long now) {
+    Long maxAge = seconds(directives.get("s-maxage"));
+    if (maxAge == null) {
+      maxAge = seconds(directives.get("max-age"));
+    }
+    if (maxAge != null) {
+      return TimeUnit.SECONDS.toMillis(maxAge);
+    }
+    if (!response.headers().contains(HttpHeaders.Names.EXPIRES)) {
+      return 0;
+    }
+    try {
+      long expires = HttpHeaders.getDateHeader(response, HttpHeaders.Names.EXPIRES).getTime();
+      long date = response.headers().contains(HttpHeaders.Names.DATE)
+          ? HttpHeaders.getDateHeader(response, HttpHeaders.Names.DATE).getTime()
+          : now;
+      return expires - date;
+    } catch (ParseException e) {
+      // invalid dates mean the response is already expired
+      return 0;
+    }
+  }
+
+  private static long ageMillis(HttpResponse response) {
+    Long age = seconds(response.headers().get(HttpHeaders.Names.AGE));
+    return age == null ? 0 : TimeUnit.SECONDS.toMillis(age);
+  }
+
+  private static Long seconds(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Math.max(0, Long.parseLong(value.trim().replace("\"", "")));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Map<String, String> cacheControl(HttpMessage message) {
+    Map<String, String> directives = new HashMap<>();
+    for (String cacheControl : message.headers().getAll(HttpHeaders.Names.CACHE_CONTROL)) {
+      for (String directive : cacheControl.split(",")) {
+        String[] parts = directive.split("=", 2);
+        directives.put(parts[0].trim().toLowerCase(Locale.ENGLISH),
+            parts.length > 1 ? parts[1].trim() : "");
+      }
+    }
+    return directives;
+  }
+}
@@ -0,0 +1,113 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+/**
+ * Response kept by the {@link ResponseCache}: status, end-to-end headers and the body, as sent by
+ * the server (i.e. still encoded with its {@code Content-Encoding}).
+ */
+final class CachedResponse {
+
+  static final String CACHE_HEADER = "X-Bobcat-Cache";
+
+  private final int status;
+
+  private final List<Map.Entry<String, String>> headers;
+
+  private final byte[] body;
+
+  private final long expiresAt;
+
+  CachedResponse(int status, List<Map.Entry<String, String>> headers, byte[] body,
+      long expiresAt) {
+    this.status = status;
+    this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+    this.body = body;
+    this.expiresAt = expiresAt;
+  }
+
+  static CachedResponse read(DataInputStream input) throws IOException {
+    int status = input.readInt();
+    long expiresAt = input.readLong();
+    int headerCount = input.readInt();
+    List<Map.Entry<String, String>> headers = new ArrayList<>(headerCount);
+    for (int i = 0; i < headerCount; i++) {
+      headers.add(new SimpleImmutableEntry<>(input.readUTF(), input.readUTF()));
+    }
+    byte[] body = new byte[input.readInt()];
+    input.readFully(body);
+    return new CachedResponse(status, headers, body, expiresAt);
+  }
+
+  void write(DataOutputStream output) throws IOException {
+    output.writeInt(status);
+    output.writeLong(expiresAt);
+    output.writeInt(headers.size());
+    for (Map.Entry<String, String> header : headers) {
+      output.writeUTF(header.getKey());
+      output.writeUTF(header.getValue());
+    }
+    output.writeInt(body.length);
+    output.write(body);
+  }
+
+  boolean isExpired(long now) {
+    return now >= expiresAt;
+  }
+
+  /**
+   * @return approximate number of bytes taken by the response
+   */
+  long size() {
+    long size = body.length;
+    for (Map.Entry<String, String> header : headers) {
+      size += header.getKey().length() + header.getValue().length();
+    }
+    return size;
+  }
+
+  /**
+   * @return new response to be sent to the browser
+   */
+  FullHttpResponse toHttpResponse() {
+    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+        HttpResponseStatus.valueOf(status), Unpooled.wrappedBuffer(body));
+    headers.forEach(header -> response.headers().add(header.getKey(), header.getValue()));
+    response.headers().set(HttpHeaders.Names.CONTENT_LENGTH, body.length);
+    response.headers().set(CACHE_HEADER, "HIT");
+    return response;
+  }
+}
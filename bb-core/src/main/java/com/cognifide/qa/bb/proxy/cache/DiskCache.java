@@ -0,0 +1,201 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Disk tier of the {@link ResponseCache}: keeps responses evicted from memory in files of the cache
+ * directory, removing the least recently used ones above the size limit. Files left by previous
+ * runs are removed when the directory is first used in the JVM, so caches of the same run don't
+ * remove each other's files.
+ */
+class DiskCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DiskCache.class);
+
+  private static final String EXTENSION = ".cache";
+
+  private static final Set<Path> PREPARED_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+  private final Path directory;
+
+  private final long maxBytes;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes;
+
+  DiskCache(Path directory, long maxBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    try {
+      Files.createDirectories(directory);
+      if (PREPARED_DIRECTORIES.add(directory.toAbsolutePath().normalize())) {
+        removeFiles(directory);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Can't prepare response cache directory " + directory, e);
+    }
+  }
+
+  /**
+   * @param key     key of the response
+   * @param response response to be kept; it is skipped if larger than a quarter of the tier
+   */
+  void put(String key, CachedResponse response) {
+    long size = response.size();
+    if (size > maxBytes / 4) {
+      return;
+    }
+    Path file = directory.resolve(fileName(key));
+    try {
+      Path temporary = Files.createTempFile(directory, "response", ".tmp");
+      try (DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        response.write(output);
+      }
+      // readers of the previous file keep reading it until they are done
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Can't write cached response to {}", file, e);
+      return;
+    }
+    List<Path> evicted = new ArrayList<>();
+    synchronized (this) {
+      Entry previous = entries.put(key, new Entry(file, size));
+      if (previous != null) {
+        bytes -= previous.size;
+      }
+      bytes += size;
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (bytes > maxBytes && eldest.hasNext()) {
+        Entry entry = eldest.next();
+        eldest.remove();
+        bytes -= entry.size;
+        evicted.add(entry.file);
+      }
+    }
+    evicted.forEach(this::delete);
+  }
+
+  /**
+   * @param key key of the response
+   * @return response kept under the key or null if there's none
+   */
+  CachedResponse get(String key) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key);
+    }
+    if (entry == null) {
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(entry.file)))) {
+      return CachedResponse.read(input);
+    } catch (IOException e) {
+      // the file has been evicted in the meantime
+      LOG.debug("Can't read cached response from {}", entry.file, e);
+      return null;
+    }
+  }
+
+  void remove(String key) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.remove(key);
+      if (entry != null) {
+        bytes -= entry.size;
+      }
+    }
+    if (entry != null) {
+      delete(entry.file);
+    }
+  }
+
+  void clear() {
+    List<Path> files = new ArrayList<>();
+    synchronized (this) {
+      entries.values().forEach(entry -> files.add(entry.file));
+      entries.clear();
+      bytes = 0;
+    }
+    files.forEach(this::delete);
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private static void removeFiles(Path directory) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.warn("Can't delete cached response {}", file, e);
+    }
+  }
+
+  private static String fileName(String key) {
+    return Hashing.sha256().hashString(key, StandardCharsets.UTF_8) + EXTENSION;
+  }
+
+  private static final class Entry {
+
+    private final Path file;
+
+    private final long size;
+
+    private Entry(Path file, long size) {
+      this.file = file;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,259 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.cache;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.littleshoot.proxy.HttpFiltersSource;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.SuiteScoped;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * Cache of the responses shared by all the proxy servers, so static assets (client libraries,
+ * fonts, images) are downloaded once per run instead of once per browser.
+ * <br>
+ * Only fresh responses to GET requests with explicit freshness information ({@code max-age},
+ * {@code s-maxage} or {@code Expires}) that a shared cache may store are kept. Responses are
+ * identified by the URL and the values of the request headers listed in their {@code Vary} header.
+ * <br>
+ * The least recently used responses are evicted from memory once it holds more than
+ * {@value ConfigKeys#PROXY_CACHE_MAX_SIZE} megabytes. With
+ * {@value ConfigKeys#PROXY_CACHE_DIRECTORY} set, they are moved to files in that directory, up to
+ * {@value ConfigKeys#PROXY_CACHE_DISK_MAX_SIZE} megabytes. Responses larger than a quarter of a
+ * tier are not kept in it.
+ * <br>
+ * There is one cache per JVM, shared by all test classes. It is cleared at the end of the run (see
+ * {@link com.cognifide.qa.bb.guice.SuiteScope}).
+ */
+@SuiteScoped
+public class ResponseCache implements Disposable {
+
+  private static final long MEGABYTE = 1024L * 1024L;
+
+  private final boolean enabled;
+
+  private final long maxMemoryBytes;
+
+  private final long maxDiskBytes;
+
+  private final DiskCache diskCache;
+
+  private final Map<String, CachedResponse> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final Map<String, List<String>> varyNames = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final HttpFiltersSource filtersSource = new ResponseCacheFiltersSource(this);
+
+  private long memoryBytes;
+
+  @Inject
+  public ResponseCache(
+      @Named(ConfigKeys.PROXY_CACHE_ENABLED) boolean enabled,
+      @Named(ConfigKeys.PROXY_CACHE_MAX_SIZE) long maxSize,
+      @Named(ConfigKeys.PROXY_CACHE_DIRECTORY) String directory,
+      @Named(ConfigKeys.PROXY_CACHE_DISK_MAX_SIZE) long diskMaxSize) {
+    this(enabled, maxSize * MEGABYTE, directory.isEmpty() ? null : Paths.get(directory),
+        diskMaxSize * MEGABYTE);
+  }
+
+  ResponseCache(boolean enabled, long maxMemoryBytes, Path directory, long maxDiskBytes) {
+    this.enabled = enabled;
+    this.maxMemoryBytes = Math.max(0, maxMemoryBytes);
+    this.maxDiskBytes = directory == null ? 0 : Math.max(0, maxDiskBytes);
+    this.diskCache = enabled && directory != null ? new DiskCache(directory, this.maxDiskBytes)
+        : null;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return source of the proxy filters answering requests from the cache and storing responses
+   */
+  public HttpFiltersSource getFiltersSource() {
+    return filtersSource;
+  }
+
+  /**
+   * @param request request sent by the browser
+   * @param url     full URL of the request
+   * @return new copy of the cached response or null if there's no fresh one
+   */
+  public FullHttpResponse lookup(HttpRequest request, String url) {
+    if (!enabled || !CachePolicy.isCacheable(request)) {
+      return null;
+    }
+    List<String> names = varyNames.get(url);
+    CachedResponse response = names == null ? null : get(key(url, names, request));
+    if (response == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return response.toHttpResponse();
+  }
+
+  /**
+   * Stores the response, if it is cacheable.
+   *
+   * @param request  request sent by the browser
+   * @param url      full URL of the request
+   * @param response response of the server
+   * @param body     whole body of the response, as received from the server
+   */
+  public void store(HttpRequest request, String url, HttpResponse response, byte[] body) {
+    long expiresAt = CachePolicy.expiresAt(request, response, System.currentTimeMillis());
+    if (!enabled || expiresAt == CachePolicy.NOT_CACHEABLE) {
+      return;
+    }
+    List<String> names = CachePolicy.varyNames(response);
+    varyNames.put(url, names);
+    put(key(url, names, request), new CachedResponse(response.getStatus().code(),
+        CachePolicy.endToEndHeaders(response), body, expiresAt));
+  }
+
+  /**
+   * @return size (in bytes) of the largest response that can be stored
+   */
+  public long getMaxEntrySize() {
+    return Math.max(maxMemoryBytes, maxDiskBytes) / 4;
+  }
+
+  /**
+   * @return number of requests answered from the cache
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of cacheable requests that had to be sent to the server
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Removes all the cached responses.
+   */
+  public void clear() {
+    synchronized (memory) {
+      memory.clear();
+      memoryBytes = 0;
+    }
+    varyNames.clear();
+    if (diskCache != null) {
+      diskCache.clear();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    clear();
+  }
+
+  private CachedResponse get(String key) {
+    long now = System.currentTimeMillis();
+    CachedResponse response;
+    synchronized (memory) {
+      response = memory.get(key);
+      if (response != null && response.isExpired(now)) {
+        memory.remove(key);
+        memoryBytes -= response.size();
+        return null;
+      }
+    }
+    if (response != null || diskCache == null) {
+      return response;
+    }
+    response = diskCache.get(key);
+    if (response == null || response.isExpired(now)) {
+      diskCache.remove(key);
+      return null;
+    }
+    if (response.size() <= maxMemoryBytes / 4) {
+      put(key, response);
+    }
+    return response;
+  }
+
+  private void put(String key, CachedResponse response) {
+    long size = response.size();
+    List<Map.Entry<String, CachedResponse>> evicted = new ArrayList<>();
+    if (size <= maxMemoryBytes / 4) {
+      synchronized (memory) {
+        CachedResponse previous = memory.put(key, response);
+        if (previous != null) {
+          memoryBytes -= previous.size();
+        }
+        memoryBytes += size;
+        Iterator<Map.Entry<String, CachedResponse>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+          Map.Entry<String, CachedResponse> entry = eldest.next();
+          eldest.remove();
+          memoryBytes -= entry.getValue().size();
+          evicted.add(entry);
+        }
+      }
+      if (diskCache != null) {
+        diskCache.remove(key);
+      }
+    } else {
+      evicted.add(new SimpleImmutableEntry<>(key, response));
+    }
+    if (diskCache != null) {
+      long now = System.currentTimeMillis();
+      evicted.stream()
+          .filter(entry -> !entry.getValue().isExpired(now))
+          .forEach(entry -> diskCache.put(entry.getKey(), entry.getValue()));
+    }
+  }
+
+  private static String key(String url, List<String> names, HttpRequest request) {
+    StringBuilder key = new StringBuilder(url);
+    for (String name : names) {
+      key.append('\n').append(name).append(": ")
+          .append(String.join(", ", request.headers().getAll(name)));
+    }
+    return key.toString();
+  }
+}
@@ -0,0 +1,47 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.cache;
+
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Creates the {@link ResponseCachingFilter}s of GET requests. Responses are not aggregated by the
+ * proxy, so large ones pass through unaffected.
+ */
+class ResponseCacheFiltersSource extends HttpFiltersSourceAdapter {
+
+  private final ResponseCache cache;
+
+  ResponseCacheFiltersSource(ResponseCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public HttpFilters filterRequest(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+    return HttpMethod.GET.equals(originalRequest.getMethod())
+        ? new ResponseCachingFilter(originalRequest, ctx, cache)
+        : null;
+  }
+}
@@ -0,0 +1,92 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.cache;
+
+import java.io.ByteArrayOutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import net.lightbody.bmp.filters.HttpsAwareFiltersAdapter;
+
+/**
+ * Answers the request with a cached response or copies the response of the server, chunk by chunk,
+ * and stores it in the {@link ResponseCache} once it is complete. Copying stops as soon as the
+ * response turns out not to be cacheable or too large.
+ */
+class ResponseCachingFilter extends HttpsAwareFiltersAdapter {
+
+  private final ResponseCache cache;
+
+  private String url;
+
+  private HttpResponse response;
+
+  private ByteArrayOutputStream body;
+
+  ResponseCachingFilter(HttpRequest originalRequest, ChannelHandlerContext ctx,
+      ResponseCache cache) {
+    super(originalRequest, ctx);
+    this.cache = cache;
+  }
+
+  @Override
+  public HttpResponse clientToProxyRequest(HttpObject httpObject) {
+    if (httpObject instanceof HttpRequest) {
+      url = getFullUrl(originalRequest);
+      return cache.lookup(originalRequest, url);
+    }
+    return null;
+  }
+
+  @Override
+  public HttpObject serverToProxyResponse(HttpObject httpObject) {
+    if (httpObject instanceof HttpResponse) {
+      response = (HttpResponse) httpObject;
+      body = url != null && CachePolicy.expiresAt(originalRequest, response,
+          System.currentTimeMillis()) != CachePolicy.NOT_CACHEABLE
+          ? new ByteArrayOutputStream() : null;
+    }
+    if (httpObject instanceof HttpContent && body != null) {
+      copy(((HttpContent) httpObject).content());
+    }
+    if (httpObject instanceof LastHttpContent && body != null) {
+      cache.store(originalRequest, url, response, body.toByteArray());
+      body = null;
+    }
+    return httpObject;
+  }
+
+  private void copy(ByteBuf content) {
+    int length = content.readableBytes();
+    if (body.size() + (long) length > cache.getMaxEntrySize()) {
+      body = null;
+      return;
+    }
+    byte[] chunk = new byte[length];
+    content.getBytes(content.readerIndex(), chunk);
+    body.write(chunk, 0, length);
+  }
+}
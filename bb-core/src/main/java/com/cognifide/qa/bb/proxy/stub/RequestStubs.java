@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.stub;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import net.lightbody.bmp.filters.RequestFilter;
+import net.lightbody.bmp.util.HttpMessageContents;
+import net.lightbody.bmp.util.HttpMessageInfo;
+
+/**
+ * Stubs of the requests passing through the proxy of a {@link com.cognifide.qa.bb.proxy.ProxyController}.
+ * The first matching {@link StubRule} decides what happens with a request; rules added later take
+ * precedence, so tests can override the rules configured with {@code proxy.stubs}. Rules added by a
+ * test are dropped when its browser is closed, see {@link #reset()}.
+ * <br>
+ * The stubs are applied after all the filters of the
+ * {@link com.cognifide.qa.bb.proxy.RequestFilterRegistry}, so they see stubbed requests too.
+ */
+public class RequestStubs implements RequestFilter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RequestStubs.class);
+
+  private final List<StubRule> initialRules;
+
+  private final Deque<StubRule> rules = new ConcurrentLinkedDeque<>();
+
+  /**
+   * @param rules initial rules, in the order of precedence
+   */
+  public RequestStubs(Collection<StubRule> rules) {
+    this.initialRules = new ArrayList<>(rules);
+    this.rules.addAll(rules);
+  }
+
+  /**
+   * Adds the rule in front of the existing ones.
+   *
+   * @param rule rule to be added
+   * @return this object
+   */
+  public RequestStubs add(StubRule rule) {
+    rules.addFirst(rule);
+    return this;
+  }
+
+  /**
+   * @param rule rule to be removed
+   */
+  public void remove(StubRule rule) {
+    rules.remove(rule);
+  }
+
+  /**
+   * Removes all the rules, including the configured ones.
+   */
+  public void clear() {
+    rules.clear();
+  }
+
+  /**
+   * Brings back the initial rules, removing the ones added since.
+   */
+  public synchronized void reset() {
+    rules.clear();
+    rules.addAll(initialRules);
+  }
+
+  @Override
+  public HttpResponse filterRequest(HttpRequest request, HttpMessageContents contents,
+      HttpMessageInfo messageInfo) {
+    String url = messageInfo.getUrl();
+    for (StubRule rule : rules) {
+      if (rule.matches(request, url)) {
+        LOG.debug("Request to {} stubbed by {}", url, rule);
+        return rule.apply();
+      }
+    }
+    return null;
+  }
+}
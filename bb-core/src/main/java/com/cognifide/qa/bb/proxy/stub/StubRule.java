@@ -0,0 +1,290 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.stub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+/**
+ * Rule of {@link RequestStubs}: describes the requests it applies to and what the proxy does with
+ * them - responds with a canned response, blocks them or delays them. Rules are built with the
+ * fluent API, e.g.:
+ * <pre>
+ * StubRule.forUrl("https://api\\.example\\.com/users.*").method("GET")
+ *     .respond(200, "application/json", "{\"users\": []}");
+ * StubRule.forHost("doubleclick.net").block();
+ * StubRule.forUrl(".*\\.woff2").withDelay(500, TimeUnit.MILLISECONDS).passThrough();
+ * </pre>
+ * <p>
+ * Delays block the proxy worker thread that handles the request, so the other connections served
+ * by that thread wait as well; keep them short.
+ */
+public final class StubRule {
+
+  private static final int BLOCKED_STATUS = 204;
+
+  private final Pattern url;
+
+  private final String host;
+
+  private final String method;
+
+  private final Map<String, Pattern> headers;
+
+  private final long delayMillis;
+
+  private final HttpResponseStatus status;
+
+  private final Map<String, String> responseHeaders;
+
+  private final byte[] body;
+
+  private StubRule(Builder builder, HttpResponseStatus status, Map<String, String> responseHeaders,
+      byte[] body) {
+    this.url = builder.url;
+    this.host = builder.host;
+    this.method = builder.method;
+    this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(builder.headers));
+    this.delayMillis = builder.delayMillis;
+    this.status = status;
+    this.responseHeaders = responseHeaders;
+    this.body = body;
+  }
+
+  /**
+   * @param urlRegex regular expression the whole request URL has to match
+   * @return builder of a rule for the requests with matching URL
+   */
+  public static Builder forUrl(String urlRegex) {
+    return new Builder(Pattern.compile(urlRegex), null);
+  }
+
+  /**
+   * @param host host name, e.g. {@code doubleclick.net}
+   * @return builder of a rule for the requests sent to the host and its subdomains
+   */
+  public static Builder forHost(String host) {
+    return new Builder(null, host.toLowerCase());
+  }
+
+  /**
+   * @return builder of a rule for all the requests
+   */
+  public static Builder forAnyRequest() {
+    return new Builder(null, null);
+  }
+
+  /**
+   * @param request request passing through the proxy
+   * @param url     full URL of the request
+   * @return true if the rule applies to the request
+   */
+  public boolean matches(HttpRequest request, String url) {
+    return (this.url == null || this.url.matcher(url).matches())
+        && (host == null || matchesHost(url))
+        && (method == null || method.equalsIgnoreCase(request.getMethod().name()))
+        && headers.entrySet().stream().allMatch(header -> request.headers()
+        .getAll(header.getKey()).stream()
+        .anyMatch(value -> header.getValue().matcher(value).matches()));
+  }
+
+  /**
+   * Delays the request, if required, and returns the canned response. The delay blocks the calling
+   * proxy worker thread.
+   *
+   * @return response to be sent to the browser or null if the request should reach the server
+   */
+  public HttpResponse apply() {
+    if (delayMillis > 0) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (status == null) {
+      return null;
+    }
+    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+        Unpooled.wrappedBuffer(body));
+    responseHeaders.forEach((name, value) -> response.headers().set(name, value));
+    response.headers().set("Content-Length", body.length);
+    return response;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("StubRule(url: %s, host: %s, method: %s, headers: %s, delay: %d ms, %s)",
+        url, host, method, headers, delayMillis,
+        status == null ? "pass through" : "status " + status.code());
+  }
+
+  private boolean matchesHost(String requestUrl) {
+    String requestHost;
+    try {
+      requestHost = new URL(requestUrl).getHost().toLowerCase();
+    } catch (MalformedURLException e) {
+      return false;
+    }
+    return requestHost.equals(host) || requestHost.endsWith("." + host);
+  }
+
+  /**
+   * Builder of {@link StubRule}. Each terminal method ({@code respond}, {@code block},
+   * {@code passThrough}) returns the built rule.
+   */
+  public static final class Builder {
+
+    private final Pattern url;
+
+    private final String host;
+
+    private String method;
+
+    private final Map<String, Pattern> headers = new LinkedHashMap<>();
+
+    private long delayMillis;
+
+    Builder(Pattern url, String host) {
+      this.url = url;
+      this.host = host;
+    }
+
+    /**
+     * @param method HTTP method of the requests, e.g. GET
+     * @return this builder
+     */
+    public Builder method(String method) {
+      this.method = method;
+      return this;
+    }
+
+    /**
+     * @param name       name of the header the request has to contain
+     * @param valueRegex regular expression one of the header values has to match
+     * @return this builder
+     */
+    public Builder header(String name, String valueRegex) {
+      headers.put(name, Pattern.compile(valueRegex));
+      return this;
+    }
+
+    /**
+     * Delays the matching requests. The delay blocks the proxy worker thread handling the
+     * request, which stalls the other connections served by the same thread, so it is meant for
+     * short delays of single resources, not for simulating a slow network.
+     *
+     * @param delay delay of the matching requests
+     * @param unit  unit of the delay
+     * @return this builder
+     */
+    public Builder withDelay(long delay, TimeUnit unit) {
+      this.delayMillis = unit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * @param status      status of the response
+     * @param contentType content type of the response
+     * @param body        body of the response
+     * @return rule responding with the given content
+     */
+    public StubRule respond(int status, String contentType, String body) {
+      return respond(status, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param status      status of the response
+     * @param contentType content type of the response
+     * @param body        body of the response
+     * @return rule responding with the given content
+     */
+    public StubRule respond(int status, String contentType, byte[] body) {
+      return respond(status, Collections.singletonMap("Content-Type", contentType), body);
+    }
+
+    /**
+     * @param status  status of the response
+     * @param headers headers of the response
+     * @param body    body of the response
+     * @return rule responding with the given content
+     */
+    public StubRule respond(int status, Map<String, String> headers, byte[] body) {
+      return new StubRule(this, HttpResponseStatus.valueOf(status),
+          Collections.unmodifiableMap(new LinkedHashMap<>(headers)), body.clone());
+    }
+
+    /**
+     * @param status      status of the response
+     * @param contentType content type of the response
+     * @param file        file with the body of the response, read when the rule is built
+     * @return rule responding with the content of the file
+     * @throws UncheckedIOException when the file can't be read
+     */
+    public StubRule respondWithFile(int status, String contentType, Path file) {
+      try {
+        return respond(status, contentType, Files.readAllBytes(file));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Can't read stubbed response from " + file, e);
+      }
+    }
+
+    /**
+     * @return rule answering the requests with an empty {@code 204 No Content} response, so they
+     * never reach the server
+     */
+    public StubRule block() {
+      return block(BLOCKED_STATUS);
+    }
+
+    /**
+     * @param status status of the empty response
+     * @return rule answering the requests with an empty response, so they never reach the server
+     */
+    public StubRule block(int status) {
+      return respond(status, Collections.emptyMap(), new byte[0]);
+    }
+
+    /**
+     * @return rule letting the requests through to the server, after the delay if there is one
+     */
+    public StubRule passThrough() {
+      return new StubRule(this, null, Collections.emptyMap(), new byte[0]);
+    }
+  }
+}
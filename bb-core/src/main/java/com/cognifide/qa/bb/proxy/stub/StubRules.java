@@ -0,0 +1,188 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.stub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.io.ByteStreams;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Stub rules configured with {@value ConfigKeys#PROXY_STUBS} - a YAML file (on disk or on the
+ * classpath) with a list of rules, e.g.:
+ * <pre>
+ * - host: doubleclick.net
+ *   block: true
+ * - url: "https://api\\.example\\.com/users.*"
+ *   method: GET
+ *   headers:
+ *     Accept: "application/json.*"
+ *   response:
+ *     status: 200
+ *     contentType: application/json
+ *     body: '{"users": []}'
+ * - url: ".*\\.woff2"
+ *   delay: 500
+ * </pre>
+ * Instead of {@code body}, a response can point to a {@code file}, resolved against the directory of
+ * the YAML file or the classpath. The file is read once and the rules are shared by all proxies.
+ */
+@Singleton
+public class StubRules {
+
+  private final String location;
+
+  private List<StubRule> rules;
+
+  /**
+   * @param location location of the YAML file with the rules, empty for no rules
+   */
+  @Inject
+  public StubRules(@Named(ConfigKeys.PROXY_STUBS) String location) {
+    this.location = location;
+  }
+
+  /**
+   * @return the configured rules, in the order of precedence
+   * @throws IllegalStateException when the rules can't be read
+   */
+  public synchronized List<StubRule> get() {
+    if (rules == null) {
+      rules = StringUtils.isBlank(location) ? Collections.emptyList() : read();
+    }
+    return rules;
+  }
+
+  private List<StubRule> read() {
+    Path file = Paths.get(location);
+    Path base = Files.isRegularFile(file) ? file.toAbsolutePath().getParent() : null;
+    List<RuleDefinition> definitions;
+    try {
+      definitions = new ObjectMapper(new YAMLFactory())
+          .readValue(readBytes(location, null), new TypeReference<List<RuleDefinition>>() {
+          });
+    } catch (IOException | UncheckedIOException e) {
+      throw new IllegalStateException("Can't read stub rules from " + location, e);
+    }
+    List<StubRule> result = new ArrayList<>();
+    for (RuleDefinition definition : definitions) {
+      result.add(definition.toRule(base));
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  private static byte[] readBytes(String location, Path base) {
+    try {
+      Path file = base == null ? Paths.get(location) : base.resolve(location);
+      if (Files.isRegularFile(file)) {
+        return Files.readAllBytes(file);
+      }
+      try (InputStream resource = StubRules.class.getClassLoader().getResourceAsStream(location)) {
+        if (resource == null) {
+          throw new IOException("No such file or classpath resource: " + location);
+        }
+        return ByteStreams.toByteArray(resource);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Rule as defined in the YAML file.
+   */
+  private static class RuleDefinition {
+
+    public String url;
+
+    public String host;
+
+    public String method;
+
+    public Map<String, String> headers = new LinkedHashMap<>();
+
+    public long delay;
+
+    public boolean block;
+
+    public ResponseDefinition response;
+
+    StubRule toRule(Path base) {
+      StubRule.Builder builder = new StubRule.Builder(url == null ? null : Pattern.compile(url),
+          host == null ? null : host.toLowerCase());
+      if (method != null) {
+        builder.method(method);
+      }
+      headers.forEach(builder::header);
+      builder.withDelay(delay, TimeUnit.MILLISECONDS);
+      if (block) {
+        return response == null ? builder.block() : builder.block(response.status);
+      }
+      if (response == null) {
+        return builder.passThrough();
+      }
+      Map<String, String> responseHeaders = new LinkedHashMap<>(response.headers);
+      if (response.contentType != null) {
+        responseHeaders.put("Content-Type", response.contentType);
+      }
+      byte[] body = response.file == null
+          ? StringUtils.defaultString(response.body).getBytes(StandardCharsets.UTF_8)
+          : readBytes(response.file, base);
+      return builder.respond(response.status, responseHeaders, body);
+    }
+  }
+
+  /**
+   * Canned response as defined in the YAML file.
+   */
+  private static class ResponseDefinition {
+
+    public int status = 200;
+
+    public String contentType;
+
+    public Map<String, String> headers = new LinkedHashMap<>();
+
+    public String body;
+
+    public String file;
+  }
+}
@@ -29,6 +29,9 @@ import java.lang.annotation.Target;
  * lists that do not change e.g. List&lt;AemRadioOption&gt;. Particular list elements can change, but size of list,
  * order of elements etc... can not. During first invocation, invocation handler will fetch web elements and
  * cache them. Every next call will not cause fetching elements from the page.
+ * <p>
+ * On WebElement fields, the element is looked up once and reused until the page is navigated, the frames are reset or
+ * the element becomes stale - in the latter case it is looked up again.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.FIELD})
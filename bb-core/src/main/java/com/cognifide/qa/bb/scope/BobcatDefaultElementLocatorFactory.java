@@ -22,12 +22,14 @@ package com.cognifide.qa.bb.scope;
 import com.cognifide.qa.bb.mapper.annotations.FieldAnnotationsProvider;
 import com.google.inject.Injector;
 import java.lang.reflect.Field;
+import java.util.Optional;
 import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
 
-public class BobcatDefaultElementLocatorFactory implements ElementLocatorFactory {
+public class BobcatDefaultElementLocatorFactory
+    implements ElementLocatorFactory, LocatorChainProvider {
 
   private final SearchContext searchContext;
 
@@ -42,4 +44,9 @@ public class BobcatDefaultElementLocatorFactory implements ElementLocatorFactory
     return new DefaultElementLocator(searchContext,
         FieldAnnotationsProvider.create(field, injector));
   }
+
+  @Override
+  public Optional<LocatorChain> getLocatorChain(Field field) {
+    return LocatorChain.of(searchContext, FieldAnnotationsProvider.create(field, injector).buildBy());
+  }
 }
@@ -97,7 +97,7 @@ public class ContextStack {
   private PageObjectContext getDefaultPageObjectContext(WebDriver webDriver) {
     ElementLocatorFactory elementLocatorFactory = new BobcatDefaultElementLocatorFactory(webDriver,
         injector);
-    FramePath framePath = new FramePath();
+    FramePath framePath = FramePath.root();
     return new PageObjectContext(elementLocatorFactory, framePath);
   }
 }
@@ -0,0 +1,181 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Location of an element described as a root search context and the selectors applied one after
+ * another, like a chain of nested page objects would do. The whole chain is resolved with a single
+ * script call.
+ * <p>
+ * Each step is searched for within the result of the previous one with the same semantics as
+ * consecutive {@code findElement} ({@code findElements}) calls. Only CSS, XPath and tag name
+ * selectors can be chained.
+ */
+public final class LocatorChain {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocatorChain.class);
+
+  private static final String CSS = "css";
+
+  private static final String XPATH = "xpath";
+
+  private static final String CSS_PREFIX = "By.cssSelector: ";
+
+  private static final String XPATH_PREFIX = "By.xpath: ";
+
+  private static final String TAG_NAME_PREFIX = "By.tagName: ";
+
+  private static final String RESOLVE_SCRIPT =
+      "var root = arguments[0] || document, steps = arguments[1], all = arguments[2];"
+          + "function find(context, step) {"
+          + "  if (step[0] === 'css') {"
+          + "    return all ? Array.prototype.slice.call(context.querySelectorAll(step[1]))"
+          + "      : context.querySelector(step[1]);"
+          + "  }"
+          + "  var result = (context.ownerDocument || document).evaluate(step[1], context, null,"
+          + "    all ? XPathResult.ORDERED_NODE_SNAPSHOT_TYPE : XPathResult.FIRST_ORDERED_NODE_TYPE,"
+          + "    null);"
+          + "  if (!all) { return result.singleNodeValue; }"
+          + "  var nodes = [];"
+          + "  for (var i = 0; i < result.snapshotLength; i++) { nodes.push(result.snapshotItem(i)); }"
+          + "  return nodes;"
+          + "}"
+          + "var contexts = [root];"
+          + "for (var i = 0; i < steps.length && contexts.length; i++) {"
+          + "  var found = [];"
+          + "  for (var j = 0; j < contexts.length; j++) {"
+          + "    var result = find(contexts[j], steps[i]);"
+          + "    if (all) { found = found.concat(result); } else if (result) { found.push(result); }"
+          + "  }"
+          + "  contexts = found;"
+          + "}"
+          + "return all ? contexts : contexts.length ? contexts[0] : null;";
+
+  private final WebElement root;
+
+  private final List<List<String>> steps;
+
+  private LocatorChain(WebElement root, List<List<String>> steps) {
+    this.root = root;
+    this.steps = steps;
+  }
+
+  /**
+   * Starts a chain.
+   *
+   * @param searchContext context of the first search, WebDriver or WebElement
+   * @param by            selector of the first step
+   * @return the chain or empty if the selector or the search context is not supported
+   */
+  public static Optional<LocatorChain> of(SearchContext searchContext, By by) {
+    if (!(searchContext instanceof WebDriver) && !(searchContext instanceof WebElement)) {
+      return Optional.empty();
+    }
+    WebElement root = searchContext instanceof WebElement ? (WebElement) searchContext : null;
+    return toStep(by).map(step -> new LocatorChain(root, Collections.singletonList(step)));
+  }
+
+  /**
+   * @param by selector of the next step
+   * @return new chain, extended with the given step, or empty if the selector is not supported
+   */
+  public Optional<LocatorChain> append(By by) {
+    return toStep(by).map(step -> {
+      List<List<String>> extended = new ArrayList<>(steps.size() + 1);
+      extended.addAll(steps);
+      extended.add(step);
+      return new LocatorChain(root, Collections.unmodifiableList(extended));
+    });
+  }
+
+  /**
+   * @param executor executes the lookup script
+   * @return the element found at the end of the chain or null if there is none or the script
+   * failed
+   */
+  public WebElement findElement(JavascriptExecutor executor) {
+    Object result = execute(executor, false);
+    return result instanceof WebElement ? (WebElement) result : null;
+  }
+
+  /**
+   * @param executor executes the lookup script
+   * @return the elements found at the end of the chain, empty if there are none or the script
+   * failed
+   */
+  public List<WebElement> findElements(JavascriptExecutor executor) {
+    Object result = execute(executor, true);
+    if (!(result instanceof List)) {
+      return Collections.emptyList();
+    }
+    return ((List<?>) result).stream()
+        .filter(WebElement.class::isInstance)
+        .map(WebElement.class::cast)
+        .collect(Collectors.toList());
+  }
+
+  private Object execute(JavascriptExecutor executor, boolean all) {
+    try {
+      return executor.executeScript(RESOLVE_SCRIPT, root, steps, all);
+    } catch (WebDriverException e) {
+      LOG.debug("Could not resolve {} with a single script call", this, e);
+      return null;
+    }
+  }
+
+  private static Optional<List<String>> toStep(By by) {
+    String description = String.valueOf(by);
+    if (by instanceof By.ByCssSelector && description.startsWith(CSS_PREFIX)) {
+      return Optional.of(step(CSS, description.substring(CSS_PREFIX.length())));
+    }
+    if (by instanceof By.ByXPath && description.startsWith(XPATH_PREFIX)) {
+      return Optional.of(step(XPATH, description.substring(XPATH_PREFIX.length())));
+    }
+    if (by instanceof By.ByTagName && description.startsWith(TAG_NAME_PREFIX)) {
+      return Optional.of(step(CSS, description.substring(TAG_NAME_PREFIX.length())));
+    }
+    return Optional.empty();
+  }
+
+  private static List<String> step(String strategy, String value) {
+    return Collections.unmodifiableList(Arrays.asList(strategy, value));
+  }
+
+  @Override
+  public String toString() {
+    return "LocatorChain" + steps;
+  }
+}
@@ -0,0 +1,37 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope;
+
+import java.lang.reflect.Field;
+import java.util.Optional;
+
+/**
+ * Locator factories that are able to describe where the elements of fields are searched for as a
+ * single {@link LocatorChain} should implement this interface.
+ */
+public interface LocatorChainProvider {
+
+  /**
+   * @param field page object field
+   * @return the chain of selectors leading to the element of the field, or empty if the location
+   * can't be expressed this way
+   */
+  Optional<LocatorChain> getLocatorChain(Field field);
+}
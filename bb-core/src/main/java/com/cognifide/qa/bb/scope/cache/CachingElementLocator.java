@@ -0,0 +1,79 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.cache;
+
+import java.util.List;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+/**
+ * Locator that remembers the element found by the wrapped locator until the {@link ElementCache}
+ * is invalidated or {@link #invalidate()} is called (e.g. when the element turns out to be stale).
+ * Lists of elements are not cached.
+ */
+public class CachingElementLocator implements ElementLocator {
+
+  private final ElementLocator delegate;
+
+  private final ElementCache cache;
+
+  private WebElement element;
+
+  private long generation;
+
+  /**
+   * Constructs CachingElementLocator.
+   *
+   * @param delegate locator that searches for the element
+   * @param cache    keeps track of the validity of the cached element
+   */
+  public CachingElementLocator(ElementLocator delegate, ElementCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public synchronized WebElement findElement() {
+    long current = cache.getGeneration();
+    if (element == null || generation != current) {
+      element = delegate.findElement();
+      generation = current;
+    }
+    return element;
+  }
+
+  @Override
+  public List<WebElement> findElements() {
+    return delegate.findElements();
+  }
+
+  /**
+   * Forgets the cached element, so it will be searched for on the next lookup.
+   */
+  public synchronized void invalidate() {
+    element = null;
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
@@ -0,0 +1,55 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.cache;
+
+import java.lang.reflect.Field;
+
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+/**
+ * Wraps the locators of the fields which elements should be cached in
+ * {@link CachingElementLocator}s.
+ */
+public class CachingElementLocatorFactory implements ElementLocatorFactory {
+
+  private final ElementLocatorFactory delegate;
+
+  private final ElementCache cache;
+
+  /**
+   * Constructs CachingElementLocatorFactory.
+   *
+   * @param delegate factory creating the actual locators
+   * @param cache    decides which fields are cached
+   */
+  public CachingElementLocatorFactory(ElementLocatorFactory delegate, ElementCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public ElementLocator createLocator(Field field) {
+    ElementLocator locator = delegate.createLocator(field);
+    return locator != null && cache.isCached(field)
+        ? new CachingElementLocator(locator, cache)
+        : locator;
+  }
+}
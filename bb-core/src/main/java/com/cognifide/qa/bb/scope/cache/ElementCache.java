@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.cache;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.WebElement;
+
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.ThreadScoped;
+import com.cognifide.qa.bb.qualifier.Cached;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Keeps track of the validity of WebElement references cached by {@link CachingElementLocator}s.
+ * <p>
+ * Elements of fields annotated with {@link Cached} (or of all WebElement fields, when
+ * {@code elements.cacheLookups} is enabled) are looked up once and reused until the page is
+ * navigated, the frames are reset or the element becomes stale.
+ */
+@ThreadScoped
+public class ElementCache {
+
+  private final AtomicLong generation = new AtomicLong();
+
+  @Inject
+  @Named(ConfigKeys.ELEMENTS_CACHE_LOOKUPS)
+  private boolean cacheAll;
+
+  /**
+   * @param field page object field
+   * @return true if the element of the field should be cached
+   */
+  public boolean isCached(Field field) {
+    return WebElement.class.isAssignableFrom(field.getType())
+        && (cacheAll || field.isAnnotationPresent(Cached.class));
+  }
+
+  /**
+   * @return the current generation of cached elements; references cached in a previous generation
+   * are not used anymore
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Invalidates all the cached references.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+  }
+}
@@ -0,0 +1,64 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.cache;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Invalidates the {@link ElementCache} when the browser navigates to another page or window.
+ */
+public class ElementCacheListener extends AbstractWebDriverEventListener {
+
+  private final Provider<ElementCache> elementCache;
+
+  @Inject
+  public ElementCacheListener(Provider<ElementCache> elementCache) {
+    this.elementCache = elementCache;
+  }
+
+  @Override
+  public void afterNavigateTo(String url, WebDriver driver) {
+    elementCache.get().invalidate();
+  }
+
+  @Override
+  public void afterNavigateBack(WebDriver driver) {
+    elementCache.get().invalidate();
+  }
+
+  @Override
+  public void afterNavigateForward(WebDriver driver) {
+    elementCache.get().invalidate();
+  }
+
+  @Override
+  public void afterNavigateRefresh(WebDriver driver) {
+    elementCache.get().invalidate();
+  }
+
+  @Override
+  public void afterSwitchToWindow(String windowName, WebDriver driver) {
+    elementCache.get().invalidate();
+  }
+}
@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.cache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.internal.LocatingElementHandler;
+
+import com.cognifide.qa.bb.frame.FrameSwitcher;
+
+/**
+ * Counterpart of Selenium's {@link LocatingElementHandler} for cached elements: when the cached
+ * element turns out to be stale, it is located again and the call is repeated once.
+ * <p>
+ * Using a cached element doesn't involve any lookup, so with {@code frames.lazySwitching} enabled
+ * nothing would switch the browser to the frame of the element. The handler switches to the
+ * pending frame before each call instead.
+ */
+public class StaleElementRetryingHandler implements InvocationHandler {
+
+  private final CachingElementLocator locator;
+
+  private final FrameSwitcher frameSwitcher;
+
+  /**
+   * Constructs StaleElementRetryingHandler.
+   *
+   * @param locator       locator of the element
+   * @param frameSwitcher switches the browser to the frame the element is used in
+   */
+  public StaleElementRetryingHandler(CachingElementLocator locator, FrameSwitcher frameSwitcher) {
+    this.locator = locator;
+    this.frameSwitcher = frameSwitcher;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    if (!"toString".equals(method.getName())) {
+      frameSwitcher.switchToPendingFrame();
+    }
+    WebElement element;
+    try {
+      element = locator.findElement();
+    } catch (NoSuchElementException e) {
+      if ("toString".equals(method.getName())) {
+        return "Proxy element for: " + locator;
+      }
+      throw e;
+    }
+
+    if ("getWrappedElement".equals(method.getName())) {
+      return element;
+    }
+
+    try {
+      return invoke(element, method, args);
+    } catch (StaleElementReferenceException e) {
+      locator.invalidate();
+      return invoke(locator.findElement(), method, args);
+    }
+  }
+
+  private static Object invoke(WebElement element, Method method, Object[] args)
+      throws Throwable {
+    try {
+      return method.invoke(element, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -58,7 +58,7 @@ public class FrameMap {
     if (frameMapping.containsKey(pageObject)) {
       return frameMapping.get(pageObject);
     } else {
-      FramePath path = new FramePath();
+      FramePath path = FramePath.root();
       put(pageObject, path);
       return path;
     }
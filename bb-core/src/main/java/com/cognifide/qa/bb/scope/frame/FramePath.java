@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -32,22 +31,61 @@ import com.cognifide.qa.bb.scope.frame.type.AemContentFrame;
 import com.cognifide.qa.bb.scope.frame.type.DefaultFrame;
 import com.cognifide.qa.bb.scope.frame.type.IndexedFrame;
 import com.cognifide.qa.bb.scope.frame.type.NamedFrame;
+import com.cognifide.qa.bb.scope.frame.type.ParentFrame;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * This class represents an address of the frame in the hierarchy of frames within a page. The representation has form
  * of list of FrameDescriptor objects that represent individual frames.
+ * <p>
+ * FramePath is immutable. Instances returned by {@link #root()}, {@link #parsePath(String)}, {@link #addFrame(Frame)}
+ * and {@link #append(FrameDescriptor)} are interned, so the same frame is always represented by the same instance and
+ * parsing a path that has been parsed before is a cache lookup. Each instance keeps the interned paths of all its
+ * ancestors, which makes checking whether one path is a prefix of another a constant-time operation.
  */
 public class FramePath {
 
-  private final List<FrameDescriptor> frames;
+  private static final int PARSE_CACHE_SIZE = 1024;
+
+  private static final String AEM_CONTENT_FRAME = "$cq";
+
+  private static final String PARENT = "..";
+
+  private static final Interner<FramePath> INTERNER = Interners.newWeakInterner();
+
+  private static final FramePath ROOT = canonical(new FramePath());
+
+  private static final LoadingCache<ParseKey, FramePath> PARSED = CacheBuilder.newBuilder()
+      .maximumSize(PARSE_CACHE_SIZE)
+      .build(CacheLoader.from(key -> key.base.parse(key.path)));
+
+  private final FrameDescriptor[] frames;
+
+  // ancestors[i] is the interned path made of the first i frames, ancestors[frames.length] is this path
+  private final FramePath[] ancestors;
+
+  private final List<FrameDescriptor> frameList;
+
+  private final List<FrameDescriptor> framesFromTop;
+
+  private final int hash;
+
+  private final String path;
+
+  // set once the instance is known to be the interned one
+  private boolean interned;
 
   /**
    * Constructs FramePath.
    * <p>
-   * Initializes list of frames to an empty list.
+   * Initializes list of frames to an empty list. Consider using {@link #root()} instead.
    */
   public FramePath() {
-    this.frames = Collections.emptyList();
+    this(new FrameDescriptor[0], new FramePath[0]);
   }
 
   /**
@@ -56,7 +94,7 @@ public class FramePath {
    * @param frames Constructor will initialize FramePath's list of frames with this parameter.
    */
   public FramePath(List<FrameDescriptor> frames) {
-    this.frames = new ArrayList<>(frames);
+    this(frames.toArray(new FrameDescriptor[0]), internedPrefixes(frames));
   }
 
   /**
@@ -66,8 +104,27 @@ public class FramePath {
    * @param frames    Constructor will add listed frames to FramePath's list of frames
    */
   public FramePath(FramePath framePath, FrameDescriptor... frames) {
-    this.frames = new ArrayList<>(framePath.getFrames());
-    this.frames.addAll(Arrays.asList(frames));
+    this(concat(framePath.getFrames(), frames));
+  }
+
+  private FramePath(FrameDescriptor[] frames, FramePath[] prefixes) {
+    this.frames = frames;
+    this.ancestors = Arrays.copyOf(prefixes, frames.length + 1);
+    this.ancestors[frames.length] = this;
+    this.frameList = Collections.unmodifiableList(Arrays.asList(frames));
+    List<FrameDescriptor> fromTop = new ArrayList<>(frames.length + 1);
+    fromTop.add(DefaultFrame.INSTANCE);
+    fromTop.addAll(frameList);
+    this.framesFromTop = Collections.unmodifiableList(fromTop);
+    this.hash = Arrays.hashCode(frames);
+    this.path = StringUtils.join(frames, '/').replace("//", "/");
+  }
+
+  /**
+   * @return the interned FramePath of the top frame
+   */
+  public static FramePath root() {
+    return ROOT;
   }
 
   /**
@@ -77,7 +134,7 @@ public class FramePath {
    * @return FramePath instance.
    */
   public static FramePath parsePath(String path) {
-    return new FramePath().addFrame(path);
+    return ROOT.resolve(path);
   }
 
   /**
@@ -87,96 +144,222 @@ public class FramePath {
    * @return FramePath with the appended frame.
    */
   public FramePath addFrame(Frame frame) {
-    return addFrame(frame.value());
+    return resolve(frame.value());
+  }
+
+  /**
+   * Appends the frame descriptor to the frame path.
+   *
+   * @param frame descriptor of the frame within the frame represented by this path
+   * @return the interned FramePath of the child frame
+   */
+  public FramePath append(FrameDescriptor frame) {
+    FrameDescriptor[] childFrames = Arrays.copyOf(frames, frames.length + 1);
+    childFrames[frames.length] = frame;
+    return canonical(new FramePath(childFrames, intern().ancestors));
+  }
+
+  /**
+   * @return the interned FramePath of the parent frame, or this path if it represents the top frame
+   */
+  public FramePath getParent() {
+    return frames.length == 0 ? this : ancestors[frames.length - 1];
   }
 
   /**
    * @return Frame path as a list of FrameDescriptors.
    */
   public List<FrameDescriptor> getFrames() {
-    return Collections.unmodifiableList(frames);
+    return frameList;
+  }
+
+  /**
+   * @return switches that lead to this frame from any other frame, i.e. {@link DefaultFrame} followed by all the frames
+   * of this path
+   */
+  public List<FrameDescriptor> getFramesFromTop() {
+    return framesFromTop;
   }
 
   /**
    * This method calculates diff between frame paths.
    *
    * @param to FramePath that will be taken to diff calculation.
-   * @return difference between FramePath's
+   * @return difference between FramePath's, as an unmodifiable list
    */
   public List<FrameDescriptor> diff(FramePath to) {
-    List<FrameDescriptor> toFrames = to.getFrames();
-    List<FrameDescriptor> diff = new ArrayList<>();
+    return isPrefixOf(to)
+        ? to.getFrames().subList(frames.length, to.depth())
+        : to.getFramesFromTop();
+  }
 
-    if (isSubpath(to)) {
-      for (int i = frames.size(); i < toFrames.size(); i++) {
-        diff.add(toFrames.get(i));
-      }
-    } else {
-      diff.add(DefaultFrame.INSTANCE);
-      diff.addAll(toFrames);
+  /**
+   * Calculates the shortest sequence of switches that leads from this frame to the given one. Unlike
+   * {@link #diff(FramePath)}, it climbs up with {@link ParentFrame} when that takes fewer switches
+   * than starting over from the top frame. This frame has to be the one the browser is actually in.
+   *
+   * @param to FramePath of the destination frame
+   * @return switches to be performed, empty if both frame paths are the same
+   */
+  public List<FrameDescriptor> route(FramePath to) {
+    if (isSame(to)) {
+      return Collections.emptyList();
     }
-    return diff;
+    int common = Math.min(frames.length, to.depth());
+    while (common > 0 && !ancestors[common].isSame(to.prefix(common))) {
+      common--;
+    }
+    int climb = frames.length - common;
+    if (climb > common) {
+      return to.getFramesFromTop();
+    }
+    List<FrameDescriptor> route = new ArrayList<>(Collections.nCopies(climb, ParentFrame.INSTANCE));
+    route.addAll(to.getFrames().subList(common, to.depth()));
+    return route;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(frames);
+    return hash;
   }
 
   @Override
   public boolean equals(Object obj) {
-    if (obj == null) {
-      return false;
+    if (this == obj) {
+      return true;
     }
-    if (this.getClass() != obj.getClass()) {
+    if (obj == null || this.getClass() != obj.getClass()) {
       return false;
     }
-
-    return Objects.equals(frames, ((FramePath) obj).frames);
+    FramePath other = (FramePath) obj;
+    return hash == other.hash && Arrays.equals(frames, other.frames);
   }
 
   @Override
   public String toString() {
-    return StringUtils.join(frames, '/').replace("//", "/");
+    return path;
+  }
+
+  /**
+   * @return number of frames in this path
+   */
+  int depth() {
+    return frames.length;
+  }
+
+  /**
+   * @return the path made of the given number of first frames of this path
+   */
+  FramePath prefix(int length) {
+    return ancestors[length];
+  }
+
+  private boolean isPrefixOf(FramePath other) {
+    return frames.length == 0
+        || other.depth() >= frames.length && isSame(other.prefix(frames.length));
+  }
+
+  private boolean isSame(FramePath other) {
+    return this == other || equals(other);
   }
 
-  private FramePath addFrame(String path) {
-    if (StringUtils.isEmpty(path)) {
+  private FramePath intern() {
+    return interned ? this : canonical(this);
+  }
+
+  private static FramePath canonical(FramePath candidate) {
+    FramePath result = INTERNER.intern(candidate);
+    result.interned = true;
+    return result;
+  }
+
+  private FramePath resolve(String relativePath) {
+    if (StringUtils.isEmpty(relativePath)) {
       return this;
     }
-    final String firstPart = StringUtils.substringBefore(path, "/");
-    final String rest = StringUtils.substringAfter(path, "/");
-
-    List<FrameDescriptor> modifiedLocation = new ArrayList<>(frames);
-    if (firstPart.isEmpty()) {
-      modifiedLocation.clear();
-    } else if (firstPart.matches("\\$[0-9]+")) {
-      final int index = Integer.parseInt(firstPart.substring(1));
-      modifiedLocation.add(new IndexedFrame(index));
-    } else if ("$cq".equals(firstPart)) {
-      modifiedLocation.clear();
-      modifiedLocation.add(AemContentFrame.INSTANCE);
-    } else if ("..".equals(firstPart) && !modifiedLocation.isEmpty()) {
-      modifiedLocation.remove(modifiedLocation.size() - 1);
-    } else {
-      modifiedLocation.add(new NamedFrame(firstPart));
+    return PARSED.getUnchecked(new ParseKey(intern(), relativePath));
+  }
+
+  private FramePath parse(String relativePath) {
+    FramePath result = this;
+    int start = 0;
+    while (start < relativePath.length()) {
+      int end = relativePath.indexOf('/', start);
+      if (end < 0) {
+        end = relativePath.length();
+      }
+      result = result.resolveSegment(relativePath.substring(start, end));
+      start = end + 1;
+    }
+    return result;
+  }
+
+  private FramePath resolveSegment(String segment) {
+    if (segment.isEmpty()) {
+      return ROOT;
+    } else if (isIndex(segment)) {
+      return append(new IndexedFrame(Integer.parseInt(segment.substring(1))));
+    } else if (AEM_CONTENT_FRAME.equals(segment)) {
+      return ROOT.append(AemContentFrame.INSTANCE);
+    } else if (PARENT.equals(segment) && frames.length > 0) {
+      return getParent();
     }
-    return new FramePath(modifiedLocation).addFrame(rest);
-  }
-
-  private boolean isSubpath(FramePath subpathCandidate) {
-    final List<FrameDescriptor> toFrames = subpathCandidate.getFrames();
-    boolean subpath = true;
-    if (frames.size() <= toFrames.size()) {
-      for (int i = 0; i < frames.size(); i++) {
-        if (!frames.get(i).equals(toFrames.get(i))) {
-          subpath = false;
-          break;
-        }
+    return append(new NamedFrame(segment));
+  }
+
+  private static boolean isIndex(String segment) {
+    if (segment.length() < 2 || segment.charAt(0) != '$') {
+      return false;
+    }
+    for (int i = 1; i < segment.length(); i++) {
+      char c = segment.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static FramePath[] internedPrefixes(List<FrameDescriptor> frames) {
+    FramePath[] prefixes = new FramePath[frames.size()];
+    FramePath prefix = ROOT;
+    for (int i = 0; i < prefixes.length; i++) {
+      prefixes[i] = prefix;
+      prefix = prefix.append(frames.get(i));
+    }
+    return prefixes;
+  }
+
+  private static List<FrameDescriptor> concat(List<FrameDescriptor> first,
+      FrameDescriptor... second) {
+    List<FrameDescriptor> result = new ArrayList<>(first);
+    result.addAll(Arrays.asList(second));
+    return result;
+  }
+
+  private static final class ParseKey {
+
+    private final FramePath base;
+
+    private final String path;
+
+    private ParseKey(FramePath base, String path) {
+      this.base = base;
+      this.path = path;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * base.hashCode() + path.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ParseKey)) {
+        return false;
       }
-    } else {
-      subpath = false;
+      ParseKey other = (ParseKey) obj;
+      return base == other.base && path.equals(other.path);
     }
-    return subpath;
   }
 }
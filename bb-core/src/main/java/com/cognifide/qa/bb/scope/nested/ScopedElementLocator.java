@@ -22,9 +22,13 @@ package com.cognifide.qa.bb.scope.nested;
 import static java.util.stream.Collectors.toList;
 
 import com.cognifide.qa.bb.mapper.annotations.FieldAnnotationsProvider;
+import com.cognifide.qa.bb.scope.LocatorChain;
+import com.cognifide.qa.bb.scope.LocatorChainProvider;
 import com.google.inject.Injector;
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Optional;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocator;
@@ -33,6 +37,10 @@ import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
 /**
  * This is a two-step locator. First it constructs a scope out of the scope factory and the parent
  * field, then searches for the injected field in this scope.
+ * <p>
+ * When a script executor is provided and the whole chain of scopes can be described as a
+ * {@link LocatorChain}, the element is resolved with a single script call instead. If nothing is
+ * found this way, the element is searched for step by step, as usual.
  */
 public class ScopedElementLocator implements ElementLocator {
 
@@ -44,6 +52,9 @@ public class ScopedElementLocator implements ElementLocator {
 
   private final Injector injector;
 
+  private final JavascriptExecutor executor;
+
+  private volatile Optional<LocatorChain> chain;
 
   /**
    * Constructs ScopedElementLocator.
@@ -54,10 +65,24 @@ public class ScopedElementLocator implements ElementLocator {
    */
   public ScopedElementLocator(ElementLocatorFactory scopeFactory,
       Field scopeField, Field searchField, Injector injector) {
+    this(scopeFactory, scopeField, searchField, injector, null);
+  }
+
+  /**
+   * Constructs ScopedElementLocator that resolves the whole chain of scopes in a single call.
+   *
+   * @param scopeFactory instance of ElementLocatorFactory
+   * @param scopeField field for scope definition
+   * @param searchField class field
+   * @param executor executes the lookup script, null to search for the elements step by step
+   */
+  public ScopedElementLocator(ElementLocatorFactory scopeFactory,
+      Field scopeField, Field searchField, Injector injector, JavascriptExecutor executor) {
     this.scopeFactory = scopeFactory;
     this.scopeField = scopeField;
     this.searchField = searchField;
     this.injector = injector;
+    this.executor = executor;
   }
 
   /**
@@ -66,6 +91,10 @@ public class ScopedElementLocator implements ElementLocator {
    */
   @Override
   public WebElement findElement() {
+    WebElement element = getChain().map(resolved -> resolved.findElement(executor)).orElse(null);
+    if (element != null) {
+      return element;
+    }
     WebElement context = scopeFactory.createLocator(scopeField).findElement();
     return new DefaultElementLocator(context,
         FieldAnnotationsProvider.create(searchField, injector)).findElement();
@@ -77,9 +106,28 @@ public class ScopedElementLocator implements ElementLocator {
    */
   @Override
   public List<WebElement> findElements() {
+    List<WebElement> elements = getChain().map(resolved -> resolved.findElements(executor))
+        .orElse(null);
+    if (elements != null && !elements.isEmpty()) {
+      return elements;
+    }
     return scopeFactory.createLocator(scopeField).findElements().stream()
         .flatMap(element -> new DefaultElementLocator(element,
             FieldAnnotationsProvider.create(searchField, injector)).findElements().stream())
         .collect(toList());
   }
+
+  private Optional<LocatorChain> getChain() {
+    if (executor == null || !(scopeFactory instanceof LocatorChainProvider)) {
+      return Optional.empty();
+    }
+    Optional<LocatorChain> result = chain;
+    if (result == null) {
+      result = ((LocatorChainProvider) scopeFactory).getLocatorChain(scopeField)
+          .flatMap(scope -> scope.append(
+              FieldAnnotationsProvider.create(searchField, injector).buildBy()));
+      chain = result;
+    }
+    return result;
+  }
 }
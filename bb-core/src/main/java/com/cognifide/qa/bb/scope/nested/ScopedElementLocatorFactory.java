@@ -20,13 +20,17 @@
 package com.cognifide.qa.bb.scope.nested;
 
 import java.lang.reflect.Field;
+import java.util.Optional;
 
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
 
 import com.cognifide.qa.bb.mapper.annotations.FieldAnnotationsProvider;
+import com.cognifide.qa.bb.scope.LocatorChain;
+import com.cognifide.qa.bb.scope.LocatorChainProvider;
 import com.cognifide.qa.bb.scope.ParentElementLocatorProvider;
 import com.cognifide.qa.bb.utils.AnnotationsHelper;
 import com.google.inject.Injector;
@@ -36,7 +40,7 @@ import com.google.inject.Injector;
  * annotation is present.
  */
 public class ScopedElementLocatorFactory
-    implements ElementLocatorFactory, ParentElementLocatorProvider {
+    implements ElementLocatorFactory, ParentElementLocatorProvider, LocatorChainProvider {
 
   private final ElementLocatorFactory parentFactory;
 
@@ -46,6 +50,8 @@ public class ScopedElementLocatorFactory
 
   private final Injector injector;
 
+  private final JavascriptExecutor executor;
+
   /**
    * Creates an element-scoped locator factory.
    *
@@ -57,10 +63,29 @@ public class ScopedElementLocatorFactory
    */
   public ScopedElementLocatorFactory(WebDriver webDriver,
       ElementLocatorFactory parentFactory, Field parentField, Injector injector) {
+    this(webDriver, parentFactory, parentField, injector, false);
+  }
+
+  /**
+   * Creates an element-scoped locator factory.
+   *
+   * @param webDriver       WebDriver instance that will serve as a global scope for
+   *                        Global-annotated fields
+   * @param parentFactory   Factory that represents scope for elements without Global annotation
+   * @param parentField     Field that contains current field, reducing the scope indicated by
+   *                        parentFactory
+   * @param chainedLookups  true if elements should be found with a single script call for the whole
+   *                        chain of scopes
+   */
+  public ScopedElementLocatorFactory(WebDriver webDriver,
+      ElementLocatorFactory parentFactory, Field parentField, Injector injector,
+      boolean chainedLookups) {
     this.parentFactory = parentFactory;
     this.parentField = parentField;
     this.webDriver = webDriver;
     this.injector = injector;
+    this.executor = chainedLookups && webDriver instanceof JavascriptExecutor
+        ? (JavascriptExecutor) webDriver : null;
   }
 
   @Override
@@ -72,6 +97,18 @@ public class ScopedElementLocatorFactory
   public ElementLocator createLocator(final Field field) {
     return AnnotationsHelper.isGlobal(field) ?
         new DefaultElementLocator(webDriver, FieldAnnotationsProvider.create(field, injector)) :
-        new ScopedElementLocator(parentFactory, parentField, field, injector);
+        new ScopedElementLocator(parentFactory, parentField, field, injector, executor);
+  }
+
+  @Override
+  public Optional<LocatorChain> getLocatorChain(Field field) {
+    if (AnnotationsHelper.isGlobal(field)) {
+      return LocatorChain.of(webDriver, FieldAnnotationsProvider.create(field, injector).buildBy());
+    }
+    if (!(parentFactory instanceof LocatorChainProvider)) {
+      return Optional.empty();
+    }
+    return ((LocatorChainProvider) parentFactory).getLocatorChain(parentField)
+        .flatMap(chain -> chain.append(FieldAnnotationsProvider.create(field, injector).buildBy()));
   }
 }
@@ -0,0 +1,61 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.webelement;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+/**
+ * Returns the prefetched element(s) on the first lookup only. The following lookups are delegated,
+ * so they search for the element again, like they would without prefetching.
+ */
+class PrefetchedElementLocator implements ElementLocator {
+
+  private final ElementLocator delegate;
+
+  private final AtomicReference<Object> prefetched;
+
+  PrefetchedElementLocator(ElementLocator delegate, Object prefetched) {
+    this.delegate = delegate;
+    this.prefetched = new AtomicReference<>(prefetched);
+  }
+
+  @Override
+  public WebElement findElement() {
+    Object elements = prefetched.getAndSet(null);
+    if (elements instanceof WebElement) {
+      return (WebElement) elements;
+    }
+    return delegate.findElement();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<WebElement> findElements() {
+    Object elements = prefetched.getAndSet(null);
+    if (elements instanceof List) {
+      return (List<WebElement>) elements;
+    }
+    return delegate.findElements();
+  }
+}
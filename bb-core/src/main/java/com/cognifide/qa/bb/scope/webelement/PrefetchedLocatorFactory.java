@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.webelement;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Optional;
+
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+import com.cognifide.qa.bb.scope.LocatorChain;
+import com.cognifide.qa.bb.scope.LocatorChainProvider;
+import com.cognifide.qa.bb.scope.ParentElementLocatorProvider;
+
+/**
+ * Locator factory that serves elements resolved in advance (see
+ * {@link com.cognifide.qa.bb.mapper.field.PageObjectListPrefetcher}) on the first lookup of the
+ * corresponding fields. Following lookups, as well as fields without resolved elements, are handled
+ * by the wrapped factory.
+ */
+public class PrefetchedLocatorFactory
+    implements ElementLocatorFactory, ParentElementLocatorProvider, LocatorChainProvider {
+
+  private final WebElementScopedLocatorFactory delegate;
+
+  private final Map<Field, Object> prefetched;
+
+  /**
+   * Constructs PrefetchedLocatorFactory.
+   *
+   * @param delegate   factory creating locators scoped to the same element
+   * @param prefetched resolved elements (a WebElement or a list of them) of the fields
+   */
+  public PrefetchedLocatorFactory(WebElementScopedLocatorFactory delegate,
+      Map<Field, Object> prefetched) {
+    this.delegate = delegate;
+    this.prefetched = prefetched;
+  }
+
+  @Override
+  public ElementLocator getCurrentScope() {
+    return delegate.getCurrentScope();
+  }
+
+  @Override
+  public ElementLocator createLocator(Field field) {
+    ElementLocator locator = delegate.createLocator(field);
+    Object elements = prefetched.get(field);
+    return elements == null ? locator : new PrefetchedElementLocator(locator, elements);
+  }
+
+  @Override
+  public Optional<LocatorChain> getLocatorChain(Field field) {
+    return delegate.getLocatorChain(field);
+  }
+}
@@ -20,6 +20,7 @@
 package com.cognifide.qa.bb.scope.webelement;
 
 import java.lang.reflect.Field;
+import java.util.Optional;
 
 import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.WebDriver;
@@ -29,6 +30,8 @@ import org.openqa.selenium.support.pagefactory.ElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
 
 import com.cognifide.qa.bb.mapper.annotations.FieldAnnotationsProvider;
+import com.cognifide.qa.bb.scope.LocatorChain;
+import com.cognifide.qa.bb.scope.LocatorChainProvider;
 import com.cognifide.qa.bb.scope.ParentElementLocatorProvider;
 import com.cognifide.qa.bb.utils.AnnotationsHelper;
 import com.google.inject.Injector;
@@ -37,7 +40,7 @@ import com.google.inject.Injector;
  * Locator factory where the scope is defined by the provided webElement.
  */
 public class WebElementScopedLocatorFactory
-    implements ElementLocatorFactory, ParentElementLocatorProvider {
+    implements ElementLocatorFactory, ParentElementLocatorProvider, LocatorChainProvider {
 
   private final WebDriver webDriver;
 
@@ -75,6 +78,12 @@ public class WebElementScopedLocatorFactory
         FieldAnnotationsProvider.create(field, injector));
   }
 
+  @Override
+  public Optional<LocatorChain> getLocatorChain(Field field) {
+    return LocatorChain.of(resolveContext(field),
+        FieldAnnotationsProvider.create(field, injector).buildBy());
+  }
+
   private SearchContext resolveContext(Field field) {
     return AnnotationsHelper.isGlobal(field) ? webDriver : webElement;
   }
@@ -24,9 +24,12 @@ import com.cognifide.qa.bb.scope.ContextStack;
 import com.cognifide.qa.bb.scope.PageObjectContext;
 import com.cognifide.qa.bb.scope.frame.FrameMap;
 import com.cognifide.qa.bb.scope.frame.FramePath;
+import com.cognifide.qa.bb.scope.webelement.PrefetchedLocatorFactory;
 import com.cognifide.qa.bb.scope.webelement.WebElementScopedLocatorFactory;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import java.lang.reflect.Field;
+import java.util.Map;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
@@ -58,7 +61,7 @@ public class PageObjectInjector {
    * @return instance of Injector.
    */
   public <T> T inject(Class<T> clazz) {
-    return inject(clazz, new FramePath());
+    return inject(clazz, FramePath.root());
   }
 
   /**
@@ -118,7 +121,7 @@ public class PageObjectInjector {
    * @return instance of Injector.
    */
   public <T> T inject(Class<T> clazz, WebElement scope) {
-    return inject(clazz, scope, new FramePath());
+    return inject(clazz, scope, FramePath.root());
   }
 
   /**
@@ -170,6 +173,33 @@ public class PageObjectInjector {
     }
   }
 
+  /**
+   * Same as {@link #inject(Class, WebElement, FramePath)}, but the first lookup of the fields
+   * present in the prefetched map returns the provided elements instead of searching for them.
+   *
+   * @param clazz PageObject class.
+   * @param scope WebElement for scope definition.
+   * @param framePath instance of FramePath.
+   * @param prefetched elements (a WebElement or a list of them) already found for the fields of
+   * the PageObject.
+   * @param <T> type of PageObject class that will be returned.
+   * @return instance of Injector.
+   */
+  public <T> T inject(Class<T> clazz, WebElement scope, FramePath framePath,
+      Map<Field, Object> prefetched) {
+    if (prefetched.isEmpty()) {
+      return inject(clazz, scope, framePath);
+    }
+    final ElementLocatorFactory elementLocatorFactory = new PrefetchedLocatorFactory(
+        new WebElementScopedLocatorFactory(webDriver, scope, injector), prefetched);
+    stack.push(new PageObjectContext(elementLocatorFactory, framePath));
+    try {
+      return injector.getInstance(clazz);
+    } finally {
+      stack.pop();
+    }
+  }
+
   public Injector getOriginalInjector() {
     return injector;
   }
@@ -19,11 +19,12 @@
  */
 package com.cognifide.qa.bb.wait;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.openqa.selenium.StaleElementReferenceException;
@@ -34,12 +35,16 @@ import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cognifide.qa.bb.metrics.Metrics;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
 /**
  * This is the go-to solution for handling dynamic elements with Bobcat.
  * It is based on the {@link org.openqa.selenium.support.ui.WebDriverWait} mechanism.
+ * <p>
+ * Implicit timeout changes are sent to the browser only when the value actually changes (see
+ * {@link ImplicitTimeouts}) and the condition is polled with growing pauses (see {@link Timings}).
  */
 public class BobcatWait {
 
@@ -52,6 +57,12 @@ public class BobcatWait {
   @Inject
   private Provider<WebDriver> webDriverProvider;
 
+  @Inject
+  private ImplicitTimeouts implicitTimeouts;
+
+  @Inject
+  private Metrics metrics;
+
   /**
    * Allows to customize the timings (explicit &amp; implicit timeout + polling time).
    *
@@ -99,17 +110,20 @@ public class BobcatWait {
    * @param <T>       The function's expected return type.
    * @return The ExpectedCondition's return value if the function returned something different from null or false before the timeout expired.
    * @see WebDriverWait#until(Function)
+   * @see BrowserSideCondition
    */
   public <T> T until(ExpectedCondition<T> condition) {
+    long started = metrics.start();
     try {
       setImplicitTimeoutToNearZero();
       return getWebDriverWait()
           .ignoreAll(ignoredExceptions)
-          .until(condition);
+          .until(withinExplicitTimeout(condition));
     } finally {
       ignoredExceptions = new ArrayList<>();
       timings = new TimingsBuilder().build();
       restoreImplicitTimeout();
+      metrics.record(Metrics.WAIT, BobcatWait::describeCaller, started);
     }
   }
 
@@ -133,22 +147,53 @@ public class BobcatWait {
    * Sets implicit timeout to {@value Timings#NEAR_ZERO} milliseconds.
    */
   protected void setImplicitTimeoutToNearZero() {
-    webDriverProvider.get().manage().timeouts().implicitlyWait(Timings.NEAR_ZERO, TimeUnit.SECONDS);
+    implicitTimeouts.set(webDriverProvider.get(), Timings.NEAR_ZERO);
   }
 
   /**
    * Restores implicit timeout to the value defined in the {@link Timings} instance.
    */
   protected void restoreImplicitTimeout() {
-    webDriverProvider.get().manage().timeouts()
-        .implicitlyWait(timings.getImplicitTimeout(), TimeUnit.SECONDS);
+    implicitTimeouts.set(webDriverProvider.get(), timings.getImplicitTimeout());
+  }
+
+  /**
+   * Lets a {@link BrowserSideCondition} poll inside the browser for the whole explicit timeout.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> ExpectedCondition<T> withinExplicitTimeout(ExpectedCondition<T> condition) {
+    if (condition instanceof BrowserSideCondition) {
+      return (ExpectedCondition<T>) ((BrowserSideCondition) condition)
+          .withTimeout(Duration.ofSeconds(timings.getExplicitTimeout()));
+    }
+    return condition;
+  }
+
+  /**
+   * Names the waiting page object method, i.e. the first method on the stack outside of this class
+   * and {@link Metrics}.
+   */
+  private static String describeCaller() {
+    for (StackTraceElement frame : new Throwable().getStackTrace()) {
+      String className = frame.getClassName();
+      if (!className.equals(BobcatWait.class.getName())
+          && !className.equals(Metrics.class.getName())) {
+        // strip the package and the suffix of classes enhanced by Guice
+        String simpleName = className.substring(className.lastIndexOf('.') + 1)
+            .replaceFirst("\\$\\$EnhancerByGuice.*$", "");
+        return simpleName + "#" + frame.getMethodName();
+      }
+    }
+    return "unknown";
   }
 
   /**
    * @return an instance of {@link WebDriverWait} based on the provided {@link Timings}
    */
   protected WebDriverWait getWebDriverWait() {
-    return new WebDriverWait(webDriverProvider.get(), timings.getExplicitTimeout(),
+    WebDriver webDriver = webDriverProvider.get();
+    return new WebDriverWait(webDriver, Clock.systemDefaultZone(),
+        new PollingSleeper(webDriver, timings), timings.getExplicitTimeout(),
         timings.getPollingInterval());
   }
 }
@@ -0,0 +1,283 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.wait;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * A condition evaluated entirely inside the browser. A single evaluation sends one asynchronous
+ * script, which checks the condition in the page every {@value #IN_PAGE_POLLING_INTERVAL} ms and
+ * returns as soon as it is met (or when its timeout passes) - instead of the one or more WebDriver
+ * commands per element per poll made by the conditions from
+ * {@link org.openqa.selenium.support.ui.ExpectedConditions}.
+ * <p>
+ * When passed to {@link BobcatWait#until(ExpectedCondition)}, the in-page timeout is the explicit
+ * timeout of the wait, so in most cases the whole wait takes one round trip. It is capped by the
+ * script timeout of the WebDriver - if the script times out, the condition is simply evaluated
+ * again.
+ * <p>
+ * Elements can be targeted with a CSS selector (evaluated in the current frame) or passed as
+ * {@link WebElement}s (descriptions of such conditions do not include the elements, as printing an
+ * element proxy would look it up). Given elements are looked up once per evaluation - as soon as
+ * one of them is detached from the document, the evaluation ends, so the wait evaluates the
+ * condition again with the elements looked up anew. Visibility is checked with a lightweight approximation of
+ * {@link WebElement#isDisplayed()}: an element is visible when it is attached to the document, is
+ * not hidden with {@code display} or {@code visibility} and has a size.
+ * <p>
+ * Example:
+ * <pre>
+ * bobcatWait.until(BrowserSideCondition.visible(searchResults));
+ * bobcatWait.until(BrowserSideCondition.countAtLeast(".search-result", 5));
+ * </pre>
+ */
+public final class BrowserSideCondition implements ExpectedCondition<Boolean> {
+
+  static final long IN_PAGE_POLLING_INTERVAL = 50;
+
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(1);
+
+  private static final String SCRIPT =
+      "var args = arguments, callback = args[args.length - 1];"
+          + "var deadline = Date.now() + args[0], interval = args[1], target = args[2];"
+          + "function elements() {"
+          + "  return typeof target === 'string'"
+          + "    ? Array.prototype.slice.call(document.querySelectorAll(target)) : target;"
+          + "}"
+          + "function attached(el) {"
+          + "  return !!el && el.ownerDocument.documentElement.contains(el);"
+          + "}"
+          + "function visible(el) {"
+          + "  if (!attached(el)) { return false; }"
+          + "  var style = window.getComputedStyle(el);"
+          + "  return style.display !== 'none' && style.visibility !== 'hidden'"
+          + "    && (el.offsetWidth > 0 || el.offsetHeight > 0 || el.getClientRects().length > 0);"
+          + "}"
+          + "function check(els, p1, p2) { return %s; }"
+          + "(function poll() {"
+          + "  var met = false, els = elements();"
+          + "  try { met = check(els, args[3], args[4]); } catch (e) { met = false; }"
+          + "  if (met) { callback(true); }"
+          // detached elements never come back, the wait has to look them up again
+          + "  else if (Date.now() >= deadline || !els.every(attached)) { callback(false); }"
+          + "  else { setTimeout(poll, interval); }"
+          + "})();";
+
+  private static final String ALL_VISIBLE = "els.length > 0 && els.every(visible)";
+
+  private static final String NONE_VISIBLE =
+      "els.every(function(el) { return !visible(el); })";
+
+  private static final String ALL_ATTRIBUTES_CONTAIN = "els.length > 0 && els.every(function(el) {"
+      + "  var value = el.getAttribute(p1);"
+      + "  return value !== null && value.indexOf(p2) !== -1; })";
+
+  private static final String ALL_TEXTS_EQUAL = "els.length > 0 && els.every(function(el) {"
+      + "  return (el.innerText || el.textContent || '').trim() === p1; })";
+
+  private static final String COUNT_AT_LEAST = "els.length >= p1";
+
+  private final String description;
+
+  private final String script;
+
+  private final List<Object> arguments;
+
+  private final boolean metWhenElementsAreMissing;
+
+  private final Duration timeout;
+
+  private BrowserSideCondition(String description, String predicate, Object target,
+      boolean metWhenElementsAreMissing, Object... parameters) {
+    this(description, String.format(SCRIPT, predicate), arguments(target, parameters),
+        metWhenElementsAreMissing, DEFAULT_TIMEOUT);
+  }
+
+  private BrowserSideCondition(String description, String script, List<Object> arguments,
+      boolean metWhenElementsAreMissing, Duration timeout) {
+    this.description = description;
+    this.script = script;
+    this.arguments = arguments;
+    this.metWhenElementsAreMissing = metWhenElementsAreMissing;
+    this.timeout = timeout;
+  }
+
+  /**
+   * @param cssSelector selector of the elements
+   * @return condition met when there is at least one element matching the selector and all of them
+   * are visible
+   */
+  public static BrowserSideCondition visible(String cssSelector) {
+    return new BrowserSideCondition("visibility of " + cssSelector, ALL_VISIBLE, cssSelector,
+        false);
+  }
+
+  /**
+   * @param elements elements to check
+   * @return condition met when the list is not empty and all elements are visible
+   */
+  public static BrowserSideCondition visible(List<WebElement> elements) {
+    return new BrowserSideCondition("visibility of all given elements", ALL_VISIBLE, elements, false);
+  }
+
+  /**
+   * @param element element to check
+   * @return condition met when the element is visible
+   */
+  public static BrowserSideCondition visible(WebElement element) {
+    return visible(Collections.singletonList(element));
+  }
+
+  /**
+   * @param cssSelector selector of the elements
+   * @return condition met when none of the elements matching the selector is visible, also when
+   * there are no such elements
+   */
+  public static BrowserSideCondition hidden(String cssSelector) {
+    return new BrowserSideCondition("invisibility of " + cssSelector, NONE_VISIBLE, cssSelector,
+        true);
+  }
+
+  /**
+   * @param elements elements to check
+   * @return condition met when none of the elements is visible, also when they are not present
+   */
+  public static BrowserSideCondition hidden(List<WebElement> elements) {
+    return new BrowserSideCondition("invisibility of all given elements", NONE_VISIBLE, elements,
+        true);
+  }
+
+  /**
+   * @param element element to check
+   * @return condition met when the element is not visible, also when it is not present
+   */
+  public static BrowserSideCondition hidden(WebElement element) {
+    return hidden(Collections.singletonList(element));
+  }
+
+  /**
+   * @param cssSelector selector of the elements
+   * @param attribute   name of the attribute
+   * @param value       expected part of the attribute value
+   * @return condition met when there is at least one element matching the selector and the given
+   * attribute of each of them contains the value
+   */
+  public static BrowserSideCondition attributeContains(String cssSelector, String attribute,
+      String value) {
+    return new BrowserSideCondition(
+        String.format("attribute %s of %s to contain %s", attribute, cssSelector, value),
+        ALL_ATTRIBUTES_CONTAIN, cssSelector, false, attribute, value);
+  }
+
+  /**
+   * @param element   element to check
+   * @param attribute name of the attribute
+   * @param value     expected part of the attribute value
+   * @return condition met when the given attribute of the element contains the value
+   */
+  public static BrowserSideCondition attributeContains(WebElement element, String attribute,
+      String value) {
+    return new BrowserSideCondition(
+        String.format("attribute %s of given element to contain %s", attribute, value),
+        ALL_ATTRIBUTES_CONTAIN, Collections.singletonList(element), false, attribute, value);
+  }
+
+  /**
+   * @param cssSelector selector of the elements
+   * @param text        expected text
+   * @return condition met when there is at least one element matching the selector and the trimmed
+   * text of each of them equals the expected one
+   */
+  public static BrowserSideCondition textEquals(String cssSelector, String text) {
+    return new BrowserSideCondition(String.format("text of %s to be %s", cssSelector, text),
+        ALL_TEXTS_EQUAL, cssSelector, false, text);
+  }
+
+  /**
+   * @param element element to check
+   * @param text    expected text
+   * @return condition met when the trimmed text of the element equals the expected one
+   */
+  public static BrowserSideCondition textEquals(WebElement element, String text) {
+    return new BrowserSideCondition(String.format("text of given element to be %s", text),
+        ALL_TEXTS_EQUAL, Collections.singletonList(element), false, text);
+  }
+
+  /**
+   * @param cssSelector selector of the elements
+   * @param count       minimal number of elements
+   * @return condition met when at least {@code count} elements match the selector
+   */
+  public static BrowserSideCondition countAtLeast(String cssSelector, int count) {
+    return new BrowserSideCondition(
+        String.format("number of %s to be at least %d", cssSelector, count), COUNT_AT_LEAST,
+        cssSelector, false, count);
+  }
+
+  /**
+   * @param timeout maximum time of a single evaluation inside the browser
+   * @return a copy of this condition with the given timeout
+   */
+  public BrowserSideCondition withTimeout(Duration timeout) {
+    return new BrowserSideCondition(description, script, arguments, metWhenElementsAreMissing,
+        timeout);
+  }
+
+  @Override
+  public Boolean apply(WebDriver webDriver) {
+    List<Object> scriptArguments = new ArrayList<>(arguments.size() + 2);
+    scriptArguments.add(timeout.toMillis());
+    scriptArguments.add(IN_PAGE_POLLING_INTERVAL);
+    scriptArguments.addAll(arguments);
+    try {
+      return Boolean.TRUE.equals(
+          ((JavascriptExecutor) webDriver).executeAsyncScript(script, scriptArguments.toArray()));
+    } catch (NoSuchElementException | StaleElementReferenceException e) {
+      return metWhenElementsAreMissing;
+    } catch (ScriptTimeoutException | JavascriptException e) {
+      // script timeout shorter than the in-page one, or the page is being reloaded
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "browser-side condition: " + description;
+  }
+
+  private static List<Object> arguments(Object target, Object... parameters) {
+    List<Object> arguments = new ArrayList<>(parameters.length + 1);
+    arguments.add(target);
+    arguments.addAll(Arrays.asList(parameters));
+    return Collections.unmodifiableList(arguments);
+  }
+}
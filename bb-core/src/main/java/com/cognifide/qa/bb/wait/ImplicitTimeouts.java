@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.wait;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.WebDriver;
+
+import com.google.common.collect.MapMaker;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps track of the implicit timeout currently set in each WebDriver, so the command changing it
+ * is sent to the browser only when the value actually changes.
+ * <p>
+ * Only the changes made through this class are tracked - after changing the implicit timeout
+ * directly on a WebDriver, call {@link #forget(WebDriver)}.
+ */
+@Singleton
+public class ImplicitTimeouts {
+
+  private final Map<WebDriver, Long> timeouts = new MapMaker().weakKeys().makeMap();
+
+  /**
+   * Sets the implicit timeout of the given WebDriver, unless it is already set to that value.
+   *
+   * @param webDriver WebDriver instance
+   * @param seconds   implicit timeout in seconds
+   */
+  public void set(WebDriver webDriver, long seconds) {
+    Long current = timeouts.get(webDriver);
+    if (current == null || current != seconds) {
+      webDriver.manage().timeouts().implicitlyWait(seconds, TimeUnit.SECONDS);
+      timeouts.put(webDriver, seconds);
+    }
+  }
+
+  /**
+   * Drops the tracked value, so the next {@link #set(WebDriver, long)} call always sends the
+   * command.
+   *
+   * @param webDriver WebDriver instance
+   */
+  public void forget(WebDriver webDriver) {
+    timeouts.remove(webDriver);
+  }
+}
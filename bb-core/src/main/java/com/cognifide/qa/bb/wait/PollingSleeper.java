@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.wait;
+
+import java.time.Duration;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Sleeper} used by {@link BobcatWait} between evaluations of a condition.
+ * <p>
+ * The first pause lasts {@link Timings#getInitialPollingInterval()} and each next one is twice as
+ * long, up to the polling interval - conditions that are met quickly are noticed quickly, while
+ * long waits don't flood the browser with commands.
+ * <p>
+ * When {@link Timings#isWaitingForDomMutations()} is set, the pause is spent in the browser
+ * instead, and ends as soon as the DOM of the current page changes. If the browser is unable to run
+ * the script (e.g. due to a page load in progress), it falls back to regular sleeping.
+ */
+class PollingSleeper implements Sleeper {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PollingSleeper.class);
+
+  private static final String AWAIT_DOM_MUTATION_SCRIPT =
+      "var timeout = arguments[0], callback = arguments[arguments.length - 1], done = false, timer;"
+          + "var observer = new MutationObserver(function() { finish(); });"
+          + "function finish() {"
+          + "  if (done) { return; }"
+          + "  done = true; observer.disconnect(); clearTimeout(timer); callback();"
+          + "}"
+          + "observer.observe(document,"
+          + "  {childList: true, subtree: true, attributes: true, characterData: true});"
+          + "timer = setTimeout(finish, timeout);";
+
+  private final WebDriver webDriver;
+
+  private final Sleeper sleeper;
+
+  private long nextInterval;
+
+  private boolean waitForDomMutations;
+
+  PollingSleeper(WebDriver webDriver, Timings timings) {
+    this(webDriver, timings, Sleeper.SYSTEM_SLEEPER);
+  }
+
+  PollingSleeper(WebDriver webDriver, Timings timings, Sleeper sleeper) {
+    this.webDriver = webDriver;
+    this.sleeper = sleeper;
+    this.nextInterval = timings.getInitialPollingInterval();
+    this.waitForDomMutations =
+        timings.isWaitingForDomMutations() && webDriver instanceof JavascriptExecutor;
+  }
+
+  @Override
+  public void sleep(Duration pollingInterval) throws InterruptedException {
+    long maxInterval = pollingInterval.toMillis();
+    long interval = nextInterval > 0 ? Math.min(nextInterval, maxInterval) : maxInterval;
+    nextInterval = Math.min(interval * 2, maxInterval);
+
+    if (!(waitForDomMutations && awaitDomMutation(interval))) {
+      sleeper.sleep(Duration.ofMillis(interval));
+    }
+  }
+
+  private boolean awaitDomMutation(long interval) {
+    try {
+      ((JavascriptExecutor) webDriver).executeAsyncScript(AWAIT_DOM_MUTATION_SCRIPT, interval);
+      return true;
+    } catch (WebDriverException e) {
+      LOG.debug("Could not wait for DOM mutations, falling back to regular polling", e);
+      waitForDomMutations = false;
+      return false;
+    }
+  }
+}
@@ -30,6 +30,9 @@ import com.cognifide.qa.bb.constants.Timeouts;
  * <li>explicit timeout (in seconds)</li>
  * <li>implicit timeout (in seconds)</li>
  * <li>polling interval (in milliseconds)</li>
+ * <li>initial polling interval (in milliseconds) - first pause between evaluations of a condition,
+ * doubled with each next one up to the polling interval</li>
+ * <li>whether to end the pauses early when the DOM of the page changes</li>
  * </ul>
  */
 public class Timings {
@@ -37,14 +40,24 @@ public class Timings {
   public static final int DEFAULT_POLLING_INTERVAL = 500;
   public static final int DEFAULT_EXPLICIT_TIMEOUT = 10;
   public static final int DEFAULT_IMPLICIT_TIMEOUT = 1;
+  public static final int DEFAULT_INITIAL_POLLING_INTERVAL = 100;
   private long explicitTimeout;
   private long pollingInterval;
   private long implicitTimeout;
+  private long initialPollingInterval;
+  private boolean waitingForDomMutations;
 
   public Timings(long explicitTimeout, long pollingInterval, long implicitTimeout) {
+    this(explicitTimeout, pollingInterval, implicitTimeout, pollingInterval, false);
+  }
+
+  public Timings(long explicitTimeout, long pollingInterval, long implicitTimeout,
+      long initialPollingInterval, boolean waitingForDomMutations) {
     this.explicitTimeout = explicitTimeout;
     this.pollingInterval = pollingInterval;
     this.implicitTimeout = implicitTimeout;
+    this.initialPollingInterval = initialPollingInterval;
+    this.waitingForDomMutations = waitingForDomMutations;
   }
 
   public long getExplicitTimeout() {
@@ -59,6 +72,14 @@ public class Timings {
     return implicitTimeout;
   }
 
+  public long getInitialPollingInterval() {
+    return initialPollingInterval;
+  }
+
+  public boolean isWaitingForDomMutations() {
+    return waitingForDomMutations;
+  }
+
   /**
    * A {@link Timings} instance with explicit timeout set to {@value Timeouts#SMALL}
    */
@@ -29,6 +29,8 @@ import com.cognifide.qa.bb.constants.ConfigKeys;
  * <li>for explicit timeout - {@value ConfigKeys#TIMINGS_EXPLICIT_TIMEOUT}</li>
  * <li>for implicit timeout - {@value ConfigKeys#TIMINGS_IMPLICIT_TIMEOUT}</li>
  * <li>for polling interval - {@value ConfigKeys#TIMINGS_POLLING_INTERVAL}</li>
+ * <li>for initial polling interval - {@value ConfigKeys#TIMINGS_INITIAL_POLLING_INTERVAL}</li>
+ * <li>for waiting for DOM mutations - {@value ConfigKeys#TIMINGS_WAIT_FOR_DOM_MUTATIONS}</li>
  * </ul>
  */
 public class TimingsBuilder {
@@ -45,6 +47,13 @@ public class TimingsBuilder {
       Long.parseLong(System.getProperty(ConfigKeys.TIMINGS_IMPLICIT_TIMEOUT,
           String.valueOf(Timings.DEFAULT_IMPLICIT_TIMEOUT)));
 
+  private long initialPollingInterval =
+      Long.parseLong(System.getProperty(ConfigKeys.TIMINGS_INITIAL_POLLING_INTERVAL,
+          String.valueOf(Timings.DEFAULT_INITIAL_POLLING_INTERVAL)));
+
+  private boolean waitForDomMutations =
+      Boolean.parseBoolean(System.getProperty(ConfigKeys.TIMINGS_WAIT_FOR_DOM_MUTATIONS));
+
   /**
    * Set the explicit timeout
    *
@@ -78,12 +87,35 @@ public class TimingsBuilder {
     return this;
   }
 
+  /**
+   * Set the initial polling time; each next pause is twice as long, up to the polling time.
+   *
+   * @param time in milliseconds
+   * @return a self reference
+   */
+  public TimingsBuilder initialPollingInterval(long time) {
+    initialPollingInterval = time;
+    return this;
+  }
+
+  /**
+   * Makes the pauses between condition evaluations end as soon as the DOM of the page changes.
+   *
+   * @param enabled true to enable
+   * @return a self reference
+   */
+  public TimingsBuilder waitForDomMutations(boolean enabled) {
+    waitForDomMutations = enabled;
+    return this;
+  }
+
   /**
    * Creates an instance of {@link Timings}
    *
    * @return new {@link Timings} instance
    */
   public Timings build() {
-    return new Timings(explicitTimeout, pollingInterval, implicitTimeout);
+    return new Timings(explicitTimeout, pollingInterval, implicitTimeout, initialPollingInterval,
+        waitForDomMutations);
   }
 }
@@ -24,29 +24,74 @@ import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.Keys;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Coordinates;
 import org.openqa.selenium.interactions.Locatable;
 import org.openqa.selenium.internal.WrapsElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.cognifide.qa.bb.constants.ConfigKeys;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.assistedinject.Assisted;
+import com.google.inject.name.Named;
 
 /**
  * Improves WebElement implementation with custom {@link #sendKeys(CharSequence...)} method
  */
 public class BobcatWebElement implements WebElement, Locatable, WrapsElement {
 
+  private static final Logger LOG = LoggerFactory.getLogger(BobcatWebElement.class);
+
   private static final int SEND_KEYS_RETRIES = 10;
 
+  private static final String APPEND_VALUE_SCRIPT =
+      "var element = arguments[0], text = arguments[1];"
+          + "var tag = element.tagName.toLowerCase(), type = (element.type || '').toLowerCase();"
+          + "if (!(tag === 'textarea' || tag === 'input'"
+          + "    && ['text', 'search', 'email', 'url', 'tel', 'password'].indexOf(type) >= 0)"
+          + "    || element.readOnly || element.disabled) {"
+          + "  return null;"
+          + "}"
+          + "var original = element.value, value = original + text;"
+          + "if (element.maxLength >= 0 && value.length > element.maxLength) { return null; }"
+          + "element.focus();"
+          + "var descriptor = Object.getOwnPropertyDescriptor(Object.getPrototypeOf(element), 'value');"
+          + "var setValue = function (newValue) {"
+          + "  if (descriptor && descriptor.set) { descriptor.set.call(element, newValue); }"
+          + "  else { element.value = newValue; }"
+          + "  element.dispatchEvent(new Event('input', {bubbles: true}));"
+          + "  element.dispatchEvent(new Event('change', {bubbles: true}));"
+          + "};"
+          + "setValue(value);"
+          // e.g. masked inputs reformat the value; the original one is restored before typing
+          + "if (element.value.slice(element.value.length - text.length) !== text) {"
+          + "  setValue(original);"
+          + "  return null;"
+          + "}"
+          + "return element.value;";
+
   private final WebElement element;
 
   private final Locatable locatable;
 
+  @Inject
+  private Provider<WebDriver> webDriverProvider;
+
+  @Inject
+  @Named(ConfigKeys.ELEMENTS_FAST_INPUT)
+  private boolean fastInput;
+
+  private volatile Boolean uploadField;
+
   @Inject
   public BobcatWebElement(@Assisted BobcatWebElementContext context) {
     this.element = context.getWebElement();
@@ -67,15 +112,21 @@ public class BobcatWebElement implements WebElement, Locatable, WrapsElement {
    * As there is known selenium
    * <a href="https://github.com/seleniumhq/selenium-google-code-issue-archive/issues/4446">4446</a>
    * bug this method retries sending keys until input field value is valid.
+   * <p>
+   * When {@value ConfigKeys#ELEMENTS_FAST_INPUT} is enabled, plain text typed into a text input or
+   * textarea is appended to its value with a single script call, which also dispatches the
+   * {@code input} and {@code change} events. If that's not possible or the page changes the value
+   * so that it doesn't end with the text (e.g. a masked input), the original value is restored and
+   * the keys are sent as described above.
    *
    * @param keysToSend keyboard keys to send
    */
   @Override
   public void sendKeys(CharSequence... keysToSend) {
-    String textBefore = getValue();
-    if (isKeys(keysToSend[0]) || isUploadField(element)) {
+    if (isKeys(keysToSend[0]) || isUploadField()) {
       element.sendKeys(keysToSend);
-    } else {
+    } else if (!appendValue(keysToSend)) {
+      String textBefore = getValue();
       for (int i = 0; i < SEND_KEYS_RETRIES; i++) {
         element.sendKeys(keysToSend);
         boolean success = StringUtils.endsWith(getValue(), keysToSend[0]);
@@ -174,11 +225,37 @@ public class BobcatWebElement implements WebElement, Locatable, WrapsElement {
     return String.format("%s(%s)", this.getClass().getSimpleName(), getWrappedElement());
   }
 
-  private boolean isUploadField(WebElement webElement) {
-    boolean tagIsInput = "input".equals(webElement.getTagName());
-    boolean typeIsFile = "file".equals(webElement.getAttribute("type"));
+  private boolean isUploadField() {
+    Boolean result = uploadField;
+    if (result == null) {
+      boolean tagIsInput = "input".equals(element.getTagName());
+      result = tagIsInput && "file".equals(element.getAttribute("type"));
+      uploadField = result;
+    }
+    return result;
+  }
+
+  private boolean appendValue(CharSequence... keysToSend) {
+    if (!fastInput) {
+      return false;
+    }
+    String text = StringUtils.join(keysToSend);
+    WebDriver webDriver = webDriverProvider.get();
+    if (!(webDriver instanceof JavascriptExecutor) || containsKeys(text)) {
+      return false;
+    }
+    try {
+      Object value = ((JavascriptExecutor) webDriver)
+          .executeScript(APPEND_VALUE_SCRIPT, element, text);
+      return value instanceof String && ((String) value).endsWith(text);
+    } catch (WebDriverException e) {
+      LOG.debug("Could not set the value of {} with a script, sending keys instead", element, e);
+      return false;
+    }
+  }
 
-    return tagIsInput && typeIsFile;
+  private static boolean containsKeys(String text) {
+    return text.chars().anyMatch(c -> c >= Keys.NULL.charAt(0) && c <= '\uF8FF');
   }
 
   private boolean isKeys(CharSequence charSequence) {
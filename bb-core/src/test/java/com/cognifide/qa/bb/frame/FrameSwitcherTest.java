@@ -21,14 +21,23 @@ package com.cognifide.qa.bb.frame;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriver.TargetLocator;
 
+import com.cognifide.qa.bb.metrics.Metrics;
+import com.cognifide.qa.bb.scope.cache.ElementCache;
 import com.cognifide.qa.bb.scope.frame.FramePath;
 import com.cognifide.qa.bb.wait.BobcatWait;
 import com.google.inject.Provider;
@@ -40,6 +49,8 @@ public class FrameSwitcherTest {
 
   private static final String NAME = "name";
 
+  private static final String INDEXED_PATH = "$1";
+
   @InjectMocks
   public FrameSwitcher testedObject = new FrameSwitcher();
 
@@ -52,6 +63,12 @@ public class FrameSwitcherTest {
   @Mock
   private FramePath framePath;
 
+  @Mock
+  private Metrics metrics;
+
+  @Mock
+  private ElementCache elementCache;
+
   @Test
   public void shouldHaveAtLeastOneElementInDequeOnConstruction() {
     //then
@@ -126,6 +143,68 @@ public class FrameSwitcherTest {
     assertThatDequeSizeIs(2);
   }
 
+  @Test
+  public void shouldNotSwitchAgainToTheFrameBrowserIsIn() {
+    //given
+    TargetLocator targetLocator = mockTargetLocator();
+
+    //when
+    testedObject.switchTo(FramePath.parsePath(INDEXED_PATH));
+    testedObject.switchTo(FramePath.parsePath(INDEXED_PATH));
+    testedObject.switchBack();
+    testedObject.switchBack();
+
+    //then
+    verify(targetLocator).frame(1);
+    verify(targetLocator).defaultContent();
+    verifyNoMoreInteractions(targetLocator);
+    assertThat(testedObject.getPerformedSwitches()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldClimbToParentFrameInsteadOfStartingOverFromTheTop() {
+    //given
+    TargetLocator targetLocator = mockTargetLocator();
+    testedObject.switchTo(FramePath.parsePath(INDEXED_PATH));
+    testedObject.switchTo(FramePath.parsePath(INDEXED_PATH + "/$2"));
+
+    //when
+    testedObject.switchBack();
+
+    //then
+    verify(targetLocator).parentFrame();
+    verify(targetLocator, never()).defaultContent();
+    assertThat(testedObject.getAvoidedSwitches()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldDeferSwitchesUntilTheyAreNeededInLazyMode() throws IllegalAccessException {
+    //given
+    TargetLocator targetLocator = mockTargetLocator();
+    FieldUtils.writeField(testedObject, "lazySwitching", true, true);
+
+    //when
+    testedObject.switchTo(FramePath.parsePath(INDEXED_PATH + "/$2"));
+    testedObject.switchBack();
+    testedObject.switchTo(FramePath.parsePath(INDEXED_PATH));
+    testedObject.switchToPendingFrame();
+
+    //then
+    verify(targetLocator).frame(1);
+    verifyNoMoreInteractions(targetLocator);
+    assertThat(testedObject.getAvoidedSwitches()).isEqualTo(3);
+  }
+
+  private TargetLocator mockTargetLocator() {
+    WebDriver webDriver = mock(WebDriver.class);
+    TargetLocator targetLocator = mock(TargetLocator.class);
+    when(provider.get()).thenReturn(webDriver);
+    when(webDriver.switchTo()).thenReturn(targetLocator);
+    // forgets the mocked frame path injected as the frame the browser is in
+    testedObject.reset();
+    return targetLocator;
+  }
+
   private void assumeThatDequeSizeIs(int size) {
     assumeTrue(testedObject.getLocalDeque().size() == size);
   }
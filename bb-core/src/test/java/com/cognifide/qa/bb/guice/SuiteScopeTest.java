@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+
+public class SuiteScopeTest {
+
+  private static final List<String> DISPOSED = new ArrayList<>();
+
+  private SuiteScope scope;
+
+  private Module module;
+
+  @BeforeEach
+  public void setUp() {
+    DISPOSED.clear();
+    scope = new SuiteScope();
+    module = binder -> binder.bindScope(SuiteScoped.class, scope);
+  }
+
+  @Test
+  public void shouldShareInstanceBetweenInjectors() {
+    //given
+    Injector first = Guice.createInjector(module);
+    Injector second = Guice.createInjector(module);
+
+    //when
+    Pool pool = first.getInstance(Pool.class);
+
+    //then
+    assertThat(second.getInstance(Pool.class)).isSameAs(pool);
+  }
+
+  @Test
+  public void shouldDisposeInstancesInReverseOrderOfCreation() {
+    //given
+    Guice.createInjector(module).getInstance(Registry.class);
+
+    //when
+    scope.close();
+
+    //then
+    assertThat(DISPOSED).containsExactly("registry", "pool");
+  }
+
+  @Test
+  public void shouldDisposeInstancesOnlyOnce() {
+    //given
+    Guice.createInjector(module).getInstance(Pool.class);
+    scope.close();
+
+    //when
+    scope.close();
+
+    //then
+    assertThat(DISPOSED).containsExactly("pool");
+  }
+
+  @Test
+  public void shouldCreateNewInstanceAfterClose() {
+    //given
+    Injector injector = Guice.createInjector(module);
+    Pool pool = injector.getInstance(Pool.class);
+
+    //when
+    scope.close();
+
+    //then
+    assertThat(injector.getInstance(Pool.class)).isNotSameAs(pool);
+  }
+
+  @SuiteScoped
+  static class Pool implements Disposable {
+
+    @Override
+    public void dispose() {
+      DISPOSED.add("pool");
+    }
+  }
+
+  @SuiteScoped
+  static class Registry implements Disposable {
+
+    @Inject
+    Registry(Pool pool) {
+      // depends on the pool, so it is created after it
+    }
+
+    @Override
+    public void dispose() {
+      DISPOSED.add("registry");
+    }
+  }
+}
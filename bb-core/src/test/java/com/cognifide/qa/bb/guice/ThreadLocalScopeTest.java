@@ -0,0 +1,238 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class ThreadLocalScopeTest {
+
+  private static final List<String> DISPOSED = new ArrayList<>();
+
+  private ThreadLocalScope scope;
+
+  private Injector injector;
+
+  @BeforeEach
+  public void setUp() {
+    DISPOSED.clear();
+    Slow.created.set(0);
+    scope = new ThreadLocalScope();
+    injector = Guice.createInjector(binder -> binder.bindScope(ThreadScoped.class, scope));
+  }
+
+  @Test
+  public void shouldProvideSameInstanceWithinContext() {
+    //given
+    scope.enter();
+
+    //when
+    First first = injector.getInstance(First.class);
+
+    //then
+    assertThat(injector.getInstance(First.class)).isSameAs(first);
+  }
+
+  @Test
+  public void shouldProvideNewInstanceInNewContext() {
+    //given
+    scope.enter();
+    First first = injector.getInstance(First.class);
+    scope.exit();
+
+    //when
+    scope.enter();
+
+    //then
+    assertThat(injector.getInstance(First.class)).isNotSameAs(first);
+  }
+
+  @Test
+  public void shouldDisposeInstancesInReverseOrderAndRunHooksOnExit() {
+    //given
+    ScopeContext context = scope.enter();
+    injector.getInstance(First.class);
+    injector.getInstance(Second.class);
+    context.onDispose(() -> DISPOSED.add("hook"));
+
+    //when
+    scope.exit();
+
+    //then
+    assertThat(DISPOSED).containsExactly("second", "first", "hook");
+    assertThat(context.isClosed()).isTrue();
+    assertThat(scope.isEntered()).isFalse();
+  }
+
+  @Test
+  public void shouldMakeOuterContextCurrentAfterClosingNestedOne() {
+    //given
+    scope.enter();
+    First outer = injector.getInstance(First.class);
+    scope.enter();
+    First inner = injector.getInstance(First.class);
+
+    //when
+    scope.exit();
+
+    //then
+    assertThat(inner).isNotSameAs(outer);
+    assertThat(injector.getInstance(First.class)).isSameAs(outer);
+  }
+
+  @Test
+  public void shouldShareInstancesWithAttachedThread() {
+    //given
+    ScopeContext context = scope.enter();
+    First first = injector.getInstance(First.class);
+
+    //when
+    First fromOtherThread = CompletableFuture.supplyAsync(() -> {
+      ScopeContext previous = scope.attach(context);
+      try {
+        return injector.getInstance(First.class);
+      } finally {
+        scope.restore(previous);
+      }
+    }).join();
+
+    //then
+    assertThat(fromOtherThread).isSameAs(first);
+  }
+
+  @Test
+  public void shouldNotBlockAttachedThreadsWhileInstanceIsBeingCreated() throws Exception {
+    //given
+    ScopeContext context = scope.enter();
+    CompletableFuture<First> fromOtherThread = new CompletableFuture<>();
+    Slow.onCreation = () -> fromOtherThread.complete(CompletableFuture.supplyAsync(() -> {
+      ScopeContext previous = scope.attach(context);
+      try {
+        return injector.getInstance(First.class);
+      } finally {
+        scope.restore(previous);
+      }
+    }).join());
+
+    //when
+    Slow slow = CompletableFuture.supplyAsync(() -> {
+      ScopeContext previous = scope.attach(context);
+      try {
+        return injector.getInstance(Slow.class);
+      } finally {
+        scope.restore(previous);
+      }
+    }).get(10, TimeUnit.SECONDS);
+
+    //then
+    assertThat(injector.getInstance(Slow.class)).isSameAs(slow);
+    assertThat(fromOtherThread.get()).isSameAs(injector.getInstance(First.class));
+  }
+
+  @Test
+  public void shouldCreateInstanceOnceForConcurrentThreads() throws Exception {
+    //given
+    ScopeContext context = scope.enter();
+    CountDownLatch waiting = new CountDownLatch(1);
+    Slow.onCreation = () -> {
+      try {
+        waiting.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    Supplier<Slow> attached = () -> {
+      ScopeContext previous = scope.attach(context);
+      try {
+        return injector.getInstance(Slow.class);
+      } finally {
+        scope.restore(previous);
+      }
+    };
+
+    //when
+    CompletableFuture<Slow> first = CompletableFuture.supplyAsync(attached);
+    CompletableFuture<Slow> second = CompletableFuture.supplyAsync(attached);
+    waiting.countDown();
+
+    //then
+    assertThat(first.get(10, TimeUnit.SECONDS)).isSameAs(second.get(10, TimeUnit.SECONDS));
+    assertThat(Slow.created).hasValue(1);
+  }
+
+  @Test
+  public void shouldUseImplicitThreadContextWhenNoneEntered() {
+    //given
+    First first = injector.getInstance(First.class);
+
+    //when
+    First fromOtherThread =
+        CompletableFuture.supplyAsync(() -> injector.getInstance(First.class)).join();
+
+    //then
+    assertThat(injector.getInstance(First.class)).isSameAs(first);
+    assertThat(fromOtherThread).isNotSameAs(first);
+    assertThat(scope.isEntered()).isFalse();
+  }
+
+  @ThreadScoped
+  static class First implements Disposable {
+
+    @Override
+    public void dispose() {
+      DISPOSED.add("first");
+    }
+  }
+
+  @ThreadScoped
+  static class Slow {
+
+    private static final AtomicInteger created = new AtomicInteger();
+
+    private static Runnable onCreation;
+
+    Slow() {
+      created.incrementAndGet();
+      onCreation.run();
+    }
+  }
+
+  @ThreadScoped
+  static class Second implements Disposable {
+
+    @Override
+    public void dispose() {
+      DISPOSED.add("second");
+    }
+  }
+}
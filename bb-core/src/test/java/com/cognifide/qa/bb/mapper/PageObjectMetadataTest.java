@@ -0,0 +1,148 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.mapper;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openqa.selenium.WebElement;
+
+import com.cognifide.qa.bb.mapper.PageObjectMetadata.InjectableField;
+import com.cognifide.qa.bb.qualifier.Frame;
+import com.google.inject.Inject;
+
+class PageObjectMetadataTest {
+
+  @Test
+  void isComputedOncePerClass() {
+    assertThat(PageObjectMetadata.of(TestPage.class)).isSameAs(PageObjectMetadata.of(TestPage.class));
+    assertThat(PageObjectMetadata.of(TestPage.class))
+        .isNotSameAs(PageObjectMetadata.of(BasePage.class));
+  }
+
+  @Test
+  void readsFrameOfClass() {
+    assertThat(PageObjectMetadata.of(TestPage.class).getFrame().value()).isEqualTo("$0");
+    assertThat(PageObjectMetadata.of(BasePage.class).getFrame()).isNull();
+  }
+
+  @Test
+  void decoratedFieldsIncludeElementsOfWholeHierarchy() {
+    assertThat(names(PageObjectMetadata.of(TestPage.class).getDecoratedFields()))
+        .containsExactlyInAnyOrder("element", "elements", "baseElement");
+  }
+
+  @Test
+  void ownFieldsSkipInjectedAndInheritedFields() {
+    assertThat(names(PageObjectMetadata.of(TestPage.class).getOwnFields()))
+        .containsExactlyInAnyOrder("element", "elements", "child", "label");
+  }
+
+  @Test
+  void reflectiveMetadataIsCachedSeparately() {
+    assertThat(PageObjectMetadata.of(TestPage.class, true))
+        .isSameAs(PageObjectMetadata.of(TestPage.class, true))
+        .isNotSameAs(PageObjectMetadata.of(TestPage.class, false));
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void setsPrivateFields(boolean reflective) {
+    TestPage page = new TestPage();
+    InjectableField label = PageObjectMetadata.of(TestPage.class, reflective).getOwnFields().stream()
+        .filter(field -> field.getField().getName().equals("label"))
+        .findFirst().get();
+
+    label.set(page, "value");
+    label.set(page, 42);
+
+    assertThat(page.label).isEqualTo("value");
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void invokesPostConstructMethodsAndSwallowsTheirExceptions(boolean reflective) {
+    TestPage page = new TestPage();
+
+    PageObjectMetadata.of(TestPage.class, reflective).invokePostConstruct(page);
+
+    assertThat(page.initialized).isEqualTo(2);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void invokesPostConstructMethodsOfPublicClasses(boolean reflective) {
+    PublicPage page = new PublicPage();
+
+    PageObjectMetadata.of(PublicPage.class, reflective).invokePostConstruct(page);
+    PageObjectMetadata.of(PublicPage.class, reflective).invokePostConstruct(page);
+
+    assertThat(page.getInitialized()).isEqualTo(2);
+  }
+
+  private static List<String> names(List<InjectableField> fields) {
+    return fields.stream().map(field -> field.getField().getName()).collect(toList());
+  }
+
+  public static class BasePage {
+
+    private WebElement baseElement;
+
+    int initialized;
+
+    @PostConstruct
+    public void init() {
+      initialized++;
+    }
+  }
+
+  @Frame("$0")
+  public static class TestPage extends BasePage {
+
+    private WebElement element;
+
+    private List<WebElement> elements;
+
+    private BasePage child;
+
+    private String label;
+
+    @Inject
+    private WebElement injected;
+
+    @PostConstruct
+    public int initAgain() {
+      initialized++;
+      return initialized;
+    }
+
+    @PostConstruct
+    public void failingInit() {
+      throw new IllegalStateException("expected");
+    }
+  }
+}
@@ -17,25 +17,23 @@
  * limitations under the License.
  * #L%
  */
-package com.cognifide.qa.bb.proxy.analyzer;
+package com.cognifide.qa.bb.mapper;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.PostConstruct;
 
-import net.lightbody.bmp.core.har.HarRequest;
-
-class QueryStringParameters {
+/**
+ * Page object accessible from Bobcat's classes, used in {@link PageObjectMetadataTest}.
+ */
+public class PublicPage {
 
-  private final HarRequest harRequest;
+  private int initialized;
 
-  QueryStringParameters(HarRequest harRequest) {
-    this.harRequest = harRequest;
+  @PostConstruct
+  public void init() {
+    initialized++;
   }
 
-  Map<String, String> retrieve() {
-    HashMap<String, String> queryStringItems = new HashMap<>();
-    harRequest.getQueryString().stream()
-        .forEach(item -> queryStringItems.put(item.getName(), item.getValue()));
-    return queryStringItems;
+  public int getInitialized() {
+    return initialized;
   }
 }
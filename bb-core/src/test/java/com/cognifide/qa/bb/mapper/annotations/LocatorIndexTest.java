@@ -0,0 +1,101 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.mapper.annotations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.CacheLookup;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.pagefactory.AbstractAnnotations;
+import org.openqa.selenium.support.pagefactory.Annotations;
+
+import com.cognifide.qa.bb.mapper.field.PageObjectProviderHelper;
+import com.cognifide.qa.bb.qualifier.PageObject;
+
+/**
+ * Uses the index from src/test/resources/META-INF/bobcat/locators.properties
+ */
+class LocatorIndexTest {
+
+  @Test
+  void selectorOfIndexedClassComesFromIndex() {
+    assertThat(LocatorIndex.isIndexed(IndexedPage.class)).isTrue();
+    assertThat(PageObjectProviderHelper.getSelectorFromClass(IndexedPage.class, null))
+        .hasValue(By.cssSelector(".indexed"));
+  }
+
+  @Test
+  void indexedClassMayHaveNoSelector() {
+    assertThat(LocatorIndex.isIndexed(NoSelectorPage.class)).isTrue();
+    assertThat(PageObjectProviderHelper.getSelectorFromClass(NoSelectorPage.class, null)).isEmpty();
+  }
+
+  @Test
+  void classesMissingInIndexAreHandledAtRuntime() {
+    assertThat(LocatorIndex.isIndexed(NotIndexedPage.class)).isFalse();
+    assertThat(PageObjectProviderHelper.getSelectorFromClass(NotIndexedPage.class, null))
+        .hasValue(By.xpath("//div"));
+  }
+
+  @Test
+  void indexedFieldsUseIndexedLocators() throws NoSuchFieldException {
+    AbstractAnnotations element =
+        FieldAnnotationsProvider.create(IndexedPage.class.getDeclaredField("element"), null);
+    AbstractAnnotations cached =
+        FieldAnnotationsProvider.create(IndexedPage.class.getDeclaredField("cached"), null);
+
+    assertThat(element.buildBy()).isEqualTo(By.xpath("//div[@class='indexed']"));
+    assertThat(element.isLookupCached()).isFalse();
+    assertThat(cached.buildBy()).isEqualTo(By.id("cached"));
+    assertThat(cached.isLookupCached()).isTrue();
+  }
+
+  @Test
+  void fieldsMissingInIndexAreHandledBySelenium() throws NoSuchFieldException {
+    assertThat(
+        FieldAnnotationsProvider.create(IndexedPage.class.getDeclaredField("notIndexed"), null))
+        .isInstanceOf(Annotations.class);
+  }
+
+  @PageObject(css = ".indexed")
+  private static class IndexedPage {
+
+    @FindBy(xpath = "//div[@class='indexed']")
+    private WebElement element;
+
+    @CacheLookup
+    @FindBy(id = "cached")
+    private WebElement cached;
+
+    @FindBy(css = ".not-indexed")
+    private WebElement notIndexed;
+  }
+
+  @PageObject
+  private static class NoSelectorPage {
+  }
+
+  @PageObject(xpath = "//div")
+  private static class NotIndexedPage {
+  }
+}
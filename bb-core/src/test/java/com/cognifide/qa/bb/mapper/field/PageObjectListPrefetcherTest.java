@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.mapper.field;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.How;
+
+import com.cognifide.qa.bb.qualifier.Global;
+import com.cognifide.qa.bb.qualifier.PageObject;
+
+@ExtendWith(MockitoExtension.class)
+class PageObjectListPrefetcherTest {
+
+  @Mock(extraInterfaces = JavascriptExecutor.class)
+  private WebDriver webDriver;
+
+  @InjectMocks
+  private PageObjectListPrefetcher testedObject;
+
+  private final WebElement first = mock(WebElement.class);
+
+  private final WebElement second = mock(WebElement.class);
+
+  @Test
+  void resolvesCssAndXpathFieldsOfAllItemsInOneCall() throws NoSuchFieldException {
+    WebElement title = mock(WebElement.class);
+    WebElement link = mock(WebElement.class);
+    when(executor().executeScript(anyString(), any(), any())).thenReturn(Arrays.asList(
+        Arrays.asList(title, null, Collections.singletonList(link)),
+        Arrays.asList(null, null, Collections.emptyList())));
+
+    List<Map<Field, Object>> prefetched =
+        testedObject.prefetch(Item.class, Arrays.asList(first, second));
+
+    ArgumentCaptor<Object> selectors = ArgumentCaptor.forClass(Object.class);
+    verify(executor())
+        .executeScript(anyString(), eq(Arrays.asList(first, second)), selectors.capture());
+    assertThat(selectors.getValue()).isEqualTo(Arrays.asList(
+        Arrays.asList("css", ".title", false),
+        Arrays.asList("xpath", ".//span", false),
+        Arrays.asList("css", "a", true)));
+    assertThat(prefetched).hasSize(2);
+    assertThat(prefetched.get(0))
+        .containsEntry(Item.class.getDeclaredField("title"), title)
+        .containsEntry(Item.class.getDeclaredField("links"), Collections.singletonList(link))
+        .doesNotContainKey(Item.class.getDeclaredField("label"));
+    assertThat(prefetched.get(1))
+        .containsOnlyKeys(Item.class.getDeclaredField("links"));
+  }
+
+  @Test
+  void fallsBackWhenScriptFails() {
+    when(executor().executeScript(anyString(), any(), any()))
+        .thenThrow(new WebDriverException("not supported"));
+
+    assertThat(testedObject.prefetch(Item.class, Arrays.asList(first, second))).isEmpty();
+  }
+
+  @Test
+  void skipsScriptWhenThereIsNothingToResolve() {
+    assertThat(testedObject.prefetch(Unsupported.class, Arrays.asList(first, second))).isEmpty();
+    assertThat(testedObject.prefetch(Item.class, Collections.emptyList())).isEmpty();
+
+    verifyZeroInteractions(webDriver);
+  }
+
+  private JavascriptExecutor executor() {
+    return (JavascriptExecutor) webDriver;
+  }
+
+  @PageObject
+  private static class Item {
+
+    @FindBy(css = ".title")
+    private WebElement title;
+
+    @FindBy(how = How.XPATH, using = ".//span")
+    private WebElement label;
+
+    @FindBy(css = "a")
+    private List<WebElement> links;
+  }
+
+  @PageObject
+  private static class Unsupported {
+
+    @FindBy(id = "id")
+    private WebElement byId;
+
+    @Global
+    @FindBy(css = ".global")
+    private WebElement global;
+
+    @FindBys({@FindBy(css = "ul"), @FindBy(css = "li")})
+    private WebElement chained;
+
+    @FindBy(css = ".item")
+    private Item item;
+  }
+}
@@ -131,6 +131,18 @@ class PageObjectProviderHelperTest {
 
       assertThat(getSelector(css, injector)).hasValue(By.cssSelector("span"));
     }
+
+    @Test
+    @DisplayName("resolves the implementation separately for each injector")
+    void resolvesImplementationOfPoInterfaceForEachInjector() throws NoSuchFieldException {
+      Field css = ExamplePO.class.getDeclaredField("cssInterface");
+      Injector injector = Guice.createInjector(new PoModule());
+      Injector otherInjector = Guice.createInjector(
+          binder -> binder.bind(PoInterface.class).to(OtherPoInterfaceImpl.class));
+
+      assertThat(getSelector(css, injector)).hasValue(By.cssSelector("span"));
+      assertThat(getSelector(css, otherInjector)).hasValue(By.cssSelector("p"));
+    }
   }
 
 
@@ -182,6 +194,12 @@ class PageObjectProviderHelperTest {
   }
 
 
+  @PageObject(css = "p")
+  private static class OtherPoInterfaceImpl implements PoInterface {
+
+  }
+
+
   private class PoModule extends AbstractModule {
     @Override
     protected void configure() {
@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  private final LatencyHistogram tested = new LatencyHistogram();
+
+  @Test
+  public void shouldApproximatePercentilesWithinRecordedRange() {
+    for (int i = 0; i < 90; i++) {
+      tested.record(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    for (int i = 0; i < 10; i++) {
+      tested.record(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    assertThat(tested.getCount()).isEqualTo(100);
+    assertThat(tested.getTotal()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1090));
+    assertThat(tested.getPercentile(0.5))
+        .isBetween(TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(2));
+    assertThat(tested.getPercentile(0.99))
+        .isBetween(TimeUnit.MILLISECONDS.toNanos(50), TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  public void shouldSummarizeInMilliseconds() {
+    tested.record(TimeUnit.MILLISECONDS.toNanos(3));
+    tested.record(TimeUnit.MILLISECONDS.toNanos(5));
+
+    assertThat(tested.toMap())
+        .containsEntry("count", 2L)
+        .containsEntry("totalMs", 8.0)
+        .containsEntry("minMs", 3.0)
+        .containsEntry("meanMs", 4.0)
+        .containsEntry("maxMs", 5.0);
+  }
+
+  @Test
+  public void shouldReportZerosWhenEmpty() {
+    assertThat(tested.getPercentile(0.9)).isZero();
+    assertThat(tested.toMap()).containsEntry("minMs", 0.0).containsEntry("p99Ms", 0.0);
+  }
+}
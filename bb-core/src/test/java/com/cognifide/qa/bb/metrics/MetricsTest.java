@@ -0,0 +1,121 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+public class MetricsTest {
+
+  private final TestMetrics testMetrics = new TestMetrics();
+
+  // the suite summary is written there at shutdown as well, so it is not a temporary directory
+  private final Path directory = Paths.get("target", "metrics-test");
+
+  @Test
+  public void shouldWritePerTestMetricsAndReset() throws IOException {
+    Metrics tested = new Metrics(true, directory.toString(), () -> testMetrics);
+
+    tested.record(Metrics.WAIT, "LoginPage#submit", tested.start());
+    tested.record(Metrics.WAIT, "LoginPage#submit", tested.start());
+    Optional<String> json = tested.finishTest("LoginTest.should log in()");
+
+    assertThat(json).hasValueSatisfying(
+        content -> assertThat(content).contains("\"LoginPage#submit\"").contains("\"count\" : 2"));
+    assertThat(new String(Files.readAllBytes(directory.resolve("LoginTest.should_log_in_.json")),
+        StandardCharsets.UTF_8)).isEqualTo(json.get());
+    assertThat(testMetrics.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldReportHighestLevel() {
+    Metrics tested = new Metrics(true, directory.toString(), () -> testMetrics);
+
+    tested.recordLevel(Metrics.TRAFFIC, "inFlight", 3);
+    tested.recordLevel(Metrics.TRAFFIC, "inFlight", 1);
+    Optional<String> json = tested.finishTest("TrafficTest.should record level()");
+
+    assertThat(json).hasValueSatisfying(
+        content -> assertThat(content).contains("\"inFlight\"").contains("\"peak\" : 3"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void shouldNotRecordWhenDisabled() {
+    Metrics tested = new Metrics(false, directory.toString(), () -> testMetrics);
+    Supplier<String> name = mock(Supplier.class);
+
+    tested.record(Metrics.FRAME, name, tested.start());
+
+    verifyZeroInteractions(name);
+    assertThat(testMetrics.isEmpty()).isTrue();
+    assertThat(tested.finishTest("test")).isEmpty();
+    assertThat(Files.exists(directory.resolve("test.json"))).isFalse();
+  }
+
+  @Test
+  public void shouldRecordNestedWebDriverCommands() {
+    Metrics metrics = mock(Metrics.class);
+    when(metrics.isEnabled()).thenReturn(true);
+    when(metrics.start()).thenReturn(1L, 2L);
+    MetricsListener listener = new MetricsListener(metrics);
+    WebDriver driver = mock(WebDriver.class);
+
+    listener.beforeFindBy(null, null, driver);
+    listener.beforeScript("return 1", driver);
+    listener.afterScript("return 1", driver);
+    listener.afterFindBy(null, null, driver);
+
+    verify(metrics).record(Metrics.WEBDRIVER, "executeScript", 2L);
+    verify(metrics).record(Metrics.WEBDRIVER, "findElement", 1L);
+  }
+
+  @Test
+  public void shouldSkipCommandsThatFailed() {
+    Metrics metrics = mock(Metrics.class);
+    when(metrics.isEnabled()).thenReturn(true);
+    MetricsListener listener = new MetricsListener(metrics);
+    WebDriver driver = mock(WebDriver.class);
+
+    listener.beforeClickOn(null, driver);
+    listener.onException(new RuntimeException(), driver);
+    listener.afterGetText(null, driver, "text");
+
+    verify(metrics, never()).record(eq(Metrics.WEBDRIVER), eq("getText"),
+        anyLong());
+  }
+}
@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.provider.selenium.webdriver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+
+import com.cognifide.qa.bb.provider.selenium.webdriver.creators.WebDriverCreator;
+import com.cognifide.qa.bb.provider.selenium.webdriver.modifiers.WebDriverModifiers;
+import com.google.inject.Provider;
+
+@ExtendWith(MockitoExtension.class)
+public class WebDriverLauncherTest {
+
+  private static final String TYPE = "chrome";
+
+  @Mock
+  private WebDriverCreator creator;
+
+  @Mock
+  private Provider<Capabilities> capabilitiesProvider;
+
+  @Mock
+  private WebDriver driver;
+
+  private final CountDownLatch started = new CountDownLatch(1);
+
+  private final CountDownLatch launched = new CountDownLatch(1);
+
+  private final WebDriverLauncher tested = new WebDriverLauncher(new WebDriverLaunchExecutor());
+
+  @BeforeEach
+  public void setUp() throws IllegalAccessException {
+    when(creator.getId()).thenReturn(TYPE);
+    when(creator.create(any())).thenAnswer(invocation -> {
+      started.countDown();
+      launched.await();
+      return driver;
+    });
+    Provider<WebDriverModifiers> modifiersProvider =
+        () -> new WebDriverModifiers(Collections.emptySet());
+    FieldUtils.writeField(tested, "type", TYPE, true);
+    FieldUtils.writeField(tested, "capabilitiesProvider", capabilitiesProvider, true);
+    FieldUtils.writeField(tested, "webDriverModifiersProvider", modifiersProvider, true);
+    FieldUtils.writeField(tested, "webDriverCreators", Collections.singleton(creator), true);
+  }
+
+  @Test
+  public void shouldQuitBrowserOfLaunchCancelledWhileStarting() throws InterruptedException {
+    CompletableFuture<WebDriver> future = tested.launchAsync();
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    future.cancel(false);
+    launched.countDown();
+    tested.shutdown();
+
+    verify(driver).quit();
+  }
+
+  @Test
+  public void shouldCancelPendingLaunchesAndWaitForThemOnShutdown() throws InterruptedException {
+    CompletableFuture<WebDriver> future = tested.launchAsync();
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    // the browser starts only once shutdown has cancelled the launch
+    future.whenComplete((result, e) -> launched.countDown());
+    tested.shutdown();
+
+    assertThat(future).isCancelled();
+    verify(driver).quit();
+  }
+}
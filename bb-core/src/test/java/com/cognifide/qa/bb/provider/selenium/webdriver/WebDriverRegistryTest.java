@@ -0,0 +1,242 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.provider.selenium.webdriver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WrapsDriver;
+
+import com.cognifide.qa.bb.guice.ScopeContext;
+import com.cognifide.qa.bb.guice.ThreadLocalScope;
+import com.cognifide.qa.bb.provider.selenium.webdriver.close.ClosingAwareWebDriver;
+import com.cognifide.qa.bb.provider.selenium.webdriver.close.WebDriverClosedListener;
+import com.cognifide.qa.bb.provider.selenium.webdriver.pool.WebDriverPool;
+
+@ExtendWith(MockitoExtension.class)
+public class WebDriverRegistryTest {
+
+  private static final int NO_PROBING = 0;
+
+  private static final int IDLE_TIMEOUT_SECONDS = 60;
+
+  @Mock
+  private WebDriverPool pool;
+
+  @Mock
+  private WebDriverLauncher launcher;
+
+  @Mock
+  private ClosingAwareWebDriver driver;
+
+  private WebDriverRegistry tested;
+
+  @BeforeEach
+  public void setUp() {
+    tested = new WebDriverRegistry(pool, launcher, NO_PROBING, IDLE_TIMEOUT_SECONDS);
+  }
+
+  @Test
+  public void shouldForgetDriverWhenItIsTerminated() {
+    WebDriverClosedListener listener = register();
+    when(driver.isAlive()).thenReturn(false);
+
+    listener.onWebDriverClosed(true);
+
+    assertThat(tested.size()).isZero();
+  }
+
+  @Test
+  public void shouldKeepReusableDriverAfterCleanup() {
+    WebDriverClosedListener listener = register();
+    when(driver.isAlive()).thenReturn(true);
+
+    listener.onWebDriverClosed(false);
+
+    assertThat(tested.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotProbeDriverInUse() {
+    register();
+    when(driver.isAlive()).thenReturn(true);
+
+    tested.probe(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+
+    verify(driver, never()).getWindowHandle();
+    verify(driver, never()).forceShutdown();
+  }
+
+  @Test
+  public void shouldReapDriverIdleLongerThanTimeout() {
+    WebDriverClosedListener listener = register();
+    when(driver.isAlive()).thenReturn(true);
+    listener.onWebDriverClosed(false);
+
+    tested.probe(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(IDLE_TIMEOUT_SECONDS + 1));
+
+    verify(driver).forceShutdown();
+    assertThat(tested.size()).isZero();
+  }
+
+  @Test
+  public void shouldReapUnresponsiveIdleDriver() {
+    WebDriverClosedListener listener = register();
+    when(driver.isAlive()).thenReturn(true);
+    when(driver.getWindowHandle()).thenThrow(new WebDriverException());
+    listener.onWebDriverClosed(false);
+
+    tested.probe(System.currentTimeMillis());
+
+    verify(driver).forceShutdown();
+  }
+
+  @Test
+  public void shouldNotReapResponsiveIdleDriver() {
+    WebDriverClosedListener listener = register();
+    when(driver.isAlive()).thenReturn(true);
+    listener.onWebDriverClosed(false);
+
+    tested.probe(System.currentTimeMillis());
+
+    verify(driver, never()).forceShutdown();
+    assertThat(tested.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotReapDriverTakenBackByOwnerDuringProbe() {
+    WebDriverClosedListener listener = register();
+    when(driver.isAlive()).thenReturn(true);
+    when(driver.getWindowHandle()).thenAnswer(invocation -> {
+      tested.markInUse(driver);
+      throw new WebDriverException();
+    });
+    listener.onWebDriverClosed(false);
+
+    tested.probe(System.currentTimeMillis());
+
+    verify(driver, never()).forceShutdown();
+    assertThat(tested.markInUse(driver)).isTrue();
+  }
+
+  @Test
+  public void shouldNotHandOutReapedDriver() {
+    WebDriverClosedListener listener = register();
+    when(driver.isAlive()).thenReturn(true);
+    listener.onWebDriverClosed(false);
+
+    tested.probe(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(IDLE_TIMEOUT_SECONDS + 1));
+
+    assertThat(tested.markInUse(driver)).isFalse();
+    verify(driver).forceShutdown();
+  }
+
+  @Test
+  public void shouldProbeUnderlyingDriver() {
+    ClosingAwareWebDriver wrapper =
+        mock(ClosingAwareWebDriver.class, withSettings().extraInterfaces(WrapsDriver.class));
+    WebDriver wrapped = mock(WebDriver.class);
+    when(((WrapsDriver) wrapper).getWrappedDriver()).thenReturn(wrapped);
+    when(wrapper.isAlive()).thenReturn(true);
+    tested.add(wrapper);
+    ArgumentCaptor<WebDriverClosedListener> captor =
+        ArgumentCaptor.forClass(WebDriverClosedListener.class);
+    verify(wrapper).addListener(captor.capture());
+    captor.getValue().onWebDriverClosed(false);
+
+    tested.probe(System.currentTimeMillis());
+
+    verify(wrapped).getWindowHandle();
+    verify(wrapper, never()).getWindowHandle();
+  }
+
+  @Test
+  public void shouldReapDriverOfFinishedThread() throws InterruptedException {
+    Thread owner = new Thread(() -> tested.add(driver));
+    owner.start();
+    owner.join();
+    when(driver.isAlive()).thenReturn(true);
+
+    tested.probe(System.currentTimeMillis());
+
+    verify(driver).forceShutdown();
+  }
+
+  @Test
+  public void shouldNotReapDriverOfOpenContextWhenCreatingThreadHasFinished()
+      throws InterruptedException {
+    ScopeContext context = new ThreadLocalScope().enter();
+    Thread worker = new Thread(() -> tested.add(driver, context));
+    worker.start();
+    worker.join();
+    when(driver.isAlive()).thenReturn(true);
+
+    tested.probe(System.currentTimeMillis());
+
+    verify(driver, never()).forceShutdown();
+  }
+
+  @Test
+  public void shouldReapDriverOfClosedContext() {
+    ScopeContext context = new ThreadLocalScope().enter();
+    tested.add(driver, context);
+    context.close();
+    when(driver.isAlive()).thenReturn(true);
+
+    tested.probe(System.currentTimeMillis());
+
+    verify(driver).forceShutdown();
+  }
+
+  @Test
+  public void shouldShutdownAliveDriversAndDrainPool() {
+    register();
+    when(driver.isAlive()).thenReturn(true);
+
+    tested.shutdown();
+
+    verify(driver).forceShutdown();
+    verify(launcher).shutdown();
+    verify(pool).shutdown();
+    assertThat(tested.size()).isZero();
+  }
+
+  private WebDriverClosedListener register() {
+    tested.add(driver);
+    ArgumentCaptor<WebDriverClosedListener> captor =
+        ArgumentCaptor.forClass(WebDriverClosedListener.class);
+    verify(driver).addListener(captor.capture());
+    return captor.getValue();
+  }
+}
@@ -31,9 +31,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.NoAlertPresentException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 
 import com.cognifide.qa.bb.frame.FrameSwitcher;
 import com.cognifide.qa.bb.provider.selenium.webdriver.BobcatTargetLocator;
+import com.cognifide.qa.bb.provider.selenium.webdriver.pool.WebDriverPool;
 
 @ExtendWith(MockitoExtension.class)
 public class ClosingAwareWebDriverWrapperTest {
@@ -68,6 +70,9 @@ public class ClosingAwareWebDriverWrapperTest {
   @Mock
   private FrameSwitcher frameSwitcher;
 
+  @Mock
+  private WebDriverPool pool;
+
   @InjectMocks
   @Spy
   private BobcatTargetLocator bobcatTargetLocator;
@@ -199,9 +204,62 @@ public class ClosingAwareWebDriverWrapperTest {
     assertThat(testedObject.isAlive()).isFalse();
   }
 
+  @Test
+  public void shouldReturnDriverToPoolOnQuitWhenPoolEnabled() {
+    //given
+    setUp(NOT_MAXIMIZED, NOT_REUSABLE, IS_MOBILE);
+    when(pool.isEnabled()).thenReturn(true);
+    when(webDriver.manage()).thenReturn(options);
+    registerListener();
+
+    //when
+    testedObject.quit();
+
+    //then
+    verify(options).deleteAllCookies();
+    verify(pool).release(webDriver);
+    verify(webDriver, never()).quit();
+    assertThat(testedObject.isAlive()).isFalse();
+    assertListenerReceivedEventWithValue(false);
+  }
+
+  @Test
+  public void shouldReturnDriverToPoolOnlyOnce() {
+    //given
+    setUp(NOT_MAXIMIZED, NOT_REUSABLE, IS_MOBILE);
+    when(pool.isEnabled()).thenReturn(true);
+    when(webDriver.manage()).thenReturn(options);
+
+    //when
+    testedObject.quit();
+    testedObject.close();
+
+    //then
+    verify(options, times(1)).deleteAllCookies();
+    verify(pool, times(1)).release(webDriver);
+  }
+
+  @Test
+  public void shouldDiscardPooledDriverWhenCleanupFails() {
+    //given
+    setUp(NOT_MAXIMIZED, NOT_REUSABLE, IS_MOBILE);
+    when(pool.isEnabled()).thenReturn(true);
+    when(webDriver.manage()).thenThrow(new WebDriverException());
+    registerListener();
+
+    //when
+    testedObject.quit();
+
+    //then
+    verify(pool).discard(webDriver);
+    verify(pool, never()).release(webDriver);
+    assertThat(testedObject.isAlive()).isFalse();
+    assertListenerReceivedEventWithValue(true);
+  }
+
   private void setUp(boolean maximize, boolean reusable, boolean mobile) {
-    testedObject = spy(
-        new ClosingAwareWebDriverWrapper(webDriver, frameSwitcher, maximize, reusable, mobile));
+    testedObject = spy(new ClosingAwareWebDriverWrapper(webDriver, frameSwitcher, pool, maximize,
+        reusable, mobile));
   }
 
   private void registerListener() {
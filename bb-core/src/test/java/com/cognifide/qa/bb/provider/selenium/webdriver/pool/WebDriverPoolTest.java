@@ -0,0 +1,138 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.provider.selenium.webdriver.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverLaunchExecutor;
+import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverLauncher;
+
+@ExtendWith(MockitoExtension.class)
+public class WebDriverPoolTest {
+
+  private static final boolean ENABLED = true;
+
+  private static final boolean DISABLED = false;
+
+  @Mock
+  private WebDriverLauncher launcher;
+
+  @Mock
+  private WebDriver driver;
+
+  @Mock
+  private WebDriver otherDriver;
+
+  @Test
+  public void shouldLaunchDriverOnCheckoutWhenPoolIsEmpty() {
+    WebDriverPool pool = new WebDriverPool(launcher, ENABLED, 1, 0, DISABLED);
+    when(launcher.launch()).thenReturn(driver);
+
+    assertThat(pool.checkout()).isSameAs(driver);
+  }
+
+  @Test
+  public void shouldReuseReleasedDriver() {
+    WebDriverPool pool = new WebDriverPool(launcher, ENABLED, 1, 0, DISABLED);
+
+    pool.release(driver);
+
+    assertThat(pool.checkout()).isSameAs(driver);
+    verify(launcher, never()).launch();
+  }
+
+  @Test
+  public void shouldQuitReleasedDriverWhenPoolIsFull() {
+    WebDriverPool pool = new WebDriverPool(launcher, ENABLED, 1, 0, DISABLED);
+
+    pool.release(driver);
+    pool.release(otherDriver);
+
+    verify(otherDriver).quit();
+    verify(driver, never()).quit();
+  }
+
+  @Test
+  public void shouldQuitReleasedDriverWhenPoolIsDisabled() {
+    WebDriverPool pool = new WebDriverPool(launcher, DISABLED, 1, 0, DISABLED);
+
+    pool.release(driver);
+
+    verify(driver).quit();
+  }
+
+  @Test
+  public void shouldBeDisabledWhenProxyIsEnabled() {
+    WebDriverPool pool = new WebDriverPool(launcher, ENABLED, 1, 1, ENABLED);
+
+    assertThat(pool.isEnabled()).isFalse();
+    verify(launcher, never()).launch();
+  }
+
+  @Test
+  public void shouldDiscardUnresponsiveDriverOnCheckout() {
+    WebDriverPool pool = new WebDriverPool(launcher, ENABLED, 2, 0, DISABLED);
+    when(driver.getWindowHandle()).thenThrow(new WebDriverException());
+    pool.release(otherDriver);
+    pool.release(driver);
+
+    assertThat(pool.checkout()).isSameAs(otherDriver);
+    verify(driver).quit();
+  }
+
+  @Test
+  public void shouldPreWarmDriversUpToWatermark() throws InterruptedException {
+    CountDownLatch launches = new CountDownLatch(2);
+    WebDriverLauncher countingLauncher = new WebDriverLauncher(new WebDriverLaunchExecutor()) {
+      @Override
+      public WebDriver launch() {
+        launches.countDown();
+        return driver;
+      }
+    };
+
+    new WebDriverPool(countingLauncher, ENABLED, 4, 2, DISABLED);
+
+    assertThat(launches.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void shouldQuitIdleDriversOnShutdown() {
+    WebDriverPool pool = new WebDriverPool(launcher, ENABLED, 2, 0, DISABLED);
+    pool.release(driver);
+
+    pool.shutdown();
+
+    verify(driver).quit();
+  }
+}
@@ -0,0 +1,195 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.cognifide.qa.bb.proxy.stub.StubRule;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import net.lightbody.bmp.BrowserMobProxy;
+import net.lightbody.bmp.core.har.Har;
+import net.lightbody.bmp.util.HttpMessageInfo;
+
+@ExtendWith(MockitoExtension.class)
+public class ProxyControllerTest {
+
+  private static final long COMPLETION_TIMEOUT = 5;
+
+  @Mock
+  private BrowserMobProxy proxy;
+
+  @Mock
+  private ProxyEventListener listener;
+
+  private ProxyController controller;
+
+  @BeforeEach
+  public void setUp() {
+    ProxyPool pool = new ProxyPool(false, 0, 0, 1, () -> proxy);
+    controller = new ProxyController(() -> Collections.singleton(listener), pool, true,
+        Collections.emptyList(), COMPLETION_TIMEOUT);
+    controller.startProxyServer(InetAddress.getLoopbackAddress());
+  }
+
+  @Test
+  public void shouldPassEndedHarToListenersAfterRequestsInFlightComplete() {
+    Har har = new Har();
+    when(proxy.getHar()).thenReturn(har);
+    when(proxy.endHar()).thenReturn(har);
+    controller.startAnalysis();
+
+    controller.stopAnalysis();
+
+    InOrder inOrder = inOrder(proxy, listener);
+    inOrder.verify(proxy).endHar();
+    inOrder.verify(proxy).waitForQuiescence(0, COMPLETION_TIMEOUT, TimeUnit.SECONDS);
+    inOrder.verify(listener).listeningStopped(har);
+  }
+
+  @Test
+  public void shouldShareHarBetweenOverlappingAnalyses() {
+    Har har = new Har();
+    when(proxy.getHar()).thenReturn(har);
+    when(proxy.endHar()).thenReturn(har);
+    controller.startAnalysis();
+    controller.startAnalysis();
+
+    controller.stopAnalysis();
+
+    verify(proxy).newHar("page");
+    verify(proxy, never()).endHar();
+    verify(proxy, never()).disableHarCaptureTypes(anySet());
+    verify(listener, never()).listeningStopped(any());
+
+    controller.stopAnalysis();
+
+    verify(proxy).endHar();
+    verify(listener).listeningStopped(har);
+  }
+
+  @Test
+  public void shouldIgnoreStopOfAnalysisNotStarted() {
+    controller.stopAnalysis();
+
+    verify(proxy, never()).endHar();
+    verify(listener, never()).listeningStopped(any());
+  }
+
+  @Test
+  public void shouldStartNewHarAfterProxyServerIsRestarted() {
+    controller.startAnalysis();
+    controller.stopProxyServer();
+    controller.startProxyServer(InetAddress.getLoopbackAddress());
+
+    controller.startAnalysis();
+
+    verify(proxy, times(2)).newHar("page");
+  }
+
+  @Test
+  public void shouldDropStubRulesAddedByPreviousTest() throws IllegalAccessException {
+    ProxyCloser closer = new ProxyCloser();
+    FieldUtils.writeField(closer, "controller", controller, true);
+    StubRule rule = StubRule.forAnyRequest().block();
+
+    controller.getRequestStubs().add(rule);
+    closer.onWebDriverClosed(false);
+
+    assertThat(isStubbed()).isFalse();
+
+    controller.getRequestStubs().add(rule);
+    closer.onWebDriverClosed(true);
+
+    assertThat(isStubbed()).isFalse();
+  }
+
+  @Test
+  public void shouldNotWaitForRequestsWithoutCompletionTimeout() {
+    BrowserMobProxy otherProxy = mock(BrowserMobProxy.class);
+    when(otherProxy.getHar()).thenReturn(new Har());
+    ProxyController notWaiting = new ProxyController(() -> Collections.singleton(listener),
+        new ProxyPool(false, 0, 0, 1, () -> otherProxy), true);
+    notWaiting.startProxyServer(InetAddress.getLoopbackAddress());
+    notWaiting.startAnalysis();
+
+    notWaiting.stopAnalysis();
+
+    verify(otherProxy).endHar();
+    verify(otherProxy, never()).waitForQuiescence(anyLong(), anyLong(), any());
+  }
+
+  @Test
+  public void shouldNotBlockControllerWhileWaitingForRequestsInFlight()
+      throws InterruptedException {
+    Har har = new Har();
+    CountDownLatch waiting = new CountDownLatch(1);
+    CountDownLatch quiet = new CountDownLatch(1);
+    when(proxy.getHar()).thenReturn(har);
+    when(proxy.endHar()).thenReturn(har);
+    when(proxy.waitForQuiescence(0, COMPLETION_TIMEOUT, TimeUnit.SECONDS))
+        .thenAnswer(invocation -> {
+          waiting.countDown();
+          return quiet.await(10, TimeUnit.SECONDS);
+        });
+    controller.startAnalysis();
+    Thread stopping = new Thread(controller::stopAnalysis);
+    stopping.start();
+    assertThat(waiting.await(10, TimeUnit.SECONDS)).isTrue();
+
+    controller.startAnalysis();
+
+    verify(proxy, times(2)).newHar("page");
+    quiet.countDown();
+    stopping.join();
+  }
+
+  private boolean isStubbed() {
+    String url = "https://www.example.com/";
+    HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, url);
+    return controller.getRequestStubs()
+        .filterRequest(request, null, new HttpMessageInfo(request, null, true, url, url)) != null;
+  }
+}
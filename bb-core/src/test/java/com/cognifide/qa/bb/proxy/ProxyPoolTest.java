@@ -0,0 +1,227 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.cognifide.qa.bb.proxy.cache.ResponseCache;
+
+import io.netty.handler.codec.http.HttpRequest;
+import net.lightbody.bmp.BrowserMobProxy;
+import net.lightbody.bmp.core.har.Har;
+import net.lightbody.bmp.filters.RequestFilter;
+import net.lightbody.bmp.filters.ResponseFilter;
+
+@ExtendWith(MockitoExtension.class)
+public class ProxyPoolTest {
+
+  private static final boolean ENABLED = true;
+
+  private static final boolean DISABLED = false;
+
+  private final List<BrowserMobProxy> createdProxies = new ArrayList<>();
+
+  @Mock
+  private RequestFilter filter;
+
+  @Mock
+  private RequestFilter otherFilter;
+
+  @Test
+  public void shouldReuseReleasedProxyWhenPoolIsEnabled() {
+    ProxyPool pool = pool(ENABLED, 9000, 0);
+    PooledProxy first = pool.acquire(address(), filter);
+    when(first.getProxy().getHar()).thenReturn(new Har());
+    pool.release(first);
+
+    PooledProxy second = pool.acquire(address(), otherFilter);
+
+    assertThat(second).isSameAs(first);
+    assertThat(createdProxies).hasSize(1);
+    verify(first.getProxy()).endHar();
+    verify(first.getProxy(), never()).stop();
+  }
+
+  @Test
+  public void shouldResetSettingsOfReleasedProxy() {
+    ProxyPool pool = pool(ENABLED, 9000, 0);
+    PooledProxy proxy = pool.acquire(address(), filter);
+    proxy.getLease().setReadBandwidthLimit(1024);
+    proxy.getLease().setChainedProxy(new InetSocketAddress(8080));
+
+    pool.release(proxy);
+
+    verify(proxy.getProxy()).setReadBandwidthLimit(0);
+    verify(proxy.getProxy()).setWriteBandwidthLimit(0);
+    verify(proxy.getProxy()).setChainedProxy(null);
+    assertThat(pool.acquire(address(), filter)).isSameAs(proxy);
+  }
+
+  @Test
+  public void shouldStopReleasedProxyWhenFilterHasBeenAddedThroughLease() {
+    ProxyPool pool = pool(ENABLED, 9000, 0);
+    PooledProxy first = pool.acquire(address(), filter);
+    first.getLease().addResponseFilter(mock(ResponseFilter.class));
+
+    pool.release(first);
+    PooledProxy second = pool.acquire(address(), filter);
+
+    verify(first.getProxy()).stop();
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.getAllocatedPort()).isEqualTo(9000);
+  }
+
+  @Test
+  public void shouldReuseReleasedProxyWithoutHar() {
+    ProxyPool pool = pool(ENABLED, 9000, 0);
+    PooledProxy first = pool.acquire(address(), filter);
+    pool.release(first);
+
+    assertThat(pool.acquire(address(), filter)).isSameAs(first);
+    verify(first.getProxy(), never()).endHar();
+    verify(first.getProxy(), never()).stop();
+  }
+
+  @Test
+  public void shouldPassRequestsToAttachedFilterOnly() {
+    ProxyPool pool = pool(ENABLED, 9000, 0);
+    PooledProxy proxy = pool.acquire(address(), filter);
+    pool.release(proxy);
+    pool.acquire(address(), otherFilter);
+    HttpRequest request = mock(HttpRequest.class);
+
+    proxy.filterRequest(request, null, null);
+
+    verify(otherFilter).filterRequest(request, null, null);
+    verify(filter, never()).filterRequest(any(), any(), any());
+  }
+
+  @Test
+  public void shouldStopReleasedProxyAndReusePortWhenPoolIsDisabled() {
+    ProxyPool pool = pool(DISABLED, 9000, 0);
+    PooledProxy first = pool.acquire(address(), filter);
+    PooledProxy second = pool.acquire(address(), filter);
+    pool.release(first);
+
+    PooledProxy third = pool.acquire(address(), filter);
+
+    verify(first.getProxy()).stop();
+    assertThat(second.getAllocatedPort()).isEqualTo(9001);
+    assertThat(third.getAllocatedPort()).isEqualTo(9000);
+  }
+
+  @Test
+  public void shouldTryNextPortWhenProxyCannotBeStarted() {
+    ProxyPool pool = new ProxyPool(DISABLED, 9000, 0, 1, () -> {
+      BrowserMobProxy proxy = mock(BrowserMobProxy.class);
+      if (createdProxies.isEmpty()) {
+        doThrow(new RuntimeException("Address already in use")).when(proxy)
+            .start(eq(9000), any(InetAddress.class));
+      }
+      createdProxies.add(proxy);
+      return proxy;
+    });
+
+    assertThat(pool.acquire(address(), filter).getAllocatedPort()).isEqualTo(9001);
+  }
+
+  @Test
+  public void shouldLetSystemChoosePortWhenStartPortIsZero() {
+    ProxyPool pool = pool(DISABLED, 0, 0);
+
+    PooledProxy proxy = pool.acquire(address(), filter);
+
+    verify(proxy.getProxy()).start(0, address());
+  }
+
+  @Test
+  public void shouldFailWhenNoProxyIsReleasedWithinTimeout() {
+    ProxyPool pool = new ProxyPool(ENABLED, 9000, 1, 0, this::createProxy);
+    pool.acquire(address(), filter);
+
+    assertThatThrownBy(() -> pool.acquire(address(), filter))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(pool.getStartedProxies()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldStopIdleProxiesOnShutdown() {
+    ProxyPool pool = pool(ENABLED, 9000, 0);
+    PooledProxy proxy = pool.acquire(address(), filter);
+    pool.release(proxy);
+
+    pool.shutdown();
+
+    verify(proxy.getProxy()).stop();
+    assertThat(pool.getStartedProxies()).isZero();
+  }
+
+  @Test
+  public void shouldAddResponseCacheFiltersToStartedProxiesWhenCacheIsEnabled() {
+    ResponseCache cache = new ResponseCache(true, 1024, "", 0);
+    ProxyPool pool = new ProxyPool(DISABLED, 9000, 0, 1, cache, this::createProxy);
+
+    PooledProxy proxy = pool.acquire(address(), filter);
+
+    verify(proxy.getProxy()).addLastHttpFilterFactory(cache.getFiltersSource());
+  }
+
+  @Test
+  public void shouldNotAddResponseCacheFiltersWhenCacheIsDisabled() {
+    ResponseCache cache = new ResponseCache(false, 1024, "", 0);
+    ProxyPool pool = new ProxyPool(DISABLED, 9000, 0, 1, cache, this::createProxy);
+
+    PooledProxy proxy = pool.acquire(address(), filter);
+
+    verify(proxy.getProxy(), never()).addLastHttpFilterFactory(any());
+  }
+
+  private ProxyPool pool(boolean enabled, int startPort, int maxSize) {
+    return new ProxyPool(enabled, startPort, maxSize, 1, this::createProxy);
+  }
+
+  private BrowserMobProxy createProxy() {
+    BrowserMobProxy proxy = mock(BrowserMobProxy.class);
+    createdProxies.add(proxy);
+    return proxy;
+  }
+
+  private static InetAddress address() {
+    return InetAddress.getLoopbackAddress();
+  }
+}
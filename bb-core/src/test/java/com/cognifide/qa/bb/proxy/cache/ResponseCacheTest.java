@@ -0,0 +1,232 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+public class ResponseCacheTest {
+
+  private static final String URL = "https://author.example.com/etc.clientlibs/site.min.js";
+
+  private static final String OTHER_URL = "https://author.example.com/etc.clientlibs/site.min.css";
+
+  private static final int KILOBYTE = 1024;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void shouldAnswerWithStoredResponse() {
+    ResponseCache cache = memoryCache(100 * KILOBYTE);
+    HttpResponse response = response("public, max-age=600");
+    response.headers().set("Content-Type", "application/javascript");
+    response.headers().set("Transfer-Encoding", "chunked");
+
+    assertThat(cache.lookup(request(), URL)).isNull();
+    cache.store(request(), URL, response, body("alert(1);"));
+    FullHttpResponse cached = cache.lookup(request(), URL);
+
+    assertThat(cached.getStatus().code()).isEqualTo(200);
+    assertThat(cached.headers().get("Content-Type")).isEqualTo("application/javascript");
+    assertThat(cached.headers().get("Content-Length")).isEqualTo("9");
+    assertThat(cached.headers().get("X-Bobcat-Cache")).isEqualTo("HIT");
+    assertThat(cached.headers().contains("Transfer-Encoding")).isFalse();
+    assertThat(cached.content().toString(StandardCharsets.UTF_8)).isEqualTo("alert(1);");
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "200, no-store, ''",
+      "200, 'private, max-age=600', ''",
+      "200, 'no-cache, max-age=600', ''",
+      "200, '', ''",
+      "200, max-age=0, ''",
+      "200, max-age=600, Set-Cookie",
+      "200, max-age=600, Vary",
+      "404, max-age=600, ''"
+  })
+  public void shouldNotStoreResponsesThatCannotBeShared(int status, String cacheControl,
+      String header) {
+    ResponseCache cache = memoryCache(100 * KILOBYTE);
+    HttpResponse response = response(cacheControl);
+    response.setStatus(HttpResponseStatus.valueOf(status));
+    if (!header.isEmpty()) {
+      response.headers().set(header, "Vary".equals(header) ? "*" : "id=1");
+    }
+
+    cache.store(request(), URL, response, body("body"));
+
+    assertThat(cache.lookup(request(), URL)).isNull();
+  }
+
+  @Test
+  public void shouldNotStoreAuthorizedResponsesUnlessPublic() {
+    ResponseCache cache = memoryCache(100 * KILOBYTE);
+    HttpRequest request = request();
+    request.headers().set("Authorization", "Basic YWRtaW46YWRtaW4=");
+
+    cache.store(request, URL, response("max-age=600"), body("private"));
+    cache.store(request, OTHER_URL, response("public, max-age=600"), body("public"));
+
+    assertThat(cache.lookup(request, URL)).isNull();
+    assertThat(cache.lookup(request, OTHER_URL)).isNotNull();
+  }
+
+  @Test
+  public void shouldBypassCacheForReloadRequests() {
+    ResponseCache cache = memoryCache(100 * KILOBYTE);
+    HttpRequest reload = request();
+    reload.headers().set("Cache-Control", "no-cache");
+
+    cache.store(reload, URL, response("max-age=600"), body("body"));
+
+    assertThat(cache.lookup(reload, URL)).isNull();
+    assertThat(cache.lookup(request(), URL)).isNotNull();
+  }
+
+  @Test
+  public void shouldKeepResponseForEachValueOfVaryHeaders() {
+    ResponseCache cache = memoryCache(100 * KILOBYTE);
+    HttpRequest gzip = request();
+    gzip.headers().set("Accept-Encoding", "gzip");
+    HttpResponse gzipped = response("max-age=600");
+    gzipped.headers().set("Content-Encoding", "gzip");
+    HttpRequest english = request();
+    english.headers().set("Accept-Language", "en");
+    HttpResponse localized = response("max-age=600");
+    localized.headers().set("Vary", "Accept-Language");
+
+    cache.store(gzip, URL, gzipped, body("gzipped"));
+    cache.store(english, OTHER_URL, localized, body("english"));
+
+    assertThat(body(cache.lookup(gzip, URL))).isEqualTo("gzipped");
+    assertThat(cache.lookup(request(), URL)).isNull();
+    assertThat(body(cache.lookup(english, OTHER_URL))).isEqualTo("english");
+    HttpRequest german = request();
+    german.headers().set("Accept-Language", "de");
+    assertThat(cache.lookup(german, OTHER_URL)).isNull();
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedResponses() {
+    ResponseCache cache = memoryCache(10 * KILOBYTE);
+    for (int i = 0; i < 4; i++) {
+      cache.store(request(), URL + i, response("max-age=600"), new byte[2 * KILOBYTE]);
+    }
+    cache.lookup(request(), URL + 0);
+
+    cache.store(request(), URL + 4, response("max-age=600"), new byte[2 * KILOBYTE]);
+
+    assertThat(cache.lookup(request(), URL + 0)).isNotNull();
+    assertThat(cache.lookup(request(), URL + 1)).isNull();
+    assertThat(cache.lookup(request(), URL + 4)).isNotNull();
+  }
+
+  @Test
+  public void shouldMoveEvictedResponsesToDisk() {
+    ResponseCache cache = new ResponseCache(true, 10 * KILOBYTE, directory, 100 * KILOBYTE);
+    for (int i = 0; i < 5; i++) {
+      cache.store(request(), URL + i, response("max-age=600"), body("response " + i));
+    }
+    cache.store(request(), OTHER_URL, response("max-age=600"), new byte[20 * KILOBYTE]);
+
+    FullHttpResponse evicted = cache.lookup(request(), URL + 0);
+    FullHttpResponse large = cache.lookup(request(), OTHER_URL);
+
+    assertThat(body(evicted)).isEqualTo("response 0");
+    assertThat(evicted.headers().get("Cache-Control")).isEqualTo("max-age=600");
+    assertThat(large.content().readableBytes()).isEqualTo(20 * KILOBYTE);
+  }
+
+  @Test
+  public void shouldRemoveFilesOfPreviousRunsOnStart() throws IOException {
+    Files.write(directory.resolve("previous.cache"), body("body"));
+
+    new ResponseCache(true, 0, directory, 100 * KILOBYTE);
+
+    assertThat(Files.list(directory)).isEmpty();
+  }
+
+  @Test
+  public void shouldKeepFilesOfOtherCachesOfTheSameRun() throws IOException {
+    ResponseCache cache = new ResponseCache(true, 0, directory, 100 * KILOBYTE);
+    cache.store(request(), URL, response("max-age=600"), body("body"));
+
+    new ResponseCache(true, 0, directory, 100 * KILOBYTE);
+
+    assertThat(body(cache.lookup(request(), URL))).isEqualTo("body");
+  }
+
+  @Test
+  public void shouldRemoveFilesWhenDisposed() throws IOException {
+    ResponseCache cache = new ResponseCache(true, 0, directory, 100 * KILOBYTE);
+    cache.store(request(), URL, response("max-age=600"), body("body"));
+
+    cache.dispose();
+
+    assertThat(cache.lookup(request(), URL)).isNull();
+    assertThat(Files.list(directory)).isEmpty();
+  }
+
+  private static ResponseCache memoryCache(long maxBytes) {
+    return new ResponseCache(true, maxBytes, (Path) null, 0);
+  }
+
+  private static HttpRequest request() {
+    return new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, URL);
+  }
+
+  private static HttpResponse response(String cacheControl) {
+    HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+    if (!cacheControl.isEmpty()) {
+      response.headers().set("Cache-Control", cacheControl);
+    }
+    return response;
+  }
+
+  private static byte[] body(String body) {
+    return body.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String body(FullHttpResponse response) {
+    return response.content().toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,147 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+import net.lightbody.bmp.util.HttpMessageInfo;
+
+public class RequestStubsTest {
+
+  private static final String USERS_URL = "https://api.example.com/users?page=1";
+
+  @Test
+  public void shouldRespondWithCannedResponseToMatchingRequest() {
+    RequestStubs stubs = new RequestStubs(Collections.singletonList(
+        StubRule.forUrl("https://api\\.example\\.com/users.*").method("GET")
+            .header("Accept", "application/json.*")
+            .respond(201, "application/json", "{}")));
+
+    HttpResponse response = filter(stubs, request(HttpMethod.GET, "application/json"), USERS_URL);
+
+    assertThat(response.getStatus().code()).isEqualTo(201);
+    assertThat(response.headers().get("Content-Type")).isEqualTo("application/json");
+    assertThat(body(response)).isEqualTo("{}");
+    assertThat(filter(stubs, request(HttpMethod.POST, "application/json"), USERS_URL)).isNull();
+    assertThat(filter(stubs, request(HttpMethod.GET, "text/html"), USERS_URL)).isNull();
+    assertThat(filter(stubs, request(HttpMethod.GET, "application/json"),
+        "https://api.example.com/groups")).isNull();
+  }
+
+  @Test
+  public void shouldBlockHostAndItsSubdomains() {
+    RequestStubs stubs = new RequestStubs(Collections.emptyList())
+        .add(StubRule.forHost("tracker.example.com").block());
+
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), "https://tracker.example.com/t.js")
+        .getStatus().code()).isEqualTo(204);
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), "https://eu.tracker.example.com/t")
+        .getStatus().code()).isEqualTo(204);
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), "https://mytracker.example.com/t"))
+        .isNull();
+  }
+
+  @Test
+  public void shouldBringBackInitialRulesOnReset() {
+    RequestStubs stubs = new RequestStubs(Collections.singletonList(
+        StubRule.forHost("tracker.example.com").block()));
+    stubs.add(StubRule.forHost("api.example.com").block(503));
+    stubs.clear();
+
+    stubs.reset();
+
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), "https://tracker.example.com/t.js")
+        .getStatus().code()).isEqualTo(204);
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), USERS_URL)).isNull();
+  }
+
+  @Test
+  public void shouldGivePrecedenceToRulesAddedLater() {
+    StubRule override = StubRule.forHost("api.example.com").block(503);
+    RequestStubs stubs = new RequestStubs(Collections.singletonList(
+        StubRule.forAnyRequest().block()));
+
+    stubs.add(override);
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), USERS_URL).getStatus().code())
+        .isEqualTo(503);
+
+    stubs.remove(override);
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), USERS_URL).getStatus().code())
+        .isEqualTo(204);
+  }
+
+  @Test
+  public void shouldLetDelayedRequestsThrough() {
+    RequestStubs stubs = new RequestStubs(Collections.singletonList(
+        StubRule.forAnyRequest().withDelay(50, TimeUnit.MILLISECONDS)
+            .passThrough()));
+
+    long started = System.nanoTime();
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), USERS_URL)).isNull();
+    assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(50_000_000L);
+  }
+
+  @Test
+  public void shouldReadRulesFromYamlFile() {
+    RequestStubs stubs = new RequestStubs(new StubRules("stubs/stubs.yaml").get());
+
+    HttpResponse response = filter(stubs, request(HttpMethod.GET, "application/json"), USERS_URL);
+    assertThat(response.getStatus().code()).isEqualTo(200);
+    assertThat(body(response)).isEqualTo("{\"users\": []}");
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), "http://tracker.example.com/")
+        .getStatus().code()).isEqualTo(204);
+    assertThat(filter(stubs, request(HttpMethod.GET, "*/*"), "http://example.com/font.woff2"))
+        .isNull();
+  }
+
+  @Test
+  public void shouldHaveNoRulesWhenNotConfigured() {
+    assertThat(new StubRules("").get()).isEmpty();
+    assertThatThrownBy(() -> new StubRules("stubs/missing.yaml").get())
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static HttpResponse filter(RequestStubs stubs, HttpRequest request, String url) {
+    return stubs.filterRequest(request, null, new HttpMessageInfo(request, null, true, url, url));
+  }
+
+  private static HttpRequest request(HttpMethod method, String accept) {
+    HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, "/");
+    request.headers().set("Accept", accept);
+    return request;
+  }
+
+  private static String body(HttpResponse response) {
+    return ((FullHttpResponse) response).content().toString(StandardCharsets.UTF_8);
+  }
+}
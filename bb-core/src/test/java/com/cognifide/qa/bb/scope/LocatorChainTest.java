@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+@ExtendWith(MockitoExtension.class)
+class LocatorChainTest {
+
+  @Mock(extraInterfaces = JavascriptExecutor.class)
+  private WebDriver webDriver;
+
+  @Mock
+  private WebElement root;
+
+  @Mock
+  private WebElement element;
+
+  @Test
+  void shouldResolveWholeChainWithSingleScript() {
+    LocatorChain chain = LocatorChain.of(webDriver, By.cssSelector(".parent")).get()
+        .append(By.xpath(".//li")).get()
+        .append(By.tagName("a")).get();
+    when(executor().executeScript(anyString(), isNull(), eq(Arrays.asList(
+        Arrays.asList("css", ".parent"), Arrays.asList("xpath", ".//li"), Arrays.asList("css", "a"))),
+        eq(false))).thenReturn(element);
+
+    assertThat(chain.findElement(executor())).isSameAs(element);
+  }
+
+  @Test
+  void shouldPassRootElementToScript() {
+    LocatorChain chain = LocatorChain.of(root, By.cssSelector(".child")).get();
+    when(executor().executeScript(anyString(), eq(root), eq(
+        Arrays.asList(Arrays.asList("css", ".child"))), eq(true)))
+        .thenReturn(Arrays.asList(element, element));
+
+    List<WebElement> elements = chain.findElements(executor());
+
+    assertThat(elements).containsExactly(element, element);
+  }
+
+  @Test
+  void shouldNotChainUnsupportedSelectors() {
+    assertThat(LocatorChain.of(webDriver, By.id("id"))).isEmpty();
+    assertThat(LocatorChain.of(webDriver, By.cssSelector(".parent")).get()
+        .append(By.linkText("link"))).isEmpty();
+  }
+
+  @Test
+  void shouldNotChainFromUnsupportedSearchContext() {
+    SearchContext searchContext = mock(SearchContext.class);
+
+    assertThat(LocatorChain.of(searchContext, By.cssSelector(".parent"))).isEmpty();
+  }
+
+  @Test
+  void shouldReturnNothingWhenScriptFails() {
+    LocatorChain chain = LocatorChain.of(webDriver, By.cssSelector(".parent")).get();
+    when(executor().executeScript(anyString(), isNull(), eq(
+        Arrays.asList(Arrays.asList("css", ".parent"))), eq(false)))
+        .thenThrow(new WebDriverException());
+
+    assertThat(chain.findElement(executor())).isNull();
+    verify(executor()).executeScript(anyString(), isNull(), eq(
+        Arrays.asList(Arrays.asList("css", ".parent"))), eq(false));
+  }
+
+  private JavascriptExecutor executor() {
+    return (JavascriptExecutor) webDriver;
+  }
+}
@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+@ExtendWith(MockitoExtension.class)
+class CachingElementLocatorTest {
+
+  @Mock
+  private ElementLocator delegate;
+
+  @Mock
+  private WebElement first;
+
+  @Mock
+  private WebElement second;
+
+  private ElementCache cache;
+
+  private CachingElementLocator tested;
+
+  @BeforeEach
+  void setUp() {
+    cache = new ElementCache();
+    tested = new CachingElementLocator(delegate, cache);
+  }
+
+  @Test
+  void shouldLookUpElementOnlyOnce() {
+    when(delegate.findElement()).thenReturn(first);
+
+    assertThat(tested.findElement()).isSameAs(first);
+    assertThat(tested.findElement()).isSameAs(first);
+    verify(delegate, times(1)).findElement();
+  }
+
+  @Test
+  void shouldLookUpElementAgainWhenCacheIsInvalidated() {
+    when(delegate.findElement()).thenReturn(first, second);
+
+    tested.findElement();
+    cache.invalidate();
+
+    assertThat(tested.findElement()).isSameAs(second);
+  }
+
+  @Test
+  void shouldLookUpElementAgainWhenLocatorIsInvalidated() {
+    when(delegate.findElement()).thenReturn(first, second);
+
+    tested.findElement();
+    tested.invalidate();
+
+    assertThat(tested.findElement()).isSameAs(second);
+  }
+}
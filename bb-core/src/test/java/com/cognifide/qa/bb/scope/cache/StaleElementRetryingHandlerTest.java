@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Proxy;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriver.TargetLocator;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+import com.cognifide.qa.bb.frame.FrameSwitcher;
+import com.cognifide.qa.bb.metrics.Metrics;
+import com.cognifide.qa.bb.scope.frame.FramePath;
+import com.google.inject.Provider;
+
+@ExtendWith(MockitoExtension.class)
+class StaleElementRetryingHandlerTest {
+
+  @Mock
+  private ElementLocator delegate;
+
+  @Mock
+  private WebElement stale;
+
+  @Mock
+  private WebElement fresh;
+
+  @Mock
+  private Provider<WebDriver> webDriverProvider;
+
+  @Mock
+  private WebDriver webDriver;
+
+  @Mock
+  private TargetLocator targetLocator;
+
+  private final FrameSwitcher frameSwitcher = new FrameSwitcher();
+
+  private WebElement tested;
+
+  @BeforeEach
+  void setUp() throws IllegalAccessException {
+    FieldUtils.writeField(frameSwitcher, "provider", webDriverProvider, true);
+    FieldUtils.writeField(frameSwitcher, "metrics", mock(Metrics.class), true);
+    CachingElementLocator locator = new CachingElementLocator(delegate, new ElementCache());
+    tested = (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class[] {WebElement.class, WrapsElement.class},
+        new StaleElementRetryingHandler(locator, frameSwitcher));
+  }
+
+  @Test
+  void shouldSwitchToPendingFrameBeforeUsingCachedElementWithLazySwitching()
+      throws IllegalAccessException {
+    FieldUtils.writeField(frameSwitcher, "lazySwitching", true, true);
+    when(webDriverProvider.get()).thenReturn(webDriver);
+    when(webDriver.switchTo()).thenReturn(targetLocator);
+    when(delegate.findElement()).thenReturn(fresh);
+    tested.isDisplayed();
+    frameSwitcher.switchTo(FramePath.parsePath("$1"));
+
+    tested.getAttribute("value");
+
+    InOrder inOrder = inOrder(targetLocator, fresh);
+    inOrder.verify(targetLocator).frame(1);
+    inOrder.verify(fresh).getAttribute("value");
+    verify(delegate).findElement();
+  }
+
+  @Test
+  void shouldLocateElementAgainWhenItIsStale() {
+    when(delegate.findElement()).thenReturn(stale, fresh);
+    when(stale.getText()).thenThrow(new StaleElementReferenceException("stale"));
+    when(fresh.getText()).thenReturn("text");
+
+    assertThat(tested.getText()).isEqualTo("text");
+    assertThat(((WrapsElement) tested).getWrappedElement()).isSameAs(fresh);
+  }
+
+  @Test
+  void shouldRethrowWhenElementIsStaleAgain() {
+    when(delegate.findElement()).thenReturn(stale);
+    when(stale.getText()).thenThrow(new StaleElementReferenceException("stale"));
+
+    assertThatThrownBy(tested::getText).isInstanceOf(StaleElementReferenceException.class);
+  }
+
+  @Test
+  void shouldDescribeMissingElement() {
+    when(delegate.findElement()).thenThrow(new NoSuchElementException("missing"));
+
+    assertThat(tested.toString()).startsWith("Proxy element for: ");
+  }
+}
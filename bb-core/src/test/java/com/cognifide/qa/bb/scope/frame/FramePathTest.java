@@ -29,10 +29,12 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.cognifide.qa.bb.qualifier.Frame;
 import com.cognifide.qa.bb.scope.frame.type.AemContentFrame;
 import com.cognifide.qa.bb.scope.frame.type.DefaultFrame;
 import com.cognifide.qa.bb.scope.frame.type.IndexedFrame;
 import com.cognifide.qa.bb.scope.frame.type.NamedFrame;
+import com.cognifide.qa.bb.scope.frame.type.ParentFrame;
 
 public class FramePathTest {
 
@@ -171,4 +173,77 @@ public class FramePathTest {
     assertThat(result).contains(new NamedFrame(secondFrameName));
     assertThat(result).contains(new NamedFrame(firstFrameName));
   }
+
+  @Test
+  public void shouldRouteToParentFrameWhenClimbingOneLevel() {
+    // given
+    FramePath cut = FramePath.parsePath("/first/second");
+
+    // when
+    List<FrameDescriptor> result = cut.route(FramePath.parsePath("/first/third"));
+
+    // then
+    assertThat(result).containsExactly(ParentFrame.INSTANCE, new NamedFrame("third"));
+  }
+
+  @Test
+  public void shouldRouteFromTheTopFrameWhenItIsShorter() {
+    // given
+    FramePath cut = FramePath.parsePath("/first/second");
+
+    // when
+    List<FrameDescriptor> result = cut.route(FramePath.parsePath("/third"));
+
+    // then
+    assertThat(result).containsExactly(DefaultFrame.INSTANCE, new NamedFrame("third"));
+  }
+
+  @Test
+  public void shouldHaveAnEmptyRouteToTheSameFrame() {
+    // given
+    FramePath cut = FramePath.parsePath("/first/second");
+
+    // then
+    assertThat(cut.route(FramePath.parsePath("first/second"))).isEmpty();
+  }
+
+  @Test
+  public void shouldInternParsedPaths() {
+    // when
+    FramePath parsed = FramePath.parsePath("/first/$1");
+    FramePath appended = FramePath.root().append(new NamedFrame("first")).append(new IndexedFrame(1));
+
+    // then
+    assertThat(parsed).isSameAs(FramePath.parsePath("first/$1")).isSameAs(appended);
+    assertThat(parsed.getParent()).isSameAs(FramePath.parsePath("first"));
+    assertThat(parsed.getParent().getParent()).isSameAs(FramePath.root());
+  }
+
+  @Test
+  public void shouldTreatConstructedPathsAsParsedOnes() {
+    // given
+    FramePath constructed =
+        new FramePath(new FramePath(), new NamedFrame("first"), new NamedFrame("second"));
+    FramePath parsed = FramePath.parsePath("first/second");
+
+    // then
+    assertThat(constructed).isEqualTo(parsed).hasSameHashCodeAs(parsed);
+    assertThat(constructed.toString()).isEqualTo(parsed.toString());
+    assertThat(constructed.addFrame(frame("../third"))).isSameAs(FramePath.parsePath("first/third"));
+    assertThat(FramePath.parsePath("first").diff(constructed)).containsExactly(new NamedFrame("second"));
+  }
+
+  private static Frame frame(String value) {
+    return new Frame() {
+      @Override
+      public String value() {
+        return value;
+      }
+
+      @Override
+      public Class<? extends java.lang.annotation.Annotation> annotationType() {
+        return Frame.class;
+      }
+    };
+  }
 }
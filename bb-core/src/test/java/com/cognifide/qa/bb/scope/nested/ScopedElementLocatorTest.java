@@ -0,0 +1,113 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.scope.nested;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+import com.cognifide.qa.bb.scope.BobcatDefaultElementLocatorFactory;
+
+@ExtendWith(MockitoExtension.class)
+class ScopedElementLocatorTest {
+
+  @Mock(extraInterfaces = JavascriptExecutor.class)
+  private WebDriver webDriver;
+
+  @Mock
+  private WebElement parent;
+
+  @Mock
+  private WebElement child;
+
+  private ElementLocator locator;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException {
+    BobcatDefaultElementLocatorFactory rootFactory =
+        new BobcatDefaultElementLocatorFactory(webDriver, null);
+    ScopedElementLocatorFactory factory = new ScopedElementLocatorFactory(webDriver, rootFactory,
+        Page.class.getDeclaredField("component"), null, true);
+    locator = factory.createLocator(Component.class.getDeclaredField("link"));
+  }
+
+  @Test
+  void shouldFindNestedElementWithSingleScript() {
+    when(((JavascriptExecutor) webDriver).executeScript(anyString(), isNull(), eq(Arrays.asList(
+        Arrays.asList("css", ".component"), Arrays.asList("xpath", ".//a"))), eq(false)))
+        .thenReturn(child);
+
+    assertThat(locator.findElement()).isSameAs(child);
+    verify(webDriver, never()).findElement(By.cssSelector(".component"));
+  }
+
+  @Test
+  void shouldFindNestedElementStepByStepWhenScriptFindsNothing() {
+    when(webDriver.findElement(By.cssSelector(".component"))).thenReturn(parent);
+    when(parent.findElement(By.xpath(".//a"))).thenReturn(child);
+
+    assertThat(locator.findElement()).isSameAs(child);
+  }
+
+  @Test
+  void shouldNotUseScriptWhenChainedLookupsAreDisabled() throws NoSuchFieldException {
+    ElementLocator plainLocator = new ScopedElementLocatorFactory(webDriver,
+        new BobcatDefaultElementLocatorFactory(webDriver, null),
+        Page.class.getDeclaredField("component"), null)
+        .createLocator(Component.class.getDeclaredField("link"));
+    when(webDriver.findElement(By.cssSelector(".component"))).thenReturn(parent);
+    when(parent.findElement(By.xpath(".//a"))).thenReturn(child);
+
+    assertThat(plainLocator.findElement()).isSameAs(child);
+    verify(webDriver).findElement(By.cssSelector(".component"));
+    verifyNoMoreInteractions(webDriver);
+  }
+
+  static class Page {
+
+    @FindBy(css = ".component")
+    private Component component;
+  }
+
+  static class Component {
+
+    @FindBy(xpath = ".//a")
+    private WebElement link;
+  }
+}
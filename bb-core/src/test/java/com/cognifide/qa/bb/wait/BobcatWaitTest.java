@@ -24,17 +24,21 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 
+import com.cognifide.qa.bb.metrics.Metrics;
 import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverProvider;
 
 @ExtendWith(MockitoExtension.class)
@@ -55,6 +59,12 @@ public class BobcatWaitTest {
   @Mock
   private ExpectedCondition<Boolean> condition;
 
+  @Mock
+  private Metrics metrics;
+
+  @Spy
+  private ImplicitTimeouts implicitTimeouts = new ImplicitTimeouts();
+
   @InjectMocks
   private BobcatWait tested;
 
@@ -79,6 +89,18 @@ public class BobcatWaitTest {
     inOrder.verify(spied).restoreImplicitTimeout();
   }
 
+  @Test
+  public void implicitTimeoutShouldBeSentOnlyWhenChanged() {
+    when(condition.apply(any())).thenReturn(true);
+
+    tested.until(condition);
+    tested.until(condition);
+
+    // near-zero and default implicit timeouts are both 1 second
+    verify(timeouts).implicitlyWait(Timings.NEAR_ZERO, TimeUnit.SECONDS);
+    verifyNoMoreInteractions(timeouts);
+  }
+
   @Test
   public void isConditionMetShouldCatchTimeoutExceptionAndReturnBoolean() {
     when(condition.apply(any())).thenThrow(new TimeoutException());
@@ -0,0 +1,151 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.wait;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.Duration;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+public class BrowserSideConditionTest {
+
+  // minimal DOM stub: one visible element with some text and a class attribute
+  private static final String FAKE_PAGE = "var element = {"
+      + "  offsetWidth: 10, offsetHeight: 10, innerText: ' Results ',"
+      + "  getClientRects: function() { return [1]; },"
+      + "  getAttribute: function(name) { return name === 'class' ? 'item is-active' : null; }"
+      + "};"
+      + "element.ownerDocument = { documentElement: { contains: function() { return true; } } };"
+      + "var document = { querySelectorAll: function(selector) {"
+      + "  return selector === '.item' ? [element] : []; } };"
+      + "var window = { getComputedStyle: function() {"
+      + "  return { display: 'block', visibility: 'visible' }; } };"
+      + "var result;"
+      + "function callback(value) { result = value; }";
+
+  private WebDriver webDriver;
+
+  @BeforeEach
+  public void setUp() {
+    webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+  }
+
+  @Test
+  public void shouldEvaluateConditionInSingleScriptCall() {
+    when(((JavascriptExecutor) webDriver).executeAsyncScript(anyString(), any()))
+        .thenReturn(true);
+
+    boolean result = BrowserSideCondition.countAtLeast(".item", 3)
+        .withTimeout(Duration.ofSeconds(10))
+        .apply(webDriver);
+
+    ArgumentCaptor<Object> arguments = ArgumentCaptor.forClass(Object.class);
+    verify((JavascriptExecutor) webDriver).executeAsyncScript(anyString(), arguments.capture());
+    assertThat(result).isTrue();
+    assertThat(arguments.getAllValues())
+        .containsExactly(10000L, BrowserSideCondition.IN_PAGE_POLLING_INTERVAL, ".item", 3);
+  }
+
+  @Test
+  public void shouldNotBeMetWhenScriptTimesOut() {
+    when(((JavascriptExecutor) webDriver).executeAsyncScript(anyString(), any()))
+        .thenThrow(new ScriptTimeoutException());
+
+    assertThat(BrowserSideCondition.visible(".item").apply(webDriver)).isFalse();
+  }
+
+  @Test
+  public void hiddenShouldBeMetWhenElementIsMissing() {
+    WebElement element = mock(WebElement.class);
+    when(((JavascriptExecutor) webDriver).executeAsyncScript(anyString(), any()))
+        .thenThrow(new NoSuchElementException("missing"));
+
+    assertThat(BrowserSideCondition.hidden(element).apply(webDriver)).isTrue();
+    assertThat(BrowserSideCondition.visible(element).apply(webDriver)).isFalse();
+  }
+
+  @Test
+  public void scriptShouldEvaluateConditionsInPage() throws ScriptException {
+    assertThat(runInFakePage(BrowserSideCondition.visible(".item"))).isTrue();
+    assertThat(runInFakePage(BrowserSideCondition.visible(".missing"))).isFalse();
+    assertThat(runInFakePage(BrowserSideCondition.hidden(".missing"))).isTrue();
+    assertThat(runInFakePage(BrowserSideCondition.hidden(".item"))).isFalse();
+    assertThat(runInFakePage(BrowserSideCondition.attributeContains(".item", "class", "active")))
+        .isTrue();
+    assertThat(runInFakePage(BrowserSideCondition.textEquals(".item", "Results"))).isTrue();
+    assertThat(runInFakePage(BrowserSideCondition.countAtLeast(".item", 2))).isFalse();
+  }
+
+  @Test
+  public void scriptShouldGiveUpRightAwayWhenGivenElementIsDetached() throws ScriptException {
+    ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
+    assumeTrue(engine != null, "no JavaScript engine available");
+    WebDriver recordingDriver =
+        mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    ArgumentCaptor<String> script = ArgumentCaptor.forClass(String.class);
+    BrowserSideCondition.visible(mock(WebElement.class)).apply(recordingDriver);
+    verify((JavascriptExecutor) recordingDriver).executeAsyncScript(script.capture(), any());
+
+    engine.eval(FAKE_PAGE);
+    engine.eval("var detached = { ownerDocument: { documentElement: {"
+        + "  contains: function() { return false; } } } };");
+    // the fake page has no setTimeout, so polling until the deadline would fail the script
+    engine.eval("(function() {" + script.getValue() + "})(60000, 50, [detached], callback);");
+
+    assertThat(engine.get("result")).isEqualTo(false);
+  }
+
+  private Boolean runInFakePage(BrowserSideCondition condition) throws ScriptException {
+    ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
+    assumeTrue(engine != null, "no JavaScript engine available");
+    WebDriver recordingDriver =
+        mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    ArgumentCaptor<String> script = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<Object> arguments = ArgumentCaptor.forClass(Object.class);
+    // with no time left, the script decides after the first check
+    condition.withTimeout(Duration.ZERO).apply(recordingDriver);
+    verify((JavascriptExecutor) recordingDriver)
+        .executeAsyncScript(script.capture(), arguments.capture());
+
+    engine.eval(FAKE_PAGE);
+    engine.put("scriptArguments", arguments.getAllValues().toArray());
+    engine.eval("(function() {" + script.getValue() + "}).apply(null,"
+        + " Java.from(scriptArguments).concat([callback]));");
+    return (Boolean) engine.get("result");
+  }
+}
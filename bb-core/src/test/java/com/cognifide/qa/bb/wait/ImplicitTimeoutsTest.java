@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.wait;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.WebDriver;
+
+@ExtendWith(MockitoExtension.class)
+public class ImplicitTimeoutsTest {
+
+  @Mock
+  private WebDriver webDriver;
+
+  @Mock
+  private WebDriver.Options options;
+
+  @Mock
+  private WebDriver.Timeouts timeouts;
+
+  private final ImplicitTimeouts tested = new ImplicitTimeouts();
+
+  @BeforeEach
+  public void setUp() {
+    when(webDriver.manage()).thenReturn(options);
+    when(options.timeouts()).thenReturn(timeouts);
+  }
+
+  @Test
+  public void shouldSendOnlyChangedTimeouts() {
+    tested.set(webDriver, 1);
+    tested.set(webDriver, 1);
+    tested.set(webDriver, 5);
+    tested.set(webDriver, 5);
+
+    verify(timeouts).implicitlyWait(1, TimeUnit.SECONDS);
+    verify(timeouts).implicitlyWait(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void shouldSendTimeoutAgainAfterForgetting() {
+    tested.set(webDriver, 1);
+    tested.forget(webDriver);
+    tested.set(webDriver, 1);
+
+    verify(timeouts, times(2)).implicitlyWait(1, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,101 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.wait;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.Sleeper;
+
+public class PollingSleeperTest {
+
+  private static final Duration POLLING_INTERVAL = Duration.ofMillis(500);
+
+  private final List<Long> sleeps = new ArrayList<>();
+
+  private final Sleeper recorder = duration -> sleeps.add(duration.toMillis());
+
+  @Test
+  public void shouldBackOffExponentiallyUpToPollingInterval() throws InterruptedException {
+    PollingSleeper tested = new PollingSleeper(mock(WebDriver.class),
+        new TimingsBuilder().initialPollingInterval(100).build(), recorder);
+
+    for (int i = 0; i < 5; i++) {
+      tested.sleep(POLLING_INTERVAL);
+    }
+
+    assertThat(sleeps).containsExactly(100L, 200L, 400L, 500L, 500L);
+  }
+
+  @Test
+  public void shouldPollWithFixedIntervalWhenInitialIntervalIsNotSet() throws InterruptedException {
+    PollingSleeper tested = new PollingSleeper(mock(WebDriver.class),
+        new TimingsBuilder().initialPollingInterval(0).build(), recorder);
+
+    tested.sleep(POLLING_INTERVAL);
+    tested.sleep(POLLING_INTERVAL);
+
+    assertThat(sleeps).containsExactly(500L, 500L);
+  }
+
+  @Test
+  public void shouldWaitForDomMutationsInBrowser() throws InterruptedException {
+    WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    PollingSleeper tested = new PollingSleeper(webDriver, new TimingsBuilder()
+        .initialPollingInterval(100).waitForDomMutations(true).build(), recorder);
+
+    tested.sleep(POLLING_INTERVAL);
+    tested.sleep(POLLING_INTERVAL);
+
+    verify((JavascriptExecutor) webDriver).executeAsyncScript(anyString(), eq(100L));
+    verify((JavascriptExecutor) webDriver).executeAsyncScript(anyString(), eq(200L));
+    assertThat(sleeps).isEmpty();
+  }
+
+  @Test
+  public void shouldFallBackToSleepingWhenScriptFails() throws InterruptedException {
+    WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    when(((JavascriptExecutor) webDriver).executeAsyncScript(anyString(), anyLong()))
+        .thenThrow(new WebDriverException("navigation in progress"));
+    PollingSleeper tested = new PollingSleeper(webDriver, new TimingsBuilder()
+        .initialPollingInterval(100).waitForDomMutations(true).build(), recorder);
+
+    tested.sleep(POLLING_INTERVAL);
+    tested.sleep(POLLING_INTERVAL);
+
+    verify((JavascriptExecutor) webDriver, times(1)).executeAsyncScript(anyString(), anyLong());
+    assertThat(sleeps).containsExactly(100L, 200L);
+  }
+}
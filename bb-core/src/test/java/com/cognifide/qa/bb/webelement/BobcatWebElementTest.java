@@ -0,0 +1,134 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.webelement;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Locatable;
+
+import com.google.inject.Provider;
+
+@ExtendWith(MockitoExtension.class)
+class BobcatWebElementTest {
+
+  @Mock(extraInterfaces = Locatable.class)
+  private WebElement element;
+
+  @Mock(extraInterfaces = JavascriptExecutor.class)
+  private WebDriver webDriver;
+
+  @Test
+  void shouldAppendTextWithScriptWhenFastInputIsEnabled() throws IllegalAccessException {
+    BobcatWebElement tested = create(true);
+    when(executor().executeScript(anyString(), eq(element), eq("text"))).thenReturn("some text");
+
+    tested.sendKeys("text");
+
+    verify(element, never()).sendKeys("text");
+  }
+
+  @Test
+  void shouldSendKeysWhenScriptFails() throws IllegalAccessException {
+    BobcatWebElement tested = create(true);
+    when(executor().executeScript(anyString(), eq(element), eq("text")))
+        .thenThrow(new WebDriverException());
+    when(element.getAttribute("value")).thenReturn("", "text");
+
+    tested.sendKeys("text");
+
+    verify(element).sendKeys("text");
+  }
+
+  @Test
+  void shouldTypeTextOnceWhenScriptRestoredReformattedValue() throws IllegalAccessException {
+    BobcatWebElement tested = create(true);
+    when(executor().executeScript(anyString(), eq(element), eq("12"))).thenReturn(null);
+    when(element.getAttribute("value")).thenReturn("", "12");
+
+    tested.sendKeys("12");
+
+    verify(element, times(1)).sendKeys("12");
+    verify(element, never()).clear();
+  }
+
+  @Test
+  void shouldSendKeysWhenFastInputIsDisabled() throws IllegalAccessException {
+    BobcatWebElement tested = create(false);
+    when(element.getAttribute("value")).thenReturn("", "text");
+
+    tested.sendKeys("text");
+
+    verify(element).sendKeys("text");
+    verifyNoMoreInteractions(webDriver);
+  }
+
+  @Test
+  void shouldSendSpecialKeysDirectly() throws IllegalAccessException {
+    BobcatWebElement tested = create(true);
+
+    tested.sendKeys(Keys.ENTER);
+
+    verify(element).sendKeys(Keys.ENTER);
+    verifyNoMoreInteractions(webDriver);
+  }
+
+  @Test
+  void shouldCheckUploadFieldOnlyOnce() throws IllegalAccessException {
+    BobcatWebElement tested = create(true);
+    when(element.getTagName()).thenReturn("input");
+    when(element.getAttribute("type")).thenReturn("file");
+
+    tested.sendKeys("/tmp/file.txt");
+    tested.sendKeys("/tmp/file.txt");
+
+    verify(element, times(2)).sendKeys("/tmp/file.txt");
+    verify(element).getTagName();
+    verify(element).getAttribute("type");
+  }
+
+  private BobcatWebElement create(boolean fastInput) throws IllegalAccessException {
+    BobcatWebElement bobcatWebElement =
+        new BobcatWebElement(new BobcatWebElementContext(element, (Locatable) element));
+    Provider<WebDriver> webDriverProvider = () -> webDriver;
+    FieldUtils.writeField(bobcatWebElement, "webDriverProvider", webDriverProvider, true);
+    FieldUtils.writeField(bobcatWebElement, "fastInput", fastInput, true);
+    return bobcatWebElement;
+  }
+
+  private JavascriptExecutor executor() {
+    return (JavascriptExecutor) webDriver;
+  }
+}
@@ -30,12 +30,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import com.cognifide.qa.bb.junit5.allure.EnvironmentInfoExtension;
 import com.cognifide.qa.bb.junit5.allure.ScreenshotExtension;
 import com.cognifide.qa.bb.junit5.guice.GuiceExtension;
+import com.cognifide.qa.bb.junit5.metrics.MetricsExtension;
 import com.cognifide.qa.bb.junit5.selenium.WebdriverCloseExtension;
 
 @ExtendWith(GuiceExtension.class)
 @ExtendWith(ScreenshotExtension.class)
 @ExtendWith(WebdriverCloseExtension.class)
 @ExtendWith(EnvironmentInfoExtension.class)
+@ExtendWith(MetricsExtension.class)
 @Target({ElementType.TYPE, ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
 @Inherited
@@ -0,0 +1,113 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.junit5.execution;
+
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfiguration;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfigurationStrategy;
+
+/**
+ * Parallel execution strategy for Bobcat tests, which spend most of their time waiting for the
+ * browser (WebDriver calls, waits, traffic analysis) rather than using the CPU. The number of
+ * tests run at once is therefore not bound to the number of processors - it can be matched to e.g.
+ * the number of Selenium Grid sessions available.
+ * <p>
+ * To use it, set the following in {@code junit-platform.properties}:
+ * <pre>
+ * junit.jupiter.execution.parallel.enabled=true
+ * junit.jupiter.execution.parallel.mode.default=concurrent
+ * junit.jupiter.execution.parallel.config.strategy=custom
+ * junit.jupiter.execution.parallel.config.custom.class=com.cognifide.qa.bb.junit5.execution.BobcatParallelExecutionStrategy
+ * bobcat.execution.parallelism=50
+ * </pre>
+ * Thread-scoped objects are bound to the test (see
+ * {@link com.cognifide.qa.bb.junit5.guice.GuiceExtension}), so each test gets its own WebDriver
+ * regardless of the worker thread executing it.
+ */
+public class BobcatParallelExecutionStrategy implements ParallelExecutionConfigurationStrategy {
+
+  /**
+   * Number of tests run at once. Defaults to {@value #DEFAULT_FACTOR} times the number of
+   * available processors.
+   */
+  public static final String PARALLELISM = "bobcat.execution.parallelism";
+
+  /**
+   * Number of seconds after which idle worker threads above the parallelism are terminated.
+   */
+  public static final String KEEP_ALIVE_SECONDS = "bobcat.execution.keepAliveSeconds";
+
+  static final int DEFAULT_FACTOR = 4;
+
+  static final int DEFAULT_KEEP_ALIVE_SECONDS = 30;
+
+  // same headroom JUnit gives for threads compensating blocked workers
+  private static final int MAX_POOL_SIZE_OFFSET = 256;
+
+  @Override
+  public ParallelExecutionConfiguration createConfiguration(
+      ConfigurationParameters configurationParameters) {
+    int parallelism = configurationParameters.get(PARALLELISM, Integer::valueOf)
+        .orElseGet(() -> DEFAULT_FACTOR * Runtime.getRuntime().availableProcessors());
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(PARALLELISM + " must be a positive number");
+    }
+    int keepAliveSeconds = configurationParameters.get(KEEP_ALIVE_SECONDS, Integer::valueOf)
+        .orElse(DEFAULT_KEEP_ALIVE_SECONDS);
+    return new Configuration(parallelism, keepAliveSeconds);
+  }
+
+  private static final class Configuration implements ParallelExecutionConfiguration {
+
+    private final int parallelism;
+
+    private final int keepAliveSeconds;
+
+    private Configuration(int parallelism, int keepAliveSeconds) {
+      this.parallelism = parallelism;
+      this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    @Override
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    @Override
+    public int getMinimumRunnable() {
+      return parallelism;
+    }
+
+    @Override
+    public int getMaxPoolSize() {
+      return parallelism + MAX_POOL_SIZE_OFFSET;
+    }
+
+    @Override
+    public int getCorePoolSize() {
+      return parallelism;
+    }
+
+    @Override
+    public int getKeepAliveSeconds() {
+      return keepAliveSeconds;
+    }
+  }
+}
@@ -26,22 +26,35 @@ import static org.junit.platform.commons.support.AnnotationSupport.findAnnotatio
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
 
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
 import org.junit.jupiter.api.extension.TestInstancePostProcessor;
 
+import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.ScopeContext;
+import com.cognifide.qa.bb.guice.SuiteScope;
+import com.cognifide.qa.bb.guice.ThreadLocalScope;
 import com.google.common.collect.Sets;
 import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 
 /**
@@ -49,24 +62,119 @@ import com.google.inject.Module;
  * <p>
  * Based on <a href="https://github.com/JeffreyFalgout/junit5-extensions/tree/master/guice-extension">Guice Extension</a>
  * <p>
+ * Unless {@code webdriver.reusable} is enabled, each test instance gets its own thread scope
+ * context, so {@code @ThreadScoped} objects (e.g. WebDriver) live only as long as the test (or the
+ * test class with {@link Lifecycle#PER_CLASS}) and are disposed afterwards. The context follows the
+ * test, not the thread - with concurrent execution, tests of a {@link Lifecycle#PER_CLASS} class
+ * see the context of their test instance regardless of the worker thread they are run by.
+ * <p>
+ * {@code @SuiteScoped} objects (e.g. the WebDriver pool) are shared by the injectors of all test
+ * classes and disposed when the whole run is finished.
+ * <p>
  * Loaded automatically by ServiceLoader.
  */
-public class GuiceExtension implements TestInstancePostProcessor {
+public class GuiceExtension
+    implements TestInstancePostProcessor, BeforeEachCallback, AfterEachCallback, AfterAllCallback {
+
+  private static final String RESTORE_SCOPE = "restoreScopeContext";
 
   @Override
   public void postProcessTestInstance(Object testInstance, ExtensionContext context)
       throws Exception {
 
-    getOrCreateInjector(context).ifPresent(injector -> injector.injectMembers(testInstance));
+    getOrCreateInjector(context).ifPresent(injector -> {
+      enterThreadScope(testInstance, injector, context);
+      injector.injectMembers(testInstance);
+    });
+
+  }
+
+  @Override
+  public void beforeEach(ExtensionContext context) {
+    ThreadLocalScope scope = getThreadScope(context);
+    if (scope != null && isPerClass(context)) {
+      ScopeContext scopeContext = getScopeContext(context);
+      if (scopeContext != null) {
+        ScopeContext previous = scope.attach(scopeContext);
+        context.getStore(NAMESPACE).put(RESTORE_SCOPE, (Runnable) () -> scope.restore(previous));
+      }
+    }
+  }
+
+  @Override
+  public void afterEach(ExtensionContext context) {
+    Runnable restore = context.getStore(NAMESPACE).remove(RESTORE_SCOPE, Runnable.class);
+    if (restore != null) {
+      restore.run();
+      return;
+    }
+    ThreadLocalScope scope = getThreadScope(context);
+    // the current context may belong to an enclosing PER_CLASS instance, which outlives the test
+    if (scope != null && !isPerClass(context) && scope.current() != getScopeContext(context)) {
+      scope.exit();
+    }
+  }
 
+  @Override
+  public void afterAll(ExtensionContext context) {
+    ScopeContext scopeContext = getScopeContext(context);
+    if (scopeContext != null && scopeContext != getParentScopeContext(context)) {
+      scopeContext.close();
+    }
+  }
+
+  private static void enterThreadScope(Object testInstance, Injector injector,
+      ExtensionContext context) {
+    Binding<ThreadLocalScope> scopeBinding =
+        injector.getExistingBinding(Key.get(ThreadLocalScope.class));
+    if (scopeBinding == null || isWebDriverReusable(injector)) {
+      return;
+    }
+    ThreadLocalScope scope = scopeBinding.getProvider().get();
+    Store store = context.getStore(NAMESPACE);
+    store.put(ThreadLocalScope.class, scope);
+    // instances of nested test classes share the context of the enclosing instance
+    ScopeContext scopeContext =
+        isNested(testInstance) && scope.isEntered() ? scope.current() : scope.enter();
+    if (isPerClass(context) && scopeContext != getParentScopeContext(context)) {
+      store.put(ScopeContext.class, scopeContext);
+    }
+  }
+
+  private static ThreadLocalScope getThreadScope(ExtensionContext context) {
+    return context.getStore(NAMESPACE).get(ThreadLocalScope.class, ThreadLocalScope.class);
+  }
+
+  /**
+   * Returns the context owned by the closest test class with {@link Lifecycle#PER_CLASS}
+   */
+  private static ScopeContext getScopeContext(ExtensionContext context) {
+    return context.getStore(NAMESPACE).get(ScopeContext.class, ScopeContext.class);
+  }
+
+  private static ScopeContext getParentScopeContext(ExtensionContext context) {
+    return context.getParent().map(GuiceExtension::getScopeContext).orElse(null);
+  }
+
+  private static boolean isPerClass(ExtensionContext context) {
+    return context.getTestInstanceLifecycle().orElse(Lifecycle.PER_METHOD) == Lifecycle.PER_CLASS;
+  }
+
+  private static boolean isNested(Object testInstance) {
+    Class<?> testClass = testInstance.getClass();
+    return testClass.isMemberClass() && !Modifier.isStatic(testClass.getModifiers());
+  }
+
+  private static boolean isWebDriverReusable(Injector injector) {
+    Binding<Properties> properties = injector.getExistingBinding(Key.get(Properties.class));
+    return properties != null && Boolean.parseBoolean(
+        properties.getProvider().get().getProperty(ConfigKeys.WEBDRIVER_REUSABLE));
   }
 
   /**
    * Create {@link Injector} or get existing one from test context
    */
-  private static Optional<Injector> getOrCreateInjector(ExtensionContext context)
-      throws NoSuchMethodException, InstantiationException, IllegalAccessException,
-      InvocationTargetException {
+  private static Optional<Injector> getOrCreateInjector(ExtensionContext context) {
 
     Optional<AnnotatedElement> optionalAnnotatedElement = context.getElement();
     if (!optionalAnnotatedElement.isPresent()) {
@@ -76,13 +184,17 @@ public class GuiceExtension implements TestInstancePostProcessor {
     AnnotatedElement element = optionalAnnotatedElement.get();
     Store store = context.getStore(NAMESPACE);
 
-    Injector injector = store.get(element, Injector.class);
-    if (injector == null) {
-      injector = createInjector(context);
-      store.put(element, injector);
-    }
+    context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(SuiteScope.class,
+        key -> (CloseableResource) SuiteScope.getInstance()::close, CloseableResource.class);
 
-    return Optional.of(injector);
+    // tests of the same class may be post-processed concurrently, but must share the injector
+    return Optional.of(store.getOrComputeIfAbsent(element, key -> {
+      try {
+        return createInjector(context);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Could not create Guice injector", e);
+      }
+    }, Injector.class));
   }
 
   /**
@@ -102,9 +214,7 @@ public class GuiceExtension implements TestInstancePostProcessor {
   /**
    * Retrieves {@link Injector} from parent test context
    */
-  private static Optional<Injector> getParentInjector(ExtensionContext context)
-      throws NoSuchMethodException, InstantiationException, IllegalAccessException,
-      InvocationTargetException {
+  private static Optional<Injector> getParentInjector(ExtensionContext context) {
     final Optional<ExtensionContext> optionalParent = context.getParent();
     if (optionalParent.isPresent()) {
       return getOrCreateInjector(optionalParent.get());
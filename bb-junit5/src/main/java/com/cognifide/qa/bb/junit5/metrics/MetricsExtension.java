@@ -0,0 +1,57 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.junit5.metrics;
+
+import static com.cognifide.qa.bb.junit5.JUnit5Constants.NAMESPACE;
+import static com.cognifide.qa.bb.junit5.allure.AllureConstants.ALLURE_REPORT;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import com.cognifide.qa.bb.junit5.guice.InjectorUtils;
+import com.cognifide.qa.bb.metrics.Metrics;
+import com.google.inject.Injector;
+
+import io.qameta.allure.Allure;
+
+/**
+ * Writes the metrics recorded during the test to a JSON file and, when Allure reports are enabled,
+ * attaches them to the report. Does nothing unless {@code metrics.enabled} is set.
+ * <p>
+ * Loaded automatically by ServiceLoader.
+ */
+public class MetricsExtension implements AfterEachCallback {
+
+  @Override
+  public void afterEach(ExtensionContext context) {
+    Injector injector = InjectorUtils.retrieveInjectorFromStore(context, NAMESPACE);
+    if (injector == null) {
+      return;
+    }
+    String testName = context.getRequiredTestClass().getName() + "." + context.getDisplayName();
+    injector.getInstance(Metrics.class).finishTest(testName).ifPresent(json -> {
+      if (Boolean.valueOf(injector.getInstance(Properties.class).getProperty(ALLURE_REPORT))) {
+        Allure.addAttachment("Metrics", "application/json", json, ".json");
+      }
+    });
+  }
+}
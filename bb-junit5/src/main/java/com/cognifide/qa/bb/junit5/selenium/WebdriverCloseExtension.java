@@ -28,6 +28,7 @@ import org.junit.jupiter.api.extension.ExtensionContext;
 import org.openqa.selenium.WebDriver;
 
 import com.cognifide.qa.bb.junit5.guice.InjectorUtils;
+import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverProvider;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 
@@ -39,11 +40,12 @@ import com.google.inject.Key;
 public class WebdriverCloseExtension
     implements BeforeTestExecutionCallback, AfterTestExecutionCallback, AfterAllCallback {
 
-  private WebDriver webDriver;
+  // tests of the same class may be executed concurrently, each by a single thread
+  private final ThreadLocal<WebDriver> webDriver = new ThreadLocal<>();
 
   @Override
   public void beforeTestExecution(ExtensionContext context) {
-    webDriver = getWebDriver(context);
+    webDriver.set(getWebDriver(context));
   }
 
   /**
@@ -51,8 +53,11 @@ public class WebdriverCloseExtension
    */
   @Override
   public void afterTestExecution(ExtensionContext context) {
-    if (webDriver != null) {
-      webDriver.quit();
+    WebDriver current = webDriver.get();
+    // the worker thread outlives the test, so it must not keep the driver (and its injector)
+    webDriver.remove();
+    if (current != null) {
+      current.quit();
     }
   }
 
@@ -63,13 +68,23 @@ public class WebdriverCloseExtension
   // we need this for potential failures in BeforeEach methods
   public void afterAll(ExtensionContext context) {
     afterTestExecution(context);
+    getWebDriverProvider(context).discardPrefetched();
   }
 
   //for mocking purposes
   WebDriver getWebDriver(ExtensionContext context) {
+    return getInjector(context).getInstance(Key.get(WebDriver.class));
+  }
+
+  //for mocking purposes
+  WebDriverProvider getWebDriverProvider(ExtensionContext context) {
+    return getInjector(context).getInstance(WebDriverProvider.class);
+  }
+
+  private Injector getInjector(ExtensionContext context) {
     Injector injector = InjectorUtils.retrieveInjectorFromStore(context, NAMESPACE);
     if (injector != null) {
-      return injector.getInstance(Key.get(WebDriver.class));
+      return injector;
     }
     throw new IllegalStateException("Could not obtain WebDriver instance");
   }
@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.junit5.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfiguration;
+
+class BobcatParallelExecutionStrategyTest {
+
+  private final BobcatParallelExecutionStrategy tested = new BobcatParallelExecutionStrategy();
+
+  @Test
+  void shouldUseConfiguredParallelism() {
+    ParallelExecutionConfiguration configuration = tested.createConfiguration(
+        parameters(Collections.singletonMap(BobcatParallelExecutionStrategy.PARALLELISM, "50")));
+
+    assertThat(configuration.getParallelism()).isEqualTo(50);
+    assertThat(configuration.getCorePoolSize()).isEqualTo(50);
+    assertThat(configuration.getMinimumRunnable()).isEqualTo(50);
+    assertThat(configuration.getMaxPoolSize()).isGreaterThan(50);
+    assertThat(configuration.getKeepAliveSeconds())
+        .isEqualTo(BobcatParallelExecutionStrategy.DEFAULT_KEEP_ALIVE_SECONDS);
+  }
+
+  @Test
+  void shouldScaleWithProcessorsByDefault() {
+    ParallelExecutionConfiguration configuration =
+        tested.createConfiguration(parameters(Collections.emptyMap()));
+
+    assertThat(configuration.getParallelism()).isEqualTo(
+        BobcatParallelExecutionStrategy.DEFAULT_FACTOR * Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test
+  void shouldRejectNonPositiveParallelism() {
+    ConfigurationParameters parameters =
+        parameters(Collections.singletonMap(BobcatParallelExecutionStrategy.PARALLELISM, "0"));
+
+    assertThatThrownBy(() -> tested.createConfiguration(parameters))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static ConfigurationParameters parameters(Map<String, String> values) {
+    return new ConfigurationParameters() {
+      @Override
+      public Optional<String> get(String key) {
+        return Optional.ofNullable(values.get(key));
+      }
+
+      @Override
+      public Optional<Boolean> getBoolean(String key) {
+        return get(key).map(Boolean::valueOf);
+      }
+
+      @Override
+      public int size() {
+        return values.size();
+      }
+    };
+  }
+}
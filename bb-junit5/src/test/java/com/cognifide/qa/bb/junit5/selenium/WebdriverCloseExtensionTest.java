@@ -31,12 +31,17 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.openqa.selenium.WebDriver;
 
+import com.cognifide.qa.bb.provider.selenium.webdriver.WebDriverProvider;
+
 @ExtendWith(MockitoExtension.class)
 class WebdriverCloseExtensionTest {
 
   @Mock
   private WebDriver webdriver;
 
+  @Mock
+  private WebDriverProvider webDriverProvider;
+
   @Spy
   private WebdriverCloseExtension tested;
 
@@ -55,6 +60,19 @@ class WebdriverCloseExtensionTest {
 
   @Test
   void afterAll() {
+    doReturn(webDriverProvider).when(tested).getWebDriverProvider(any());
+
+    tested.afterAll(any());
+
+    verify(webdriver).quit();
+    verify(webDriverProvider).discardPrefetched();
+  }
+
+  @Test
+  void shouldNotQuitWebDriverOfFinishedTestAgainAfterAll() {
+    doReturn(webDriverProvider).when(tested).getWebDriverProvider(any());
+    tested.afterTestExecution(any());
+
     tested.afterAll(any());
 
     verify(webdriver).quit();
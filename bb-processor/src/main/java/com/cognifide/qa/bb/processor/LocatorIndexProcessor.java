@@ -0,0 +1,249 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.processor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that validates the locators of page objects at compile time and writes an
+ * index of them to {@value #INDEX_LOCATION}, so Bobcat doesn't need to parse the annotations at
+ * runtime.
+ * <p>
+ * The index contains:
+ * <ul>
+ * <li>{@code <class>=<how>:<using>} entries for classes annotated with {@code @PageObject} (empty
+ * value when no selector is specified),</li>
+ * <li>{@code <class>#<field>=<how>:<using>} entries for fields annotated with a single-strategy
+ * {@code @FindBy}, together with {@code <class>#<field>.cached=true} when the field is annotated
+ * with {@code @CacheLookup}.</li>
+ * </ul>
+ * {@code <how>} is a name of Selenium's {@code How} constant. Fields using {@code @FindBys},
+ * {@code @FindAll} or other annotations are not indexed and are handled at runtime as usual.
+ * <p>
+ * The processor has no dependencies - it recognizes the annotations by their names.
+ */
+@SupportedAnnotationTypes({LocatorIndexProcessor.PAGE_OBJECT, LocatorIndexProcessor.FIND_BY})
+public class LocatorIndexProcessor extends AbstractProcessor {
+
+  /**
+   * Location of the index in the class output, read by Bobcat's {@code LocatorIndex}.
+   */
+  public static final String INDEX_LOCATION = "META-INF/bobcat/locators.properties";
+
+  static final String PAGE_OBJECT = "com.cognifide.qa.bb.qualifier.PageObject";
+
+  static final String FIND_BY = "org.openqa.selenium.support.FindBy";
+
+  private static final String FIND_BYS = "org.openqa.selenium.support.FindBys";
+
+  private static final String FIND_ALL = "org.openqa.selenium.support.FindAll";
+
+  private static final String CACHE_LOOKUP = "org.openqa.selenium.support.CacheLookup";
+
+  private static final String CACHED_SUFFIX = ".cached";
+
+  /**
+   * Short {@code @FindBy} attributes mapped to the corresponding {@code How} constants
+   */
+  private static final Map<String, String> STRATEGIES = new LinkedHashMap<>();
+
+  static {
+    STRATEGIES.put("id", "ID");
+    STRATEGIES.put("name", "NAME");
+    STRATEGIES.put("className", "CLASS_NAME");
+    STRATEGIES.put("css", "CSS");
+    STRATEGIES.put("tagName", "TAG_NAME");
+    STRATEGIES.put("linkText", "LINK_TEXT");
+    STRATEGIES.put("partialLinkText", "PARTIAL_LINK_TEXT");
+    STRATEGIES.put("xpath", "XPATH");
+  }
+
+  private final Map<String, String> index = new TreeMap<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      String name = annotation.getQualifiedName().toString();
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (PAGE_OBJECT.equals(name) && element.getKind().isClass()) {
+          indexPageObject((TypeElement) element);
+        } else if (FIND_BY.equals(name) && element.getKind() == ElementKind.FIELD) {
+          indexField((VariableElement) element);
+        }
+      }
+    }
+    if (roundEnv.processingOver() && !roundEnv.errorRaised()) {
+      writeIndex();
+    }
+    return false;
+  }
+
+  private void indexPageObject(TypeElement type) {
+    Map<String, String> values = getValues(type, PAGE_OBJECT);
+    String css = values.getOrDefault("css", "");
+    String xpath = values.getOrDefault("xpath", "");
+    if (!css.isEmpty() && !xpath.isEmpty()) {
+      error(type, PAGE_OBJECT,
+          "Please provide only CSS or XPath selector for your PageObject: " + type);
+      return;
+    }
+    String locator = "";
+    if (!css.isEmpty()) {
+      locator = "CSS:" + css;
+    } else if (!xpath.isEmpty()) {
+      locator = "XPATH:" + xpath;
+    }
+    index.put(getBinaryName(type), locator);
+  }
+
+  private void indexField(VariableElement field) {
+    Map<String, String> values = getValues(field, FIND_BY);
+    List<String> strategies = STRATEGIES.keySet().stream()
+        .filter(attribute -> !values.getOrDefault(attribute, "").isEmpty())
+        .collect(Collectors.toList());
+    String using = values.getOrDefault("using", "");
+    String how = values.getOrDefault("how", "UNSET");
+    int count = strategies.size() + (using.isEmpty() ? 0 : 1);
+    if (count > 1) {
+      error(field, FIND_BY, "You must specify at most one location strategy. Number found: "
+          + count + " (" + values.keySet() + ")");
+      return;
+    }
+    if (count == 0 || hasAnnotation(field, FIND_BYS) || hasAnnotation(field, FIND_ALL)) {
+      // left to Selenium, which reports the misuse or uses its defaults
+      return;
+    }
+    String locator;
+    if (strategies.isEmpty()) {
+      if ("UNSET".equals(how)) {
+        return;
+      }
+      locator = how + ":" + using;
+    } else {
+      String strategy = strategies.get(0);
+      locator = STRATEGIES.get(strategy) + ":" + values.get(strategy);
+    }
+    String key = getBinaryName((TypeElement) field.getEnclosingElement()) + "#" + field
+        .getSimpleName();
+    index.put(key, locator);
+    if (hasAnnotation(field, CACHE_LOOKUP)) {
+      index.put(key + CACHED_SUFFIX, Boolean.TRUE.toString());
+    }
+  }
+
+  private void writeIndex() {
+    if (index.isEmpty()) {
+      return;
+    }
+    try {
+      FileObject file = processingEnv.getFiler()
+          .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+      try (Writer writer = file.openWriter()) {
+        writer.write(format(index));
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager()
+          .printMessage(Diagnostic.Kind.ERROR, "Could not write " + INDEX_LOCATION + ": " + e);
+    }
+  }
+
+  /**
+   * Formats the entries in the properties format, sorted and without the timestamp, so the output
+   * is reproducible.
+   */
+  private static String format(Map<String, String> entries) throws IOException {
+    Properties properties = new Properties();
+    properties.putAll(entries);
+    StringWriter writer = new StringWriter();
+    properties.store(writer, null);
+    return Arrays.stream(writer.toString().split("\\R"))
+        .filter(line -> !line.startsWith("#"))
+        .sorted()
+        .collect(Collectors.joining("\n", "", "\n"));
+  }
+
+  private Map<String, String> getValues(Element element, String annotation) {
+    Map<String, String> values = new LinkedHashMap<>();
+    getAnnotation(element, annotation).ifPresent(mirror -> {
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror
+          .getElementValues().entrySet()) {
+        Object value = entry.getValue().getValue();
+        // enum constants (How) are represented by their elements
+        String text = value instanceof VariableElement
+            ? ((VariableElement) value).getSimpleName().toString()
+            : String.valueOf(value);
+        values.put(entry.getKey().getSimpleName().toString(), text);
+      }
+    });
+    return values;
+  }
+
+  private static boolean hasAnnotation(Element element, String annotation) {
+    return getAnnotation(element, annotation).isPresent();
+  }
+
+  private static Optional<? extends AnnotationMirror> getAnnotation(Element element,
+      String annotation) {
+    return element.getAnnotationMirrors().stream()
+        .filter(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+            .contentEquals(annotation))
+        .findFirst();
+  }
+
+  private String getBinaryName(TypeElement type) {
+    return processingEnv.getElementUtils().getBinaryName(type).toString();
+  }
+
+  private void error(Element element, String annotation, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element,
+        getAnnotation(element, annotation).orElse(null));
+  }
+}
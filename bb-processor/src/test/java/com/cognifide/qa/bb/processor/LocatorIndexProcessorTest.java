@@ -0,0 +1,141 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.processor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocatorIndexProcessorTest {
+
+  @TempDir
+  Path output;
+
+  private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+  @Test
+  void indexesPageObjectsAndFields() throws IOException {
+    boolean compiled = compile("test.Page",
+        "package test;",
+        "import com.cognifide.qa.bb.qualifier.PageObject;",
+        "import org.openqa.selenium.WebElement;",
+        "import org.openqa.selenium.support.*;",
+        "@PageObject(css = \".page\")",
+        "public class Page {",
+        "  @FindBy(xpath = \"//a[@href='#']\") WebElement link;",
+        "  @CacheLookup @FindBy(how = How.ID, using = \"header\") WebElement header;",
+        "  @FindBys({@FindBy(css = \"ul\"), @FindBy(css = \"li\")}) WebElement item;",
+        "  @PageObject(xpath = \"//div\") public static class Nested {}",
+        "  @PageObject public static class NoSelector {}",
+        "}");
+
+    assertThat(compiled).isTrue();
+    Properties index = readIndex();
+    assertThat(index)
+        .containsEntry("test.Page", "CSS:.page")
+        .containsEntry("test.Page$Nested", "XPATH://div")
+        .containsEntry("test.Page$NoSelector", "")
+        .containsEntry("test.Page#link", "XPATH://a[@href='#']")
+        .containsEntry("test.Page#header", "ID:header")
+        .containsEntry("test.Page#header.cached", "true")
+        .doesNotContainKeys("test.Page#link.cached", "test.Page#item")
+        .hasSize(6);
+  }
+
+  @Test
+  void reportsPageObjectWithBothSelectors() throws IOException {
+    boolean compiled = compile("test.Invalid",
+        "package test;",
+        "@com.cognifide.qa.bb.qualifier.PageObject(css = \"div\", xpath = \"//div\")",
+        "public class Invalid {}");
+
+    assertThat(compiled).isFalse();
+    assertThat(errors()).anyMatch(message -> message.contains("only CSS or XPath"));
+    assertThat(Files.exists(output.resolve(LocatorIndexProcessor.INDEX_LOCATION))).isFalse();
+  }
+
+  @Test
+  void reportsFindByWithSeveralStrategies() throws IOException {
+    boolean compiled = compile("test.Invalid",
+        "package test;",
+        "import org.openqa.selenium.support.FindBy;",
+        "public class Invalid {",
+        "  @FindBy(css = \"div\", id = \"id\") Object element;",
+        "}");
+
+    assertThat(compiled).isFalse();
+    assertThat(errors()).anyMatch(message -> message.contains("at most one location strategy"));
+  }
+
+  private boolean compile(String className, String... lines) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    JavaFileObject source = new SimpleJavaFileObject(
+        URI.create("string:///" + className.replace('.', '/') + ".java"),
+        JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return String.join("\n", lines);
+      }
+    };
+    List<String> options = Arrays.asList("-proc:only",
+        "-classpath", System.getProperty("java.class.path"),
+        "-d", output.toString());
+    JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null,
+        Collections.singletonList(source));
+    task.setProcessors(Collections.singletonList(new LocatorIndexProcessor()));
+    return task.call();
+  }
+
+  private Properties readIndex() throws IOException {
+    Properties index = new Properties();
+    try (Reader reader = Files
+        .newBufferedReader(output.resolve(LocatorIndexProcessor.INDEX_LOCATION), UTF_8)) {
+      index.load(reader);
+    }
+    return index;
+  }
+
+  private List<String> errors() {
+    return diagnostics.getDiagnostics().stream()
+        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+        .map(diagnostic -> diagnostic.getMessage(null))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,172 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.analyzer;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.SuiteScoped;
+import com.cognifide.qa.bb.metrics.Metrics;
+import com.cognifide.qa.bb.traffic.constants.TrafficConfigKeys;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Runs the traffic analyses of all tests: fires their timeouts and finishes them (notifies the
+ * listeners and stops the capture) on a bounded set of threads - virtual ones, if the JVM supports
+ * them and {@value TrafficConfigKeys#TRAFFIC_ANALYZER_THREADS} is 0.
+ * <br>
+ * Analyses waiting for a request do not occupy any thread, they are only counted as in flight; the
+ * highest number of them is reported to {@link Metrics} as {@value #IN_FLIGHT}. There is one
+ * executor per JVM, shared by all test classes; it is shut down at the end of the run (see
+ * {@link com.cognifide.qa.bb.guice.SuiteScope}), cancelling the analyses in flight.
+ */
+@SuiteScoped
+public class AnalysisExecutor implements Executor, Disposable {
+
+  static final String IN_FLIGHT = "inFlight";
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisExecutor.class);
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setNameFormat("bobcat-traffic-timeouts")
+          .setDaemon(true)
+          .build());
+
+  private final ExecutorService workers;
+
+  private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+  private final Metrics metrics;
+
+  private volatile boolean shutdown;
+
+  /**
+   * Constructs the executor.
+   *
+   * @param threads number of platform threads finishing the analyses, 0 for virtual threads
+   * @param metrics metrics the number of analyses in flight is reported to
+   */
+  @Inject
+  public AnalysisExecutor(@Named(TrafficConfigKeys.TRAFFIC_ANALYZER_THREADS) int threads,
+      Metrics metrics) {
+    this.workers = createWorkers(threads);
+    this.metrics = metrics;
+  }
+
+  /**
+   * Counts the analysis as in flight until it is completed.
+   *
+   * @param analysis future of the analysis
+   * @param <T>      type of the analysis result
+   * @return the given future
+   * @throws IllegalStateException when the executor has been shut down
+   */
+  <T> CompletableFuture<T> track(CompletableFuture<T> analysis) {
+    if (shutdown) {
+      throw new IllegalStateException("Traffic analysis executor has been shut down");
+    }
+    inFlight.add(analysis);
+    metrics.recordLevel(Metrics.TRAFFIC, IN_FLIGHT, inFlight.size());
+    analysis.whenComplete((result, error) -> inFlight.remove(analysis));
+    return analysis;
+  }
+
+  /**
+   * Schedules a timeout of an analysis.
+   *
+   * @param task  task run when the timeout elapses
+   * @param delay timeout
+   * @param unit  unit of the timeout
+   * @return future of the task, to be cancelled when the analysis completes earlier
+   */
+  ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+    return scheduler.schedule(task, delay, unit);
+  }
+
+  /**
+   * Runs the task on one of the worker threads or, once the executor has been shut down, in the
+   * calling thread.
+   *
+   * @param task task to be run
+   */
+  @Override
+  public void execute(Runnable task) {
+    try {
+      workers.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.run();
+    }
+  }
+
+  /**
+   * @return number of analyses started but not completed yet
+   */
+  int getInFlightAnalyses() {
+    return inFlight.size();
+  }
+
+  /**
+   * Cancels the analyses in flight and stops the threads.
+   */
+  public void shutdown() {
+    shutdown = true;
+    LOG.debug("Shutting down traffic analysis executor, cancelling {} analyses in flight",
+        inFlight.size());
+    inFlight.forEach(analysis -> analysis.cancel(false));
+    scheduler.shutdownNow();
+    workers.shutdown();
+  }
+
+  @Override
+  public void dispose() {
+    shutdown();
+  }
+
+  private static ExecutorService createWorkers(int threads) {
+    if (threads <= 0) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+            .invoke(null);
+      } catch (ReflectiveOperationException e) {
+        LOG.debug("Virtual threads are not available, traffic analyses use platform threads");
+      }
+    }
+    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    return Executors.newFixedThreadPool(size, new ThreadFactoryBuilder()
+        .setNameFormat("bobcat-traffic-analyzer-%d")
+        .setDaemon(true)
+        .build());
+  }
+}
@@ -56,9 +56,7 @@ class ClosestHarEntryElectorImpl implements ClosestHarEntryElector {
     List<HarEntry> matchingUrl = findEntriesWithUrl(predicate, harEntries);
 
     for (HarEntry harEntry : matchingUrl) {
-      QueryStringParameters parametrizable =
-          new QueryStringParameters(harEntry.getRequest());
-      int harEntryScore = predicate.calculateScore(parametrizable.retrieve());
+      int harEntryScore = predicate.calculateScore(harEntry.getRequest().getQueryString());
       if (harEntryScore > bestScore) {
         bestScore = harEntryScore;
         bestEntry = harEntry;
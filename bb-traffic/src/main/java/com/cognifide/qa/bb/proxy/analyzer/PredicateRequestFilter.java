@@ -19,7 +19,15 @@
  */
 package com.cognifide.qa.bb.proxy.analyzer;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.cognifide.qa.bb.guice.Disposable;
+import com.cognifide.qa.bb.guice.ThreadScoped;
+import com.cognifide.qa.bb.proxy.RequestFilterRegistry;
 import com.cognifide.qa.bb.proxy.analyzer.predicate.RequestPredicate;
+import com.google.inject.Inject;
 
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
@@ -28,40 +36,66 @@ import net.lightbody.bmp.util.HttpMessageContents;
 import net.lightbody.bmp.util.HttpMessageInfo;
 
 /**
- * This filter tests all requests against the given predicate. If some request matches, accepted is set
- * to true and the object is notified.
+ * Request filter shared by all traffic analyses of a thread. Each awaited predicate is backed by a
+ * future, completed straight from the proxy thread as soon as the predicate accepts a request.
  */
-class PredicateRequestFilter implements RequestFilter {
+@ThreadScoped
+class PredicateRequestFilter implements RequestFilter, Disposable {
+
+  private final Map<CompletableFuture<Boolean>, RequestPredicate> pending =
+      new ConcurrentHashMap<>();
 
-  private final RequestPredicate predicate;
+  private final RequestFilterRegistry registry;
 
-  private boolean accepted;
+  /**
+   * Constructor. Registers the filter in the proxy.
+   *
+   * @param registry register of filters
+   */
+  @Inject
+  PredicateRequestFilter(RequestFilterRegistry registry) {
+    this.registry = registry;
+    registry.add(this);
+  }
 
   /**
-   * Constructor. Initializes PredicateHttpRequestFilter.
+   * Returns a future completed with {@code true} when the predicate accepts a request. The
+   * predicate is forgotten once the future is completed in any way, e.g. cancelled.
    *
    * @param predicate request predicate
+   * @return future of the match
    */
-  public PredicateRequestFilter(RequestPredicate predicate) {
-    this.predicate = predicate;
+  CompletableFuture<Boolean> await(RequestPredicate predicate) {
+    CompletableFuture<Boolean> future = new CompletableFuture<>();
+    pending.put(future, predicate);
+    future.whenComplete((accepted, error) -> pending.remove(future));
+    return future;
   }
 
   /**
-   * Return true if the predicate accepted at least one request.
+   * @return number of predicates still waiting for a request
    */
-  boolean isAccepted() {
-    return accepted;
+  int getPendingCount() {
+    return pending.size();
   }
 
   @Override
   public HttpResponse filterRequest(HttpRequest request,
       HttpMessageContents contents, HttpMessageInfo messageInfo) {
-    if (predicate.accepts(request)) {
-      synchronized (this) {
-        accepted = true;
-        notifyAll();
+    pending.forEach((future, predicate) -> {
+      if (!future.isDone() && predicate.accepts(request)) {
+        future.complete(true);
       }
-    }
+    });
     return null;
   }
+
+  /**
+   * Unregisters the filter from the proxy and cancels the analyses still waiting.
+   */
+  @Override
+  public void dispose() {
+    registry.remove(this);
+    pending.keySet().forEach(future -> future.cancel(false));
+  }
 }
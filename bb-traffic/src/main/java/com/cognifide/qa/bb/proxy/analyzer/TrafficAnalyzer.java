@@ -21,13 +21,21 @@ package com.cognifide.qa.bb.proxy.analyzer;
 
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.ScopeContext;
+import com.cognifide.qa.bb.guice.ThreadLocalScope;
+import com.cognifide.qa.bb.metrics.Metrics;
 import com.cognifide.qa.bb.proxy.ProxyController;
 import com.cognifide.qa.bb.proxy.ProxyEventListener;
-import com.cognifide.qa.bb.proxy.RequestFilterRegistry;
+import com.cognifide.qa.bb.proxy.analyzer.predicate.ClosestHarEntryElector;
 import com.cognifide.qa.bb.proxy.analyzer.predicate.RequestPredicate;
 import com.cognifide.qa.bb.proxy.analyzer.predicate.RequestPredicateImpl;
 import com.google.inject.Inject;
@@ -35,9 +43,16 @@ import com.google.inject.name.Named;
 
 /**
  * Class allows to intercept and analyze traffic, looking for requests matching some conditions.
+ * <p>
+ * The analysis completes as soon as a matching request passes through the proxy (or when the
+ * timeout elapses), and can be cancelled at any time. Any number of analyses may run at once -
+ * they share a single request filter, the threads of the {@link AnalysisExecutor} and the HAR
+ * recorded by the {@link ProxyController} until the last of them finishes.
  */
 public class TrafficAnalyzer {
 
+  private static final Logger LOG = LoggerFactory.getLogger(TrafficAnalyzer.class);
+
   @Inject
   private Set<ProxyEventListener> proxyListeners;
 
@@ -45,25 +60,60 @@ public class TrafficAnalyzer {
   private ProxyController controller;
 
   @Inject
-  private RequestFilterRegistry registry;
+  private PredicateRequestFilter requestFilter;
 
   @Inject
   @Named(ConfigKeys.PROXY_ENABLED)
   private boolean proxyEnabled;
 
+  @Inject
+  private ThreadLocalScope scope;
+
+  @Inject
+  private AnalysisExecutor executor;
+
+  @Inject
+  private Metrics metrics;
+
   /**
    * Start analysis process, looking for requests matching given predicate.
    *
    * @param requestPredicate Object describing desired requests.
    * @param timeout          How long should we wait for requests matching requestPredicate (in seconds)
-   * @return Future object representing the analysis.
+   * @return Future object representing the analysis, completed with {@code true} as soon as a
+   * matching request is found and with {@code false} after the timeout. Cancelling it stops the
+   * analysis.
    */
   public Future<Boolean> analyzeTraffic(final RequestPredicate requestPredicate,
       final int timeout) {
-    Future<Boolean> future = Executors.newSingleThreadExecutor().submit(
-        new AnalyzerCallable(requestPredicate, timeout, proxyEnabled, proxyListeners, controller,
-            registry));
-    return new DispatchingFuture(future, proxyListeners);
+    if (!proxyEnabled) {
+      LOG.warn("Proxy is disabled - check {} property", ConfigKeys.PROXY_ENABLED);
+      return new DispatchingFuture(CompletableFuture.completedFuture(false), proxyListeners);
+    }
+    CompletableFuture<Boolean> analysis = executor.track(new CompletableFuture<>());
+    long started = metrics.start();
+    // listeners are notified on other threads, but on behalf of the calling one
+    ScopeContext scopeContext = scope.current();
+    controller.startAnalysis();
+    fireWaitingEvent(requestPredicate);
+
+    CompletableFuture<Boolean> match = requestFilter.await(requestPredicate);
+    ScheduledFuture<?> timeoutTask =
+        executor.schedule(() -> match.complete(false), timeout, TimeUnit.SECONDS);
+    match.whenCompleteAsync((accepted, error) -> {
+      timeoutTask.cancel(false);
+      try {
+        analysis.complete(finish(scopeContext, error == null ? accepted : null, started));
+      } catch (RuntimeException e) {
+        analysis.completeExceptionally(e);
+      }
+    }, executor);
+    analysis.whenComplete((accepted, error) -> {
+      if (analysis.isCancelled()) {
+        match.cancel(false);
+      }
+    });
+    return new DispatchingFuture(analysis, proxyListeners);
   }
 
   /**
@@ -78,4 +128,41 @@ public class TrafficAnalyzer {
       final int timeout) {
     return analyzeTraffic(new RequestPredicateImpl(uriPrefix, expectedParams), timeout);
   }
+
+  /**
+   * Notifies the listeners about the outcome and stops the analysis.
+   *
+   * @param accepted outcome of the analysis, null if it was cancelled
+   */
+  private boolean finish(ScopeContext scopeContext, Boolean accepted, long started) {
+    ScopeContext previous = scope.attach(scopeContext);
+    try {
+      if (Boolean.TRUE.equals(accepted)) {
+        proxyListeners.forEach(ProxyEventListener::requestFound);
+      } else if (accepted != null) {
+        proxyListeners.forEach(ProxyEventListener::timeout);
+      }
+      controller.stopAnalysis();
+      metrics.record(Metrics.TRAFFIC, outcome(accepted), started);
+    } finally {
+      scope.restore(previous);
+    }
+    return Boolean.TRUE.equals(accepted);
+  }
+
+  private static String outcome(Boolean accepted) {
+    if (accepted == null) {
+      return "cancelled";
+    }
+    return accepted ? "found" : "timeout";
+  }
+
+  private void fireWaitingEvent(RequestPredicate requestPredicate) {
+    ClosestHarEntryElector closestHarEntryElector =
+        requestPredicate instanceof RequestPredicateImpl
+            ? new ClosestHarEntryElectorImpl((RequestPredicateImpl) requestPredicate)
+            : null;
+    proxyListeners
+        .forEach(listener -> listener.waitingForRequest(requestPredicate, closestHarEntryElector));
+  }
 }
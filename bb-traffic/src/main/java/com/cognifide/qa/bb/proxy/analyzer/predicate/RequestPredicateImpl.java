@@ -31,6 +31,7 @@ import org.apache.http.client.utils.URLEncodedUtils;
 import com.google.common.base.Charsets;
 
 import io.netty.handler.codec.http.HttpRequest;
+import net.lightbody.bmp.core.har.HarNameValuePair;
 
 /**
  * A simple predicate that matches requests with given URI and parameters.
@@ -93,6 +94,26 @@ public class RequestPredicateImpl implements RequestPredicate {
     return result;
   }
 
+  /**
+   * Counts the expected parameters present in the query string, without building a map of it.
+   *
+   * @param queryString parameters of a captured request
+   * @return number of expected parameters with matching values
+   */
+  public int calculateScore(List<HarNameValuePair> queryString) {
+    int result = 0;
+    for (Entry<String, String> expectedParam : expectedParams.entrySet()) {
+      for (HarNameValuePair param : queryString) {
+        if (param.getName().equals(expectedParam.getKey())
+            && param.getValue().equals(expectedParam.getValue())) {
+          result++;
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
   @Override
   public String toString() {
     return String.format("[prefix: %s, params: %s]", urlPrefix, expectedParams);
@@ -19,9 +19,17 @@
  */
 package com.cognifide.qa.bb.proxy.record;
 
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cognifide.qa.bb.guice.Disposable;
 import com.cognifide.qa.bb.guice.ThreadScoped;
 import com.cognifide.qa.bb.proxy.RequestFilterRegistry;
 import com.cognifide.qa.bb.traffic.constants.TrafficConfigKeys;
@@ -37,7 +45,7 @@ import net.lightbody.bmp.util.HttpMessageInfo;
  * A class that provides methods to wait for analytics calls to be sent from the browser
  */
 @ThreadScoped
-public class AnalyticsWait {
+public class AnalyticsWait implements Disposable {
 
   private static final Logger LOG = LoggerFactory.getLogger(AnalyticsWait.class);
 
@@ -49,28 +57,49 @@ public class AnalyticsWait {
   @Named(TrafficConfigKeys.ANALYTICS_CALL_TIMEOUT_MS)
   private long timeout;
 
+  private final RequestFilterRegistry filterRegistry;
+
+  private final RequestFilter analyticsRequestFilter = new AnalyticsRequestFilter();
+
+  private final Set<CompletableFuture<Void>> pendingCalls = ConcurrentHashMap.newKeySet();
+
   /**
    * @param filterRegistry register of filters
    */
   @Inject
   public AnalyticsWait(RequestFilterRegistry filterRegistry) {
-    filterRegistry.add(new AnalyticsRequestFilter());
+    this.filterRegistry = filterRegistry;
+    filterRegistry.add(analyticsRequestFilter);
   }
 
   /**
-   * Wait for analytics call. Requires active proxy. Wait time is defined by
-   * {@code analytics.call.timeout.ms} property (default: {@code 10000}). The call is identified by
-   * URI prefix matching {@code analytics.uri.prefix} property (default: {@code /b/ss})
+   * Unregisters the analytics filter from the proxy.
    */
-  public synchronized void waitForAnalyticsCall() {
+  @Override
+  public void dispose() {
+    filterRegistry.remove(analyticsRequestFilter);
+  }
+
+  /**
+   * Wait for analytics call. Requires active proxy. Returns as soon as the call is sent, but waits
+   * no longer than defined by {@code analytics.call.timeout.ms} property (default: {@code 10000}).
+   * The call is identified by URI prefix matching {@code analytics.uri.prefix} property (default:
+   * {@code /b/ss})
+   */
+  public void waitForAnalyticsCall() {
+    CompletableFuture<Void> call = new CompletableFuture<>();
+    pendingCalls.add(call);
     try {
-      long timeoutPoint = System.currentTimeMillis() + timeout;
-      while (System.currentTimeMillis() < timeoutPoint) {
-        this.wait();
-      }
+      call.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      LOG.warn("No analytics call was sent within {} ms", timeout);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
     } catch (InterruptedException e) {
       LOG.error("Sleep was interrupted", e);
       Thread.currentThread().interrupt();
+    } finally {
+      pendingCalls.remove(call);
     }
   }
 
@@ -81,9 +110,7 @@ public class AnalyticsWait {
         HttpMessageContents contents, HttpMessageInfo messageInfo) {
       String path = request.getUri();
       if (path.startsWith(analyticsUriPrefix)) {
-        synchronized (this) {
-          notifyAll();
-        }
+        pendingCalls.forEach(call -> call.complete(null));
       }
       return null;
     }
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import net.lightbody.bmp.core.har.HarContent;
+import net.lightbody.bmp.core.har.HarEntry;
+import net.lightbody.bmp.core.har.HarPostData;
+
+/**
+ * Drops request and response bodies that shouldn't be kept in the recorded traffic: the ones
+ * longer than the size limit or of MIME types outside of the allowlist.
+ */
+class HarBodyFilter {
+
+  static final String OMITTED = "body omitted from the traffic log";
+
+  private final int maxSize;
+
+  private final List<String> contentTypes;
+
+  /**
+   * @param maxSize      maximum length of kept bodies, negative for no limit
+   * @param contentTypes comma-separated MIME type prefixes of kept bodies, empty for all
+   */
+  HarBodyFilter(int maxSize, String contentTypes) {
+    this.maxSize = maxSize;
+    this.contentTypes = Arrays.stream(StringUtils.split(StringUtils.defaultString(contentTypes), ','))
+        .map(String::trim)
+        .filter(StringUtils::isNotEmpty)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * @return true if no body would be dropped
+   */
+  boolean keepsAll() {
+    return maxSize < 0 && contentTypes.isEmpty();
+  }
+
+  void apply(HarEntry entry) {
+    if (keepsAll()) {
+      return;
+    }
+    HarPostData postData = entry.getRequest() == null ? null : entry.getRequest().getPostData();
+    if (postData != null && !isKept(postData.getText(), postData.getMimeType())) {
+      postData.setText(null);
+      postData.setComment(OMITTED);
+    }
+    HarContent content = entry.getResponse() == null ? null : entry.getResponse().getContent();
+    if (content != null && !isKept(content.getText(), content.getMimeType())) {
+      content.setText(null);
+      content.setComment(OMITTED);
+    }
+  }
+
+  private boolean isKept(String text, String mimeType) {
+    if (text == null) {
+      return true;
+    }
+    if (maxSize >= 0 && text.length() > maxSize) {
+      return false;
+    }
+    return contentTypes.isEmpty() || mimeType != null && contentTypes.stream()
+        .anyMatch(prefix -> StringUtils.startsWithIgnoreCase(mimeType, prefix));
+  }
+}
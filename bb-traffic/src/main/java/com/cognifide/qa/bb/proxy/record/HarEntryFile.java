@@ -0,0 +1,162 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.lightbody.bmp.core.har.HarEntry;
+import net.lightbody.bmp.core.har.HarNameValuePair;
+
+/**
+ * Append-only file with HAR entries, one JSON document per line. Entries are read lazily, so only
+ * the currently processed entry is kept in memory.
+ */
+class HarEntryFile {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .addMixIn(HarNameValuePair.class, HarNameValuePairMixIn.class);
+
+  private final Path path;
+
+  private BufferedWriter writer;
+
+  private int size;
+
+  /**
+   * Creates a new, empty file in the given directory.
+   *
+   * @param directory directory of the file, created if needed
+   * @throws UncheckedIOException when the file can't be created
+   */
+  HarEntryFile(Path directory) {
+    try {
+      Files.createDirectories(directory);
+      this.path = Files.createTempFile(directory, "traffic-", ".jsonl");
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't create traffic log file in " + directory, e);
+    }
+  }
+
+  Path getPath() {
+    return path;
+  }
+
+  /**
+   * @return number of entries written to the file
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized void append(HarEntry entry) {
+    try {
+      if (writer == null) {
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+      }
+      writer.write(MAPPER.writeValueAsString(entry));
+      writer.newLine();
+      size++;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't write to traffic log file " + path, e);
+    }
+  }
+
+  /**
+   * @return the entries written so far; the stream has to be closed
+   */
+  synchronized Stream<HarEntry> entries() {
+    try {
+      if (writer != null) {
+        writer.flush();
+      }
+      return Files.lines(path, StandardCharsets.UTF_8).map(HarEntryFile::read);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't read traffic log file " + path, e);
+    }
+  }
+
+  /**
+   * Removes all the entries.
+   */
+  synchronized void clear() {
+    close();
+    try {
+      Files.write(path, new byte[0]);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't clear traffic log file " + path, e);
+    }
+    size = 0;
+  }
+
+  synchronized void delete() {
+    close();
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't delete traffic log file " + path, e);
+    }
+  }
+
+  private void close() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Can't close traffic log file " + path, e);
+      } finally {
+        writer = null;
+      }
+    }
+  }
+
+  private static HarEntry read(String line) {
+    try {
+      return MAPPER.readValue(line, HarEntry.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't read traffic log entry", e);
+    }
+  }
+
+  /**
+   * Headers and query parameters of captured requests have no default constructor.
+   */
+  private abstract static class HarNameValuePairMixIn {
+
+    @JsonCreator
+    HarNameValuePairMixIn(@JsonProperty("name") String name,
+        @JsonProperty("value") String value) {
+      // mix-in
+    }
+  }
+}
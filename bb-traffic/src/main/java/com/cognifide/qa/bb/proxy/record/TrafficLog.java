@@ -19,32 +19,101 @@
  */
 package com.cognifide.qa.bb.proxy.record;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
 
 import net.lightbody.bmp.core.har.Har;
+import net.lightbody.bmp.core.har.HarEntry;
+import net.lightbody.bmp.core.har.HarLog;
 
 /**
  * Container for captured network traffic
+ * <p>
+ * The traffic is either kept in memory as a list of Har objects or, with streaming capture enabled,
+ * in a file that is read each time the log is queried. Traffic kept in memory is indexed, so
+ * {@link TrafficLogAnalyzer} assertions don't have to scan all the entries.
  */
 public class TrafficLog {
 
   private final List<Har> hars;
 
+  private final HarEntryFile entryFile;
+
+  private final Supplier<HarEntryIndex> indexSupplier;
+
+  private HarEntryIndex index;
+
   /**
    * Constructor. Initializes TrafficLog.
    *
    * @param hars list of captured Har objects
    */
   public TrafficLog(List<Har> hars) {
+    this(hars, null);
+  }
+
+  TrafficLog(List<Har> hars, Supplier<HarEntryIndex> indexSupplier) {
     super();
     this.hars = hars;
+    this.entryFile = null;
+    this.indexSupplier = indexSupplier;
+  }
+
+  TrafficLog(HarEntryFile entryFile) {
+    super();
+    this.hars = null;
+    this.entryFile = entryFile;
+    this.indexSupplier = null;
   }
 
   /**
+   * With streaming capture enabled, all the entries are read into memory as a single Har, prefer
+   * {@link #entries()} in that case.
+   *
    * @return list of captured Har objects
    */
   public List<Har> getHars() {
-    return hars;
+    if (entryFile == null) {
+      return hars;
+    }
+    HarLog log = new HarLog();
+    try (Stream<HarEntry> entries = entryFile.entries()) {
+      entries.forEach(log::addEntry);
+    }
+    return Collections.singletonList(new Har(log));
+  }
+
+  /**
+   * Streams the captured entries. With streaming capture enabled, they are read lazily from the
+   * file, so the stream has to be closed.
+   *
+   * @return stream of all captured HarEntries
+   */
+  public Stream<HarEntry> entries() {
+    if (entryFile != null) {
+      return entryFile.entries();
+    }
+    return hars == null ? Stream.empty()
+        : hars.stream().flatMap(har -> har.getLog().getEntries().stream());
+  }
+
+  /**
+   * @return index of the captured entries, obtained from the provider of the log or built on first
+   * use; null with streaming capture enabled
+   */
+  synchronized HarEntryIndex getIndex() {
+    if (indexSupplier != null) {
+      return indexSupplier.get();
+    }
+    if (index == null && hars != null) {
+      index = new HarEntryIndex();
+      hars.forEach(har -> index.addAll(har.getLog().getEntries()));
+    }
+    return index;
   }
 
   @Override
@@ -53,6 +122,9 @@ public class TrafficLog {
   }
 
   private int countItems() {
+    if (entryFile != null) {
+      return entryFile.size();
+    }
     if (hars == null || hars.isEmpty()) {
       return 0;
     }
@@ -23,8 +23,6 @@ import java.util.List;
 
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeMatcher;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Predicate;
 
@@ -35,13 +33,14 @@ import net.lightbody.bmp.core.har.HarEntry;
  */
 class TrafficLogContains extends TypeSafeMatcher<TrafficLog> {
 
-  private static final Logger LOG = LoggerFactory.getLogger(TrafficLogContains.class);
-
   private final List<Predicate<HarEntry>> predicates;
 
+  private final TrafficLogQuery query;
+
   public TrafficLogContains(List<Predicate<HarEntry>> predicates) {
     super();
     this.predicates = predicates;
+    this.query = TrafficLogQuery.compile(predicates);
   }
 
   @Override
@@ -51,19 +50,7 @@ class TrafficLogContains extends TypeSafeMatcher<TrafficLog> {
 
   @Override
   protected boolean matchesSafely(TrafficLog item) {
-    return item.getHars().stream().
-            anyMatch(har -> har.getLog().getEntries().stream().
-                    anyMatch(this::harEntryMatchesPredicates));
-  }
-
-  private boolean harEntryMatchesPredicates(HarEntry entry) {
-    for (Predicate<HarEntry> predicate : predicates) {
-      if (!predicate.apply(entry)) {
-        LOG.debug("HarEntry {} discarded by {}", entry.getRequest().getUrl(), predicate);
-        return false;
-      }
-    }
-    return true;
+    return query.anyMatch(item);
   }
 
 }
@@ -24,8 +24,10 @@ import java.util.List;
 import java.util.Map;
 
 import com.cognifide.qa.bb.proxy.record.har.predicates.DomainPredicate;
+import com.cognifide.qa.bb.proxy.record.har.predicates.MethodPredicate;
 import com.cognifide.qa.bb.proxy.record.har.predicates.PathPrefixPredicate;
 import com.cognifide.qa.bb.proxy.record.har.predicates.QueryParametersPredicate;
+import com.cognifide.qa.bb.proxy.record.har.predicates.StatusPredicate;
 import com.cognifide.qa.bb.proxy.record.har.predicates.UrlPrefixPredicate;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
@@ -35,6 +37,10 @@ import net.lightbody.bmp.core.har.HarEntry;
 /**
  * Class provides convenient methods for building predicates that can be used by assertions run against
  * {@link TrafficLog}*
+ * <p>
+ * The built-in predicates are answered by the index of the traffic log, so they cost the same
+ * regardless of the number of captured entries; custom predicates are applied only to the entries
+ * matched by the built-in ones.
  */
 public class TrafficLogPredicate {
 
@@ -106,6 +112,22 @@ public class TrafficLogPredicate {
     return new TrafficLogPredicate(new DomainPredicate(domainPrefix));
   }
 
+  /**
+   * @param method required HTTP method, e.g. POST
+   * @return a TrafficLogPredicate object that will match HarEntry sent with the method
+   */
+  public static TrafficLogPredicate methodIs(String method) {
+    return new TrafficLogPredicate(new MethodPredicate(method));
+  }
+
+  /**
+   * @param status required HTTP status code
+   * @return a TrafficLogPredicate object that will match HarEntry responded with the status
+   */
+  public static TrafficLogPredicate statusIs(int status) {
+    return new TrafficLogPredicate(new StatusPredicate(status));
+  }
+
   /**
    * @param expectedParams required parameters
    * @return a TrafficLogPredicate object that will match HarEntry with all expected params passed within
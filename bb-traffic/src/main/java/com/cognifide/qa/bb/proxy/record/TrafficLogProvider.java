@@ -19,28 +19,41 @@
  */
 package com.cognifide.qa.bb.proxy.record;
 
-import java.util.LinkedList;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.cognifide.qa.bb.constants.ConfigKeys;
+import com.cognifide.qa.bb.guice.Disposable;
 import com.cognifide.qa.bb.guice.ThreadScoped;
 import com.cognifide.qa.bb.proxy.ProxyEventListener;
 import com.cognifide.qa.bb.proxy.analyzer.predicate.ClosestHarEntryElector;
 import com.cognifide.qa.bb.proxy.analyzer.predicate.RequestPredicate;
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+import com.cognifide.qa.bb.traffic.constants.TrafficConfigKeys;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
 import net.lightbody.bmp.core.har.Har;
+import net.lightbody.bmp.core.har.HarEntry;
 
 /**
  * This is a provider that will produce TrafficLog instances. It is ThreadScoped, so each thread will receive
  * its own instance of TrafficLogProvider.
+ * <p>
+ * Bodies of captured requests and responses are dropped according to {@code traffic.bodies.*} properties.
+ * With {@code traffic.streaming} enabled, captured entries are appended to a file in {@code traffic.directory}
+ * once the analysis stops and its requests complete, so the memory usage doesn't grow with the amount of
+ * recorded traffic. The file is deleted when the thread scope is closed.
  */
 @ThreadScoped
-public class TrafficLogProvider implements ProxyEventListener {
+public class TrafficLogProvider implements ProxyEventListener, Disposable {
 
   private static final Logger LOG = LoggerFactory.getLogger(TrafficLogProvider.class);
 
@@ -48,7 +61,31 @@ public class TrafficLogProvider implements ProxyEventListener {
   @Named(ConfigKeys.PROXY_ENABLED)
   private boolean proxyEnabled;
 
-  private final List<Har> hars = new LinkedList<>();
+  @Inject
+  @Named(TrafficConfigKeys.TRAFFIC_STREAMING)
+  private boolean streaming;
+
+  @Inject
+  @Named(TrafficConfigKeys.TRAFFIC_DIRECTORY)
+  private String directory;
+
+  @Inject
+  @Named(TrafficConfigKeys.TRAFFIC_BODIES_MAX_SIZE)
+  private int bodiesMaxSize;
+
+  @Inject
+  @Named(TrafficConfigKeys.TRAFFIC_BODIES_CONTENT_TYPES)
+  private String bodiesContentTypes;
+
+  private final List<Har> hars = new CopyOnWriteArrayList<>();
+
+  private HarEntryIndex index;
+
+  private final Map<Har, Integer> indexedEntries = new IdentityHashMap<>();
+
+  private HarBodyFilter bodyFilter;
+
+  private HarEntryFile entryFile;
 
   @Override
   public void listeningStarted() {
@@ -57,7 +94,17 @@ public class TrafficLogProvider implements ProxyEventListener {
 
   @Override
   public void listeningStopped(Har har) {
-    this.hars.add(har);
+    if (bodyFilter == null) {
+      bodyFilter = new HarBodyFilter(bodiesMaxSize, bodiesContentTypes);
+    }
+    if (!bodyFilter.keepsAll()) {
+      har.getLog().getEntries().forEach(bodyFilter::apply);
+    }
+    if (streaming) {
+      har.getLog().getEntries().forEach(getEntryFile()::append);
+    } else {
+      this.hars.add(har);
+    }
   }
 
   @Override
@@ -87,7 +134,7 @@ public class TrafficLogProvider implements ProxyEventListener {
     if (!proxyEnabled) {
       LOG.warn("Proxy is disabled - check {} property", ConfigKeys.PROXY_ENABLED);
     }
-    return new TrafficLog(hars);
+    return streaming ? new TrafficLog(getEntryFile()) : new TrafficLog(hars, this::getIndex);
   }
 
   /**
@@ -95,6 +142,51 @@ public class TrafficLogProvider implements ProxyEventListener {
    */
   public void discard() {
     hars.clear();
+    synchronized (this) {
+      index = null;
+    }
+    if (entryFile != null) {
+      entryFile.clear();
+    }
+  }
+
+  /**
+   * Deletes the file with recorded traffic, if there is one.
+   */
+  @Override
+  public void dispose() {
+    if (entryFile != null) {
+      entryFile.delete();
+      entryFile = null;
+    }
+  }
+
+  /**
+   * Updates the index when the log is queried: entries recorded since the previous query are
+   * appended and the statuses of indexed entries whose responses have arrived since are added.
+   */
+  private synchronized HarEntryIndex getIndex() {
+    if (index == null) {
+      index = new HarEntryIndex();
+      indexedEntries.clear();
+    }
+    for (Har har : hars) {
+      List<HarEntry> entries = har.getLog().getEntries();
+      int indexed = indexedEntries.getOrDefault(har, 0);
+      if (entries.size() > indexed) {
+        index.addAll(new ArrayList<>(entries.subList(indexed, entries.size())));
+        indexedEntries.put(har, entries.size());
+      }
+    }
+    index.updateResponses();
+    return index;
+  }
+
+  private HarEntryFile getEntryFile() {
+    if (entryFile == null) {
+      entryFile = new HarEntryFile(Paths.get(directory));
+    }
+    return entryFile;
   }
 
 }
@@ -0,0 +1,106 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+import com.cognifide.qa.bb.proxy.record.har.IndexedPredicate;
+import com.google.common.base.Predicate;
+
+import net.lightbody.bmp.core.har.HarEntry;
+
+/**
+ * HarEntry predicates compiled into a query against {@link TrafficLog}. Predicates that can be
+ * answered by the {@link HarEntryIndex} of the log narrow down the candidates first, the remaining
+ * ones are applied to the candidates only. Logs without an index are scanned entry by entry.
+ */
+class TrafficLogQuery {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TrafficLogQuery.class);
+
+  private final List<Predicate<HarEntry>> predicates;
+
+  private final List<IndexedPredicate> indexedPredicates = new ArrayList<>();
+
+  private final List<Predicate<HarEntry>> otherPredicates = new ArrayList<>();
+
+  private TrafficLogQuery(List<Predicate<HarEntry>> predicates) {
+    this.predicates = predicates;
+    for (Predicate<HarEntry> predicate : predicates) {
+      if (predicate instanceof IndexedPredicate) {
+        indexedPredicates.add((IndexedPredicate) predicate);
+      } else {
+        otherPredicates.add(predicate);
+      }
+    }
+  }
+
+  /**
+   * @param predicates predicates that all have to match a single entry
+   * @return the compiled query
+   */
+  static TrafficLogQuery compile(List<Predicate<HarEntry>> predicates) {
+    return new TrafficLogQuery(predicates);
+  }
+
+  /**
+   * @param trafficLog captured traffic
+   * @return true if at least one entry of the log matches all the predicates
+   */
+  boolean anyMatch(TrafficLog trafficLog) {
+    HarEntryIndex index = trafficLog.getIndex();
+    if (index == null) {
+      try (Stream<HarEntry> entries = trafficLog.entries()) {
+        return entries.anyMatch(entry -> matches(entry, predicates));
+      }
+    }
+    BitSet candidates = index.all();
+    for (IndexedPredicate predicate : indexedPredicates) {
+      candidates.and(predicate.select(index));
+      if (candidates.isEmpty()) {
+        LOG.debug("All HarEntries discarded by {}", predicate);
+        return false;
+      }
+    }
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (matches(index.get(i), otherPredicates)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean matches(HarEntry entry, List<Predicate<HarEntry>> predicates) {
+    for (Predicate<HarEntry> predicate : predicates) {
+      if (!predicate.apply(entry)) {
+        LOG.debug("HarEntry {} discarded by {}", entry.getRequest().getUrl(), predicate);
+        return false;
+      }
+    }
+    return true;
+  }
+}
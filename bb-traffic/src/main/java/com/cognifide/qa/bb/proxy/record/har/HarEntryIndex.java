@@ -0,0 +1,245 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record.har;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.lightbody.bmp.core.har.HarEntry;
+import net.lightbody.bmp.core.har.HarNameValuePair;
+import net.lightbody.bmp.core.har.HarResponse;
+
+/**
+ * Index of captured HarEntries, built when the traffic log is queried, so queries don't have to
+ * parse every entry again. Entries are identified by their position in the index; each lookup returns the set
+ * of matching positions.
+ * <p>
+ * URLs, paths and hosts are kept in sorted maps, which serve as prefix tries - all the keys with a
+ * given prefix form a contiguous range found in logarithmic time. Query parameters, methods and
+ * response statuses are looked up by exact values.
+ * <p>
+ * Entries can be appended to an existing index. Entries indexed before their response arrived are
+ * tracked, so their statuses can be indexed later with {@link #updateResponses()}.
+ */
+public class HarEntryIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HarEntryIndex.class);
+
+  private final List<HarEntry> entries = new ArrayList<>();
+
+  private final NavigableMap<String, BitSet> urls = new TreeMap<>();
+
+  private final NavigableMap<String, BitSet> paths = new TreeMap<>();
+
+  private final NavigableMap<String, BitSet> hosts = new TreeMap<>();
+
+  private final Map<String, Map<String, BitSet>> queryParams = new HashMap<>();
+
+  private final Map<String, BitSet> methods = new HashMap<>();
+
+  private final Map<Integer, BitSet> statuses = new HashMap<>();
+
+  private final BitSet awaitingResponse = new BitSet();
+
+  /**
+   * Indexes the given entries.
+   *
+   * @param harEntries captured entries
+   */
+  public synchronized void addAll(Collection<HarEntry> harEntries) {
+    harEntries.forEach(this::add);
+  }
+
+  /**
+   * Removes all the entries from the index.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    urls.clear();
+    paths.clear();
+    hosts.clear();
+    queryParams.clear();
+    methods.clear();
+    statuses.clear();
+    awaitingResponse.clear();
+  }
+
+  /**
+   * Indexes the statuses of the entries whose responses have arrived since they were indexed. Only
+   * such entries are checked, so the cost doesn't grow with the size of the index.
+   */
+  public synchronized void updateResponses() {
+    for (int position = awaitingResponse.nextSetBit(0); position >= 0;
+        position = awaitingResponse.nextSetBit(position + 1)) {
+      HarResponse response = entries.get(position).getResponse();
+      if (hasResponse(response)) {
+        BitSet noStatus = statuses.get(0);
+        if (noStatus != null) {
+          noStatus.clear(position);
+        }
+        mark(statuses, response.getStatus(), position);
+        awaitingResponse.clear(position);
+      }
+    }
+  }
+
+  /**
+   * @return number of indexed entries that had no response when they were indexed and still
+   * haven't got one
+   */
+  public synchronized int awaitingResponses() {
+    return awaitingResponse.cardinality();
+  }
+
+  /**
+   * @return number of indexed entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @param position position of the entry in the index
+   * @return the indexed entry
+   */
+  public synchronized HarEntry get(int position) {
+    return entries.get(position);
+  }
+
+  /**
+   * @return positions of all the entries
+   */
+  public synchronized BitSet all() {
+    BitSet all = new BitSet(entries.size());
+    all.set(0, entries.size());
+    return all;
+  }
+
+  /**
+   * @param prefix URL prefix
+   * @return positions of the entries with URL starting with the prefix
+   */
+  public synchronized BitSet urlsStartingWith(String prefix) {
+    return startingWith(urls, prefix);
+  }
+
+  /**
+   * @param prefix path prefix
+   * @return positions of the entries with URL path starting with the prefix
+   */
+  public synchronized BitSet pathsStartingWith(String prefix) {
+    return startingWith(paths, prefix);
+  }
+
+  /**
+   * @param prefix host prefix
+   * @return positions of the entries with host starting with the prefix
+   */
+  public synchronized BitSet hostsStartingWith(String prefix) {
+    return startingWith(hosts, prefix);
+  }
+
+  /**
+   * @param name  query parameter name
+   * @param value query parameter value
+   * @return positions of the entries with the parameter set to the value in the query string
+   */
+  public synchronized BitSet withQueryParam(String name, String value) {
+    return copy(queryParams.getOrDefault(name, new HashMap<>()).get(value));
+  }
+
+  /**
+   * @param method HTTP method, e.g. GET
+   * @return positions of the entries sent with the method
+   */
+  public synchronized BitSet withMethod(String method) {
+    return copy(methods.get(method.toUpperCase()));
+  }
+
+  /**
+   * @param status HTTP status code
+   * @return positions of the entries responded with the status
+   */
+  public synchronized BitSet withStatus(int status) {
+    return copy(statuses.get(status));
+  }
+
+  private void add(HarEntry entry) {
+    int position = entries.size();
+    entries.add(entry);
+    String url = entry.getRequest().getUrl();
+    mark(urls, url, position);
+    try {
+      URL parsed = new URL(url);
+      mark(paths, parsed.getPath(), position);
+      mark(hosts, parsed.getHost(), position);
+    } catch (MalformedURLException e) {
+      LOG.debug("Malformed URL '{}', its path and host are not indexed", url, e);
+    }
+    for (HarNameValuePair param : entry.getRequest().getQueryString()) {
+      mark(queryParams.computeIfAbsent(param.getName(), name -> new HashMap<>()),
+          param.getValue(), position);
+    }
+    if (entry.getRequest().getMethod() != null) {
+      mark(methods, entry.getRequest().getMethod().toUpperCase(), position);
+    }
+    if (entry.getResponse() != null) {
+      mark(statuses, entry.getResponse().getStatus(), position);
+    }
+    if (!hasResponse(entry.getResponse())) {
+      awaitingResponse.set(position);
+    }
+  }
+
+  // requests in flight have no response yet, failed ones have status 0
+  private static boolean hasResponse(HarResponse response) {
+    return response != null && response.getStatus() != 0;
+  }
+
+  private static <K> void mark(Map<K, BitSet> index, K key, int position) {
+    index.computeIfAbsent(key, k -> new BitSet()).set(position);
+  }
+
+  private static BitSet startingWith(NavigableMap<String, BitSet> index, String prefix) {
+    BitSet result = new BitSet();
+    for (Map.Entry<String, BitSet> entry : index.tailMap(prefix, true).entrySet()) {
+      if (!entry.getKey().startsWith(prefix)) {
+        break;
+      }
+      result.or(entry.getValue());
+    }
+    return result;
+  }
+
+  private static BitSet copy(BitSet positions) {
+    return positions == null ? new BitSet() : (BitSet) positions.clone();
+  }
+}
@@ -0,0 +1,39 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record.har;
+
+import java.util.BitSet;
+
+import com.google.common.base.Predicate;
+
+import net.lightbody.bmp.core.har.HarEntry;
+
+/**
+ * HarEntry predicate that can be answered by a {@link HarEntryIndex} instead of being applied to each
+ * entry.
+ */
+public interface IndexedPredicate extends Predicate<HarEntry> {
+
+  /**
+   * @param index index of captured entries
+   * @return positions of the indexed entries matched by this predicate
+   */
+  BitSet select(HarEntryIndex index);
+}
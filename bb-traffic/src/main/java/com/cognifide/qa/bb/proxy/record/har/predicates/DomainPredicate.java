@@ -21,15 +21,17 @@ package com.cognifide.qa.bb.proxy.record.har.predicates;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.BitSet;
 
-import com.google.common.base.Predicate;
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+import com.cognifide.qa.bb.proxy.record.har.IndexedPredicate;
 
 import net.lightbody.bmp.core.har.HarEntry;
 
 /**
  * Predicate that matches HarEntries with matching domain prefix
  */
-public class DomainPredicate implements Predicate<HarEntry> {
+public class DomainPredicate implements IndexedPredicate {
 
   private final String domainPrefix;
 
@@ -49,6 +51,11 @@ public class DomainPredicate implements Predicate<HarEntry> {
     return url.getHost().startsWith(domainPrefix);
   }
 
+  @Override
+  public BitSet select(HarEntryIndex index) {
+    return index.hostsStartingWith(domainPrefix);
+  }
+
   @Override
   public String toString() {
     return String.format("DomainPredicate (%s)", this.domainPrefix);
@@ -21,15 +21,17 @@ package com.cognifide.qa.bb.proxy.record.har.predicates;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.BitSet;
 
-import com.google.common.base.Predicate;
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+import com.cognifide.qa.bb.proxy.record.har.IndexedPredicate;
 
 import net.lightbody.bmp.core.har.HarEntry;
 
 /**
  * Predicate that matches HarEntries with matching URL path prefix
  */
-public class PathPrefixPredicate implements Predicate<HarEntry> {
+public class PathPrefixPredicate implements IndexedPredicate {
 
   private final String pathPrefix;
 
@@ -55,6 +57,11 @@ public class PathPrefixPredicate implements Predicate<HarEntry> {
     return path.startsWith(pathPrefix);
   }
 
+  @Override
+  public BitSet select(HarEntryIndex index) {
+    return index.pathsStartingWith(pathPrefix);
+  }
+
   @Override
   public String toString() {
     return String.format("PathPrefixPredicate(resource path starts with %s)", this.pathPrefix);
@@ -19,11 +19,13 @@
  */
 package com.cognifide.qa.bb.proxy.record.har.predicates;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import com.google.common.base.Predicate;
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+import com.cognifide.qa.bb.proxy.record.har.IndexedPredicate;
 
 import net.lightbody.bmp.core.har.HarEntry;
 import net.lightbody.bmp.core.har.HarNameValuePair;
@@ -31,7 +33,7 @@ import net.lightbody.bmp.core.har.HarNameValuePair;
 /**
  * Predicate that matches HarEntries with matching query parameters
  */
-public class QueryParametersPredicate implements Predicate<HarEntry> {
+public class QueryParametersPredicate implements IndexedPredicate {
 
   private final Map<String, String> expectedParams;
 
@@ -56,6 +58,15 @@ public class QueryParametersPredicate implements Predicate<HarEntry> {
     return true;
   }
 
+  @Override
+  public BitSet select(HarEntryIndex index) {
+    BitSet selected = index.all();
+    for (Entry<String, String> expectedParam : expectedParams.entrySet()) {
+      selected.and(index.withQueryParam(expectedParam.getKey(), expectedParam.getValue()));
+    }
+    return selected;
+  }
+
   @Override
   public String toString() {
     return String.format("QueryParametersPredicate(query params match %s)", this.expectedParams);
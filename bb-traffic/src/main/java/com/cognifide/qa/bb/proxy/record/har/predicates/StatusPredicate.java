@@ -0,0 +1,59 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record.har.predicates;
+
+import java.util.BitSet;
+
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+import com.cognifide.qa.bb.proxy.record.har.IndexedPredicate;
+
+import net.lightbody.bmp.core.har.HarEntry;
+
+/**
+ * Predicate that matches HarEntries responded with given HTTP status
+ */
+public class StatusPredicate implements IndexedPredicate {
+
+  private final int status;
+
+  /**
+   * Constructor. Initializes StatusPredicate.
+   *
+   * @param status HTTP status code, e.g. 200
+   */
+  public StatusPredicate(int status) {
+    this.status = status;
+  }
+
+  @Override
+  public boolean apply(HarEntry harEntry) {
+    return harEntry.getResponse() != null && harEntry.getResponse().getStatus() == status;
+  }
+
+  @Override
+  public BitSet select(HarEntryIndex index) {
+    return index.withStatus(status);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("StatusPredicate(status is %d)", this.status);
+  }
+}
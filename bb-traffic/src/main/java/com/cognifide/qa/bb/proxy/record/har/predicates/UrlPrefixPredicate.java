@@ -19,14 +19,17 @@
  */
 package com.cognifide.qa.bb.proxy.record.har.predicates;
 
-import com.google.common.base.Predicate;
+import java.util.BitSet;
+
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+import com.cognifide.qa.bb.proxy.record.har.IndexedPredicate;
 
 import net.lightbody.bmp.core.har.HarEntry;
 
 /**
  * Predicate that matches HarEntries with matching URL prefix
  */
-public class UrlPrefixPredicate implements Predicate<HarEntry> {
+public class UrlPrefixPredicate implements IndexedPredicate {
 
   private final String urlPrefix;
 
@@ -44,6 +47,11 @@ public class UrlPrefixPredicate implements Predicate<HarEntry> {
     return harEntry.getRequest().getUrl().startsWith(urlPrefix);
   }
 
+  @Override
+  public BitSet select(HarEntryIndex index) {
+    return index.urlsStartingWith(urlPrefix);
+  }
+
   @Override
   public String toString() {
     return String.format("UrlPrefixPredicate(url starts with %s)", this.urlPrefix);
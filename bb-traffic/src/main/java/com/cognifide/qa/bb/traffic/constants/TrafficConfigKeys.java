@@ -25,6 +25,31 @@ public final class TrafficConfigKeys {
 
   public static final String ANALYTICS_URI_PREFIX = "analytics.uri.prefix";
 
+  /**
+   * Writes recorded traffic to a file instead of keeping it in memory.
+   */
+  public static final String TRAFFIC_STREAMING = "traffic.streaming";
+
+  /**
+   * Directory of the files with recorded traffic.
+   */
+  public static final String TRAFFIC_DIRECTORY = "traffic.directory";
+
+  /**
+   * Maximum length of request and response bodies kept in recorded traffic, -1 for no limit.
+   */
+  public static final String TRAFFIC_BODIES_MAX_SIZE = "traffic.bodies.maxSize";
+
+  /**
+   * Comma-separated MIME type prefixes of bodies kept in recorded traffic, empty for all.
+   */
+  public static final String TRAFFIC_BODIES_CONTENT_TYPES = "traffic.bodies.contentTypes";
+
+  /**
+   * Number of platform threads finishing traffic analyses, 0 to use virtual threads when available.
+   */
+  public static final String TRAFFIC_ANALYZER_THREADS = "traffic.analyzer.threads";
+
   private TrafficConfigKeys() {
     // utility class
   }
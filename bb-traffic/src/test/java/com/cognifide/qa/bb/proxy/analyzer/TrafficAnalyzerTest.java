@@ -0,0 +1,179 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.cognifide.qa.bb.guice.ThreadLocalScope;
+import com.cognifide.qa.bb.metrics.Metrics;
+import com.cognifide.qa.bb.proxy.ProxyController;
+import com.cognifide.qa.bb.proxy.ProxyEventListener;
+import com.cognifide.qa.bb.proxy.RequestFilterRegistry;
+import com.cognifide.qa.bb.proxy.analyzer.predicate.RequestPredicate;
+
+import io.netty.handler.codec.http.HttpRequest;
+
+public class TrafficAnalyzerTest {
+
+  private static final int LONG_TIMEOUT = 60;
+  private ProxyController controller;
+  private RequestFilterRegistry registry;
+  private ProxyEventListener listener;
+  private RequestPredicate predicate;
+  private RequestPredicate otherPredicate;
+  private HttpRequest request;
+
+  private PredicateRequestFilter requestFilter;
+
+  private AnalysisExecutor executor;
+
+  private Metrics metrics;
+
+  private TrafficAnalyzer tested;
+
+  @BeforeEach
+  public void setUp() throws IllegalAccessException {
+    controller = mock(ProxyController.class);
+    registry = mock(RequestFilterRegistry.class);
+    listener = mock(ProxyEventListener.class);
+    predicate = mock(RequestPredicate.class);
+    otherPredicate = mock(RequestPredicate.class);
+    request = mock(HttpRequest.class);
+    requestFilter = new PredicateRequestFilter(registry);
+    metrics = mock(Metrics.class);
+    executor = new AnalysisExecutor(1, metrics);
+    tested = new TrafficAnalyzer();
+    FieldUtils.writeField(tested, "proxyListeners", Collections.singleton(listener), true);
+    FieldUtils.writeField(tested, "controller", controller, true);
+    FieldUtils.writeField(tested, "requestFilter", requestFilter, true);
+    FieldUtils.writeField(tested, "proxyEnabled", true, true);
+    FieldUtils.writeField(tested, "scope", new ThreadLocalScope(), true);
+    FieldUtils.writeField(tested, "executor", executor, true);
+    FieldUtils.writeField(tested, "metrics", new Metrics(false, "", null), true);
+  }
+
+  @Test
+  public void shouldCompleteAsSoonAsMatchingRequestArrives() throws Exception {
+    when(predicate.accepts(request)).thenReturn(true);
+    Future<Boolean> analysis = tested.analyzeTraffic(predicate, LONG_TIMEOUT);
+
+    requestFilter.filterRequest(request, null, null);
+
+    assertTrue(analysis.get(5, TimeUnit.SECONDS));
+    verify(controller).startAnalysis();
+    verify(listener).waitingForRequest(predicate, null);
+    verify(listener).requestFound();
+    verify(listener, never()).timeout();
+    verify(controller).stopAnalysis();
+    verify(listener).dispatch();
+    assertEquals(0, requestFilter.getPendingCount());
+  }
+
+  @Test
+  public void shouldCompleteWithFalseAfterTimeout() throws Exception {
+    Future<Boolean> analysis = tested.analyzeTraffic(predicate, 0);
+
+    assertFalse(analysis.get(5, TimeUnit.SECONDS));
+    verify(listener).timeout();
+    verify(listener, never()).requestFound();
+    verify(controller).stopAnalysis();
+  }
+
+  @Test
+  public void shouldStopAnalysisWhenCancelled() {
+    Future<Boolean> analysis = tested.analyzeTraffic(predicate, LONG_TIMEOUT);
+
+    assertTrue(analysis.cancel(true));
+
+    assertThrows(CancellationException.class, analysis::get);
+    verify(controller, timeout(5000)).stopAnalysis();
+    verify(listener, never()).timeout();
+    verify(listener, never()).requestFound();
+    assertEquals(0, requestFilter.getPendingCount());
+  }
+
+  @Test
+  public void shouldShareSingleFilterBetweenConcurrentAnalyses() throws Exception {
+    when(predicate.accepts(request)).thenReturn(true);
+    when(otherPredicate.accepts(request)).thenReturn(false);
+    Future<Boolean> analysis = tested.analyzeTraffic(predicate, LONG_TIMEOUT);
+    Future<Boolean> otherAnalysis = tested.analyzeTraffic(otherPredicate, LONG_TIMEOUT);
+
+    requestFilter.filterRequest(request, null, null);
+
+    assertTrue(analysis.get(5, TimeUnit.SECONDS));
+    assertFalse(otherAnalysis.isDone());
+    assertEquals(1, requestFilter.getPendingCount());
+    verify(registry).add(any());
+    otherAnalysis.cancel(false);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldCountAnalysesInFlight() throws Exception {
+    when(predicate.accepts(request)).thenReturn(true);
+    Future<Boolean> analysis = tested.analyzeTraffic(predicate, LONG_TIMEOUT);
+    Future<Boolean> otherAnalysis = tested.analyzeTraffic(otherPredicate, LONG_TIMEOUT);
+    assertEquals(2, executor.getInFlightAnalyses());
+
+    requestFilter.filterRequest(request, null, null);
+    analysis.get(5, TimeUnit.SECONDS);
+
+    assertEquals(1, executor.getInFlightAnalyses());
+    verify(metrics).recordLevel(Metrics.TRAFFIC, AnalysisExecutor.IN_FLIGHT, 2);
+    executor.shutdown();
+    assertThrows(CancellationException.class, otherAnalysis::get);
+    assertEquals(0, executor.getInFlightAnalyses());
+    verify(controller, timeout(5000).times(2)).stopAnalysis();
+    assertThrows(IllegalStateException.class, () -> tested.analyzeTraffic(predicate, 1));
+  }
+
+  @Test
+  public void shouldNotStartAnalysisWhenProxyIsDisabled() throws Exception {
+    FieldUtils.writeField(tested, "proxyEnabled", false, true);
+
+    assertFalse(tested.analyzeTraffic(predicate, LONG_TIMEOUT).get());
+    verify(controller, never()).startAnalysis();
+    verify(listener).dispatch();
+  }
+}
@@ -23,10 +23,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -34,6 +36,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import com.google.common.collect.ImmutableMap;
 
 import io.netty.handler.codec.http.HttpRequest;
+import net.lightbody.bmp.core.har.HarNameValuePair;
 
 public class RequestPredicateImplTest {
 
@@ -75,6 +78,17 @@ public class RequestPredicateImplTest {
     assertEquals(acceptationResult, expectedResult);
   }
 
+  @Test
+  public void shouldScoreMatchingQueryParameters() {
+    RequestPredicateImpl predicate = new RequestPredicateImpl(VALID_URL,
+        ImmutableMap.of("some-param", "some-value", "other-param", "other-value"));
+
+    assertEquals(1, predicate.calculateScore(Arrays.asList(
+        new HarNameValuePair("some-param", "some-value"),
+        new HarNameValuePair("other-param", "unexpected-value"),
+        new HarNameValuePair("unexpected-param", "other-value"))));
+  }
+
   private HttpRequest createMockedHttpRequest(String path, String queryString) {
     HttpRequest request = mock(HttpRequest.class, RETURNS_DEEP_STUBS);
     when(request.getUri()).thenReturn(path + "?" + queryString);
@@ -0,0 +1,195 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.cognifide.qa.bb.proxy.record.har.HarEntryIndex;
+
+import net.lightbody.bmp.core.har.Har;
+import net.lightbody.bmp.core.har.HarContent;
+import net.lightbody.bmp.core.har.HarEntry;
+import net.lightbody.bmp.core.har.HarLog;
+import net.lightbody.bmp.core.har.HarNameValuePair;
+import net.lightbody.bmp.core.har.HarRequest;
+import net.lightbody.bmp.core.har.HarResponse;
+
+public class TrafficLogProviderTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void shouldKeepCapturedTrafficInMemoryByDefault() throws IllegalAccessException {
+    TrafficLogProvider provider = provider(false, -1, "");
+
+    provider.listeningStopped(har(entry("http://example.com/a", "text/html", "body")));
+
+    assertEquals(1, provider.get().getHars().size());
+    assertEquals(1, count(provider.get()));
+  }
+
+  @Test
+  public void shouldIndexEntriesRecordedAfterPreviousQuery() throws IllegalAccessException {
+    TrafficLogProvider provider = provider(false, -1, "");
+    HarEntry pending = entry("http://example.com/a", "text/html", "body");
+    pending.setResponse(null);
+    Har har = har(pending);
+    provider.listeningStopped(har);
+    assertFalse(matches(provider, TrafficLogPredicate.statusIs(200)));
+
+    HarResponse response = new HarResponse();
+    response.setStatus(200);
+    pending.setResponse(response);
+    har.getLog().addEntry(entry("http://example.com/b", "text/html", "body"));
+
+    assertTrue(matches(provider, TrafficLogPredicate.statusIs(200)));
+    assertTrue(matches(provider, TrafficLogPredicate.urlStartsWith("http://example.com/b")));
+  }
+
+  @Test
+  public void shouldKeepIndexOfFailedRequestsBetweenQueries() throws IllegalAccessException {
+    TrafficLogProvider provider = provider(false, -1, "");
+    // failed and aborted requests keep status 0 for good
+    provider.listeningStopped(har(entry("http://example.com/a", "text/html", "body")));
+    assertFalse(matches(provider, TrafficLogPredicate.statusIs(200)));
+    Object index = FieldUtils.readField(provider, "index", true);
+
+    assertTrue(matches(provider, TrafficLogPredicate.statusIs(0)));
+
+    assertSame(index, FieldUtils.readField(provider, "index", true));
+    assertEquals(1, ((HarEntryIndex) index).size());
+  }
+
+  @Test
+  public void shouldStreamCapturedTrafficThroughFile() throws Exception {
+    TrafficLogProvider provider = provider(true, -1, "");
+
+    provider.listeningStopped(har(entry("http://example.com/a", "text/html", "body")));
+    provider.listeningStopped(har(entry("http://example.com/b", "text/html", "body")));
+
+    List<String> urls;
+    try (Stream<HarEntry> entries = provider.get().entries()) {
+      urls = entries.map(entry -> entry.getRequest().getUrl()).collect(Collectors.toList());
+    }
+    assertEquals(2, urls.size());
+    assertEquals("http://example.com/b", urls.get(1));
+    assertEquals("body", provider.get().getHars().get(0).getLog().getEntries().get(0)
+        .getResponse().getContent().getText());
+    assertEquals(new HarNameValuePair("Accept", "text/html"), provider.get().getHars().get(0)
+        .getLog().getEntries().get(0).getRequest().getHeaders().get(0));
+  }
+
+  @Test
+  public void shouldDiscardStreamedTraffic() throws Exception {
+    TrafficLogProvider provider = provider(true, -1, "");
+    provider.listeningStopped(har(entry("http://example.com/a", "text/html", "body")));
+
+    provider.discard();
+
+    assertEquals(0, count(provider.get()));
+  }
+
+  @Test
+  public void shouldDeleteTrafficFileOnDispose() throws Exception {
+    TrafficLogProvider provider = provider(true, -1, "");
+    provider.listeningStopped(har(entry("http://example.com/a", "text/html", "body")));
+
+    provider.dispose();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertFalse(files.findAny().isPresent());
+    }
+  }
+
+  @Test
+  public void shouldDropBodiesOverSizeLimitOrOfOtherContentTypes() throws IllegalAccessException {
+    TrafficLogProvider provider = provider(false, 4, "application/json");
+
+    provider.listeningStopped(har(
+        entry("http://example.com/a", "application/json", "{}"),
+        entry("http://example.com/b", "application/json", "{\"a\":1}"),
+        entry("http://example.com/c", "image/png", "png")));
+
+    List<HarEntry> entries = provider.get().getHars().get(0).getLog().getEntries();
+    assertEquals("{}", entries.get(0).getResponse().getContent().getText());
+    assertNull(entries.get(1).getResponse().getContent().getText());
+    assertNull(entries.get(2).getResponse().getContent().getText());
+    assertTrue(entries.get(2).getResponse().getContent().getComment().contains("omitted"));
+  }
+
+  private TrafficLogProvider provider(boolean streaming, int maxSize, String contentTypes)
+      throws IllegalAccessException {
+    TrafficLogProvider provider = new TrafficLogProvider();
+    FieldUtils.writeField(provider, "proxyEnabled", true, true);
+    FieldUtils.writeField(provider, "streaming", streaming, true);
+    FieldUtils.writeField(provider, "directory", directory.toString(), true);
+    FieldUtils.writeField(provider, "bodiesMaxSize", maxSize, true);
+    FieldUtils.writeField(provider, "bodiesContentTypes", contentTypes, true);
+    return provider;
+  }
+
+  private static boolean matches(TrafficLogProvider provider, TrafficLogPredicate predicate) {
+    return TrafficLogQuery.compile(predicate.getPredicates()).anyMatch(provider.get());
+  }
+
+  private static long count(TrafficLog trafficLog) {
+    try (Stream<HarEntry> entries = trafficLog.entries()) {
+      return entries.count();
+    }
+  }
+
+  private static Har har(HarEntry... entries) {
+    HarLog log = new HarLog();
+    for (HarEntry entry : entries) {
+      log.addEntry(entry);
+    }
+    return new Har(log);
+  }
+
+  private static HarEntry entry(String url, String mimeType, String body) {
+    HarEntry entry = new HarEntry();
+    HarRequest request = new HarRequest();
+    request.setUrl(url);
+    request.setMethod("GET");
+    request.getHeaders().add(new HarNameValuePair("Accept", mimeType));
+    entry.setRequest(request);
+    HarResponse response = new HarResponse();
+    HarContent content = response.getContent();
+    content.setMimeType(mimeType);
+    content.setText(body);
+    entry.setResponse(response);
+    return entry;
+  }
+}
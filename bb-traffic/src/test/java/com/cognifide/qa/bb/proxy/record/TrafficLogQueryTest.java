@@ -0,0 +1,140 @@
+/*-
+ * #%L
+ * Bobcat
+ * %%
+ * Copyright (C) 2016 Cognifide Ltd.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.cognifide.qa.bb.proxy.record;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.base.Predicate;
+
+import net.lightbody.bmp.core.har.Har;
+import net.lightbody.bmp.core.har.HarEntry;
+import net.lightbody.bmp.core.har.HarLog;
+import net.lightbody.bmp.core.har.HarNameValuePair;
+import net.lightbody.bmp.core.har.HarRequest;
+import net.lightbody.bmp.core.har.HarResponse;
+
+public class TrafficLogQueryTest {
+
+  @TempDir
+  Path directory;
+
+  private final TrafficLog trafficLog = new TrafficLog(Collections.singletonList(har(
+      entry("GET", "http://www.example.com/content/page.html", 200),
+      entry("GET", "http://metrics.example.com/b/ss/suite?pageName=home&events=event1", 200),
+      entry("POST", "http://metrics.example.com/b/ss/suite?pageName=contact", 302))));
+
+  @Test
+  public void shouldMatchEntryByIndexedPredicates() {
+    assertTrue(matches(TrafficLogPredicate.domainStartsWith("metrics.")
+        .add(TrafficLogPredicate.pathStartsWith("/b/ss"))
+        .add(TrafficLogPredicate.queryParamWithValueExists("pageName", "contact"))
+        .add(TrafficLogPredicate.methodIs("post"))
+        .add(TrafficLogPredicate.statusIs(302))));
+    assertTrue(matches(TrafficLogPredicate.urlStartsWith("http://www.example.com/content")));
+  }
+
+  @Test
+  public void shouldRequireAllPredicatesToMatchSameEntry() {
+    assertFalse(matches(TrafficLogPredicate.queryParamsMatch(param("pageName", "home"))
+        .add(TrafficLogPredicate.methodIs("POST"))));
+    assertFalse(matches(TrafficLogPredicate.pathStartsWith("/b/ss")
+        .add(TrafficLogPredicate.queryParamWithValueExists("events", "event2"))));
+    assertFalse(matches(TrafficLogPredicate.domainStartsWith("example.com")));
+  }
+
+  @Test
+  public void shouldApplyCustomPredicatesToIndexedCandidates() {
+    Predicate<HarEntry> secure = entry -> entry.getRequest().getUrl().startsWith("https");
+    Predicate<HarEntry> home = entry -> entry.getRequest().getUrl().contains("home");
+
+    assertFalse(matches(TrafficLogPredicate.pathStartsWith("/b/ss").add(secure)));
+    assertTrue(matches(TrafficLogPredicate.pathStartsWith("/b/ss").add(home)));
+    assertFalse(matches(TrafficLogPredicate.pathStartsWith("/content").add(home)));
+  }
+
+  @Test
+  public void shouldScanStreamedTrafficWithoutIndex() throws Exception {
+    TrafficLogProvider provider = new TrafficLogProvider();
+    FieldUtils.writeField(provider, "streaming", true, true);
+    FieldUtils.writeField(provider, "directory", directory.toString(), true);
+    FieldUtils.writeField(provider, "bodiesMaxSize", -1, true);
+    FieldUtils.writeField(provider, "bodiesContentTypes", "", true);
+    provider.listeningStopped(trafficLog.getHars().get(0));
+
+    TrafficLog streamed = provider.get();
+
+    assertNull(streamed.getIndex());
+    assertTrue(TrafficLogQuery.compile(TrafficLogPredicate.domainStartsWith("metrics.")
+        .add(TrafficLogPredicate.methodIs("POST")).getPredicates()).anyMatch(streamed));
+    provider.dispose();
+  }
+
+  @Test
+  public void shouldBuildIndexOfProvidedHars() {
+    assertNotNull(trafficLog.getIndex());
+  }
+
+  private boolean matches(TrafficLogPredicate predicate) {
+    return TrafficLogQuery.compile(predicate.getPredicates()).anyMatch(trafficLog);
+  }
+
+  private static Map<String, String> param(String name, String value) {
+    return Collections.singletonMap(name, value);
+  }
+
+  private static Har har(HarEntry... entries) {
+    HarLog log = new HarLog();
+    Arrays.stream(entries).forEach(log::addEntry);
+    return new Har(log);
+  }
+
+  private static HarEntry entry(String method, String url, int status) {
+    HarRequest request = new HarRequest();
+    request.setMethod(method);
+    request.setUrl(url);
+    List<HarNameValuePair> queryString = request.getQueryString();
+    int query = url.indexOf('?');
+    if (query > 0) {
+      for (String param : url.substring(query + 1).split("&")) {
+        String[] nameAndValue = param.split("=");
+        queryString.add(new HarNameValuePair(nameAndValue[0], nameAndValue[1]));
+      }
+    }
+    HarResponse response = new HarResponse();
+    response.setStatus(status);
+    HarEntry entry = new HarEntry();
+    entry.setRequest(request);
+    entry.setResponse(response);
+    return entry;
+  }
+}